@@ -26,6 +26,7 @@ import io.airlift.units.Duration;
 import io.hetu.core.plugin.carbondata.impl.CarbondataTableCacheModel;
 import io.hetu.core.plugin.carbondata.impl.CarbondataTableReader;
 import io.prestosql.plugin.hive.BaseStorageFormat;
+import io.prestosql.plugin.hive.DirectoryLister;
 import io.prestosql.plugin.hive.HdfsEnvironment;
 import io.prestosql.plugin.hive.HiveACIDWriteType;
 import io.prestosql.plugin.hive.HiveBasicStatistics;
@@ -282,13 +283,14 @@ public class CarbondataMetadata
             TypeTranslator typeTranslator, String hetuVersion,
             HiveStatisticsProvider hiveStatisticsProvider, AccessControlMetadata accessControlMetadata,
             CarbondataTableReader carbondataTableReader, String carbondataTableStore, long carbondataMajorVacuumSegSize, long carbondataMinorVacuumSegCount,
-            ScheduledExecutorService executorService, ScheduledExecutorService hiveMetastoreClientService)
+            ScheduledExecutorService executorService, ScheduledExecutorService hiveMetastoreClientService,
+            DirectoryLister directoryLister)
     {
         super(metastore, hdfsEnvironment, partitionManager,
                 writesToNonManagedTablesEnabled, createsOfNonManagedTablesEnabled, tableCreatesWithLocationAllowed,
                 typeManager, locationService, partitionUpdateCodec, typeTranslator, hetuVersion,
                 hiveStatisticsProvider, accessControlMetadata, false, 2, 0.0, executorService,
-                Optional.of(new Duration(5, TimeUnit.MINUTES)), hiveMetastoreClientService, null);
+                Optional.of(new Duration(5, TimeUnit.MINUTES)), hiveMetastoreClientService, null, directoryLister);
         this.carbondataTableReader = carbondataTableReader;
         this.carbondataTableStore = carbondataTableStore;
         this.metadataLock = null;
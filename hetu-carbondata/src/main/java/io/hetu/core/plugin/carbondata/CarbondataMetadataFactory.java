@@ -20,6 +20,7 @@ import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.hetu.core.plugin.carbondata.impl.CarbondataTableReader;
+import io.prestosql.plugin.hive.DirectoryLister;
 import io.prestosql.plugin.hive.ForHive;
 import io.prestosql.plugin.hive.ForHiveMetastore;
 import io.prestosql.plugin.hive.ForHiveTransactionHeartbeats;
@@ -88,7 +89,7 @@ public class CarbondataMetadataFactory
                                      JsonCodec<CarbondataSegmentInfoUtil> segmentInfoCodec,
                                      TypeTranslator typeTranslator, NodeVersion nodeVersion,
                                      AccessControlMetadataFactory accessControlMetadataFactory,
-                                     CarbondataTableReader carbondataTableReader)
+                                     CarbondataTableReader carbondataTableReader, DirectoryLister directoryLister)
     {
         this(metastore, hdfsEnvironment, partitionManager,
                 carbondataConfig.getMaxConcurrentFileRenames(),
@@ -104,7 +105,7 @@ public class CarbondataMetadataFactory
                 vacuumExecutorService, heartbeatService, hiveMetastoreClientService, typeTranslator, nodeVersion.toString(),
                 accessControlMetadataFactory, carbondataTableReader, carbondataConfig.getStoreLocation(),
                 carbondataConfig.getMajorVacuumSegSize(), carbondataConfig.getMinorVacuumSegCount(),
-                carbondataConfig.getAutoVacuumEnable(), carbondataConfig.getMetastoreWriteBatchSize());
+                carbondataConfig.getAutoVacuumEnable(), carbondataConfig.getMetastoreWriteBatchSize(), directoryLister);
     }
 
     public CarbondataMetadataFactory(HiveMetastore metastore, HdfsEnvironment hdfsEnvironment,
@@ -124,7 +125,7 @@ public class CarbondataMetadataFactory
                                      TypeTranslator typeTranslator, String hetuVersion,
                                      AccessControlMetadataFactory accessControlMetadataFactory,
                                      CarbondataTableReader carbondataTableReader, String storeLocation, long majorVacuumSegSize, long minorVacuumSegCount,
-                                     boolean autoVacuumEnable, int hmsWriteBatchSize)
+                                     boolean autoVacuumEnable, int hmsWriteBatchSize, DirectoryLister directoryLister)
     {
         super(metastore,
                 hdfsEnvironment,
@@ -150,7 +151,7 @@ public class CarbondataMetadataFactory
                 accessControlMetadataFactory,
                 2, 0.0, false,
                 Optional.of(new Duration(5, TimeUnit.MINUTES)),
-                hmsWriteBatchSize, null);
+                hmsWriteBatchSize, null, directoryLister);
         this.skipDeletionForAlter = skipDeletionForAlter;
         this.skipTargetCleanupOnRollback = skipTargetCleanupOnRollback;
         this.writesToNonManagedTablesEnabled = writesToNonManagedTablesEnabled;
@@ -219,6 +220,7 @@ public class CarbondataMetadataFactory
                 this.carbondataMajorVacuumSegmentSize,
                 this.carbondataMinorVacuumSegmentCount,
                 vacuumExecutorService,
-                hiveMetastoreClientService);
+                hiveMetastoreClientService,
+                directoryLister);
     }
 }
@@ -438,7 +438,7 @@ public class ClickHouseClient
                     connection,
                     null,
                     null,
-                    table.getGeneratedSql().get().getSql(),
+                    split.getPushDownSql().orElse(table.getGeneratedSql().get().getSql()),
                     columns,
                     table.getConstraint(),
                     split.getAdditionalPredicate(),
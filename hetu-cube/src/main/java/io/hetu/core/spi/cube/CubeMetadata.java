@@ -19,6 +19,7 @@ import io.hetu.core.spi.cube.aggregator.AggregationSignature;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -46,6 +47,13 @@ public interface CubeMetadata
      */
     long getSourceTableLastUpdatedTime();
 
+    /**
+     * Returns the source table partitions whose data has been inserted into the cube,
+     * mapped to the last modified time of each partition at the time of insertion.
+     * Empty if the source table is not partitioned or the connector does not report partitions.
+     */
+    Map<String, Long> getSourcePartitions();
+
     /**
      * Return the names of the dimension columns
      */
@@ -15,6 +15,7 @@
 
 package io.hetu.core.spi.cube;
 
+import java.util.Map;
 import java.util.Set;
 
 public interface CubeMetadataBuilder
@@ -33,5 +34,7 @@ public interface CubeMetadataBuilder
 
     void setCubeLastUpdatedTime(long cubeLastUpdatedTime);
 
+    void setSourcePartitions(Map<String, Long> sourcePartitions);
+
     CubeMetadata build();
 }
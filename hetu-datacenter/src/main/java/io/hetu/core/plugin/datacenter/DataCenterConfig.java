@@ -24,6 +24,7 @@ import io.prestosql.plugin.jdbc.optimization.JdbcPushDownModule;
 import io.prestosql.spi.function.Mandatory;
 
 import javax.annotation.Nullable;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import java.net.URI;
@@ -48,6 +49,10 @@ public class DataCenterConfig
 
     private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 20;
 
+    private static final int DEFAULT_PREFETCH_PAGES = 0;
+
+    private static final int DEFAULT_PAGE_SOURCE_STREAMS = 1;
+
     private URI connectionUrl;
 
     private String connectionUser = System.getProperty("user.name");
@@ -123,6 +128,10 @@ public class DataCenterConfig
 
     private Duration updateThreshold = new Duration(1, TimeUnit.MINUTES);
 
+    private int prefetchPages = DEFAULT_PREFETCH_PAGES;
+
+    private int pageSourceStreams = DEFAULT_PAGE_SOURCE_STREAMS;
+
     @NotNull
     public URI getConnectionUrl()
     {
@@ -844,4 +853,44 @@ public class DataCenterConfig
         this.maxIdleConnections = maxIdleConnectionsParameter;
         return this;
     }
+
+    @Min(0)
+    public int getPrefetchPages()
+    {
+        return this.prefetchPages;
+    }
+
+    /**
+     * set number of remote result pages a page source buffers ahead of the engine.
+     *
+     * @param prefetchPagesParameter number of buffered pages, 0 fetches the results on the driver thread.
+     * @return DataCenterConfig object
+     */
+    @Config("dc.page-source.prefetch-pages")
+    @ConfigDescription("Number of remote result pages fetched ahead in the background, 0 disables prefetching")
+    public DataCenterConfig setPrefetchPages(int prefetchPagesParameter)
+    {
+        this.prefetchPages = prefetchPagesParameter;
+        return this;
+    }
+
+    @Min(1)
+    public int getPageSourceStreams()
+    {
+        return this.pageSourceStreams;
+    }
+
+    /**
+     * set number of parallel result streams of a page source, used when prefetching is enabled.
+     *
+     * @param pageSourceStreamsParameter number of streams, each one is a consumer of the remote query.
+     * @return DataCenterConfig object
+     */
+    @Config("dc.page-source.streams")
+    @ConfigDescription("Number of parallel result streams each split pulls from the remote query")
+    public DataCenterConfig setPageSourceStreams(int pageSourceStreamsParameter)
+    {
+        this.pageSourceStreams = pageSourceStreamsParameter;
+        return this;
+    }
 }
@@ -154,6 +154,7 @@ public class DataCenterConnector
         catch (Exception e) {
             log.error(e, "Error shutting down connector");
         }
+        this.pageSourceProvider.shutdown();
         this.httpClient.dispatcher().executorService().shutdown();
         this.httpClient.connectionPool().evictAll();
     }
@@ -15,11 +15,13 @@
 
 package io.hetu.core.plugin.datacenter.pagesource;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
 import io.prestosql.client.DataCenterClientSession;
 import io.prestosql.client.DataCenterStatementClient;
 import io.prestosql.spi.Page;
+import io.prestosql.spi.classloader.ThreadContextClassLoader;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
@@ -30,6 +32,7 @@ import io.prestosql.spi.dynamicfilter.HashSetDynamicFilter;
 import okhttp3.OkHttpClient;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,9 +40,24 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Data center page source.
+ * When prefetching is enabled, remote result pages are fetched by background tasks into a bounded buffer while
+ * the engine processes the previous ones. Each task is one stream, a separate consumer of the remote query, so
+ * several HTTP round trips to the remote data center are in flight at the same time. The streams start once the
+ * dynamic filters available are sent to the remote data center, so that they already filter the first pages.
  *
  * @since 2020-02-11
  */
@@ -48,15 +66,32 @@ public class DataCenterPageSource
 {
     private static final Logger LOGGER = Logger.get(DataCenterPageSource.class);
 
+    private static final long PREFETCH_OFFER_WAIT_MILLIS = 100;
+
     private final long startTime;
     private final int numberOfColumns;
     private DataCenterStatementClient client;
-    private long readBytes;
+    private final AtomicLong readBytes = new AtomicLong();
     private long lastMemoryUsage;
     private Queue<Page> pages = new LinkedList<>();
     private final Optional<DynamicFilterSupplier> dynamicFilterSupplier;
     private final Set<String> appliedDynamicFilters = new HashSet<>();
 
+    // prefetching state, pages and the end of all streams are published by the background tasks
+    private final BlockingQueue<Page> prefetchedPages;
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+    private final List<DataCenterStatementClient> streamClients = new CopyOnWriteArrayList<>();
+    private final List<Future<?>> prefetchTasks = new ArrayList<>();
+    private final AtomicInteger runningStreams = new AtomicInteger();
+    private final Supplier<DataCenterStatementClient> clientFactory;
+    private final int streamCount;
+    private final Optional<ExecutorService> prefetchExecutor;
+    private boolean streamsStarted;
+    private volatile boolean prefetchFinished;
+    private volatile Throwable prefetchFailure;
+    private volatile boolean closed;
+    private CompletableFuture<?> pageAvailable = CompletableFuture.completedFuture(null);
+
     /**
      * Constructor of data center page source.
      *
@@ -74,17 +109,71 @@ public class DataCenterPageSource
 
     public DataCenterPageSource(OkHttpClient httpClient, DataCenterClientSession clientSession, String sql,
             String queryId, List<ColumnHandle> columns, Optional<DynamicFilterSupplier> dynamicFilterSupplier)
+    {
+        this(httpClient, clientSession, sql, queryId, columns, dynamicFilterSupplier, 1, 0, Optional.empty());
+    }
+
+    /**
+     * Constructor of data center page source fetching the remote results in the background.
+     *
+     * @param httpClient http client.
+     * @param clientSession session client.
+     * @param sql sql statement.
+     * @param queryId id of query that user issued.
+     * @param columns columns of sql.
+     * @param dynamicFilterSupplier dynamic filters to send to the remote data center.
+     * @param streams number of parallel result streams of this page source.
+     * @param prefetchPages number of pages buffered ahead of the engine, 0 disables prefetching.
+     * @param prefetchExecutor executor of the background fetch tasks.
+     */
+    public DataCenterPageSource(OkHttpClient httpClient, DataCenterClientSession clientSession, String sql,
+            String queryId, List<ColumnHandle> columns, Optional<DynamicFilterSupplier> dynamicFilterSupplier,
+            int streams, int prefetchPages, Optional<ExecutorService> prefetchExecutor)
+    {
+        this(() -> DataCenterStatementClient.newStatementClient(httpClient, clientSession, sql, queryId), columns,
+                dynamicFilterSupplier, streams, prefetchPages, prefetchExecutor);
+    }
+
+    @VisibleForTesting
+    DataCenterPageSource(Supplier<DataCenterStatementClient> clientFactory, List<ColumnHandle> columns,
+            Optional<DynamicFilterSupplier> dynamicFilterSupplier, int streams, int prefetchPages,
+            Optional<ExecutorService> prefetchExecutor)
     {
         this.startTime = System.nanoTime();
-        this.client = DataCenterStatementClient.newStatementClient(httpClient, clientSession, sql, queryId);
+        this.clientFactory = clientFactory;
+        this.client = clientFactory.get();
         this.numberOfColumns = columns.size();
         this.dynamicFilterSupplier = dynamicFilterSupplier;
+        this.streamCount = Math.max(1, streams);
+        this.prefetchExecutor = prefetchExecutor;
+
+        if (prefetchPages > 0 && prefetchExecutor.isPresent()) {
+            this.prefetchedPages = new ArrayBlockingQueue<>(prefetchPages);
+            this.pageAvailable = new CompletableFuture<>();
+        }
+        else {
+            this.prefetchedPages = null;
+        }
+    }
+
+    /**
+     * Start the background streams, every stream but the first one registers as another consumer of the remote query.
+     */
+    private void startStreams()
+    {
+        this.streamsStarted = true;
+        this.runningStreams.set(this.streamCount);
+        this.streamClients.add(this.client);
+        this.prefetchTasks.add(this.prefetchExecutor.get().submit(() -> fetch(() -> this.client)));
+        for (int i = 1; i < this.streamCount; i++) {
+            this.prefetchTasks.add(this.prefetchExecutor.get().submit(() -> fetch(this.clientFactory)));
+        }
     }
 
     @Override
     public long getCompletedBytes()
     {
-        return this.readBytes;
+        return this.readBytes.get();
     }
 
     @Override
@@ -96,7 +185,28 @@ public class DataCenterPageSource
     @Override
     public boolean isFinished()
     {
-        return this.pages.isEmpty() && !this.client.isRunning();
+        if (this.prefetchedPages == null) {
+            return this.pages.isEmpty() && !this.client.isRunning();
+        }
+        return this.closed || (this.prefetchFinished && this.prefetchFailure == null && this.prefetchedPages.isEmpty());
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (this.prefetchedPages == null) {
+            return NOT_BLOCKED;
+        }
+        synchronized (this) {
+            // before the streams start, getNextPage has to be called to apply the dynamic filters
+            if (!this.streamsStarted || this.closed || this.prefetchFinished || !this.prefetchedPages.isEmpty()) {
+                return NOT_BLOCKED;
+            }
+            if (this.pageAvailable.isDone()) {
+                this.pageAvailable = new CompletableFuture<>();
+            }
+            return this.pageAvailable;
+        }
     }
 
     @Override
@@ -108,6 +218,23 @@ public class DataCenterPageSource
             applyDynamicFilters(dynamicFilterSupplier.get().getDynamicFilters().get(0));
         }
 
+        if (this.prefetchedPages != null) {
+            if (!this.streamsStarted) {
+                // wait for the dynamic filters, so that the remote data center already filters the first pages
+                if (dynamicFilterSupplier.isPresent() && dynamicFilterSupplier.get().getDynamicFilters().isEmpty()
+                        && dynamicFilterSupplier.get().isBlocked()) {
+                    return null;
+                }
+                synchronized (this) {
+                    if (this.closed) {
+                        return null;
+                    }
+                    startStreams();
+                }
+            }
+            return getPrefetchedPage();
+        }
+
         if (!this.pages.isEmpty()) {
             return processPage(this.pages.poll());
         }
@@ -122,6 +249,79 @@ public class DataCenterPageSource
         return null;
     }
 
+    private Page getPrefetchedPage()
+    {
+        if (this.closed) {
+            return null;
+        }
+        Page page = this.prefetchedPages.poll();
+        if (page != null) {
+            this.prefetchedBytes.addAndGet(-page.getRetainedSizeInBytes());
+            return processPage(page);
+        }
+        Throwable failure = this.prefetchFailure;
+        if (failure != null) {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new RuntimeException("fetching remote results failed", failure);
+        }
+        return null;
+    }
+
+    /**
+     * Background task of one stream, pulls the remote results of its client until the query is finished or the
+     * page source is closed.
+     */
+    private void fetch(Supplier<DataCenterStatementClient> streamClientSupplier)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(DataCenterPageSource.class.getClassLoader())) {
+            DataCenterStatementClient streamClient = streamClientSupplier.get();
+            if (streamClient != this.client) {
+                this.streamClients.add(streamClient);
+                if (this.closed) {
+                    streamClient.close();
+                    return;
+                }
+            }
+            while (!this.closed && streamClient.isRunning()) {
+                List<Page> pageList = streamClient.getPages();
+                if (pageList != null && !pageList.isEmpty()) {
+                    this.update(pageList);
+                    for (Page page : pageList) {
+                        this.prefetchedBytes.addAndGet(page.getRetainedSizeInBytes());
+                        while (!this.prefetchedPages.offer(page, PREFETCH_OFFER_WAIT_MILLIS, MILLISECONDS)) {
+                            if (this.closed) {
+                                return;
+                            }
+                        }
+                        synchronized (this) {
+                            this.pageAvailable.complete(null);
+                        }
+                    }
+                }
+                streamClient.advance();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.prefetchFailure = e;
+        }
+        catch (RuntimeException e) {
+            if (!this.closed) {
+                this.prefetchFailure = e;
+            }
+        }
+        finally {
+            if (this.runningStreams.decrementAndGet() == 0) {
+                this.prefetchFinished = true;
+            }
+            synchronized (this) {
+                this.pageAvailable.complete(null);
+            }
+        }
+    }
+
     private void applyDynamicFilters(Map<ColumnHandle, DynamicFilter> dynamicFilters)
     {
         ImmutableMap.Builder<String, byte[]> builder = new ImmutableMap.Builder();
@@ -176,13 +376,16 @@ public class DataCenterPageSource
             bytes += page.getSizeInBytes();
             memory += page.getRetainedSizeInBytes();
         }
-        this.readBytes += bytes;
+        this.readBytes.addAndGet(bytes);
         this.lastMemoryUsage = memory;
     }
 
     @Override
     public long getSystemMemoryUsage()
     {
+        if (this.prefetchedPages != null) {
+            return this.prefetchedBytes.get();
+        }
         return this.lastMemoryUsage;
     }
 
@@ -190,6 +393,30 @@ public class DataCenterPageSource
     public void close()
             throws IOException
     {
-        this.client.close();
+        if (this.prefetchedPages == null) {
+            this.client.close();
+            return;
+        }
+
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.pageAvailable.complete(null);
+            if (!this.streamsStarted) {
+                this.client.close();
+                return;
+            }
+        }
+        // closing aborts the clients, the tasks notice it between two requests
+        for (DataCenterStatementClient streamClient : this.streamClients) {
+            streamClient.close();
+        }
+        for (Future<?> task : this.prefetchTasks) {
+            task.cancel(true);
+        }
+        this.prefetchedPages.clear();
+        this.prefetchedBytes.set(0);
     }
 }
@@ -15,6 +15,7 @@
 
 package io.hetu.core.plugin.datacenter.pagesource;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.hetu.core.plugin.datacenter.DataCenterConfig;
 import io.hetu.core.plugin.datacenter.DataCenterSplit;
 import io.hetu.core.plugin.datacenter.DataCenterTableHandle;
@@ -36,8 +37,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.stream.Collectors.joining;
 
 /**
@@ -58,6 +61,8 @@ public class DataCenterPageSourceProvider
 
     private final TypeManager typeManager;
 
+    private final Optional<ExecutorService> prefetchExecutor;
+
     /**
      * Constructor of data center page source provider.
      *
@@ -70,6 +75,23 @@ public class DataCenterPageSourceProvider
         this.config = config;
         this.httpClient = httpClient;
         this.typeManager = typeManager;
+        if (config.getPrefetchPages() > 0) {
+            this.prefetchExecutor = Optional.of(newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat("dc-page-source-prefetch-%s")
+                    .setDaemon(true)
+                    .build()));
+        }
+        else {
+            this.prefetchExecutor = Optional.empty();
+        }
+    }
+
+    /**
+     * Stop the background tasks fetching remote results.
+     */
+    public void shutdown()
+    {
+        prefetchExecutor.ifPresent(ExecutorService::shutdownNow);
     }
 
     private static String buildSql(DataCenterTableHandle tableHandler, List<ColumnHandle> columnHandles,
@@ -138,6 +160,6 @@ public class DataCenterPageSourceProvider
         DataCenterClientSession clientSession = DataCenterStatementClientFactory.createClientSession(this.config,
                 this.typeManager, properties);
         return new DataCenterPageSource(this.httpClient, clientSession, query, ((DataCenterSplit) split).getQueryId(),
-                columns, dynamicFilterSupplier);
+                columns, dynamicFilterSupplier, config.getPageSourceStreams(), config.getPrefetchPages(), prefetchExecutor);
     }
 }
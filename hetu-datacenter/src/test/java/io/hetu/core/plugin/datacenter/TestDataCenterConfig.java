@@ -69,7 +69,9 @@ public class TestDataCenterConfig
                 .setCompressionEnabled(false)
                 .setMaxAnticipatedDelay(new Duration(10, TimeUnit.MINUTES))
                 .setUpdateThreshold(new Duration(1, TimeUnit.MINUTES))
-                .setMaxIdleConnections(20));
+                .setMaxIdleConnections(20)
+                .setPrefetchPages(0)
+                .setPageSourceStreams(1));
     }
 
     @Test
@@ -110,6 +112,8 @@ public class TestDataCenterConfig
                 .put("dc.max.anticipated.delay", "5s")
                 .put("hetu.dc.catalog.update.threshold", "2m")
                 .put("dc.httpclient.maximum.idle.connections", "10")
+                .put("dc.page-source.prefetch-pages", "8")
+                .put("dc.page-source.streams", "4")
                 .build();
 
         DataCenterConfig expected = new DataCenterConfig().setConnectionUrl(URI.create("http://127.0.0.1:9002"))
@@ -145,7 +149,9 @@ public class TestDataCenterConfig
                 .setCompressionEnabled(true)
                 .setMaxAnticipatedDelay(new Duration(5, TimeUnit.SECONDS))
                 .setUpdateThreshold(new Duration(2, TimeUnit.MINUTES))
-                .setMaxIdleConnections(10);
+                .setMaxIdleConnections(10)
+                .setPrefetchPages(8)
+                .setPageSourceStreams(4);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.hetu.core.plugin.datacenter.pagesource;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.hetu.core.plugin.datacenter.DataCenterColumnHandle;
+import io.prestosql.client.ClientSelectedRole;
+import io.prestosql.client.DataCenterStatementClient;
+import io.prestosql.client.QueryData;
+import io.prestosql.client.QueryStatusInfo;
+import io.prestosql.client.StatementStats;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilter;
+import io.prestosql.spi.dynamicfilter.DynamicFilterSupplier;
+import io.prestosql.spi.util.BloomFilter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestDataCenterPageSource
+{
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("test-dc-page-source-%s").setDaemon(true).build());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testPagesInOrder()
+            throws Exception
+    {
+        // every page is identified by its position count
+        Queue<Page> remotePages = remotePages(20);
+        List<String> events = new CopyOnWriteArrayList<>();
+        DataCenterPageSource pageSource = new DataCenterPageSource(() -> new TestingStatementClient(remotePages, events, null),
+                ImmutableList.of(), Optional.empty(), 1, 2, Optional.of(executor));
+
+        assertEquals(readAll(pageSource), IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()));
+        pageSource.close();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testMultipleStreams()
+            throws Exception
+    {
+        // the streams are consumers of the same remote query, each page is returned to a single stream
+        Queue<Page> remotePages = remotePages(50);
+        List<String> events = new CopyOnWriteArrayList<>();
+        DataCenterPageSource pageSource = new DataCenterPageSource(() -> new TestingStatementClient(remotePages, events, null),
+                ImmutableList.of(), Optional.empty(), 3, 4, Optional.of(executor));
+
+        List<Integer> pages = readAll(pageSource);
+        Collections.sort(pages);
+        assertEquals(pages, IntStream.rangeClosed(1, 50).boxed().collect(Collectors.toList()));
+        pageSource.close();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testDynamicFiltersAppliedBeforeStreamsStart()
+            throws Exception
+    {
+        List<String> events = new CopyOnWriteArrayList<>();
+        AtomicReference<List<Map<ColumnHandle, DynamicFilter>>> dynamicFilters = new AtomicReference<>(ImmutableList.of());
+        DynamicFilterSupplier dynamicFilterSupplier = new DynamicFilterSupplier(dynamicFilters::get, System.currentTimeMillis(), 600_000);
+        DataCenterPageSource pageSource = new DataCenterPageSource(() -> new TestingStatementClient(remotePages(5), events, null),
+                ImmutableList.of(), Optional.of(dynamicFilterSupplier), 2, 2, Optional.of(executor));
+
+        // no remote page is fetched while waiting for the dynamic filters
+        assertTrue(pageSource.isBlocked().isDone());
+        assertNull(pageSource.getNextPage());
+        assertFalse(pageSource.isFinished());
+        assertTrue(events.isEmpty());
+
+        ColumnHandle column = new DataCenterColumnHandle("a", BIGINT, 0);
+        byte[] bloomFilter = BloomFilterDynamicFilter.convertBloomFilterToByteArray(new BloomFilter(1024, 0.01));
+        dynamicFilters.set(ImmutableList.of(ImmutableMap.of(column, new BloomFilterDynamicFilter("1", column, bloomFilter, DynamicFilter.Type.GLOBAL))));
+        readAll(pageSource);
+        assertEquals(events.get(0), "filter");
+        assertTrue(events.contains("pages"));
+        pageSource.close();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCloseWithStreamsInFlight()
+            throws Exception
+    {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch fetching = new CountDownLatch(2);
+        List<TestingStatementClient> clients = new CopyOnWriteArrayList<>();
+        Supplier<DataCenterStatementClient> clientFactory = () -> {
+            TestingStatementClient client = new TestingStatementClient(remotePages(10), events, fetching);
+            clients.add(client);
+            return client;
+        };
+        DataCenterPageSource pageSource = new DataCenterPageSource(clientFactory, ImmutableList.of(), Optional.empty(), 2, 2, Optional.of(executor));
+
+        assertNull(pageSource.getNextPage());
+        assertTrue(fetching.await(10, SECONDS));
+        assertFalse(pageSource.isBlocked().isDone());
+
+        // both streams are blocked in a remote request, close aborts them without waiting
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertTrue(pageSource.isBlocked().isDone());
+        assertNull(pageSource.getNextPage());
+        assertEquals(pageSource.getSystemMemoryUsage(), 0);
+        assertEquals(clients.size(), 2);
+        for (TestingStatementClient client : clients) {
+            assertTrue(client.isClientAborted());
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testCloseBeforeStreamsStart()
+            throws Exception
+    {
+        List<String> events = new CopyOnWriteArrayList<>();
+        TestingStatementClient client = new TestingStatementClient(remotePages(1), events, null);
+        DataCenterPageSource pageSource = new DataCenterPageSource(() -> client, ImmutableList.of(), Optional.empty(), 2, 2, Optional.of(executor));
+
+        pageSource.close();
+        assertTrue(client.isClientAborted());
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+        assertTrue(events.isEmpty());
+    }
+
+    private static List<Integer> readAll(DataCenterPageSource pageSource)
+            throws Exception
+    {
+        List<Integer> pages = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            pageSource.isBlocked().get(10, SECONDS);
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                pages.add(page.getPositionCount());
+            }
+        }
+        return pages;
+    }
+
+    private static Queue<Page> remotePages(int count)
+    {
+        Queue<Page> pages = new ConcurrentLinkedQueue<>();
+        for (int i = 1; i <= count; i++) {
+            pages.add(new Page(i));
+        }
+        return pages;
+    }
+
+    /**
+     * Statement client returning one page of the remote query per request
+     */
+    private static class TestingStatementClient
+            implements DataCenterStatementClient
+    {
+        private final Queue<Page> remotePages;
+        private final List<String> events;
+        private final CountDownLatch fetching;
+        private volatile boolean aborted;
+
+        TestingStatementClient(Queue<Page> remotePages, List<String> events, CountDownLatch fetching)
+        {
+            this.remotePages = remotePages;
+            this.events = events;
+            this.fetching = fetching;
+        }
+
+        @Override
+        public List<Page> getPages()
+        {
+            events.add("pages");
+            if (fetching != null) {
+                // block the request until the page source is closed
+                fetching.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            Page page = remotePages.poll();
+            return page == null ? ImmutableList.of() : ImmutableList.of(page);
+        }
+
+        @Override
+        public boolean applyDynamicFilters(Map<String, byte[]> dynamicFilters)
+        {
+            events.add("filter");
+            return true;
+        }
+
+        @Override
+        public boolean isRunning()
+        {
+            return !aborted && !remotePages.isEmpty();
+        }
+
+        @Override
+        public boolean advance()
+        {
+            return isRunning();
+        }
+
+        @Override
+        public boolean isClientAborted()
+        {
+            return aborted;
+        }
+
+        @Override
+        public void close()
+        {
+            aborted = true;
+        }
+
+        @Override
+        public String getQuery()
+        {
+            return null;
+        }
+
+        @Override
+        public ZoneId getTimeZone()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isClientError()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return remotePages.isEmpty();
+        }
+
+        @Override
+        public StatementStats getStats()
+        {
+            return null;
+        }
+
+        @Override
+        public QueryStatusInfo currentStatusInfo()
+        {
+            return null;
+        }
+
+        @Override
+        public QueryData currentData()
+        {
+            return null;
+        }
+
+        @Override
+        public QueryStatusInfo finalStatusInfo()
+        {
+            return null;
+        }
+
+        @Override
+        public Optional<String> getSetCatalog()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> getSetSchema()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<String> getSetPath()
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, String> getSetSessionProperties()
+        {
+            return ImmutableMap.of();
+        }
+
+        @Override
+        public Set<String> getResetSessionProperties()
+        {
+            return null;
+        }
+
+        @Override
+        public Map<String, ClientSelectedRole> getSetRoles()
+        {
+            return ImmutableMap.of();
+        }
+
+        @Override
+        public Map<String, String> getAddedPreparedStatements()
+        {
+            return ImmutableMap.of();
+        }
+
+        @Override
+        public Set<String> getDeallocatedPreparedStatements()
+        {
+            return null;
+        }
+
+        @Override
+        public String getStartedTransactionId()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isClearTransactionId()
+        {
+            return false;
+        }
+
+        @Override
+        public void cancelLeafStage()
+        {
+        }
+
+        @Override
+        public boolean isTimeInMilliseconds()
+        {
+            return false;
+        }
+    }
+}
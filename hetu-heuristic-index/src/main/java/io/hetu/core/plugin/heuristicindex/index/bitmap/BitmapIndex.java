@@ -56,8 +56,10 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.hetu.core.heuristicindex.util.IndexServiceUtils.extractType;
 import static io.hetu.core.heuristicindex.util.IndexServiceUtils.getSerializer;
@@ -108,8 +110,9 @@ public class BitmapIndex
     private File file;
     private AtomicBoolean closed = new AtomicBoolean(false);
     private AtomicBoolean updateAllowed = new AtomicBoolean(true);
-    private final Map<Object, RoaringBitmap> cache = new HashMap<>();
-    private long memoryUsage;
+    // the index is shared by the splits of the same stripe through the worker index cache, so lookups may be concurrent
+    private final Map<Object, RoaringBitmap> cache = new ConcurrentHashMap<>();
+    private final AtomicLong memoryUsage = new AtomicLong();
 
     @Override
     public Set<CreateIndexMetadata.Level> getSupportedIndexLevels()
@@ -197,7 +200,7 @@ public class BitmapIndex
             ByteBuffer bb = ByteBuffer.wrap(value);
             ImmutableRoaringBitmap bm = new ImmutableRoaringBitmap(bb);
             RoaringBitmap result = new RoaringBitmap(bm);
-            memoryUsage += result.getSizeInBytes();
+            memoryUsage.addAndGet(result.getSizeInBytes());
             return result;
         });
     }
@@ -345,7 +348,7 @@ public class BitmapIndex
     @Override
     public long getMemoryUsage()
     {
-        return memoryUsage;
+        return memoryUsage.get();
     }
 
     @Override
@@ -421,7 +424,7 @@ public class BitmapIndex
         return btree;
     }
 
-    private BTreeMap getBtreeReadOptimized() throws IOException
+    private synchronized BTreeMap getBtreeReadOptimized() throws IOException
     {
         if (btree == null) {
             // read the explicit serializer type which was store earlier
@@ -15,6 +15,7 @@
 package io.hetu.core.plugin.heuristicindex.index.btree;
 
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import io.hetu.core.common.filesystem.TempFolder;
 import io.hetu.core.heuristicindex.PartitionIndexWriter;
 import io.hetu.core.heuristicindex.util.IndexServiceUtils;
@@ -36,19 +37,20 @@ import org.mapdb.DBException;
 import org.mapdb.DBMaker;
 import org.mapdb.Serializer;
 import org.xerial.snappy.SnappyInputStream;
-import org.xerial.snappy.SnappyOutputStream;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -58,8 +60,8 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.google.common.base.Preconditions.checkState;
 import static io.hetu.core.heuristicindex.util.IndexServiceUtils.getSerializer;
 import static io.prestosql.spi.heuristicindex.TypeUtils.extractValueFromRowExpression;
 
@@ -77,10 +79,11 @@ public class BTreeIndex
     private static final double TERMINATE_LOOKUP_WEIGHT_THRESHOLD = 0.1;
 
     protected Map<String, String> symbolTable;
+    // only set when reading an index written in the legacy Snappy compressed MapDB format
     protected BTreeMap<Object, String> dataMap;
-    protected AtomicBoolean isDBCreated = new AtomicBoolean(false);
-    protected BTreeMap<String, String> properties;
+    protected Map<String, String> properties = new HashMap<>();
     protected DB db;
+    protected BlockBTreeReader reader;
     protected TempFolder dataDir;
     protected File dataFile;
     protected Set<kotlin.Pair<? extends Comparable<?>, String>> source;
@@ -101,67 +104,46 @@ public class BTreeIndex
         }
     }
 
-    private synchronized void setupDB()
+    private synchronized void setupLegacyDB()
             throws IOException
     {
-        if (!isDBCreated.get()) {
-            try {
-                db = DBMaker
-                        .fileDB(dataFile)
-                        .fileMmapEnableIfSupported()
-                        .cleanerHackEnable()
-                        .make();
-                properties = db.treeMap("propertiesMap")
-                        .keySerializer(Serializer.STRING)
-                        .valueSerializer(Serializer.STRING)
-                        .createOrOpen();
-                if (properties.containsKey(KEY_TYPE)) {
-                    createDBMap(properties.get(KEY_TYPE), properties.get(VALUE_TYPE));
-                }
-                isDBCreated.compareAndSet(false, true);
-            }
-            catch (DBException dbe) {
-                // rethrow IOException from DB
-                if (dbe.getCause() instanceof IOException) {
-                    throw (IOException) dbe.getCause();
-                }
-                else {
-                    throw new IOException("Error setting up local mapdb: ", dbe);
-                }
+        try {
+            db = DBMaker
+                    .fileDB(dataFile)
+                    .fileMmapEnableIfSupported()
+                    .cleanerHackEnable()
+                    .make();
+            BTreeMap<String, String> legacyProperties = db.treeMap("propertiesMap")
+                    .keySerializer(Serializer.STRING)
+                    .valueSerializer(Serializer.STRING)
+                    .createOrOpen();
+            properties.putAll(legacyProperties);
+            if (properties.containsKey(KEY_TYPE)) {
+                keyType = properties.get(KEY_TYPE);
+                valueType = properties.get(VALUE_TYPE);
+                dataMap = db.treeMap("dataMap")
+                        .keySerializer(getSerializer(keyType))
+                        .valueSerializer(new SnappyCompressionSerializer(getSerializer(valueType)))
+                        .open();
             }
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                try {
-                    close();
-                }
-                catch (IOException e) {
-                    // Do nothing
-                }
-            }));
         }
-    }
-
-    private synchronized void createBatchWriteDBMap(String keyType, String valueType)
-    {
-        if (dataMap == null) {
-            dataMap = db.treeMap("dataMap")
-                    .keySerializer(getSerializer(keyType))
-                    .valueSerializer(new SnappyCompressionSerializer(getSerializer(valueType)))
-                    .createFrom(source.iterator());
-            properties.put(KEY_TYPE, keyType);
-            properties.put(VALUE_TYPE, valueType);
-        }
-    }
-
-    private synchronized void createDBMap(String keyType, String valueType)
-    {
-        if (dataMap == null) {
-            dataMap = db.treeMap("dataMap")
-                    .keySerializer(getSerializer(keyType))
-                    .valueSerializer(new SnappyCompressionSerializer(getSerializer(valueType)))
-                    .open();
-            properties.put(KEY_TYPE, keyType);
-            properties.put(VALUE_TYPE, valueType);
+        catch (DBException dbe) {
+            // rethrow IOException from DB
+            if (dbe.getCause() instanceof IOException) {
+                throw (IOException) dbe.getCause();
+            }
+            else {
+                throw new IOException("Error setting up local mapdb: ", dbe);
+            }
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                close();
+            }
+            catch (IOException e) {
+                // Do nothing
+            }
+        }));
     }
 
     @Override
@@ -186,9 +168,6 @@ public class BTreeIndex
     public void addKeyValues(List<Pair<String, List<Pair<Comparable<? extends Comparable<?>>, String>>>> input)
             throws IOException
     {
-        if (!isDBCreated.get()) {
-            setupDB();
-        }
         if (source == null) {
             keyType = IndexServiceUtils.extractType(input.get(0).getSecond().get(0).getFirst());
             valueType = IndexServiceUtils.extractType(input.get(0).getSecond().get(0).getSecond());
@@ -261,21 +240,22 @@ public class BTreeIndex
                 OperatorType operator = operatorOptional.get();
                 switch (operator) {
                     case EQUAL:
-                        if (dataMap.containsKey(key)) {
-                            lookUpResults = Collections.singleton(dataMap.get(key));
+                        String value = pointLookUp(key);
+                        if (value != null) {
+                            lookUpResults = Collections.singleton(value);
                         }
                         break;
                     case LESS_THAN:
-                        lookUpResults = rangeLookUp(dataMap.firstKey(), true, key, false);
+                        lookUpResults = rangeLookUp(null, true, key, false);
                         break;
                     case LESS_THAN_OR_EQUAL:
-                        lookUpResults = rangeLookUp(dataMap.firstKey(), true, key, true);
+                        lookUpResults = rangeLookUp(null, true, key, true);
                         break;
                     case GREATER_THAN:
-                        lookUpResults = rangeLookUp(key, false, dataMap.lastKey(), true);
+                        lookUpResults = rangeLookUp(key, false, null, true);
                         break;
                     case GREATER_THAN_OR_EQUAL:
-                        lookUpResults = rangeLookUp(key, true, dataMap.lastKey(), true);
+                        lookUpResults = rangeLookUp(key, true, null, true);
                         break;
                     default:
                         throw new UnsupportedOperationException("Expression not supported");
@@ -293,9 +273,9 @@ public class BTreeIndex
                 case IN:
                     lookUpResults = new ArrayList<>();
                     for (RowExpression exp : specialForm.getArguments().subList(1, specialForm.getArguments().size())) {
-                        Object key = extractValueFromRowExpression(exp);
-                        if (dataMap.containsKey(key)) {
-                            lookUpResults.add(dataMap.get(key));
+                        String value = pointLookUp(extractValueFromRowExpression(exp));
+                        if (value != null) {
+                            lookUpResults.add(value);
                         }
                     }
                     break;
@@ -326,34 +306,60 @@ public class BTreeIndex
     public void serialize(OutputStream out)
             throws IOException
     {
-        createBatchWriteDBMap(keyType, valueType);
-
-        if (!db.isClosed()) {
-            db.commit();
-            dataMap.close();
-            db.close();
-        }
+        checkState(source != null, "No values added to BTREE index");
+        properties.put(KEY_TYPE, keyType);
+        properties.put(VALUE_TYPE, valueType);
 
-        try (InputStream inputStream = new FileInputStream(dataFile); SnappyOutputStream sout = new SnappyOutputStream(out)) {
-            IOUtils.copy(inputStream, sout);
+        BlockBTreeWriter writer = new BlockBTreeWriter(out, keyType, valueType);
+        for (kotlin.Pair<? extends Comparable<?>, String> entry : source) {
+            writer.add(entry.getFirst(), entry.getSecond());
         }
+        writer.finish(properties);
     }
 
+    /**
+     * Index files in the block format are copied as is and memory-mapped, only the blocks touched by
+     * a lookup get decompressed. Files in the legacy format are decompressed and opened with MapDB.
+     */
     @Override
     public Index deserialize(InputStream in)
             throws IOException
     {
-        try (OutputStream out = new FileOutputStream(dataFile)) {
-            IOUtils.copy(new SnappyInputStream(in), out);
+        BufferedInputStream input = new BufferedInputStream(in);
+        input.mark(BlockBTreeWriter.MAGIC.length);
+        byte[] magic = new byte[BlockBTreeWriter.MAGIC.length];
+        int read = ByteStreams.read(input, magic, 0, magic.length);
+        input.reset();
+
+        if (read == magic.length && Arrays.equals(magic, BlockBTreeWriter.MAGIC)) {
+            try (OutputStream out = new FileOutputStream(dataFile)) {
+                IOUtils.copy(input, out);
+            }
+            reader = new BlockBTreeReader(dataFile);
+            keyType = reader.getKeyType();
+            valueType = reader.getValueType();
+            properties.putAll(reader.getProperties());
+        }
+        else {
+            try (OutputStream out = new FileOutputStream(dataFile)) {
+                IOUtils.copy(new SnappyInputStream(input), out);
+            }
+            setupLegacyDB();
         }
-        setupDB();
-        Properties localProperties = getProperties();
-        if (localProperties.getProperty(PartitionIndexWriter.SYMBOL_TABLE_KEY_NAME) != null) {
-            this.symbolTable = SerializationUtils.deserializeMap(localProperties.getProperty(PartitionIndexWriter.SYMBOL_TABLE_KEY_NAME), s -> s, s -> s);
+
+        String serializedSymbolTable = properties.get(PartitionIndexWriter.SYMBOL_TABLE_KEY_NAME);
+        if (serializedSymbolTable != null) {
+            this.symbolTable = SerializationUtils.deserializeMap(serializedSymbolTable, s -> s, s -> s);
         }
         return this;
     }
 
+    @Override
+    public long getMemoryUsage()
+    {
+        return reader == null ? 0 : reader.getRetainedSizeInBytes();
+    }
+
     @Override
     public long getDiskUsage()
     {
@@ -364,6 +370,9 @@ public class BTreeIndex
     public void close()
             throws IOException
     {
+        if (reader != null) {
+            reader.close();
+        }
         if (db != null) {
             db.close();
         }
@@ -371,19 +380,68 @@ public class BTreeIndex
         dataDir.close();
     }
 
+    private String pointLookUp(Object key)
+    {
+        if (reader == null) {
+            return dataMap.get(key);
+        }
+        try {
+            return (String) reader.get(key);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read BTREE index", e);
+        }
+    }
+
+    /**
+     * A null bound is unbounded
+     */
     private Collection<String> rangeLookUp(Object from, boolean fromInclusive, Object to, boolean toInclusive)
             throws IndexLookUpException
+    {
+        if (reader == null) {
+            return legacyRangeLookUp(from == null ? dataMap.firstKey() : from, fromInclusive, to == null ? dataMap.lastKey() : to, toInclusive);
+        }
+        if (from != null && to != null && reader.getComparator().compare(from, to) > 0) {
+            return Collections.emptyList();
+        }
+
+        // fail fast on the block directory before decompressing any leaf block
+        checkLookUpSize(reader.countLowerBound(from, fromInclusive, to, toInclusive), reader.getEntryCount());
+        List<Object> values;
+        try {
+            values = reader.range(from, fromInclusive, to, toInclusive);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read BTREE index", e);
+        }
+        checkLookUpSize(values.size(), reader.getEntryCount());
+
+        List<String> result = new ArrayList<>(values.size());
+        for (Object value : values) {
+            result.add((String) value);
+        }
+        return result;
+    }
+
+    private Collection<String> legacyRangeLookUp(Object from, boolean fromInclusive, Object to, boolean toInclusive)
+            throws IndexLookUpException
     {
         if (dataMap.getComparator().compare(from, to) > 0) {
             return Collections.emptyList();
         }
 
         Collection<String> values = dataMap.subMap(from, fromInclusive, to, toInclusive).values();
-        if (values.size() > TERMINATE_LOOKUP_SIZE_THRESHOLD &&
-                (double) values.size() / dataMap.size() >= TERMINATE_LOOKUP_WEIGHT_THRESHOLD) {
+        checkLookUpSize(values.size(), dataMap.size());
+        return values;
+    }
+
+    private static void checkLookUpSize(long size, long totalSize)
+            throws IndexLookUpException
+    {
+        if (size > TERMINATE_LOOKUP_SIZE_THRESHOLD &&
+                (double) size / totalSize >= TERMINATE_LOOKUP_WEIGHT_THRESHOLD) {
             throw new IndexLookUpException("Look-up returned too many matching values. Filtering will not be effective. Skipping.");
         }
-
-        return values;
     }
 }
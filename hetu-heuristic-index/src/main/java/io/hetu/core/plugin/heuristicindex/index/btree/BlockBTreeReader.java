@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.plugin.heuristicindex.index.btree;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.mapdb.DataInput2;
+import org.mapdb.serializer.GroupSerializer;
+import org.xerial.snappy.Snappy;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static io.hetu.core.heuristicindex.util.IndexServiceUtils.getSerializer;
+import static io.hetu.core.plugin.heuristicindex.index.btree.BlockBTreeWriter.FOOTER_SIZE;
+import static io.hetu.core.plugin.heuristicindex.index.btree.BlockBTreeWriter.MAGIC;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a file written by {@link BlockBTreeWriter} through a read only memory mapping. Opening the
+ * file only decodes the properties and the block directory; leaf blocks are decompressed on demand
+ * and a small number of them is kept decoded for repeated lookups.
+ */
+class BlockBTreeReader
+        implements Closeable
+{
+    private static final long REGION_SIZE = 1L << 30;
+    private static final int CACHED_BLOCKS = 16;
+
+    private final String keyType;
+    private final String valueType;
+    private final GroupSerializer keySerializer;
+    private final GroupSerializer valueSerializer;
+    private final Comparator<Object> comparator;
+    private final Map<String, String> properties = new HashMap<>();
+
+    private final MappedByteBuffer[] regions;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final int[] blockEntries;
+    private final Object[] blockFirstKeys;
+    private final long entryCount;
+    private final long directorySize;
+
+    private final Cache<Integer, Block> blocks = CacheBuilder.newBuilder()
+            .maximumSize(CACHED_BLOCKS)
+            .build();
+
+    BlockBTreeReader(File file)
+            throws IOException
+    {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+            long size = channel.size();
+            if (size < MAGIC.length + FOOTER_SIZE) {
+                throw new IOException("Invalid BTREE index file, size is " + size);
+            }
+            regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) / REGION_SIZE)];
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, min(REGION_SIZE, size - position));
+            }
+
+            DataInput2.ByteArray footer = new DataInput2.ByteArray(read(size - FOOTER_SIZE, FOOTER_SIZE));
+            long propertiesOffset = footer.readLong();
+            long directoryOffset = footer.readLong();
+            int blockCount = footer.readInt();
+            entryCount = footer.readLong();
+            byte[] magic = new byte[MAGIC.length];
+            footer.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Invalid BTREE index file, footer is corrupted");
+            }
+
+            DataInput2.ByteArray propertiesInput = new DataInput2.ByteArray(read(propertiesOffset, (int) (directoryOffset - propertiesOffset)));
+            keyType = readString(propertiesInput);
+            valueType = readString(propertiesInput);
+            int propertyCount = propertiesInput.readInt();
+            for (int i = 0; i < propertyCount; i++) {
+                properties.put(readString(propertiesInput), readString(propertiesInput));
+            }
+            keySerializer = getSerializer(keyType);
+            valueSerializer = getSerializer(valueType);
+            comparator = (Comparator<Object>) keySerializer;
+
+            directorySize = size - FOOTER_SIZE - directoryOffset;
+            DataInput2.ByteArray directoryInput = new DataInput2.ByteArray(read(directoryOffset, (int) directorySize));
+            blockOffsets = new long[blockCount];
+            blockLengths = new int[blockCount];
+            blockEntries = new int[blockCount];
+            blockFirstKeys = new Object[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = directoryInput.readLong();
+                blockLengths[i] = directoryInput.readInt();
+                blockEntries[i] = directoryInput.readInt();
+                byte[] firstKey = new byte[directoryInput.readInt()];
+                directoryInput.readFully(firstKey);
+                blockFirstKeys[i] = keySerializer.deserialize(new DataInput2.ByteArray(firstKey), firstKey.length);
+            }
+        }
+    }
+
+    String getKeyType()
+    {
+        return keyType;
+    }
+
+    String getValueType()
+    {
+        return valueType;
+    }
+
+    Map<String, String> getProperties()
+    {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    long getEntryCount()
+    {
+        return entryCount;
+    }
+
+    Comparator<Object> getComparator()
+    {
+        return comparator;
+    }
+
+    Object get(Object key)
+            throws IOException
+    {
+        int blockIndex = floorBlock(key);
+        if (blockIndex < 0) {
+            return null;
+        }
+        Block block = getBlock(blockIndex);
+        int position = Arrays.binarySearch(block.keys, key, comparator);
+        return position >= 0 ? block.values[position] : null;
+    }
+
+    /**
+     * Values of the keys between from and to in key order, a null bound is unbounded
+     */
+    List<Object> range(Object from, boolean fromInclusive, Object to, boolean toInclusive)
+            throws IOException
+    {
+        List<Object> result = new ArrayList<>();
+        int blockIndex = from == null ? 0 : Math.max(floorBlock(from), 0);
+        for (; blockIndex < blockFirstKeys.length; blockIndex++) {
+            if (to != null && !inUpperBound(blockFirstKeys[blockIndex], to, toInclusive)) {
+                break;
+            }
+            Block block = getBlock(blockIndex);
+            for (int i = 0; i < block.keys.length; i++) {
+                Object key = block.keys[i];
+                if (from != null) {
+                    int compare = comparator.compare(key, from);
+                    if (compare < 0 || (compare == 0 && !fromInclusive)) {
+                        continue;
+                    }
+                }
+                if (to != null && !inUpperBound(key, to, toInclusive)) {
+                    return result;
+                }
+                result.add(block.values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lower bound of the number of entries in the range, counted from the directory only:
+     * a block is known to lie in the range when its first key and the first key of the next block do.
+     */
+    long countLowerBound(Object from, boolean fromInclusive, Object to, boolean toInclusive)
+    {
+        long count = 0;
+        for (int i = 0; i < blockFirstKeys.length - 1; i++) {
+            if (from != null) {
+                int compare = comparator.compare(blockFirstKeys[i], from);
+                if (compare < 0 || (compare == 0 && !fromInclusive)) {
+                    continue;
+                }
+            }
+            if (to != null && comparator.compare(blockFirstKeys[i + 1], to) > 0) {
+                break;
+            }
+            count += blockEntries[i];
+        }
+        return count;
+    }
+
+    long getRetainedSizeInBytes()
+    {
+        long size = directorySize + (long) blockFirstKeys.length * (Long.BYTES + Integer.BYTES + Integer.BYTES);
+        for (Block block : blocks.asMap().values()) {
+            size += block.sizeInBytes;
+        }
+        return size;
+    }
+
+    @Override
+    public void close()
+    {
+        blocks.invalidateAll();
+    }
+
+    private boolean inUpperBound(Object key, Object to, boolean toInclusive)
+    {
+        int compare = comparator.compare(key, to);
+        return compare < 0 || (compare == 0 && toInclusive);
+    }
+
+    /**
+     * Index of the last block whose first key is not greater than the key, -1 if there is none
+     */
+    private int floorBlock(Object key)
+    {
+        int low = 0;
+        int high = blockFirstKeys.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = comparator.compare(blockFirstKeys[middle], key);
+            if (compare == 0) {
+                return middle;
+            }
+            if (compare < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private Block getBlock(int blockIndex)
+            throws IOException
+    {
+        try {
+            return blocks.get(blockIndex, () -> readBlock(blockIndex));
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to read BTREE block " + blockIndex, e.getCause());
+        }
+    }
+
+    private Block readBlock(int blockIndex)
+            throws IOException
+    {
+        byte[] data = Snappy.uncompress(read(blockOffsets[blockIndex], blockLengths[blockIndex]));
+        DataInput2.ByteArray input = new DataInput2.ByteArray(data);
+        Object[] keys = new Object[blockEntries[blockIndex]];
+        Object[] values = new Object[blockEntries[blockIndex]];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keySerializer.deserialize(input, -1);
+            values[i] = valueSerializer.deserialize(input, -1);
+        }
+        return new Block(keys, values, data.length);
+    }
+
+    private byte[] read(long offset, int length)
+    {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            MappedByteBuffer region = regions[(int) (position / REGION_SIZE)];
+            int regionOffset = (int) (position % REGION_SIZE);
+            int chunk = min(length - copied, region.capacity() - regionOffset);
+            // duplicate so that concurrent readers do not share the buffer position
+            ByteBuffer view = region.duplicate();
+            view.position(regionOffset);
+            view.get(bytes, copied, chunk);
+            copied += chunk;
+        }
+        return bytes;
+    }
+
+    private static String readString(DataInput2 input)
+            throws IOException
+    {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static class Block
+    {
+        private final Object[] keys;
+        private final Object[] values;
+        private final long sizeInBytes;
+
+        Block(Object[] keys, Object[] values, long sizeInBytes)
+        {
+            this.keys = keys;
+            this.values = values;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.plugin.heuristicindex.index.btree;
+
+import com.google.common.io.CountingOutputStream;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializer;
+import org.xerial.snappy.Snappy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.heuristicindex.util.IndexServiceUtils.getSerializer;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes sorted key/value entries in the block based BTREE format:
+ * <pre>
+ * MAGIC | leaf block ... | key type, value type, properties | directory | footer
+ * </pre>
+ * A leaf block holds a run of consecutive entries serialized with the MapDB serializers of the key and
+ * value types and is Snappy compressed as a whole. The directory is the sparse top level of the tree:
+ * one entry (offset, compressed length, entry count, first key) per leaf block. The fixed size footer
+ * locates the properties and the directory, so that {@link BlockBTreeReader} can memory-map the file
+ * and only decompress the leaf blocks touched by a lookup.
+ */
+class BlockBTreeWriter
+{
+    static final byte[] MAGIC = "HBTREE02".getBytes(UTF_8);
+    // properties offset, directory offset, block count, entry count, magic
+    static final int FOOTER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + MAGIC.length;
+
+    private static final int MAX_BLOCK_ENTRIES = 4096;
+    private static final int TARGET_BLOCK_SIZE = 64 * 1024;
+
+    private final CountingOutputStream counter;
+    private final DataOutputStream output;
+    private final String keyType;
+    private final String valueType;
+    private final GroupSerializer keySerializer;
+    private final GroupSerializer valueSerializer;
+
+    private final List<DirectoryEntry> directory = new ArrayList<>();
+    private DataOutput2 block = new DataOutput2();
+    private byte[] blockFirstKey;
+    private int blockEntries;
+    private long entryCount;
+    private Object lastKey;
+    private boolean finished;
+
+    BlockBTreeWriter(OutputStream out, String keyType, String valueType)
+            throws IOException
+    {
+        this.counter = new CountingOutputStream(new BufferedOutputStream(requireNonNull(out, "out is null")));
+        this.output = new DataOutputStream(counter);
+        this.keyType = requireNonNull(keyType, "keyType is null");
+        this.valueType = requireNonNull(valueType, "valueType is null");
+        this.keySerializer = getSerializer(keyType);
+        this.valueSerializer = getSerializer(valueType);
+        output.write(MAGIC);
+    }
+
+    /**
+     * Entries must be added in ascending key order
+     */
+    void add(Object key, Object value)
+            throws IOException
+    {
+        checkState(!finished, "writer is finished");
+        checkState(lastKey == null || keySerializer.compare(lastKey, key) < 0, "keys must be added in ascending order");
+        lastKey = key;
+
+        if (blockEntries == 0) {
+            try (DataOutput2 keyOutput = new DataOutput2()) {
+                keySerializer.serialize(keyOutput, key);
+                blockFirstKey = keyOutput.copyBytes();
+            }
+        }
+        keySerializer.serialize(block, key);
+        valueSerializer.serialize(block, value);
+        blockEntries++;
+        entryCount++;
+
+        if (blockEntries >= MAX_BLOCK_ENTRIES || block.pos >= TARGET_BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Writes the remaining entries, the properties and the directory. The underlying stream is flushed but not closed.
+     */
+    void finish(Map<String, String> properties)
+            throws IOException
+    {
+        checkState(!finished, "writer is finished");
+        finished = true;
+        if (blockEntries > 0) {
+            flushBlock();
+        }
+
+        long propertiesOffset = counter.getCount();
+        writeString(keyType);
+        writeString(valueType);
+        output.writeInt(properties.size());
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            writeString(entry.getKey());
+            writeString(entry.getValue());
+        }
+
+        long directoryOffset = counter.getCount();
+        for (DirectoryEntry entry : directory) {
+            output.writeLong(entry.offset);
+            output.writeInt(entry.length);
+            output.writeInt(entry.entries);
+            output.writeInt(entry.firstKey.length);
+            output.write(entry.firstKey);
+        }
+
+        output.writeLong(propertiesOffset);
+        output.writeLong(directoryOffset);
+        output.writeInt(directory.size());
+        output.writeLong(entryCount);
+        output.write(MAGIC);
+        output.flush();
+    }
+
+    private void flushBlock()
+            throws IOException
+    {
+        byte[] compressed = Snappy.compress(block.copyBytes());
+        directory.add(new DirectoryEntry(counter.getCount(), compressed.length, blockEntries, blockFirstKey));
+        output.write(compressed);
+        block = new DataOutput2();
+        blockEntries = 0;
+    }
+
+    private void writeString(String value)
+            throws IOException
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static class DirectoryEntry
+    {
+        private final long offset;
+        private final int length;
+        private final int entries;
+        private final byte[] firstKey;
+
+        DirectoryEntry(long offset, int length, int entries, byte[] firstKey)
+        {
+            this.offset = offset;
+            this.length = length;
+            this.entries = entries;
+            this.firstKey = firstKey;
+        }
+    }
+}
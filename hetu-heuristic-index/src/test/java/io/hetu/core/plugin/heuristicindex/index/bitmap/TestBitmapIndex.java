@@ -157,7 +157,8 @@ public class TestBitmapIndex
     {
         try (TempFolder folder = new TempFolder();
                 BitmapIndex bitmapIndexWrite = new BitmapIndex();
-                BitmapIndex bitmapIndexRead = new BitmapIndex()) {
+                BitmapIndex bitmapIndexRead = new BitmapIndex();
+                BitmapIndex bitmapIndexSerialRead = new BitmapIndex()) {
             folder.create();
             File file = folder.newFile();
 
@@ -171,8 +172,11 @@ public class TestBitmapIndex
                 bitmapIndexWrite.serialize(os);
                 bitmapIndexRead.deserialize(is);
             }
+            try (FileInputStream is = new FileInputStream(file)) {
+                bitmapIndexSerialRead.deserialize(is);
+            }
 
-            IntStream.range(1, 10).parallel().forEach(i -> {
+            IntStream.range(1, 100).parallel().forEach(i -> {
                 assertEquals(iteratorToList(bitmapIndexRead.lookUp(
                         Domain.create(ValueSet.ofRanges(equal(IntegerType.INTEGER, 3L)), false))),
                         ImmutableList.of(0, 3));
@@ -183,6 +187,11 @@ public class TestBitmapIndex
                         Domain.create(ValueSet.ofRanges(equal(IntegerType.INTEGER, 0L)), false))),
                         ImmutableList.of());
             });
+
+            // every bitmap is cached and accounted for once, no matter how many threads looked it up
+            bitmapIndexSerialRead.lookUp(Domain.create(ValueSet.ofRanges(equal(IntegerType.INTEGER, 3L)), false));
+            bitmapIndexSerialRead.lookUp(Domain.create(ValueSet.ofRanges(equal(IntegerType.INTEGER, 2048L)), false));
+            assertEquals(bitmapIndexRead.getMemoryUsage(), bitmapIndexSerialRead.getMemoryUsage());
         }
     }
 
@@ -43,6 +43,7 @@ import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
 public class TestBTreeIndex
@@ -338,6 +339,50 @@ public class TestBTreeIndex
         index.close();
     }
 
+    @Test
+    public void testMultipleBlocks()
+            throws IOException, IndexLookUpException
+    {
+        BTreeIndex index = new BTreeIndex();
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            pairs.add(new Pair(Long.valueOf(i * 2), "value" + i));
+        }
+        index.addKeyValues(Collections.singletonList(new Pair("dummyCol", pairs)));
+        File file = getFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            index.serialize(out);
+        }
+
+        BTreeIndex readIndex = new BTreeIndex();
+        try (FileInputStream in = new FileInputStream(file)) {
+            readIndex.deserialize(in);
+        }
+        assertEquals(readIndex.lookUp(simplePredicate(OperatorType.EQUAL, "dummyCol", BIGINT, 24000L)).next(), "value12000");
+        assertFalse(readIndex.lookUp(simplePredicate(OperatorType.EQUAL, "dummyCol", BIGINT, 24001L)).hasNext());
+        assertFalse(readIndex.lookUp(simplePredicate(OperatorType.EQUAL, "dummyCol", BIGINT, -1L)).hasNext());
+
+        Iterator<String> result = readIndex.lookUp(simplePredicate(OperatorType.GREATER_THAN, "dummyCol", BIGINT, 39994L));
+        assertEquals(result.next(), "value19998");
+        assertEquals(result.next(), "value19999");
+        assertFalse(result.hasNext());
+
+        int count = 0;
+        result = readIndex.lookUp(simplePredicate(OperatorType.LESS_THAN_OR_EQUAL, "dummyCol", BIGINT, 1998L));
+        while (result.hasNext()) {
+            result.next();
+            count++;
+        }
+        assertEquals(count, 1000);
+        assertTrue(readIndex.getMemoryUsage() > 0);
+
+        // the range covers most of the index and is rejected from the block directory alone
+        assertThrows(IndexLookUpException.class, () -> readIndex.lookUp(simplePredicate(OperatorType.GREATER_THAN_OR_EQUAL, "dummyCol", BIGINT, 0L)));
+        readIndex.close();
+        index.close();
+        assertTrue(file.delete());
+    }
+
     private File getFile()
             throws IOException
     {
@@ -125,7 +125,7 @@ public class KylinClient
                     connection,
                     null,
                     null,
-                    table.getGeneratedSql().get().getSql(),
+                    split.getPushDownSql().orElse(table.getGeneratedSql().get().getSql()),
                     columns,
                     table.getConstraint(),
                     split.getAdditionalPredicate(),
@@ -23,6 +23,7 @@ import io.hetu.core.plugin.mpp.scheduler.db.GsussDBOpt;
 import io.hetu.core.plugin.mpp.scheduler.entity.ETLInfo;
 import io.hetu.core.plugin.mpp.scheduler.utils.Const;
 import io.hetu.core.plugin.mpp.scheduler.utils.Util;
+import io.prestosql.plugin.hive.DirectoryLister;
 import io.prestosql.plugin.hive.HdfsEnvironment;
 import io.prestosql.plugin.hive.HiveBucketing;
 import io.prestosql.plugin.hive.HiveErrorCode;
@@ -83,14 +84,15 @@ public class MppMetadata
             Optional<Duration> vacuumCollectorInterval,
             ScheduledExecutorService hiveMetastoreClientService,
             Scheduler scheduler,
-            MppConfig mppConfig)
+            MppConfig mppConfig,
+            DirectoryLister directoryLister)
     {
         super(metastore, hdfsEnvironment, partitionManager, writesToNonManagedTablesEnabled,
                 createsOfNonManagedTablesEnabled, tableCreatesWithLocationAllowed,
                 typeManager, locationService, partitionUpdateCodec, typeTranslator,
                 prestoVersion, hiveStatisticsProvider, accessControlMetadata,
                 autoVacuumEnabled, vacuumDeltaNumThreshold, vacuumDeltaPercentThreshold,
-                vacuumExecutorService, vacuumCollectorInterval, hiveMetastoreClientService, null);
+                vacuumExecutorService, vacuumCollectorInterval, hiveMetastoreClientService, null, directoryLister);
         this.scheduler = scheduler;
         this.mppConfig = mppConfig;
         this.createsOfNonManagedTablesEnabled = createsOfNonManagedTablesEnabled;
@@ -17,6 +17,7 @@ import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.json.JsonCodec;
 import io.airlift.units.Duration;
 import io.hetu.core.plugin.mpp.scheduler.Scheduler;
+import io.prestosql.plugin.hive.DirectoryLister;
 import io.prestosql.plugin.hive.ForHive;
 import io.prestosql.plugin.hive.ForHiveMetastore;
 import io.prestosql.plugin.hive.ForHiveTransactionHeartbeats;
@@ -96,7 +97,8 @@ public class MppMetadataFactory
             NodeVersion nodeVersion,
             AccessControlMetadataFactory accessControlMetadataFactory,
             Scheduler scheduler,
-            MppConfig mppConfig)
+            MppConfig mppConfig,
+            DirectoryLister directoryLister)
     {
         this(
                 metastore,
@@ -127,7 +129,8 @@ public class MppMetadataFactory
                 hiveConfig.getVacuumCollectorInterval(),
                 hiveConfig.getMetastoreWriteBatchSize(),
                 scheduler,
-                mppConfig);
+                mppConfig,
+                directoryLister);
     }
 
     public MppMetadataFactory(
@@ -159,7 +162,8 @@ public class MppMetadataFactory
             Optional<Duration> vacuumCollectorInterval,
             int hmsWriteBatchSize,
             Scheduler scheduler,
-            MppConfig mppConfig)
+            MppConfig mppConfig,
+            DirectoryLister directoryLister)
     {
         super(metastore, hdfsEnvironment, partitionManager, maxConcurrentFileRenames,
                 skipDeletionForAlter, skipTargetCleanupOnRollback, writesToNonManagedTablesEnabled,
@@ -168,7 +172,7 @@ public class MppMetadataFactory
                 partitionUpdateCodec, executorService, hiveVacuumService, heartbeatService,
                 hiveMetastoreClientService, typeTranslator, prestoVersion, accessControlMetadataFactory,
                 vacuumDeltaNumThreshold, vacuumDeltaPercentThreshold, autoVacuumEnabled, vacuumCollectorInterval,
-                hmsWriteBatchSize, null);
+                hmsWriteBatchSize, null, directoryLister);
 
         this.skipDeletionForAlter = skipDeletionForAlter;
         this.skipTargetCleanupOnRollback = skipTargetCleanupOnRollback;
@@ -239,6 +243,7 @@ public class MppMetadataFactory
                 vacuumCollectorInterval,
                 hiveMetastoreClientService,
                 scheduler,
-                mppConfig);
+                mppConfig,
+                directoryLister);
     }
 }
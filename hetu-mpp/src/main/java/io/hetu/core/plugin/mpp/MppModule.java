@@ -67,7 +67,10 @@ import io.prestosql.plugin.hive.TransactionalMetadata;
 import io.prestosql.plugin.hive.TypeTranslator;
 import io.prestosql.plugin.hive.orc.OrcPageSourceFactory;
 import io.prestosql.plugin.hive.orc.OrcSelectivePageSourceFactory;
+import io.prestosql.plugin.hive.parquet.ParquetDictionaryCacheStatsLister;
+import io.prestosql.plugin.hive.parquet.ParquetFooterCacheStatsLister;
 import io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory;
+import io.prestosql.plugin.hive.parquet.ParquetSelectivePageSourceFactory;
 import io.prestosql.plugin.hive.rcfile.RcFilePageSourceFactory;
 import io.prestosql.plugin.hive.s3.PrestoS3ClientFactory;
 import io.prestosql.plugin.hive.util.IndexCache;
@@ -143,6 +146,7 @@ public class MppModule
 
         Multibinder<HiveSelectivePageSourceFactory> selectivePageSourceFactoryBinder = newSetBinder(binder, HiveSelectivePageSourceFactory.class);
         selectivePageSourceFactoryBinder.addBinding().to(OrcSelectivePageSourceFactory.class).in(Scopes.SINGLETON);
+        selectivePageSourceFactoryBinder.addBinding().to(ParquetSelectivePageSourceFactory.class).in(Scopes.SINGLETON);
 
         Multibinder<HiveFileWriterFactory> fileWriterFactoryBinder = newSetBinder(binder, HiveFileWriterFactory.class);
         binder.bind(OrcFileWriterFactory.class).in(Scopes.SINGLETON);
@@ -166,6 +170,10 @@ public class MppModule
         newExporter(binder).export(BloomFilterCacheStatsLister.class).withGeneratedName();
         binder.bind(RowDataCacheStatsLister.class).in(Scopes.SINGLETON);
         newExporter(binder).export(RowDataCacheStatsLister.class).withGeneratedName();
+        binder.bind(ParquetFooterCacheStatsLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ParquetFooterCacheStatsLister.class).withGeneratedName();
+        binder.bind(ParquetDictionaryCacheStatsLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ParquetDictionaryCacheStatsLister.class).withGeneratedName();
 
         configBinder(binder).bindConfig(MppConfig.class);
         binder.bind(Scheduler.class).in(Scopes.SINGLETON);
@@ -43,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static io.hetu.core.cube.startree.tree.StarTreeMetadata.COLUMN_DELIMITER;
 import static io.hetu.core.cube.startree.util.Constants.CUBE_CATALOG;
@@ -61,6 +62,9 @@ public class StarTreeMetaStore
     public static final String CUBE_STATUS = "cubeStatus";
     public static final String SOURCE_TABLE_LAST_UPDATED_TIME = "sourceLastUpdatedTime";
     public static final String CUBE_LAST_UPDATED_TIME = "cubeLastUpdatedTime";
+    public static final String SOURCE_PARTITIONS = "sourcePartitions";
+    private static final String PARTITION_DELIMITER = "\n";
+    private static final char PARTITION_TIME_DELIMITER = ':';
 
     private final HetuMetastore metastore;
     private final LoadingCache<String, List<CubeMetadata>> cubeCache;
@@ -100,6 +104,7 @@ public class StarTreeMetaStore
             builder.setCubeStatus(CubeStatus.forValue(Integer.parseInt(table.getParameters().get(CUBE_STATUS))));
             builder.setTableLastUpdatedTime(Long.parseLong(table.getParameters().get(SOURCE_TABLE_LAST_UPDATED_TIME)));
             builder.setCubeLastUpdatedTime(Long.parseLong(table.getParameters().get(CUBE_LAST_UPDATED_TIME)));
+            builder.setSourcePartitions(parseSourcePartitions(table.getParameters().get(SOURCE_PARTITIONS)));
             cubeMetadataList.add(builder.build());
         });
         return cubeMetadataList;
@@ -221,6 +226,7 @@ public class StarTreeMetaStore
         parameters.put(CUBE_STATUS, String.valueOf(starTreeMetadata.getCubeStatus().getValue()));
         parameters.put(CUBE_LAST_UPDATED_TIME, String.valueOf(starTreeMetadata.getLastUpdatedTime()));
         parameters.put(SOURCE_TABLE_LAST_UPDATED_TIME, String.valueOf(starTreeMetadata.getSourceTableLastUpdatedTime()));
+        parameters.put(SOURCE_PARTITIONS, formatSourcePartitions(starTreeMetadata.getSourcePartitions()));
 
         return TableEntity.builder()
                 .setCatalogName(CUBE_CATALOG)
@@ -232,6 +238,30 @@ public class StarTreeMetaStore
                 .build();
     }
 
+    private static String formatSourcePartitions(Map<String, Long> sourcePartitions)
+    {
+        if (sourcePartitions.isEmpty()) {
+            return null;
+        }
+        //Time is written after the last delimiter since partition names may contain the delimiter themselves
+        return sourcePartitions.entrySet().stream()
+                .map(entry -> entry.getKey() + PARTITION_TIME_DELIMITER + entry.getValue())
+                .collect(Collectors.joining(PARTITION_DELIMITER));
+    }
+
+    private static Map<String, Long> parseSourcePartitions(String sourcePartitionsString)
+    {
+        Map<String, Long> sourcePartitions = new HashMap<>();
+        if (sourcePartitionsString == null || sourcePartitionsString.isEmpty()) {
+            return sourcePartitions;
+        }
+        for (String entry : sourcePartitionsString.split(PARTITION_DELIMITER)) {
+            int index = entry.lastIndexOf(PARTITION_TIME_DELIMITER);
+            sourcePartitions.put(entry.substring(0, index), Long.parseLong(entry.substring(index + 1)));
+        }
+        return sourcePartitions;
+    }
+
     @Override
     public List<CubeMetadata> getAllCubes()
     {
@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import io.hetu.core.spi.cube.CubeFilter;
 import io.hetu.core.spi.cube.CubeMetadata;
@@ -31,6 +32,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -61,8 +63,23 @@ public class StarTreeMetadata
 
     private final CubeStatus cubeStatus;
 
+    private final Map<String, Long> sourcePartitions;
+
     public static final String COLUMN_DELIMITER = ",";
 
+    public StarTreeMetadata(
+            String starTreeName,
+            String sourceTableName,
+            long sourceTableLastUpdatedTime,
+            List<StarTreeColumn> columns,
+            List<Set<String>> groups,
+            CubeFilter cubeFilter,
+            long lastUpdatedTime,
+            CubeStatus cubeStatus)
+    {
+        this(starTreeName, sourceTableName, sourceTableLastUpdatedTime, columns, groups, cubeFilter, lastUpdatedTime, cubeStatus, ImmutableMap.of());
+    }
+
     @JsonCreator
     public StarTreeMetadata(
             @JsonProperty("starTreeName") String starTreeName,
@@ -72,7 +89,8 @@ public class StarTreeMetadata
             @JsonProperty("groups") List<Set<String>> groups,
             @JsonProperty("cubeFilter") CubeFilter cubeFilter,
             @JsonProperty("lastUpdatedTime") long lastUpdatedTime,
-            @JsonProperty("cubeStatus") CubeStatus cubeStatus)
+            @JsonProperty("cubeStatus") CubeStatus cubeStatus,
+            @JsonProperty("sourcePartitions") Map<String, Long> sourcePartitions)
     {
         this.starTreeName = requireNonNull(starTreeName, "starTreeName is null").toLowerCase(Locale.ENGLISH);
         this.sourceTableName = requireNonNull(sourceTableName, "tableName is null").toLowerCase(Locale.ENGLISH);
@@ -85,6 +103,7 @@ public class StarTreeMetadata
         this.sourceTableLastUpdatedTime = sourceTableLastUpdatedTime;
         this.lastUpdatedTime = lastUpdatedTime;
         this.cubeStatus = cubeStatus;
+        this.sourcePartitions = sourcePartitions == null ? ImmutableMap.of() : ImmutableMap.copyOf(sourcePartitions);
     }
 
     @JsonProperty
@@ -214,6 +233,13 @@ public class StarTreeMetadata
         return sourceTableLastUpdatedTime;
     }
 
+    @JsonProperty
+    @Override
+    public Map<String, Long> getSourcePartitions()
+    {
+        return sourcePartitions;
+    }
+
     @JsonIgnore
     @Override
     public Optional<String> getColumn(AggregationSignature aggSignature)
@@ -286,13 +312,14 @@ public class StarTreeMetadata
                 && Objects.equals(columns, that.columns)
                 && Objects.equals(groups, that.groups)
                 && Objects.equals(cubeFilter, that.cubeFilter)
-                && Objects.equals(cubeStatus, that.cubeStatus);
+                && Objects.equals(cubeStatus, that.cubeStatus)
+                && Objects.equals(sourcePartitions, that.sourcePartitions);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(starTreeName, sourceTableName, columns, groups, cubeFilter, sourceTableLastUpdatedTime, lastUpdatedTime, cubeStatus);
+        return Objects.hash(starTreeName, sourceTableName, columns, groups, cubeFilter, sourceTableLastUpdatedTime, lastUpdatedTime, cubeStatus, sourcePartitions);
     }
 
     @Override
@@ -307,6 +334,7 @@ public class StarTreeMetadata
                 ", sourceTableLastUpdatedTime=" + sourceTableLastUpdatedTime +
                 ", lastUpdatedTime=" + lastUpdatedTime +
                 ", cubeStatus=" + cubeStatus +
+                ", sourcePartitions=" + sourcePartitions +
                 '}';
     }
 }
@@ -15,6 +15,7 @@
 
 package io.hetu.core.cube.startree.tree;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.hetu.core.spi.cube.CubeFilter;
 import io.hetu.core.spi.cube.CubeMetadata;
@@ -23,6 +24,7 @@ import io.hetu.core.spi.cube.CubeStatus;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class StarTreeMetadataBuilder
@@ -36,6 +38,7 @@ public class StarTreeMetadataBuilder
     private CubeStatus cubeStatus;
     private long tableLastUpdatedTime;
     private long cubeLastUpdatedTime;
+    private Map<String, Long> sourcePartitions = ImmutableMap.of();
 
     public StarTreeMetadataBuilder(String starTableName, String sourceTableName)
     {
@@ -53,6 +56,7 @@ public class StarTreeMetadataBuilder
         this.tableLastUpdatedTime = starTreeMetadata.getSourceTableLastUpdatedTime();
         this.cubeLastUpdatedTime = starTreeMetadata.getLastUpdatedTime();
         this.cubeStatus = starTreeMetadata.getCubeStatus();
+        this.sourcePartitions = starTreeMetadata.getSourcePartitions();
     }
 
     @Override
@@ -73,6 +77,12 @@ public class StarTreeMetadataBuilder
         this.cubeLastUpdatedTime = cubeLastUpdatedTime;
     }
 
+    @Override
+    public void setSourcePartitions(Map<String, Long> sourcePartitions)
+    {
+        this.sourcePartitions = ImmutableMap.copyOf(sourcePartitions);
+    }
+
     @Override
     public void addDimensionColumn(String name, String originalColumn)
     {
@@ -108,6 +118,7 @@ public class StarTreeMetadataBuilder
                 groups,
                 cubeFilter,
                 cubeLastUpdatedTime,
-                cubeStatus);
+                cubeStatus,
+                sourcePartitions);
     }
 }
@@ -16,6 +16,7 @@
 package io.hetu.core.cube.startree.io;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.units.Duration;
 import io.hetu.core.cube.startree.StarTreeProvider;
@@ -168,6 +169,28 @@ public class TestStarTreeMetaStore
         assertTrue(result.containsAll(ImmutableList.of(cubeMetadata1, cubeMetadata2)));
     }
 
+    @Test
+    public void testPersistSourcePartitions()
+    {
+        CubeMetadata cubeMetadata = new StarTreeMetadata("star3",
+                "a",
+                1000,
+                ImmutableList.of(
+                        new AggregateColumn("sum_cost", "SUM", "cost", false),
+                        new DimensionColumn("value", "value")),
+                ImmutableList.of(ImmutableSet.of("value")),
+                null,
+                10000,
+                CubeStatus.READY,
+                ImmutableMap.of("day=1/region=a%3Ab", 1000L, "day=2/region=c", 2000L));
+        cubeMetadataService.persist(cubeMetadata);
+
+        CubeMetadata found = cubeMetadataService.getMetadataFromCubeName("star3").get();
+        assertEquals(found.getSourcePartitions(), ImmutableMap.of("day=1/region=a%3Ab", 1000L, "day=2/region=c", 2000L));
+        assertEquals(found, cubeMetadata);
+        cubeMetadataService.removeCube(cubeMetadata);
+    }
+
     @Test
     public void testUpdateMetadata()
     {
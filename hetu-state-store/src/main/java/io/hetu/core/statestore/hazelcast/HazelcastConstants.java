@@ -137,6 +137,26 @@ public final class HazelcastConstants
      */
     public static final String HEARTBEAT_TIMEOUT_SECONDS = "hazelcast.heartbeat.timeout.seconds";
 
+    /**
+     * Comma separated names of the state maps cached on the client, wildcards are allowed
+     */
+    public static final String NEAR_CACHE_MAPS = "hazelcast.near-cache.maps";
+
+    /**
+     * Maximum number of entries in the client side cache of each state map
+     */
+    public static final String NEAR_CACHE_MAX_SIZE = "hazelcast.near-cache.max-size";
+
+    /**
+     * Default maximum number of entries in the client side cache of each state map
+     */
+    public static final int DEFAULT_NEAR_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * Maximum time in seconds an entry stays in the client side cache, 0 means until it is invalidated
+     */
+    public static final String NEAR_CACHE_TIME_TO_LIVE_SECONDS = "hazelcast.near-cache.time-to-live-seconds";
+
     private HazelcastConstants()
     {
     }
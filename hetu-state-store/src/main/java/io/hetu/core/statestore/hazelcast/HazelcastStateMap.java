@@ -23,11 +23,14 @@ import com.hazelcast.map.IMap;
 import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.listener.MapListener;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -125,7 +128,10 @@ public class HazelcastStateMap<K, V>
     @Override
     public void removeAll(Set<K> keys)
     {
-        keys.forEach(key -> hzMap.remove(key));
+        // pipeline the removals instead of waiting for a round trip per key
+        List<CompletableFuture<V>> removals = new ArrayList<>(keys.size());
+        keys.forEach(key -> removals.add(hzMap.removeAsync(key).toCompletableFuture()));
+        removals.forEach(CompletableFuture::join);
     }
 
     @Override
@@ -19,6 +19,10 @@ import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.client.config.ClientConfig;
 import com.hazelcast.client.config.ClientConnectionStrategyConfig;
 import com.hazelcast.config.DiscoveryStrategyConfig;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.SerializerConfig;
 import com.hazelcast.core.HazelcastInstance;
 import io.airlift.log.Logger;
@@ -48,6 +52,7 @@ import java.util.stream.Collectors;
 import static io.hetu.core.statestore.Constants.STATE_STORE_CLUSTER_CONFIG_NAME;
 import static io.hetu.core.statestore.StateStoreUtils.getEncryptionTypeFromConfig;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DEFAULT_CLUSTER_ID;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DEFAULT_NEAR_CACHE_MAX_SIZE;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_ENABLED;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_MODE_CONFIG_NAME;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_MODE_MULTICAST;
@@ -62,6 +67,9 @@ import static io.hetu.core.statestore.hazelcast.HazelcastConstants.KERBEROS_ENAB
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.KERBEROS_LOGIN_CONTEXT_NAME;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.KERBEROS_SERVICE_PRINCIPAL;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.KRB5_CONFIG_FILE;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_MAPS;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_MAX_SIZE;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_TIME_TO_LIVE_SECONDS;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.SSL_CIPHER_SUITES;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.SSL_KEYSTORE_PASSWORD;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.SSL_KEYSTORE_PATH;
@@ -129,6 +137,8 @@ public class HazelcastStateStoreFactory
 
         clientConfig.setClusterName(clusterId);
 
+        addNearCacheConfigs(clientConfig, properties);
+
         // set security config
         if (Boolean.parseBoolean(properties.get(KERBEROS_ENABLED))) {
             KerberosConfig.setKerberosEnabled(true);
@@ -202,6 +212,38 @@ public class HazelcastStateStoreFactory
         return this.name;
     }
 
+    /**
+     * Reads of the configured state maps are served from a client side cache, which the cluster
+     * keeps up to date by sending invalidation events whenever an entry changes
+     */
+    static void addNearCacheConfigs(ClientConfig clientConfig, Map<String, String> properties)
+    {
+        String maps = properties.get(NEAR_CACHE_MAPS);
+        if (maps == null || maps.trim().isEmpty()) {
+            return;
+        }
+
+        String maxSize = properties.get(NEAR_CACHE_MAX_SIZE);
+        String timeToLive = properties.get(NEAR_CACHE_TIME_TO_LIVE_SECONDS);
+        EvictionConfig evictionConfig = new EvictionConfig()
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                .setSize(maxSize == null ? DEFAULT_NEAR_CACHE_MAX_SIZE : Integer.parseInt(maxSize.trim()));
+        for (String map : maps.split(COMMA)) {
+            if (map.trim().isEmpty()) {
+                continue;
+            }
+            NearCacheConfig nearCacheConfig = new NearCacheConfig(map.trim())
+                    .setInvalidateOnChange(true)
+                    .setEvictionConfig(evictionConfig);
+            if (timeToLive != null) {
+                nearCacheConfig.setTimeToLiveSeconds(Integer.parseInt(timeToLive.trim()));
+            }
+            clientConfig.addNearCacheConfig(nearCacheConfig);
+            log.info("Near cache enabled for state map: %s", map.trim());
+        }
+    }
+
     private Collection<String> getSeedLocation(SeedStore seedStore)
     {
         try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(seedStore.getClass().getClassLoader())) {
@@ -16,6 +16,8 @@ package io.hetu.core.statestore.hazelcast;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.NearCacheConfig;
 import io.hetu.core.seedstore.filebased.FileBasedSeed;
 import io.hetu.core.seedstore.filebased.FileBasedSeedStoreFactory;
 import io.prestosql.spi.seedstore.Seed;
@@ -37,9 +39,13 @@ import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_MOD
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_MODE_TCPIP;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_PORT_CONFIG_NAME;
 import static io.hetu.core.statestore.hazelcast.HazelcastConstants.DISCOVERY_TCPIP_SEEDS;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_MAPS;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_MAX_SIZE;
+import static io.hetu.core.statestore.hazelcast.HazelcastConstants.NEAR_CACHE_TIME_TO_LIVE_SECONDS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 /**
  * Test for HazelcastStateStoreFactory
@@ -127,6 +133,33 @@ public class TestHazelcastStateStoreFactory
         ((HazelcastStateStore) stateStore).shutdown();
     }
 
+    /**
+     * Test near cache configuration of the state maps
+     */
+    @Test
+    public void testNearCacheConfigs()
+    {
+        Map<String, String> properties = new HashMap<>(0);
+        properties.put(NEAR_CACHE_MAPS, "query, split-cache-*");
+        properties.put(NEAR_CACHE_MAX_SIZE, "500");
+        properties.put(NEAR_CACHE_TIME_TO_LIVE_SECONDS, "60");
+
+        ClientConfig clientConfig = new ClientConfig();
+        HazelcastStateStoreFactory.addNearCacheConfigs(clientConfig, properties);
+
+        assertEquals(clientConfig.getNearCacheConfigMap().size(), 2);
+        NearCacheConfig queryConfig = clientConfig.getNearCacheConfig("query");
+        assertTrue(queryConfig.isInvalidateOnChange());
+        assertEquals(queryConfig.getEvictionConfig().getSize(), 500);
+        assertEquals(queryConfig.getTimeToLiveSeconds(), 60);
+        // wildcard names match the state maps they cover
+        assertEquals(clientConfig.getNearCacheConfig("split-cache-metadata-map").getName(), "split-cache-*");
+
+        ClientConfig noNearCache = new ClientConfig();
+        HazelcastStateStoreFactory.addNearCacheConfigs(noNearCache, new HashMap<>(0));
+        assertTrue(noNearCache.getNearCacheConfigMap().isEmpty());
+    }
+
     /**
      * Test what happens to hazelcast factory if no seeds get from seed store
      *
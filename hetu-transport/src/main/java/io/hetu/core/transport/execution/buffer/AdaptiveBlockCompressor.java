@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.transport.execution.buffer;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.transport.block.BlockSerdeUtil.readBlock;
+import static io.hetu.core.transport.block.BlockSerdeUtil.writeBlock;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+/**
+ * Compresses every block of a page with its own codec. The codec of each channel is chosen from
+ * a periodic trial of all codecs on a sampled block, trading compressed size against compression CPU time.
+ * Dictionary and run-length encoded blocks, as well as very small blocks, are passed through uncompressed.
+ * <p>
+ * Layout of a serialized page: channel count, then for every block a codec id, the uncompressed
+ * and the stored length, followed by the stored bytes.
+ */
+@NotThreadSafe
+public class AdaptiveBlockCompressor
+{
+    private static final int MIN_COMPRESSIBLE_SIZE = 1024;
+    private static final int RESAMPLE_INTERVAL = 64;
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    // Cost of sending one byte downstream expressed in nanoseconds of CPU time (roughly 100MB/s per exchange stream)
+    private static final double NANOS_PER_TRANSFERRED_BYTE = 10.0;
+    // Weight of the latest measurement in the smoothed compression speed, single timings are noisy (JIT, GC)
+    private static final double SPEED_SMOOTHING_FACTOR = 0.2;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final DynamicSliceOutput blockBuffer = new DynamicSliceOutput(64 * 1024);
+
+    private Compressor lz4Compressor;
+    private Compressor zstdCompressor;
+    private Decompressor lz4Decompressor;
+    private Decompressor zstdDecompressor;
+
+    private BlockCodec[] channelCodecs = new BlockCodec[0];
+    private int[] pagesUntilResample = new int[0];
+    private int uncompressedSize;
+    // smoothed compression cost per input byte, seeded with typical speeds of the codecs
+    private double lz4NanosPerByte = 2.0;
+    private double zstdNanosPerByte = 5.0;
+
+    public AdaptiveBlockCompressor(BlockEncodingSerde blockEncodingSerde)
+    {
+        this.blockEncodingSerde = blockEncodingSerde;
+    }
+
+    /**
+     * Writes the blocks of the page to output.
+     *
+     * @return size of the page in the raw (uncompressed) page format
+     */
+    public int compress(Page page, SliceOutput output)
+    {
+        int channelCount = page.getChannelCount();
+        ensureChannelCapacity(channelCount);
+        uncompressedSize = Integer.BYTES;
+        output.writeInt(channelCount);
+        for (int channel = 0; channel < channelCount; channel++) {
+            compressBlock(channel, page.getBlock(channel), output);
+        }
+        return uncompressedSize;
+    }
+
+    public Page decompress(int positionCount, Properties pageMetadata, Slice slice)
+    {
+        SliceInput input = slice.getInput();
+        Block[] blocks = new Block[input.readInt()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            BlockCodec codec = BlockCodec.fromId(input.readByte());
+            int blockUncompressedSize = input.readInt();
+            int storedSize = input.readInt();
+            Slice stored = input.readSlice(storedSize);
+            Slice raw = stored;
+            if (codec != BlockCodec.NONE) {
+                byte[] decompressed = new byte[blockUncompressedSize];
+                int size = getDecompressor(codec).decompress(
+                        (byte[]) stored.getBase(),
+                        (int) (stored.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                        storedSize,
+                        decompressed,
+                        0,
+                        blockUncompressedSize);
+                checkState(size == blockUncompressedSize, "Decompressed block size mismatch: expected %s, got %s", blockUncompressedSize, size);
+                raw = Slices.wrappedBuffer(decompressed);
+            }
+            blocks[channel] = readBlock(blockEncodingSerde, raw.getInput());
+        }
+        return new Page(positionCount, pageMetadata, blocks);
+    }
+
+    private void compressBlock(int channel, Block block, SliceOutput output)
+    {
+        blockBuffer.reset();
+        writeBlock(blockEncodingSerde, blockBuffer, block);
+        Slice raw = blockBuffer.slice();
+        uncompressedSize += raw.length();
+
+        if (raw.length() < MIN_COMPRESSIBLE_SIZE || block instanceof DictionaryBlock || block instanceof RunLengthEncodedBlock) {
+            writeStored(output, BlockCodec.NONE, raw, raw);
+            return;
+        }
+
+        Slice compressed;
+        BlockCodec codec;
+        if (pagesUntilResample[channel] <= 0) {
+            // trial all codecs and keep the cheapest one for the following pages of this channel
+            long start = System.nanoTime();
+            Slice zstd = compress(BlockCodec.ZSTD, raw);
+            long zstdNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            Slice lz4 = compress(BlockCodec.LZ4, raw);
+            long lz4Nanos = System.nanoTime() - start;
+
+            lz4NanosPerByte = smooth(lz4NanosPerByte, (double) lz4Nanos / raw.length());
+            zstdNanosPerByte = smooth(zstdNanosPerByte, (double) zstdNanos / raw.length());
+
+            double noneCost = raw.length() * NANOS_PER_TRANSFERRED_BYTE;
+            double lz4Cost = lz4.length() * NANOS_PER_TRANSFERRED_BYTE + raw.length() * lz4NanosPerByte;
+            double zstdCost = zstd.length() * NANOS_PER_TRANSFERRED_BYTE + raw.length() * zstdNanosPerByte;
+            if (zstdCost < lz4Cost && zstdCost < noneCost) {
+                codec = BlockCodec.ZSTD;
+                compressed = zstd;
+            }
+            else if (lz4Cost < noneCost) {
+                codec = BlockCodec.LZ4;
+                compressed = lz4;
+            }
+            else {
+                codec = BlockCodec.NONE;
+                compressed = raw;
+            }
+            channelCodecs[channel] = codec;
+            pagesUntilResample[channel] = RESAMPLE_INTERVAL;
+        }
+        else {
+            codec = channelCodecs[channel];
+            compressed = codec == BlockCodec.NONE ? raw : compress(codec, raw);
+            pagesUntilResample[channel]--;
+        }
+
+        if (codec != BlockCodec.NONE && compressed.length() > raw.length() * MINIMUM_COMPRESSION_RATIO) {
+            // data distribution changed, store this block as is and sample again with the next page
+            pagesUntilResample[channel] = 0;
+            writeStored(output, BlockCodec.NONE, raw, raw);
+            return;
+        }
+        writeStored(output, codec, raw, compressed);
+    }
+
+    private static double smooth(double current, double measured)
+    {
+        // a single slow measurement (cold code, GC pause) can at most double the estimate
+        return current + SPEED_SMOOTHING_FACTOR * (min(measured, 2 * current) - current);
+    }
+
+    private Slice compress(BlockCodec codec, Slice raw)
+    {
+        Compressor compressor = getCompressor(codec);
+        byte[] compressed = new byte[compressor.maxCompressedLength(raw.length())];
+        int compressedSize = compressor.compress(
+                (byte[]) raw.getBase(),
+                toIntExact(raw.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                raw.length(),
+                compressed,
+                0,
+                compressed.length);
+        return Slices.wrappedBuffer(compressed, 0, compressedSize);
+    }
+
+    private static void writeStored(SliceOutput output, BlockCodec codec, Slice raw, Slice stored)
+    {
+        output.writeByte(codec.getId());
+        output.writeInt(raw.length());
+        output.writeInt(stored.length());
+        output.writeBytes(stored);
+    }
+
+    private void ensureChannelCapacity(int channelCount)
+    {
+        if (channelCodecs.length < channelCount) {
+            int oldLength = channelCodecs.length;
+            channelCodecs = Arrays.copyOf(channelCodecs, channelCount);
+            Arrays.fill(channelCodecs, oldLength, channelCount, BlockCodec.NONE);
+            pagesUntilResample = Arrays.copyOf(pagesUntilResample, channelCount);
+        }
+    }
+
+    private Compressor getCompressor(BlockCodec codec)
+    {
+        switch (codec) {
+            case LZ4:
+                if (lz4Compressor == null) {
+                    lz4Compressor = new Lz4Compressor();
+                }
+                return lz4Compressor;
+            case ZSTD:
+                if (zstdCompressor == null) {
+                    zstdCompressor = new ZstdCompressor();
+                }
+                return zstdCompressor;
+            default:
+                throw new IllegalArgumentException("No compressor for codec " + codec);
+        }
+    }
+
+    private Decompressor getDecompressor(BlockCodec codec)
+    {
+        switch (codec) {
+            case LZ4:
+                if (lz4Decompressor == null) {
+                    lz4Decompressor = new Lz4Decompressor();
+                }
+                return lz4Decompressor;
+            case ZSTD:
+                if (zstdDecompressor == null) {
+                    zstdDecompressor = new ZstdDecompressor();
+                }
+                return zstdDecompressor;
+            default:
+                throw new IllegalArgumentException("No decompressor for codec " + codec);
+        }
+    }
+
+    enum BlockCodec
+    {
+        NONE(0),
+        LZ4(1),
+        ZSTD(2);
+
+        private final byte id;
+
+        BlockCodec(int id)
+        {
+            this.id = (byte) id;
+        }
+
+        byte getId()
+        {
+            return id;
+        }
+
+        static BlockCodec fromId(byte id)
+        {
+            for (BlockCodec codec : values()) {
+                if (codec.id == id) {
+                    return codec;
+                }
+            }
+            throw new IllegalArgumentException("Unknown block codec id: " + id);
+        }
+    }
+}
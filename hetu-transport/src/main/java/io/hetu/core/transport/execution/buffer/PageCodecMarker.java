@@ -27,7 +27,9 @@ public enum PageCodecMarker
 {
     COMPRESSED(1),
     ENCRYPTED(2),
-    MARKER_PAGE(3);
+    MARKER_PAGE(3),
+    // Blocks are compressed individually, the codec of each block is recorded in the page payload
+    BLOCK_COMPRESSED(4);
 
     private final int mask;
 
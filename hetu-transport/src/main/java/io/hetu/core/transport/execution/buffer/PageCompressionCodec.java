@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.hetu.core.transport.execution.buffer;
+
+/**
+ * Compression applied to serialized pages when compression is enabled
+ */
+public enum PageCompressionCodec
+{
+    /**
+     * Whole page compressed with Zstd
+     */
+    ZSTD,
+    /**
+     * Codec chosen per block from sampled compression ratio and CPU cost, see {@link AdaptiveBlockCompressor}
+     */
+    ADAPTIVE
+}
@@ -32,6 +32,7 @@ import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.transport.execution.buffer.PageCodecMarker.BLOCK_COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.ENCRYPTED;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readRawPage;
@@ -50,14 +51,27 @@ public class PagesSerde
     private final Optional<Compressor> compressor;
     private final Optional<Decompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
+    private final boolean blockCompressionEnabled;
+    // created lazily, any serde must be able to read block compressed pages
+    private AdaptiveBlockCompressor blockCompressor;
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, false);
+    }
+
+    /**
+     * @param blockCompressionEnabled compress each block with an adaptively chosen codec instead of compressing the whole page
+     */
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher, boolean blockCompressionEnabled)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
+        checkArgument(!blockCompressionEnabled || !compressor.isPresent(), "page compressor must be absent when block compression is enabled");
         this.compressor = requireNonNull(compressor, "compressor is null");
         this.decompressor = requireNonNull(decompressor, "decompressor is null");
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
+        this.blockCompressionEnabled = blockCompressionEnabled;
     }
 
     @Override
@@ -81,10 +95,17 @@ public class PagesSerde
     private SerializedPage serializeImpl(Page page)
     {
         SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
-        writeRawPage(page, serializationBuffer, blockEncodingSerde);
-        Slice slice = serializationBuffer.slice();
-        int uncompressedSize = serializationBuffer.size();
         MarkerSet markers = MarkerSet.empty();
+        int uncompressedSize;
+        if (blockCompressionEnabled) {
+            uncompressedSize = getBlockCompressor().compress(page, serializationBuffer);
+            markers.add(BLOCK_COMPRESSED);
+        }
+        else {
+            writeRawPage(page, serializationBuffer, blockEncodingSerde);
+            uncompressedSize = serializationBuffer.size();
+        }
+        Slice slice = serializationBuffer.slice();
 
         if (compressor.isPresent()) {
             byte[] compressed = new byte[compressor.get().maxCompressedLength(uncompressedSize)];
@@ -158,9 +179,21 @@ public class PagesSerde
             slice = Slices.wrappedBuffer(decompressed);
         }
 
+        if (serializedPage.isBlockCompressed()) {
+            return getBlockCompressor().decompress(serializedPage.getPositionCount(), serializedPage.getPageMetadata(), slice);
+        }
+
         return readRawPage(serializedPage.getPositionCount(), serializedPage.getPageMetadata(), slice.getInput(), blockEncodingSerde);
     }
 
+    private AdaptiveBlockCompressor getBlockCompressor()
+    {
+        if (blockCompressor == null) {
+            blockCompressor = new AdaptiveBlockCompressor(blockEncodingSerde);
+        }
+        return blockCompressor;
+    }
+
     @Override
     public BlockEncodingSerde getBlockEncodingSerde()
     {
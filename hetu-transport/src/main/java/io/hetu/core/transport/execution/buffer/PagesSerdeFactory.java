@@ -26,11 +26,18 @@ public class PagesSerdeFactory
 {
     private final BlockEncodingSerde blockEncodingSerde;
     private final boolean compressionEnabled;
+    private final PageCompressionCodec compressionCodec;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled)
+    {
+        this(blockEncodingSerde, compressionEnabled, PageCompressionCodec.ZSTD);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, boolean compressionEnabled, PageCompressionCodec compressionCodec)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.compressionEnabled = compressionEnabled;
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
     }
 
     public PagesSerde createPagesSerde()
@@ -54,6 +61,10 @@ public class PagesSerdeFactory
         }
 
         if (compressionEnabled) {
+            if (compressionCodec == PageCompressionCodec.ADAPTIVE) {
+                // block compressed pages are self-describing, so they can be read by a serde of any codec
+                return new PagesSerde(blockEncodingSerde, Optional.empty(), Optional.empty(), spillCipher, true);
+            }
             return new PagesSerde(blockEncodingSerde, Optional.of(new ZstdCompressor()), Optional.of(new ZstdDecompressor()), spillCipher);
         }
 
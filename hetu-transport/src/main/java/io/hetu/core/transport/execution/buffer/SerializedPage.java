@@ -28,6 +28,7 @@ import java.util.Properties;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.hetu.core.transport.execution.buffer.PageCodecMarker.BLOCK_COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.COMPRESSED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.ENCRYPTED;
 import static io.hetu.core.transport.execution.buffer.PageCodecMarker.MARKER_PAGE;
@@ -84,8 +85,9 @@ public class SerializedPage
         this.uncompressedSizeInBytes = uncompressedSizeInBytes;
         this.pageCodecMarkers = requireNonNull(markers, "markers is null").byteValue();
         this.pageMetadata = pageMetadata == null ? new Properties() : pageMetadata;
-        //  Encrypted pages may include arbitrary overhead from ciphers, sanity checks skipped
-        if (!markers.contains(ENCRYPTED)) {
+        //  Encrypted pages may include arbitrary overhead from ciphers, and block compressed pages include
+        //  per-block headers, sanity checks skipped
+        if (!markers.contains(ENCRYPTED) && !markers.contains(BLOCK_COMPRESSED)) {
             if (markers.contains(COMPRESSED)) {
                 checkArgument(uncompressedSizeInBytes > slice.length(), "compressed size must be smaller than uncompressed size when compressed");
             }
@@ -144,6 +146,11 @@ public class SerializedPage
         return COMPRESSED.isSet(pageCodecMarkers);
     }
 
+    public boolean isBlockCompressed()
+    {
+        return BLOCK_COMPRESSED.isSet(pageCodecMarkers);
+    }
+
     public boolean isEncrypted()
     {
         return ENCRYPTED.isSet(pageCodecMarkers);
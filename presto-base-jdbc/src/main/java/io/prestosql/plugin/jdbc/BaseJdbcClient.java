@@ -360,7 +360,7 @@ public class BaseJdbcClient
                     connection,
                     null,
                     null,
-                    table.getGeneratedSql().get().getSql(),
+                    split.getPushDownSql().orElse(table.getGeneratedSql().get().getSql()),
                     columns,
                     table.getConstraint(),
                     split.getAdditionalPredicate(),
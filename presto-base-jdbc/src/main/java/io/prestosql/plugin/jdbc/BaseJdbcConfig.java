@@ -79,6 +79,14 @@ public class BaseJdbcConfig
     private Duration stepCalcRefreshInterval = new Duration(5, TimeUnit.MINUTES);
     private int stepCalcThreads = 4;
 
+    private boolean columnarPageSourceEnabled = true;
+    private int pageSourcePrefetchPages;
+    private int pageSourcePrefetchThreads = 8;
+
+    private boolean rangeSplitEnabled;
+    private int rangeSplitMaxConnections = 4;
+    private long rangeSplitMinRows = 1_000_000L;
+
     public Optional<CatalogSchemaName> getConnectorRegistryFunctionNamespace()
     {
         return parserExternalFunctionCatalogSchema(connectorRegistryFunctionNamespace);
@@ -538,4 +546,86 @@ public class BaseJdbcConfig
     {
         return stepCalcThreads;
     }
+
+    @Config("jdbc.columnar-page-source-enabled")
+    @ConfigDescription("Read query results directly into blocks instead of going through a record cursor")
+    public BaseJdbcConfig setColumnarPageSourceEnabled(boolean columnarPageSourceEnabled)
+    {
+        this.columnarPageSourceEnabled = columnarPageSourceEnabled;
+        return this;
+    }
+
+    public boolean isColumnarPageSourceEnabled()
+    {
+        return columnarPageSourceEnabled;
+    }
+
+    @Config("jdbc.page-source-prefetch-pages")
+    @ConfigDescription("Number of pages the columnar page source builds ahead in the background, 0 disables prefetching")
+    public BaseJdbcConfig setPageSourcePrefetchPages(int pageSourcePrefetchPages)
+    {
+        this.pageSourcePrefetchPages = pageSourcePrefetchPages;
+        return this;
+    }
+
+    @Min(0)
+    public int getPageSourcePrefetchPages()
+    {
+        return pageSourcePrefetchPages;
+    }
+
+    @Config("jdbc.page-source-prefetch-threads")
+    @ConfigDescription("Maximum number of page sources prefetching at the same time, the others read on the driver thread")
+    public BaseJdbcConfig setPageSourcePrefetchThreads(int pageSourcePrefetchThreads)
+    {
+        this.pageSourcePrefetchThreads = pageSourcePrefetchThreads;
+        return this;
+    }
+
+    @Min(1)
+    public int getPageSourcePrefetchThreads()
+    {
+        return pageSourcePrefetchThreads;
+    }
+
+    @Config("jdbc.range-split-enabled")
+    @ConfigDescription("Split table scans and pushed down queries into ranges of an indexed integral or date column")
+    public BaseJdbcConfig setRangeSplitEnabled(boolean rangeSplitEnabled)
+    {
+        this.rangeSplitEnabled = rangeSplitEnabled;
+        return this;
+    }
+
+    public boolean isRangeSplitEnabled()
+    {
+        return rangeSplitEnabled;
+    }
+
+    @Config("jdbc.range-split-max-connections")
+    @ConfigDescription("Maximum number of range splits, and so of concurrent remote connections, of one table scan")
+    public BaseJdbcConfig setRangeSplitMaxConnections(int rangeSplitMaxConnections)
+    {
+        this.rangeSplitMaxConnections = rangeSplitMaxConnections;
+        return this;
+    }
+
+    @Min(1)
+    public int getRangeSplitMaxConnections()
+    {
+        return rangeSplitMaxConnections;
+    }
+
+    @Config("jdbc.range-split-min-rows")
+    @ConfigDescription("Minimum estimated number of remote rows per range split")
+    public BaseJdbcConfig setRangeSplitMinRows(long rangeSplitMinRows)
+    {
+        this.rangeSplitMinRows = rangeSplitMinRows;
+        return this;
+    }
+
+    @Min(1)
+    public long getRangeSplitMinRows()
+    {
+        return rangeSplitMinRows;
+    }
 }
@@ -23,6 +23,7 @@ import io.prestosql.plugin.jdbc.jmx.StatisticsAwareConnectionFactory;
 import io.prestosql.plugin.jdbc.jmx.StatisticsAwareJdbcClient;
 import io.prestosql.plugin.jdbc.optimization.JdbcPlanOptimizer;
 import io.prestosql.plugin.splitmanager.DataSourceTableSplitManager;
+import io.prestosql.plugin.splitmanager.JdbcRangeSplitManager;
 import io.prestosql.spi.connector.ConnectorAccessControl;
 import io.prestosql.spi.procedure.Procedure;
 
@@ -55,6 +56,7 @@ public class JdbcModule
         binder.bind(JdbcConnector.class).in(Scopes.SINGLETON);
         binder.bind(JdbcPageSourceProvider.class).in(Scopes.SINGLETON);
         binder.bind(DataSourceTableSplitManager.class).in(Scopes.SINGLETON);
+        binder.bind(JdbcRangeSplitManager.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(JdbcMetadataConfig.class);
 
         newExporter(binder).export(Key.get(JdbcClient.class, InternalBaseJdbc.class))
@@ -0,0 +1,500 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.jdbc;
+
+import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.classloader.ThreadContextClassLoader;
+import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.type.Type;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static io.prestosql.plugin.jdbc.JdbcErrorCode.JDBC_ERROR;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Page source reading a JDBC result set directly into blocks, without going through a record cursor.
+ * <p>
+ * When prefetching is enabled, pages are built by a background task while the engine processes the previous
+ * ones, so that fetching rows over the network overlaps with the rest of the query. When the fetch size is not
+ * configured, the fetch size of the result set is adapted to the number of rows of a page, so that a page
+ * takes a single round trip to the database.
+ */
+public class JdbcPageSource
+        implements ConnectorPageSource
+{
+    private static final Logger log = Logger.get(JdbcPageSource.class);
+
+    private static final int MIN_FETCH_SIZE = 100;
+    private static final int MAX_ROWS_PER_PAGE = 10_000;
+    private static final long PREFETCH_OFFER_WAIT_MILLIS = 100;
+
+    private final JdbcClient jdbcClient;
+    private final List<Type> types;
+    private final int[] jdbcTypes;
+    private final BooleanReadFunction[] booleanReadFunctions;
+    private final DoubleReadFunction[] doubleReadFunctions;
+    private final LongReadFunction[] longReadFunctions;
+    private final SliceReadFunction[] sliceReadFunctions;
+    private final BlockReadFunction[] blockReadFunctions;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final PageBuilder pageBuilder;
+    private boolean adaptiveFetchSize;
+
+    private final AtomicLong completedBytes = new AtomicLong();
+    private final AtomicLong readTimeNanos = new AtomicLong();
+    private volatile long builderRetainedBytes;
+    private volatile boolean closed;
+    private boolean resultSetExhausted;
+
+    // prefetching state, pages and the end of the result set are published by the background task
+    private final BlockingQueue<Page> prefetchedPages;
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+    private final Future<?> prefetchTask;
+    private volatile boolean prefetchFinished;
+    private volatile Throwable prefetchFailure;
+    private CompletableFuture<?> pageAvailable = CompletableFuture.completedFuture(null);
+
+    public JdbcPageSource(JdbcClient jdbcClient, ConnectorSession session, JdbcSplit split, JdbcTableHandle table, List<JdbcColumnHandle> columnHandles, BaseJdbcConfig config, Optional<ExecutorService> prefetchExecutor)
+    {
+        this.jdbcClient = requireNonNull(jdbcClient, "jdbcClient is null");
+        requireNonNull(config, "config is null");
+        requireNonNull(prefetchExecutor, "prefetchExecutor is null");
+
+        ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
+        for (JdbcColumnHandle columnHandle : columnHandles) {
+            typesBuilder.add(columnHandle.getColumnType());
+        }
+        this.types = typesBuilder.build();
+        this.jdbcTypes = columnHandles.stream()
+                .mapToInt(columnHandle -> columnHandle.getJdbcTypeHandle().getJdbcType())
+                .toArray();
+        this.pageBuilder = new PageBuilder(types);
+
+        booleanReadFunctions = new BooleanReadFunction[columnHandles.size()];
+        doubleReadFunctions = new DoubleReadFunction[columnHandles.size()];
+        longReadFunctions = new LongReadFunction[columnHandles.size()];
+        sliceReadFunctions = new SliceReadFunction[columnHandles.size()];
+        blockReadFunctions = new BlockReadFunction[columnHandles.size()];
+
+        Connection newConnection = null;
+        PreparedStatement newStatement = null;
+        try {
+            newConnection = jdbcClient.getConnection(JdbcIdentity.from(session), split);
+            for (int i = 0; i < columnHandles.size(); i++) {
+                ColumnMapping columnMapping = jdbcClient.toPrestoType(session, newConnection, columnHandles.get(i).getJdbcTypeHandle())
+                        .orElseThrow(() -> new VerifyException("Unsupported column type"));
+                Class<?> javaType = columnMapping.getType().getJavaType();
+                ReadFunction readFunction = columnMapping.getReadFunction();
+
+                if (javaType == boolean.class) {
+                    booleanReadFunctions[i] = (BooleanReadFunction) readFunction;
+                }
+                else if (javaType == double.class) {
+                    doubleReadFunctions[i] = (DoubleReadFunction) readFunction;
+                }
+                else if (javaType == long.class) {
+                    longReadFunctions[i] = (LongReadFunction) readFunction;
+                }
+                else if (javaType == Slice.class) {
+                    sliceReadFunctions[i] = (SliceReadFunction) readFunction;
+                }
+                else if (javaType == Block.class) {
+                    blockReadFunctions[i] = (BlockReadFunction) readFunction;
+                }
+                else {
+                    throw new IllegalStateException(format("Unsupported java type %s", javaType));
+                }
+            }
+
+            newStatement = jdbcClient.buildSql(session, newConnection, split, table, columnHandles);
+            log.debug("Executing: %s", newStatement.toString());
+            long start = System.nanoTime();
+            this.resultSet = newStatement.executeQuery();
+            readTimeNanos.addAndGet(System.nanoTime() - start);
+            // a negative fetch size is used by some drivers to request streaming, leave it alone
+            this.adaptiveFetchSize = config.getFetchSize() == 0 && newStatement.getFetchSize() >= 0;
+        }
+        catch (SQLException | RuntimeException e) {
+            closeResources(newStatement, null, newConnection);
+            throw new PrestoException(JDBC_ERROR, e);
+        }
+        this.connection = newConnection;
+        this.statement = newStatement;
+
+        Future<?> newPrefetchTask = null;
+        if (config.getPageSourcePrefetchPages() > 0 && prefetchExecutor.isPresent()) {
+            this.prefetchedPages = new ArrayBlockingQueue<>(config.getPageSourcePrefetchPages());
+            try {
+                newPrefetchTask = prefetchExecutor.get().submit(this::prefetch);
+                this.pageAvailable = new CompletableFuture<>();
+            }
+            catch (RejectedExecutionException e) {
+                // every prefetch thread is busy, read on the driver thread instead
+                log.debug("Prefetch executor is saturated, reading synchronously");
+            }
+        }
+        else {
+            this.prefetchedPages = null;
+        }
+        this.prefetchTask = newPrefetchTask;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes.get();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos.get();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        if (closed) {
+            return true;
+        }
+        if (prefetchTask == null) {
+            return resultSetExhausted;
+        }
+        return prefetchFinished && prefetchFailure == null && prefetchedPages.isEmpty();
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (prefetchTask == null) {
+            return NOT_BLOCKED;
+        }
+        synchronized (this) {
+            if (closed || prefetchFinished || !prefetchedPages.isEmpty()) {
+                return NOT_BLOCKED;
+            }
+            if (pageAvailable.isDone()) {
+                pageAvailable = new CompletableFuture<>();
+            }
+            return pageAvailable;
+        }
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (closed) {
+            return null;
+        }
+        if (prefetchTask == null) {
+            try {
+                return readPage();
+            }
+            catch (SQLException | RuntimeException e) {
+                throw handleSqlException(e);
+            }
+        }
+
+        Page page = prefetchedPages.poll();
+        if (page != null) {
+            prefetchedBytes.addAndGet(-page.getRetainedSizeInBytes());
+            return page;
+        }
+        Throwable failure = prefetchFailure;
+        if (failure != null) {
+            throw handleSqlException(failure);
+        }
+        return null;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return builderRetainedBytes + prefetchedBytes.get();
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pageAvailable.complete(null);
+        }
+
+        if (prefetchTask != null) {
+            // the background task checks for closing between rows, but may be blocked in the driver waiting for
+            // the database, so cancel the statement before waiting for the task to release the result set
+            if (!prefetchTask.isDone()) {
+                cancelStatement();
+            }
+            try {
+                getUninterruptibly(prefetchTask);
+            }
+            catch (ExecutionException e) {
+                log.warn(e.toString());
+            }
+            prefetchedPages.clear();
+            prefetchedBytes.set(0);
+        }
+        builderRetainedBytes = 0;
+
+        closeResources(statement, resultSet, connection);
+    }
+
+    private void cancelStatement()
+    {
+        try {
+            statement.cancel();
+        }
+        catch (SQLException | RuntimeException e) {
+            // not every driver supports cancellation, the task stops after the current fetch
+            log.debug("Failed to cancel statement: %s", e);
+        }
+    }
+
+    private void prefetch()
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(JdbcPageSource.class.getClassLoader())) {
+            while (!closed) {
+                Page page = readPage();
+                if (page == null) {
+                    break;
+                }
+                prefetchedBytes.addAndGet(page.getRetainedSizeInBytes());
+                while (!prefetchedPages.offer(page, PREFETCH_OFFER_WAIT_MILLIS, MILLISECONDS)) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                synchronized (this) {
+                    pageAvailable.complete(null);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            prefetchFailure = e;
+        }
+        catch (SQLException | RuntimeException e) {
+            prefetchFailure = e;
+        }
+        finally {
+            prefetchFinished = true;
+            synchronized (this) {
+                pageAvailable.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Reads the next page of the result set, or returns null once it is exhausted or the page source is closed.
+     */
+    private Page readPage()
+            throws SQLException
+    {
+        if (resultSetExhausted) {
+            return null;
+        }
+        long start = System.nanoTime();
+        while (!closed && !pageBuilder.isFull() && pageBuilder.getPositionCount() < MAX_ROWS_PER_PAGE) {
+            if (!resultSet.next()) {
+                resultSetExhausted = true;
+                break;
+            }
+            appendRow();
+        }
+        readTimeNanos.addAndGet(System.nanoTime() - start);
+        builderRetainedBytes = pageBuilder.getRetainedSizeInBytes();
+
+        if (closed || pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        completedBytes.addAndGet(page.getSizeInBytes());
+        if (!resultSetExhausted) {
+            adaptFetchSize(page.getPositionCount());
+        }
+        return page;
+    }
+
+    private void appendRow()
+            throws SQLException
+    {
+        pageBuilder.declarePosition();
+        for (int column = 0; column < types.size(); column++) {
+            BlockBuilder output = pageBuilder.getBlockBuilder(column);
+            int index = column + 1;
+            // the null check has to come first, the read functions don't expect null values
+            if (isNull(index, jdbcTypes[column])) {
+                output.appendNull();
+                continue;
+            }
+            Type type = types.get(column);
+            if (booleanReadFunctions[column] != null) {
+                type.writeBoolean(output, booleanReadFunctions[column].readBoolean(resultSet, index));
+            }
+            else if (longReadFunctions[column] != null) {
+                type.writeLong(output, longReadFunctions[column].readLong(resultSet, index));
+            }
+            else if (doubleReadFunctions[column] != null) {
+                type.writeDouble(output, doubleReadFunctions[column].readDouble(resultSet, index));
+            }
+            else if (sliceReadFunctions[column] != null) {
+                type.writeSlice(output, sliceReadFunctions[column].readSlice(resultSet, index));
+            }
+            else {
+                type.writeObject(output, blockReadFunctions[column].readBlock(resultSet, index));
+            }
+        }
+    }
+
+    /**
+     * Reads the column with the getter matching its JDBC type, so that primitive values are not boxed
+     * only to learn whether they are null
+     */
+    private boolean isNull(int index, int jdbcType)
+            throws SQLException
+    {
+        switch (jdbcType) {
+            case Types.BOOLEAN:
+                resultSet.getBoolean(index);
+                break;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                resultSet.getLong(index);
+                break;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                resultSet.getDouble(index);
+                break;
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                resultSet.getString(index);
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                resultSet.getBigDecimal(index);
+                break;
+            default:
+                resultSet.getObject(index);
+        }
+        return resultSet.wasNull();
+    }
+
+    /**
+     * Asks the driver to fetch about a page worth of rows per round trip
+     */
+    private void adaptFetchSize(int rowsPerPage)
+    {
+        if (!adaptiveFetchSize) {
+            return;
+        }
+        int fetchSize = min(max(rowsPerPage, MIN_FETCH_SIZE), MAX_ROWS_PER_PAGE);
+        try {
+            if (resultSet.getFetchSize() != fetchSize) {
+                resultSet.setFetchSize(fetchSize);
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            // not every driver supports changing the fetch size of an open result set
+            log.debug("Disabling adaptive fetch size: %s", e);
+            adaptiveFetchSize = false;
+        }
+    }
+
+    private RuntimeException handleSqlException(Throwable e)
+    {
+        try {
+            close();
+        }
+        catch (Exception closeException) {
+            // Self-suppression not permitted
+            if (e != closeException) {
+                e.addSuppressed(closeException);
+            }
+        }
+        if (e instanceof PrestoException) {
+            return (PrestoException) e;
+        }
+        return new PrestoException(JDBC_ERROR, e);
+    }
+
+    private void closeResources(Statement statement, ResultSet resultSet, Connection connection)
+    {
+        // use try with resources to close everything properly, null resources are skipped
+        try (Statement closingStatement = statement;
+                ResultSet closingResultSet = resultSet) {
+            log.debug("Closing %s", closingStatement);
+        }
+        catch (SQLException | RuntimeException e) {
+            // ignore exception from close
+            log.warn(e.toString());
+        }
+
+        try (Connection closingConnection = connection) {
+            if (closingConnection != null) {
+                jdbcClient.abortReadConnection(closingConnection);
+            }
+        }
+        catch (SQLException | RuntimeException e) {
+            // ignore exception from close
+            log.warn(e.toString());
+        }
+    }
+}
@@ -14,6 +14,7 @@
  */
 package io.prestosql.plugin.jdbc;
 
+import com.google.common.collect.ImmutableList;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ConnectorPageSource;
 import io.prestosql.spi.connector.ConnectorPageSourceProvider;
@@ -24,11 +25,18 @@ import io.prestosql.spi.connector.ConnectorTransactionHandle;
 import io.prestosql.spi.connector.RecordPageSource;
 import io.prestosql.spi.connector.RecordSet;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class JdbcPageSourceProvider
         implements ConnectorPageSourceProvider
@@ -36,6 +44,7 @@ public class JdbcPageSourceProvider
     private JdbcRecordSetProvider recordSetProvider;
     private final JdbcClient jdbcClient;
     private final BaseJdbcConfig config;
+    private final Optional<ExecutorService> prefetchExecutor;
 
     @Inject
     public JdbcPageSourceProvider(@InternalBaseJdbc JdbcClient jdbcClient, BaseJdbcConfig config, JdbcRecordSetProvider recordSetProvider)
@@ -43,12 +52,38 @@ public class JdbcPageSourceProvider
         this.jdbcClient = requireNonNull(jdbcClient, "jdbcClient is null");
         this.config = requireNonNull(config, "config is null");
         this.recordSetProvider = requireNonNull(recordSetProvider, "recordSetProvider is null");
+        if (config.isColumnarPageSourceEnabled() && config.getPageSourcePrefetchPages() > 0) {
+            // page sources which cannot get a thread read on the driver thread, see JdbcPageSource
+            this.prefetchExecutor = Optional.of(new ThreadPoolExecutor(
+                    0,
+                    config.getPageSourcePrefetchThreads(),
+                    60L,
+                    SECONDS,
+                    new SynchronousQueue<>(),
+                    daemonThreadsNamed("jdbc-page-source-prefetch-%s")));
+        }
+        else {
+            this.prefetchExecutor = Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        prefetchExecutor.ifPresent(ExecutorService::shutdownNow);
     }
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, ConnectorTableHandle table, List<ColumnHandle> columns)
     {
         JdbcTableHandle jdbcTableHandle = (JdbcTableHandle) table;
+        if (!jdbcTableHandle.getDeleteOrUpdate() && config.isColumnarPageSourceEnabled()) {
+            ImmutableList.Builder<JdbcColumnHandle> handles = ImmutableList.builder();
+            for (ColumnHandle handle : columns) {
+                handles.add((JdbcColumnHandle) handle);
+            }
+            return new JdbcPageSource(jdbcClient, session, (JdbcSplit) split, jdbcTableHandle, handles.build(), config, prefetchExecutor);
+        }
         RecordSet recordSet = recordSetProvider.getRecordSet(transaction, session, split, table, columns);
         if (jdbcTableHandle.getDeleteOrUpdate()) {
             return new JdbcUpdatablePageSource(recordSet, session, table, jdbcClient, config, (JdbcSplit) split);
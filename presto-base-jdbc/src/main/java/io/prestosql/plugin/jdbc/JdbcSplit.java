@@ -38,6 +38,22 @@ public class JdbcSplit
     private final long timeStamp;
     private final int scanNodes;
     private final Optional<String> additionalPredicate;
+    // pushed down query of the table, rewritten to read only the rows of this split
+    private final Optional<String> pushDownSql;
+
+    public JdbcSplit(
+            String catalogName,
+            String schemaName,
+            String tableName,
+            String splitField,
+            String rangeStart,
+            String rangEnd,
+            long timeStamp,
+            int scanNodes,
+            Optional<String> additionalPredicate)
+    {
+        this(catalogName, schemaName, tableName, splitField, rangeStart, rangEnd, timeStamp, scanNodes, additionalPredicate, Optional.empty());
+    }
 
     @JsonCreator
     public JdbcSplit(
@@ -49,7 +65,8 @@ public class JdbcSplit
             @JsonProperty("endIndex") String rangEnd,
             @JsonProperty("timeStamp") long timeStamp,
             @JsonProperty("scanNodes") int scanNodes,
-            @JsonProperty("additionalPredicate") Optional<String> additionalPredicate)
+            @JsonProperty("additionalPredicate") Optional<String> additionalPredicate,
+            @JsonProperty("pushDownSql") Optional<String> pushDownSql)
     {
         this.catalogName = catalogName;
         this.schemaName = schemaName;
@@ -60,6 +77,7 @@ public class JdbcSplit
         this.timeStamp = timeStamp;
         this.scanNodes = scanNodes;
         this.additionalPredicate = requireNonNull(additionalPredicate, "additionalPredicate is null");
+        this.pushDownSql = requireNonNull(pushDownSql, "pushDownSql is null");
     }
 
     @JsonProperty
@@ -113,6 +131,12 @@ public class JdbcSplit
         return additionalPredicate;
     }
 
+    @JsonProperty
+    public Optional<String> getPushDownSql()
+    {
+        return pushDownSql;
+    }
+
     @JsonProperty
     public String getSplitField()
     {
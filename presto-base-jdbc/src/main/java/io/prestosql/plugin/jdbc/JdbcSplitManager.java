@@ -14,6 +14,7 @@
 package io.prestosql.plugin.jdbc;
 
 import io.prestosql.plugin.splitmanager.DataSourceTableSplitManager;
+import io.prestosql.plugin.splitmanager.JdbcRangeSplitManager;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.connector.ConnectorSplitManager;
 import io.prestosql.spi.connector.ConnectorSplitSource;
@@ -31,13 +32,15 @@ public class JdbcSplitManager
 
     private boolean tableSplitEnable;
     private DataSourceTableSplitManager tableSplitManager;
+    private JdbcRangeSplitManager rangeSplitManager;
 
     @Inject
-    public JdbcSplitManager(@InternalBaseJdbc JdbcClient jdbcClient, BaseJdbcConfig config, DataSourceTableSplitManager tableSplitManager)
+    public JdbcSplitManager(@InternalBaseJdbc JdbcClient jdbcClient, BaseJdbcConfig config, DataSourceTableSplitManager tableSplitManager, JdbcRangeSplitManager rangeSplitManager)
     {
         this.jdbcClient = requireNonNull(jdbcClient, "client is null");
         this.tableSplitEnable = requireNonNull(config, "config is null").getTableSplitEnable();
         this.tableSplitManager = requireNonNull(tableSplitManager, "tableSplitManager is null");
+        this.rangeSplitManager = requireNonNull(rangeSplitManager, "rangeSplitManager is null");
     }
 
     @Override
@@ -48,6 +51,7 @@ public class JdbcSplitManager
         if (tableSplitEnable && !tableHandle.getGeneratedSql().isPresent()) {
             return tableSplitManager.getSplits(JdbcIdentity.from(session), tableHandle);
         }
-        return jdbcClient.getSplits(JdbcIdentity.from(session), tableHandle);
+        //pushdown sql or table split disabled: split by ranges of an indexed column when range split is enabled
+        return rangeSplitManager.getSplits(session, tableHandle);
     }
 }
@@ -0,0 +1,505 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.splitmanager;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.prestosql.plugin.jdbc.BaseJdbcConfig;
+import io.prestosql.plugin.jdbc.InternalBaseJdbc;
+import io.prestosql.plugin.jdbc.JdbcClient;
+import io.prestosql.plugin.jdbc.JdbcIdentity;
+import io.prestosql.plugin.jdbc.JdbcSplit;
+import io.prestosql.plugin.jdbc.JdbcTableHandle;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.connector.ConnectorSplitSource;
+import io.prestosql.spi.connector.FixedSplitSource;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.statistics.Estimate;
+
+import javax.inject.Inject;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+
+/**
+ * Splits a remote table scan, including scans of pushed down SQL, into balanced
+ * ranges of an indexed integral or date column. The pushed down query is wrapped
+ * by the query builder, so every split reads {@code (sql) pushdown WHERE <range>}.
+ * When the split column is a plain column of the only table the query reads, and the
+ * query does not combine rows of different ranges, the range is also pushed into the
+ * scan of that table, so that each split evaluates the query on its own range only.
+ * The first and the last range are open ended (the first one also takes NULLs), so
+ * the splits always cover every row, whatever the sampled bounds were.
+ */
+public class JdbcRangeSplitManager
+{
+    private static final Logger log = Logger.get(JdbcRangeSplitManager.class);
+
+    // every split re-runs the pushed down query, so row limiting inside it would give each split a different row set
+    private static final Pattern ROW_LIMITING_CLAUSE = Pattern.compile("\\b(LIMIT|OFFSET|FETCH\\s+(FIRST|NEXT)|ROWNUM|TOP)\\b", CASE_INSENSITIVE);
+    // rows of different ranges may end up in the same output row, or a range of one table may need rows of another one
+    private static final Pattern CROSS_RANGE_CLAUSE = Pattern.compile("\\b(JOIN|UNION|INTERSECT|EXCEPT|MINUS|OVER|GROUPING|ROLLUP|CUBE)\\b", CASE_INSENSITIVE);
+    private static final String RANGE_ALIAS = "hetu_range_split";
+
+    private final JdbcClient jdbcClient;
+    private final boolean rangeSplitEnabled;
+    private final int maxConnections;
+    private final long minRowsPerSplit;
+
+    @Inject
+    public JdbcRangeSplitManager(@InternalBaseJdbc JdbcClient jdbcClient, BaseJdbcConfig config)
+    {
+        this.jdbcClient = requireNonNull(jdbcClient, "jdbcClient is null");
+        requireNonNull(config, "config is null");
+        this.rangeSplitEnabled = config.isRangeSplitEnabled();
+        this.maxConnections = config.getRangeSplitMaxConnections();
+        this.minRowsPerSplit = config.getRangeSplitMinRows();
+    }
+
+    public ConnectorSplitSource getSplits(ConnectorSession session, JdbcTableHandle tableHandle)
+    {
+        JdbcIdentity identity = JdbcIdentity.from(session);
+        if (!rangeSplitEnabled || maxConnections <= 1 || tableHandle.getDeleteOrUpdate() || tableHandle.getLimit().isPresent()) {
+            return jdbcClient.getSplits(identity, tableHandle);
+        }
+        if (tableHandle.getGeneratedSql().isPresent() && ROW_LIMITING_CLAUSE.matcher(tableHandle.getGeneratedSql().get().getSql()).find()) {
+            return jdbcClient.getSplits(identity, tableHandle);
+        }
+
+        List<JdbcSplit> splits = ImmutableList.of();
+        try (Connection connection = jdbcClient.getConnection(identity, (JdbcSplit) null)) {
+            DatabaseMetaData metadata = connection.getMetaData();
+            TableIndexes indexes = getTableIndexes(metadata, tableHandle);
+            Optional<SplitColumn> splitColumn = findSplitColumn(connection, tableHandle, indexes.getLeadingColumns());
+            if (splitColumn.isPresent()) {
+                OptionalLong rowCount = getRowCount(session, tableHandle, indexes);
+                int splitCount = maxConnections;
+                if (rowCount.isPresent()) {
+                    splitCount = (int) Math.min(maxConnections, Math.max(1, (rowCount.getAsLong() + minRowsPerSplit - 1) / minRowsPerSplit));
+                }
+                if (splitCount > 1) {
+                    String quote = metadata.getIdentifierQuoteString();
+                    Optional<long[]> range = getRange(connection, quote, tableHandle, splitColumn.get());
+                    if (range.isPresent()) {
+                        boolean rangeInQuery = tableHandle.getGeneratedSql().isPresent()
+                                && isRangePushable(tableHandle.getGeneratedSql().get().getSql(), tableReference(quote, tableHandle), splitColumn.get());
+                        splits = buildSplits(tableHandle, splitColumn.get(), quote, range.get()[0], range.get()[1], splitCount, rangeInQuery);
+                    }
+                }
+            }
+        }
+        catch (SQLException | PrestoException e) {
+            log.warn("Range splitting of %s failed, reading it with a single split: %s", tableHandle, e.getMessage());
+        }
+
+        if (splits.size() <= 1) {
+            return jdbcClient.getSplits(identity, tableHandle);
+        }
+        log.debug("Split %s into %s ranges of %s", tableHandle, splits.size(), splits.get(0).getSplitField());
+        return new FixedSplitSource(splits);
+    }
+
+    /**
+     * Leading columns of the primary key and of the other indexes of the remote table, which is
+     * where range predicates are cheap, plus the row count when the driver reports it.
+     */
+    private static TableIndexes getTableIndexes(DatabaseMetaData metadata, JdbcTableHandle tableHandle)
+            throws SQLException
+    {
+        Set<String> leadingColumns = new LinkedHashSet<>();
+        OptionalLong cardinality = OptionalLong.empty();
+        try (ResultSet resultSet = metadata.getPrimaryKeys(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName())) {
+            while (resultSet.next()) {
+                if (resultSet.getInt("KEY_SEQ") == 1) {
+                    leadingColumns.add(resultSet.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        try (ResultSet resultSet = metadata.getIndexInfo(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName(), false, true)) {
+            while (resultSet.next()) {
+                if (resultSet.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    long rows = resultSet.getLong("CARDINALITY");
+                    if (!resultSet.wasNull() && rows > 0) {
+                        cardinality = OptionalLong.of(rows);
+                    }
+                }
+                else if (resultSet.getShort("ORDINAL_POSITION") == 1 && resultSet.getString("COLUMN_NAME") != null) {
+                    leadingColumns.add(resultSet.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        return new TableIndexes(ImmutableList.copyOf(leadingColumns), cardinality);
+    }
+
+    private static Optional<SplitColumn> findSplitColumn(Connection connection, JdbcTableHandle tableHandle, List<String> candidates)
+            throws SQLException
+    {
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<String, SplitColumn> tableColumns = new HashMap<>();
+        try (ResultSet resultSet = connection.getMetaData().getColumns(tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName(), null)) {
+            while (resultSet.next()) {
+                if (!tableHandle.getTableName().equals(resultSet.getString("TABLE_NAME"))) {
+                    continue;
+                }
+                String name = resultSet.getString("COLUMN_NAME");
+                Optional<ValueKind> kind = ValueKind.of(resultSet.getInt("DATA_TYPE"), resultSet.getInt("COLUMN_SIZE"), resultSet.getInt("DECIMAL_DIGITS"));
+                if (kind.isPresent()) {
+                    boolean nullable = resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+                    tableColumns.put(name, new SplitColumn(name, name, kind.get(), nullable));
+                }
+            }
+        }
+
+        if (!tableHandle.getGeneratedSql().isPresent()) {
+            return candidates.stream()
+                    .filter(tableColumns::containsKey)
+                    .map(tableColumns::get)
+                    .findFirst();
+        }
+
+        // the range predicate is applied on top of the pushed down query, so the column has to be one of its outputs
+        Map<String, SplitColumn> outputColumns = new HashMap<>();
+        String probe = format("SELECT * FROM (%s) pushdown WHERE 1 = 0", tableHandle.getGeneratedSql().get().getSql());
+        try (PreparedStatement statement = connection.prepareStatement(probe);
+                ResultSet resultSet = statement.executeQuery()) {
+            ResultSetMetaData resultMetadata = resultSet.getMetaData();
+            for (int i = 1; i <= resultMetadata.getColumnCount(); i++) {
+                String label = resultMetadata.getColumnLabel(i);
+                Optional<ValueKind> kind = ValueKind.of(resultMetadata.getColumnType(i), resultMetadata.getPrecision(i), resultMetadata.getScale(i));
+                if (kind.isPresent()) {
+                    boolean nullable = resultMetadata.isNullable(i) != ResultSetMetaData.columnNoNulls;
+                    outputColumns.putIfAbsent(label.toLowerCase(Locale.ENGLISH), new SplitColumn(null, label, kind.get(), nullable));
+                }
+            }
+        }
+        for (String candidate : candidates) {
+            SplitColumn tableColumn = tableColumns.get(candidate);
+            SplitColumn outputColumn = outputColumns.get(candidate.toLowerCase(Locale.ENGLISH));
+            if (tableColumn != null && outputColumn != null && tableColumn.getKind() == outputColumn.getKind()) {
+                return Optional.of(new SplitColumn(tableColumn.getTableName(), outputColumn.getOutputName(), outputColumn.getKind(), outputColumn.isNullable()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private OptionalLong getRowCount(ConnectorSession session, JdbcTableHandle tableHandle, TableIndexes indexes)
+    {
+        JdbcTableHandle remoteTable = new JdbcTableHandle(tableHandle.getSchemaTableName(), tableHandle.getCatalogName(), tableHandle.getSchemaName(), tableHandle.getTableName());
+        Estimate rowCount = jdbcClient.getTableStatistics(session, remoteTable, TupleDomain.all()).getRowCount();
+        if (!rowCount.isUnknown()) {
+            return OptionalLong.of((long) rowCount.getValue());
+        }
+        return indexes.getCardinality();
+    }
+
+    /**
+     * Sample the bounds of the split column on the remote table, the index makes this cheap.
+     *
+     * @return min and max value, or empty if the table has no non-null value
+     */
+    private static Optional<long[]> getRange(Connection connection, String quote, JdbcTableHandle tableHandle, SplitColumn column)
+            throws SQLException
+    {
+        String name = quote(quote, column.getTableName());
+        String sql = format("SELECT MIN(%s), MAX(%s) FROM %s", name, name, tableReference(quote, tableHandle));
+
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(sql)) {
+            if (!resultSet.next()) {
+                return Optional.empty();
+            }
+            if (column.getKind() == ValueKind.DATE) {
+                Date min = resultSet.getDate(1);
+                Date max = resultSet.getDate(2);
+                if (min == null || max == null) {
+                    return Optional.empty();
+                }
+                return Optional.of(new long[] {min.toLocalDate().toEpochDay(), max.toLocalDate().toEpochDay()});
+            }
+            long min = resultSet.getLong(1);
+            long max = resultSet.getLong(2);
+            if (resultSet.wasNull()) {
+                return Optional.empty();
+            }
+            return Optional.of(new long[] {min, max});
+        }
+    }
+
+    /**
+     * The range can be applied to the scan of the remote table inside the pushed down query when the query reads
+     * the table once, the split column is an output taken as is from the table, and no clause combines rows of
+     * different ranges. A grouping on the split column is fine: the groups are then partitioned by the ranges.
+     */
+    @VisibleForTesting
+    static boolean isRangePushable(String sql, String tableReference, SplitColumn column)
+    {
+        if (column.getTableName() == null || CROSS_RANGE_CLAUSE.matcher(sql).find() || !findTableReference(sql, tableReference).isPresent()) {
+            return false;
+        }
+        // the query generator only aliases the selections it computes or renames, so an output named after the
+        // column and never used as an alias is the column itself
+        Pattern alias = Pattern.compile("\\bAS\\s+\\W?" + Pattern.quote(column.getOutputName()) + "(\\W|$)", CASE_INSENSITIVE);
+        return column.getTableName().equalsIgnoreCase(column.getOutputName()) && !alias.matcher(sql).find();
+    }
+
+    /**
+     * Position of the only reference to the table in the query, as written by the query generator
+     * for a table scan: {@code FROM <table>} at the end of the query or of a subquery
+     */
+    @VisibleForTesting
+    static Optional<int[]> findTableReference(String sql, String tableReference)
+    {
+        Matcher matcher = Pattern.compile("\\bFROM\\s+" + Pattern.quote(tableReference) + "(?=\\s*(\\)|$))", CASE_INSENSITIVE).matcher(sql);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        int[] position = {matcher.end() - tableReference.length(), matcher.end()};
+        if (sql.indexOf(tableReference, position[1]) >= 0 || sql.lastIndexOf(tableReference, position[0] - 1) >= 0) {
+            // the table is read more than once
+            return Optional.empty();
+        }
+        return Optional.of(position);
+    }
+
+    @VisibleForTesting
+    static List<JdbcSplit> buildSplits(JdbcTableHandle tableHandle, SplitColumn column, String quote, long min, long max, int splitCount, boolean rangeInQuery)
+    {
+        // [min, max] holds max - min + 1 values, give up on spans that do not fit a long
+        long values;
+        try {
+            values = Math.addExact(Math.subtractExact(max, min), 1);
+        }
+        catch (ArithmeticException e) {
+            return ImmutableList.of();
+        }
+        int count = (int) Math.min(splitCount, values);
+        if (count <= 1) {
+            return ImmutableList.of();
+        }
+
+        // lower bound of range i is min + floor(i * values / count), computed without overflow
+        long step = values / count;
+        long remainder = values % count;
+        long[] lowerBounds = new long[count];
+        for (int i = 0; i < count; i++) {
+            lowerBounds[i] = min + step * i + remainder * i / count;
+        }
+
+        Optional<String> sql = Optional.empty();
+        Optional<int[]> tableReference = Optional.empty();
+        if (rangeInQuery) {
+            sql = Optional.of(tableHandle.getGeneratedSql().get().getSql());
+            tableReference = findTableReference(sql.get(), tableReference(quote, tableHandle));
+        }
+
+        long timeStamp = System.nanoTime();
+        List<JdbcSplit> splits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String rangeStart = String.valueOf(i == 0 ? Long.MIN_VALUE : lowerBounds[i]);
+            String rangeEnd = String.valueOf(i == count - 1 ? Long.MAX_VALUE : lowerBounds[i + 1]);
+            String predicate = rangePredicate(quote(quote, column.getOutputName()), column, lowerBounds, i);
+            Optional<String> pushDownSql = Optional.empty();
+            if (tableReference.isPresent()) {
+                int[] position = tableReference.get();
+                pushDownSql = Optional.of(format("%s(SELECT * FROM %s WHERE %s) %s%s",
+                        sql.get().substring(0, position[0]),
+                        sql.get().substring(position[0], position[1]),
+                        rangePredicate(quote(quote, column.getTableName()), column, lowerBounds, i),
+                        RANGE_ALIAS,
+                        sql.get().substring(position[1])));
+            }
+            splits.add(new JdbcSplit(tableHandle.getCatalogName(),
+                    tableHandle.getSchemaName(),
+                    tableHandle.getTableName(),
+                    column.getOutputName(),
+                    rangeStart,
+                    rangeEnd,
+                    timeStamp,
+                    count,
+                    Optional.of(predicate),
+                    pushDownSql));
+        }
+        return splits;
+    }
+
+    private static String rangePredicate(String name, SplitColumn column, long[] lowerBounds, int index)
+    {
+        if (index == 0) {
+            String predicate = format("%s < %s", name, column.getKind().toLiteral(lowerBounds[1]));
+            if (column.isNullable()) {
+                predicate = format("(%s OR %s IS NULL)", predicate, name);
+            }
+            return predicate;
+        }
+        if (index == lowerBounds.length - 1) {
+            return format("%s >= %s", name, column.getKind().toLiteral(lowerBounds[index]));
+        }
+        return format("%s >= %s AND %s < %s", name, column.getKind().toLiteral(lowerBounds[index]), name, column.getKind().toLiteral(lowerBounds[index + 1]));
+    }
+
+    private static String tableReference(String quote, JdbcTableHandle tableHandle)
+    {
+        StringBuilder table = new StringBuilder();
+        if (!isNullOrEmpty(tableHandle.getCatalogName())) {
+            table.append(quote(quote, tableHandle.getCatalogName())).append('.');
+        }
+        if (!isNullOrEmpty(tableHandle.getSchemaName())) {
+            table.append(quote(quote, tableHandle.getSchemaName())).append('.');
+        }
+        table.append(quote(quote, tableHandle.getTableName()));
+        return table.toString();
+    }
+
+    private static String quote(String quote, String name)
+    {
+        if (isNullOrEmpty(quote) || " ".equals(quote)) {
+            return name;
+        }
+        return quote + name.replace(quote, quote + quote) + quote;
+    }
+
+    @VisibleForTesting
+    enum ValueKind
+    {
+        INTEGRAL {
+            @Override
+            String toLiteral(long value)
+            {
+                return String.valueOf(value);
+            }
+        },
+        DATE {
+            @Override
+            String toLiteral(long value)
+            {
+                // JDBC escape syntax, translated by every driver to its own date literal
+                return format("{d '%s'}", LocalDate.ofEpochDay(value));
+            }
+        };
+
+        abstract String toLiteral(long value);
+
+        static Optional<ValueKind> of(int sqlType, int precision, int scale)
+        {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    return Optional.of(INTEGRAL);
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    // e.g. Oracle NUMBER(p, 0) keys, as long as the values fit a long
+                    if (scale == 0 && precision > 0 && precision <= 18) {
+                        return Optional.of(INTEGRAL);
+                    }
+                    return Optional.empty();
+                case Types.DATE:
+                    return Optional.of(DATE);
+                default:
+                    return Optional.empty();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static class SplitColumn
+    {
+        // name in the remote table, and name as seen by the split predicate
+        private final String tableName;
+        private final String outputName;
+        private final ValueKind kind;
+        private final boolean nullable;
+
+        SplitColumn(String tableName, String outputName, ValueKind kind, boolean nullable)
+        {
+            this.tableName = tableName;
+            this.outputName = requireNonNull(outputName, "outputName is null");
+            this.kind = requireNonNull(kind, "kind is null");
+            this.nullable = nullable;
+        }
+
+        String getTableName()
+        {
+            return tableName;
+        }
+
+        String getOutputName()
+        {
+            return outputName;
+        }
+
+        ValueKind getKind()
+        {
+            return kind;
+        }
+
+        boolean isNullable()
+        {
+            return nullable;
+        }
+    }
+
+    private static class TableIndexes
+    {
+        private final List<String> leadingColumns;
+        private final OptionalLong cardinality;
+
+        TableIndexes(List<String> leadingColumns, OptionalLong cardinality)
+        {
+            this.leadingColumns = leadingColumns;
+            this.cardinality = cardinality;
+        }
+
+        List<String> getLeadingColumns()
+        {
+            return leadingColumns;
+        }
+
+        OptionalLong getCardinality()
+        {
+            return cardinality;
+        }
+    }
+}
@@ -65,7 +65,13 @@ public class TestBaseJdbcConfig
                 .setTableSplitEnable(false)
                 .setTableSplitFields(null)
                 .setTableSplitStepCalcRefreshInterval(new Duration(5, MINUTES))
-                .setTableSplitStepCalcCalcThreads(4));
+                .setTableSplitStepCalcCalcThreads(4)
+                .setColumnarPageSourceEnabled(true)
+                .setPageSourcePrefetchPages(0)
+                .setPageSourcePrefetchThreads(8)
+                .setRangeSplitEnabled(false)
+                .setRangeSplitMaxConnections(4)
+                .setRangeSplitMinRows(1_000_000L));
     }
 
     @Test
@@ -105,6 +111,12 @@ public class TestBaseJdbcConfig
                 .put("jdbc.table-split-fields", "test_field")
                 .put("jdbc.table-split-stepCalc-refresh-interval", "20s")
                 .put("jdbc.table-split-stepCalc-threads", "2")
+                .put("jdbc.columnar-page-source-enabled", "false")
+                .put("jdbc.page-source-prefetch-pages", "2")
+                .put("jdbc.page-source-prefetch-threads", "4")
+                .put("jdbc.range-split-enabled", "true")
+                .put("jdbc.range-split-max-connections", "8")
+                .put("jdbc.range-split-min-rows", "500000")
                 .build();
 
         BaseJdbcConfig expected = new BaseJdbcConfig()
@@ -140,7 +152,13 @@ public class TestBaseJdbcConfig
                 .setTableSplitEnable(true)
                 .setTableSplitFields("test_field")
                 .setTableSplitStepCalcRefreshInterval(new Duration(20, SECONDS))
-                .setTableSplitStepCalcCalcThreads(2);
+                .setTableSplitStepCalcCalcThreads(2)
+                .setColumnarPageSourceEnabled(false)
+                .setPageSourcePrefetchPages(2)
+                .setPageSourcePrefetchThreads(4)
+                .setRangeSplitEnabled(true)
+                .setRangeSplitMaxConnections(8)
+                .setRangeSplitMinRows(500_000L);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
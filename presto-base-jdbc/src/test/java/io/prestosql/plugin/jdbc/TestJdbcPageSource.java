@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.jdbc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.connector.SchemaTableName;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestJdbcPageSource
+{
+    private static final int LARGE_TABLE_ROWS = 25_000;
+
+    private TestingDatabase database;
+    private ExecutorService executor;
+    private JdbcClient jdbcClient;
+    private JdbcTableHandle table;
+    private JdbcSplit split;
+    private Map<String, JdbcColumnHandle> columnHandles;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        database.getConnection().createStatement().execute("CREATE TABLE example.large(id bigint primary key, text varchar)");
+        database.getConnection().createStatement().execute("INSERT INTO example.large(id, text) " +
+                "SELECT x, CASEWHEN(MOD(x, 10) = 0, NULL, CAST(x AS varchar)) FROM SYSTEM_RANGE(1, " + LARGE_TABLE_ROWS + ")");
+        executor = newCachedThreadPool(daemonThreadsNamed("test-jdbc-page-source-%s"));
+        jdbcClient = database.getJdbcClient();
+        table = database.getTableHandle(SESSION, new SchemaTableName("example", "numbers"));
+        split = database.getSplit(SESSION, table);
+        columnHandles = database.getColumnHandles(SESSION, table);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    public void testReadPages()
+    {
+        for (int prefetchPages : new int[] {0, 2}) {
+            List<JdbcColumnHandle> columns = ImmutableList.of(columnHandles.get("value"), columnHandles.get("text"), columnHandles.get("value"));
+            try (JdbcPageSource pageSource = createPageSource(table, split, columns, prefetchPages)) {
+                Map<String, Long> data = new LinkedHashMap<>();
+                for (Page page : readAll(pageSource)) {
+                    assertEquals(page.getChannelCount(), 3);
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        long value = BIGINT.getLong(page.getBlock(0), position);
+                        assertEquals(BIGINT.getLong(page.getBlock(2), position), value);
+                        data.put(VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8(), value);
+                    }
+                }
+                assertEquals(data, ImmutableMap.<String, Long>builder()
+                        .put("one", 1L)
+                        .put("two", 2L)
+                        .put("three", 3L)
+                        .put("ten", 10L)
+                        .put("eleven", 11L)
+                        .put("twelve", 12L)
+                        .build());
+                assertTrue(pageSource.getCompletedBytes() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMultiplePagesWithNulls()
+    {
+        JdbcTableHandle largeTable = database.getTableHandle(SESSION, new SchemaTableName("example", "large"));
+        JdbcSplit largeSplit = database.getSplit(SESSION, largeTable);
+        Map<String, JdbcColumnHandle> largeColumns = database.getColumnHandles(SESSION, largeTable);
+        List<JdbcColumnHandle> columns = ImmutableList.of(largeColumns.get("id"), largeColumns.get("text"));
+
+        for (int prefetchPages : new int[] {0, 1, 2}) {
+            try (JdbcPageSource pageSource = createPageSource(largeTable, largeSplit, columns, prefetchPages)) {
+                List<Page> pages = readAll(pageSource);
+                assertTrue(pages.size() > 1);
+                long rows = 0;
+                long nulls = 0;
+                for (Page page : pages) {
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        long id = BIGINT.getLong(page.getBlock(0), position);
+                        if (page.getBlock(1).isNull(position)) {
+                            assertEquals(id % 10, 0);
+                            nulls++;
+                        }
+                        else {
+                            assertEquals(VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8(), String.valueOf(id));
+                        }
+                    }
+                    rows += page.getPositionCount();
+                }
+                assertEquals(rows, LARGE_TABLE_ROWS);
+                assertEquals(nulls, LARGE_TABLE_ROWS / 10);
+            }
+        }
+    }
+
+    @Test
+    public void testNoColumns()
+    {
+        try (JdbcPageSource pageSource = createPageSource(table, split, ImmutableList.of(), 2)) {
+            long rows = 0;
+            for (Page page : readAll(pageSource)) {
+                assertEquals(page.getChannelCount(), 0);
+                rows += page.getPositionCount();
+            }
+            assertEquals(rows, 6);
+        }
+    }
+
+    @Test
+    public void testCloseWhilePrefetching()
+    {
+        JdbcTableHandle largeTable = database.getTableHandle(SESSION, new SchemaTableName("example", "large"));
+        JdbcSplit largeSplit = database.getSplit(SESSION, largeTable);
+        Map<String, JdbcColumnHandle> largeColumns = database.getColumnHandles(SESSION, largeTable);
+
+        JdbcPageSource pageSource = createPageSource(largeTable, largeSplit, ImmutableList.of(largeColumns.get("id")), 1);
+        getFutureValue(pageSource.isBlocked());
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+        assertEquals(pageSource.getSystemMemoryUsage(), 0);
+    }
+
+    @Test
+    public void testSaturatedPrefetchExecutor()
+    {
+        BaseJdbcConfig config = new BaseJdbcConfig().setPageSourcePrefetchPages(2);
+        ExecutorService saturatedExecutor = newSingleThreadExecutor();
+        saturatedExecutor.shutdown();
+        // the page source reads on the calling thread when the prefetch executor rejects the task
+        try (JdbcPageSource pageSource = new JdbcPageSource(jdbcClient, SESSION, split, table, ImmutableList.of(columnHandles.get("value")), config, Optional.of(saturatedExecutor))) {
+            assertTrue(pageSource.isBlocked().isDone());
+            long rows = 0;
+            for (Page page : readAll(pageSource)) {
+                rows += page.getPositionCount();
+            }
+            assertEquals(rows, 6);
+        }
+    }
+
+    private JdbcPageSource createPageSource(JdbcTableHandle table, JdbcSplit split, List<JdbcColumnHandle> columns, int prefetchPages)
+    {
+        BaseJdbcConfig config = new BaseJdbcConfig().setPageSourcePrefetchPages(prefetchPages);
+        return new JdbcPageSource(jdbcClient, SESSION, split, table, columns, config, Optional.of(executor));
+    }
+
+    private static List<Page> readAll(ConnectorPageSource pageSource)
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        while (!pageSource.isFinished()) {
+            getFutureValue(pageSource.isBlocked());
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                pages.add(page.getLoadedPage());
+            }
+        }
+        return pages.build();
+    }
+}
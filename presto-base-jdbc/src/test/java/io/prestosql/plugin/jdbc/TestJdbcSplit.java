@@ -54,6 +54,7 @@ public class TestJdbcSplit
         String json = codec.toJson(split);
         JdbcSplit copy = codec.fromJson(json);
         assertEquals(copy.getAdditionalPredicate(), split.getAdditionalPredicate());
+        assertEquals(copy.getPushDownSql(), split.getPushDownSql());
 
         assertEquals(copy.getAddresses(), ImmutableList.of());
         assertEquals(copy.isRemotelyAccessible(), true);
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.splitmanager;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.plugin.jdbc.BaseJdbcConfig;
+import io.prestosql.plugin.jdbc.JdbcClient;
+import io.prestosql.plugin.jdbc.JdbcIdentity;
+import io.prestosql.plugin.jdbc.JdbcSplit;
+import io.prestosql.plugin.jdbc.JdbcTableHandle;
+import io.prestosql.plugin.jdbc.TestingDatabase;
+import io.prestosql.plugin.jdbc.optimization.JdbcQueryGeneratorResult.GeneratedSql;
+import io.prestosql.plugin.splitmanager.JdbcRangeSplitManager.SplitColumn;
+import io.prestosql.plugin.splitmanager.JdbcRangeSplitManager.ValueKind;
+import io.prestosql.spi.connector.ConnectorSplit;
+import io.prestosql.spi.connector.ConnectorSplitSource;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.predicate.TupleDomain;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestJdbcRangeSplitManager
+{
+    private static final int TABLE_ROWS = 1000;
+
+    private TestingDatabase database;
+    private JdbcClient jdbcClient;
+    private JdbcTableHandle table;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        database = new TestingDatabase();
+        database.getConnection().createStatement().execute("CREATE TABLE example.ranged(id bigint primary key, text varchar)");
+        database.getConnection().createStatement().execute("INSERT INTO example.ranged(id, text) " +
+                "SELECT x, CAST(x AS varchar) FROM SYSTEM_RANGE(1, " + TABLE_ROWS + ")");
+        jdbcClient = database.getJdbcClient();
+        table = database.getTableHandle(SESSION, new SchemaTableName("example", "ranged"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        database.close();
+    }
+
+    @Test
+    public void testDisabled()
+            throws SQLException
+    {
+        List<JdbcSplit> splits = getSplits(new BaseJdbcConfig(), table);
+        assertEquals(splits.size(), 1);
+        assertEquals(countRows(table, splits), TABLE_ROWS);
+    }
+
+    @Test
+    public void testTableScan()
+            throws SQLException
+    {
+        List<JdbcSplit> splits = getSplits(rangeSplitConfig(4), table);
+        assertEquals(splits.size(), 4);
+        for (JdbcSplit split : splits) {
+            assertEquals(split.getSplitField(), "ID");
+            assertEquals(split.getSplitCount(), 4);
+        }
+        assertEquals(countRows(table, splits), TABLE_ROWS);
+    }
+
+    @Test
+    public void testSplitCountFollowsMinRows()
+            throws SQLException
+    {
+        List<JdbcSplit> splits = getSplits(rangeSplitConfig(4).setRangeSplitMinRows(TABLE_ROWS), table);
+        // no statistics in H2, so the connection cap decides
+        assertEquals(splits.size(), 4);
+
+        splits = getSplits(rangeSplitConfig(1), table);
+        assertEquals(splits.size(), 1);
+    }
+
+    @Test
+    public void testPushedDownQuery()
+            throws SQLException
+    {
+        JdbcTableHandle pushDown = pushDown("SELECT \"ID\", \"TEXT\" FROM \"EXAMPLE\".\"RANGED\" WHERE \"ID\" > 10");
+        List<JdbcSplit> splits = getSplits(rangeSplitConfig(3), pushDown);
+        assertEquals(splits.size(), 3);
+        assertEquals(countRows(pushDown, splits), TABLE_ROWS - 10);
+
+        JdbcTableHandle aggregation = pushDown("SELECT MOD(\"ID\", 7) AS \"ID\", COUNT(*) AS \"C\" FROM \"EXAMPLE\".\"RANGED\" GROUP BY MOD(\"ID\", 7)");
+        splits = getSplits(rangeSplitConfig(3), aggregation);
+        assertEquals(splits.size(), 3);
+        assertEquals(countRows(aggregation, splits), 7);
+        // the output is an expression named after the column, the ranges can only be applied on top of the query
+        for (JdbcSplit split : splits) {
+            assertFalse(split.getPushDownSql().isPresent());
+        }
+    }
+
+    @Test
+    public void testRangeInPushedDownQuery()
+            throws SQLException
+    {
+        JdbcTableHandle aggregation = pushDown("SELECT \"ID\", COUNT(*) AS \"C\" FROM (SELECT \"ID\" FROM " + tableReference() + ") hetu_table_1 GROUP BY \"ID\"");
+        List<JdbcSplit> splits = getSplits(rangeSplitConfig(3), aggregation);
+        assertEquals(splits.size(), 3);
+        assertEquals(splits.get(1).getPushDownSql().get(), "SELECT \"ID\", COUNT(*) AS \"C\" FROM (SELECT \"ID\" FROM " +
+                "(SELECT * FROM " + tableReference() + " WHERE \"ID\" >= 334 AND \"ID\" < 667) hetu_range_split) hetu_table_1 GROUP BY \"ID\"");
+        assertEquals(countRows(aggregation, splits), TABLE_ROWS);
+
+        JdbcTableHandle selfJoin = pushDown("SELECT l.\"ID\" FROM " + tableReference() + " l JOIN " + tableReference() + " r ON l.\"ID\" = r.\"ID\"");
+        splits = getSplits(rangeSplitConfig(3), selfJoin);
+        assertEquals(splits.size(), 3);
+        for (JdbcSplit split : splits) {
+            assertFalse(split.getPushDownSql().isPresent());
+        }
+        assertEquals(countRows(selfJoin, splits), TABLE_ROWS);
+    }
+
+    @Test
+    public void testIsRangePushable()
+    {
+        SplitColumn column = new SplitColumn("ID", "ID", ValueKind.INTEGRAL, false);
+        assertTrue(JdbcRangeSplitManager.isRangePushable("SELECT ID, count(*) AS c FROM (SELECT ID FROM \"t\") x GROUP BY ID", "\"t\"", column));
+        assertTrue(JdbcRangeSplitManager.isRangePushable("SELECT DISTINCT ID FROM \"t\"", "\"t\"", column));
+        assertFalse(JdbcRangeSplitManager.isRangePushable("SELECT abs(X) AS id FROM \"t\"", "\"t\"", column));
+        assertFalse(JdbcRangeSplitManager.isRangePushable("SELECT ID, sum(V) OVER (PARTITION BY K) AS s FROM \"t\"", "\"t\"", column));
+        assertFalse(JdbcRangeSplitManager.isRangePushable("SELECT ID FROM \"t\" UNION ALL SELECT ID FROM \"u\"", "\"t\"", column));
+        assertFalse(JdbcRangeSplitManager.isRangePushable("SELECT ID FROM \"t\"", "\"t\"", new SplitColumn(null, "ID", ValueKind.INTEGRAL, false)));
+    }
+
+    @Test
+    public void testFindTableReference()
+    {
+        assertEquals(JdbcRangeSplitManager.findTableReference("SELECT a FROM \"t\"", "\"t\"").get()[0], 14);
+        assertEquals(JdbcRangeSplitManager.findTableReference("SELECT a FROM (SELECT a FROM \"t\") x", "\"t\"").get()[1], 32);
+        // aliased, read twice or not read through FROM
+        assertFalse(JdbcRangeSplitManager.findTableReference("SELECT a FROM \"t\" x", "\"t\"").isPresent());
+        assertFalse(JdbcRangeSplitManager.findTableReference("SELECT a FROM \"t\" WHERE a IN (SELECT a FROM \"t\")", "\"t\"").isPresent());
+        assertFalse(JdbcRangeSplitManager.findTableReference("SELECT a FROM \"s\"", "\"t\"").isPresent());
+    }
+
+    @Test
+    public void testPushedDownQueryWithoutSplitColumn()
+    {
+        JdbcTableHandle pushDown = pushDown("SELECT \"TEXT\" FROM \"EXAMPLE\".\"RANGED\"");
+        assertEquals(getSplits(rangeSplitConfig(3), pushDown).size(), 1);
+    }
+
+    @Test
+    public void testPushedDownQueryWithLimit()
+            throws SQLException
+    {
+        JdbcTableHandle pushDown = pushDown("SELECT \"ID\" FROM \"EXAMPLE\".\"RANGED\" ORDER BY \"ID\" LIMIT 5");
+        List<JdbcSplit> splits = getSplits(rangeSplitConfig(3), pushDown);
+        assertEquals(splits.size(), 1);
+        assertEquals(countRows(pushDown, splits), 5);
+    }
+
+    @Test
+    public void testBuildSplits()
+    {
+        List<JdbcSplit> splits = JdbcRangeSplitManager.buildSplits(table, new SplitColumn("ID", "ID", ValueKind.INTEGRAL, true), "\"", 1, 10, 3, false);
+        assertEquals(splits.size(), 3);
+        assertEquals(splits.get(0).getAdditionalPredicate().get(), "(\"ID\" < 4 OR \"ID\" IS NULL)");
+        assertEquals(splits.get(1).getAdditionalPredicate().get(), "\"ID\" >= 4 AND \"ID\" < 7");
+        assertEquals(splits.get(2).getAdditionalPredicate().get(), "\"ID\" >= 7");
+        assertEquals(splits.get(0).getRangeStart(), String.valueOf(Long.MIN_VALUE));
+        assertEquals(splits.get(2).getRangEnd(), String.valueOf(Long.MAX_VALUE));
+
+        // fewer distinct values than splits
+        assertEquals(JdbcRangeSplitManager.buildSplits(table, new SplitColumn("ID", "ID", ValueKind.INTEGRAL, false), "\"", 5, 6, 8, false).size(), 2);
+        assertEquals(JdbcRangeSplitManager.buildSplits(table, new SplitColumn("ID", "ID", ValueKind.INTEGRAL, false), "\"", 5, 5, 8, false).size(), 0);
+        assertEquals(JdbcRangeSplitManager.buildSplits(table, new SplitColumn("ID", "ID", ValueKind.INTEGRAL, false), "\"", Long.MIN_VALUE, Long.MAX_VALUE, 8, false).size(), 0);
+
+        List<JdbcSplit> dateSplits = JdbcRangeSplitManager.buildSplits(table, new SplitColumn("D", "D", ValueKind.DATE, false), "`", 0, 3, 2, false);
+        assertEquals(dateSplits.get(0).getAdditionalPredicate().get(), "`D` < {d '1970-01-03'}");
+        assertEquals(dateSplits.get(1).getAdditionalPredicate().get(), "`D` >= {d '1970-01-03'}");
+    }
+
+    private String tableReference()
+    {
+        return "\"" + table.getCatalogName() + "\".\"" + table.getSchemaName() + "\".\"" + table.getTableName() + "\"";
+    }
+
+    private JdbcTableHandle pushDown(String sql)
+    {
+        return new JdbcTableHandle(table.getSchemaTableName(), table.getCatalogName(), table.getSchemaName(), table.getTableName(),
+                TupleDomain.all(), OptionalLong.empty(), Optional.of(new GeneratedSql(sql, true)), false);
+    }
+
+    private List<JdbcSplit> getSplits(BaseJdbcConfig config, JdbcTableHandle tableHandle)
+    {
+        ConnectorSplitSource splitSource = new JdbcRangeSplitManager(jdbcClient, config).getSplits(SESSION, tableHandle);
+        List<ConnectorSplit> splits = getFutureValue(splitSource.getNextBatch(NOT_PARTITIONED, 1000)).getSplits();
+        assertFalse(splits.isEmpty());
+        return splits.stream()
+                .map(JdbcSplit.class::cast)
+                .collect(toImmutableList());
+    }
+
+    private long countRows(JdbcTableHandle tableHandle, List<JdbcSplit> splits)
+            throws SQLException
+    {
+        long rows = 0;
+        for (JdbcSplit split : splits) {
+            try (Connection connection = jdbcClient.getConnection(JdbcIdentity.from(SESSION), split);
+                    PreparedStatement statement = jdbcClient.buildSql(SESSION, connection, split, tableHandle, ImmutableList.of());
+                    ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static BaseJdbcConfig rangeSplitConfig(int maxConnections)
+    {
+        return new BaseJdbcConfig()
+                .setRangeSplitEnabled(true)
+                .setRangeSplitMaxConnections(maxConnections)
+                .setRangeSplitMinRows(1);
+    }
+}
@@ -93,6 +93,7 @@ import java.util.stream.Collectors;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getSplitLoaderListingConcurrency;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isDynamicFilteringSplitFilteringEnabled;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isForceLocalScheduling;
 import static io.prestosql.plugin.hive.HiveUtil.checkCondition;
@@ -128,12 +129,14 @@ public class BackgroundHiveSplitLoader
     private final HdfsEnvironment hdfsEnvironment;
     private final HdfsContext hdfsContext;
     private final NamenodeStats namenodeStats;
-    private final DirectoryLister directoryLister;
+    private final PrefetchingDirectoryLister directoryLister;
     private final int loaderConcurrency;
+    private final int listingConcurrency;
     private final boolean recursiveDirWalkerEnabled;
     private final Executor executor;
     private final ConnectorSession session;
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
+    private final Deque<HivePartitionMetadata> prefetchedPartitions = new ConcurrentLinkedDeque<>();
     private final Deque<Iterator<InternalHiveSplit>> fileIterators = new ConcurrentLinkedDeque<>();
     private final Optional<ValidWriteIdList> validWriteIds;
     private final Supplier<List<Set<DynamicFilter>>> dynamicFilterSupplier;
@@ -146,7 +149,7 @@ public class BackgroundHiveSplitLoader
     //   Make sure the lock is held throughout the period during which they may not be consistent with each other.
     // Details:
     // * When write lock is acquired, except the holder, no one can do any of the following:
-    // ** poll from (or check empty) partitions
+    // ** poll from (or check empty) partitions or prefetchedPartitions
     // ** poll from (or check empty) or push to fileIterators
     // ** push to hiveSplitSource
     // * When any of the above three operations is carried out, either a read lock or a write lock must be held.
@@ -192,10 +195,12 @@ public class BackgroundHiveSplitLoader
         this.session = session;
         this.hdfsEnvironment = hdfsEnvironment;
         this.namenodeStats = namenodeStats;
-        this.directoryLister = directoryLister;
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
         this.executor = executor;
         this.hdfsContext = new HdfsContext(session, table.getDatabaseName(), table.getTableName());
+        this.directoryLister = new PrefetchingDirectoryLister(directoryLister, executor, hdfsEnvironment, hdfsContext);
+        // The directories of transactional tables are resolved by AcidUtils, which does not go through the directory lister
+        this.listingConcurrency = AcidUtils.isTransactionalTable(table.getParameters()) ? 0 : getSplitLoaderListingConcurrency(session);
         this.validWriteIds = requireNonNull(validWriteIds, "validWriteIds is null");
         this.dynamicFilterSupplier = dynamicFilterSupplier;
         this.queryType = requireNonNull(queryType, "queryType is null");
@@ -241,6 +246,7 @@ public class BackgroundHiveSplitLoader
     public void stop()
     {
         stopped = true;
+        directoryLister.discardAll();
     }
 
     private class HiveSplitLoaderTask
@@ -292,7 +298,7 @@ public class BackgroundHiveSplitLoader
         taskExecutionLock.readLock().lock();
         try {
             // This is an opportunistic check to avoid getting the write lock unnecessarily
-            if (!partitions.isEmpty() || !fileIterators.isEmpty()) {
+            if (!partitions.isEmpty() || !prefetchedPartitions.isEmpty() || !fileIterators.isEmpty()) {
                 return;
             }
         }
@@ -308,7 +314,7 @@ public class BackgroundHiveSplitLoader
         taskExecutionLock.writeLock().lock();
         try {
             // the write lock guarantees that no one is operating on the partitions, fileIterators, or hiveSplitSource, or half way through doing so.
-            if (partitions.isEmpty() && fileIterators.isEmpty()) {
+            if (partitions.isEmpty() && prefetchedPartitions.isEmpty() && fileIterators.isEmpty()) {
                 // It is legal to call `noMoreSplits` multiple times or after `stop` was called.
                 // Nothing bad will happen if `noMoreSplits` implementation calls methods that will try to obtain a read lock because the lock is re-entrant.
                 hiveSplitSource.noMoreSplits();
@@ -328,7 +334,7 @@ public class BackgroundHiveSplitLoader
     {
         Iterator<InternalHiveSplit> splits = fileIterators.poll();
         if (splits == null) {
-            HivePartitionMetadata partition = partitions.poll();
+            HivePartitionMetadata partition = pollPartition();
             if (partition == null) {
                 return COMPLETED_FUTURE;
             }
@@ -347,6 +353,41 @@ public class BackgroundHiveSplitLoader
         return COMPLETED_FUTURE;
     }
 
+    private HivePartitionMetadata pollPartition()
+    {
+        // Keep the listings of the next few partitions in flight while the splits of this one are generated
+        while (prefetchedPartitions.size() < listingConcurrency) {
+            HivePartitionMetadata partition = partitions.poll();
+            if (partition == null) {
+                break;
+            }
+            if (canPrefetch(partition)) {
+                directoryLister.prefetch(table, new Path(getPartitionLocation(table, partition.getPartition())));
+            }
+            prefetchedPartitions.addLast(partition);
+        }
+        HivePartitionMetadata partition = prefetchedPartitions.poll();
+        if (partition == null) {
+            return partitions.poll();
+        }
+        return partition;
+    }
+
+    private boolean canPrefetch(HivePartitionMetadata partition)
+    {
+        String inputFormat = partition.getPartition()
+                .map(Partition::getStorage)
+                .orElseGet(table::getStorage)
+                .getStorageFormat()
+                .getInputFormatNullable();
+        if (SymlinkTextInputFormat.class.getName().equals(inputFormat)) {
+            return false;
+        }
+        return dynamicFilterSupplier == null
+                || !isDynamicFilteringSplitFilteringEnabled(session)
+                || !isPartitionFiltered(getPartitionKeys(table, partition.getPartition()), dynamicFilterSupplier.get(), typeManager);
+    }
+
     private ListenableFuture<?> loadPartition(HivePartitionMetadata partition)
             throws IOException
     {
@@ -359,6 +400,7 @@ public class BackgroundHiveSplitLoader
         if (dynamicFilterSupplier != null && isDynamicFilteringSplitFilteringEnabled(session)) {
             if (isPartitionFiltered(partitionKeys, dynamicFilterSupplier.get(), typeManager)) {
                 // Avoid listing files and creating splits from a partition if it has been pruned due to dynamic filters
+                directoryLister.discard(new Path(getPartitionLocation(table, partition.getPartition())));
                 return COMPLETED_FUTURE;
             }
         }
@@ -446,6 +488,8 @@ public class BackgroundHiveSplitLoader
                 throw new PrestoException(NOT_SUPPORTED, "Hive transactional tables in an input format with UseFileSplitsFromInputFormat annotation are not supported: " + inputFormat.getClass().getSimpleName());
             }
 
+            // The input format lists the partition itself, so a prefetched listing would be kept until the loader stops
+            directoryLister.discard(path);
             FileInputFormat.setInputPaths(jobConf, path);
             InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
 
@@ -13,8 +13,10 @@
  */
 package io.prestosql.plugin.hive;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.Duration;
@@ -31,35 +33,60 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
 public class CachingDirectoryLister
         implements DirectoryLister
 {
-    private final Cache<Path, List<PrestoFileStatus>> cache;
+    private final Cache<Path, DirectoryListing> cache;
+    // Cached paths by the location of the table they were listed for, so that invalidation does not scan the whole cache
+    private final Map<String, Set<Path>> cachedPaths = new ConcurrentHashMap<>();
     private final Set<SchemaTableName> tableNames;
+    private final boolean validateModificationTime;
+    private final AtomicLong staleCount = new AtomicLong();
+    // Incremented by every invalidation, so that listings in flight during an invalidation are not cached
+    private final AtomicLong invalidationCount = new AtomicLong();
 
     @Inject
     public CachingDirectoryLister(HiveConfig hiveClientConfig)
     {
-        this(hiveClientConfig.getFileStatusCacheExpireAfterWrite(), hiveClientConfig.getFileStatusCacheMaxSize(), hiveClientConfig.getFileStatusCacheTables());
+        this(
+                hiveClientConfig.getFileStatusCacheExpireAfterWrite(),
+                hiveClientConfig.getFileStatusCacheMaxSize(),
+                hiveClientConfig.getFileStatusCacheTables(),
+                hiveClientConfig.isFileStatusCacheValidateModificationTime());
     }
 
     public CachingDirectoryLister(Duration expireAfterWrite, long maxSize, List<String> tables)
+    {
+        this(expireAfterWrite, maxSize, tables, false);
+    }
+
+    public CachingDirectoryLister(Duration expireAfterWrite, long maxSize, List<String> tables, boolean validateModificationTime)
     {
         this.cache = CacheBuilder.newBuilder()
                 .maximumWeight(maxSize)
-                .weigher((Weigher<Path, List<PrestoFileStatus>>) (key, value) -> value.size())
+                .weigher((Weigher<Path, DirectoryListing>) (key, value) -> value.getFiles().size())
                 .expireAfterWrite(expireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+                .removalListener(notification -> {
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        removeCachedPath(notification.getValue().getRoot(), notification.getKey());
+                    }
+                })
                 .recordStats()
                 .build();
         this.tableNames = tables.stream()
                 .map(CachingDirectoryLister::parseTableName)
                 .collect(Collectors.toSet());
+        this.validateModificationTime = validateModificationTime;
     }
 
     private static SchemaTableName parseTableName(String tableName)
@@ -73,19 +100,86 @@ public class CachingDirectoryLister
     public RemoteIterator<PrestoFileStatus> list(FileSystem fs, Table table, Path path)
             throws IOException
     {
-        List<PrestoFileStatus> files = cache.getIfPresent(path);
-        if (files != null) {
-            return simpleRemoteIterator(files);
+        DirectoryListing listing = cache.getIfPresent(path);
+        if (listing != null) {
+            // Files added to or removed from a directory change its modification time
+            if (!validateModificationTime || listing.getModificationTime() == fs.getFileStatus(path).getModificationTime()) {
+                return simpleRemoteIterator(listing.getFiles());
+            }
+            staleCount.incrementAndGet();
+            cache.invalidate(path);
         }
-        RemoteIterator<PrestoFileStatus> iterator = new PrestoFileStatusRemoteIterator(fs.listLocatedStatus(path));
 
         if (!tableNames.contains(table.getSchemaTableName())) {
-            return iterator;
+            return new PrestoFileStatusRemoteIterator(fs.listLocatedStatus(path));
         }
-        return cachingRemoteIterator(iterator, path);
+        // Read the modification time before listing, so that a concurrent change makes the cached listing stale rather than hiding it
+        long invalidations = invalidationCount.get();
+        long modificationTime = validateModificationTime ? fs.getFileStatus(path).getModificationTime() : 0;
+        return cachingRemoteIterator(new PrestoFileStatusRemoteIterator(fs.listLocatedStatus(path)), getRoot(table, path), path, invalidations, modificationTime);
+    }
+
+    @Override
+    public void invalidate(Path path)
+    {
+        // Counted before the cache is searched, see cachingRemoteIterator
+        invalidationCount.incrementAndGet();
+        String location = getLocation(path);
+        for (Map.Entry<String, Set<Path>> entry : cachedPaths.entrySet()) {
+            if (isSameOrBelow(entry.getKey(), location)) {
+                cache.invalidateAll(entry.getValue());
+            }
+            else if (isSameOrBelow(location, entry.getKey())) {
+                // Only part of the table was written, e.g. some of its partitions
+                List<Path> writtenPaths = entry.getValue().stream()
+                        .filter(cachedPath -> isSameOrBelow(getLocation(cachedPath), location))
+                        .collect(Collectors.toList());
+                cache.invalidateAll(writtenPaths);
+            }
+        }
+    }
+
+    /**
+     * Paths are indexed by their table location, or by themselves when the table has no location or they are outside of it.
+     */
+    private static String getRoot(Table table, Path path)
+    {
+        String location = getLocation(path);
+        String tableLocation = table.getStorage().getLocation();
+        if (tableLocation.isEmpty()) {
+            return location;
+        }
+        String root = getLocation(new Path(tableLocation));
+        return isSameOrBelow(location, root) ? root : location;
+    }
+
+    private static String getLocation(Path path)
+    {
+        return Path.getPathWithoutSchemeAndAuthority(path).toString();
+    }
+
+    private static boolean isSameOrBelow(String location, String parent)
+    {
+        return location.equals(parent) || location.startsWith(parent.endsWith(Path.SEPARATOR) ? parent : parent + Path.SEPARATOR);
+    }
+
+    private void addCachedPath(String root, Path path)
+    {
+        cachedPaths.computeIfAbsent(root, key -> ConcurrentHashMap.newKeySet()).add(path);
+    }
+
+    private void removeCachedPath(String root, Path path)
+    {
+        cachedPaths.computeIfPresent(root, (key, paths) -> {
+            // The path may have been listed again while the previous listing was being removed
+            if (!cache.asMap().containsKey(path)) {
+                paths.remove(path);
+            }
+            return paths.isEmpty() ? null : paths;
+        });
     }
 
-    private RemoteIterator<PrestoFileStatus> cachingRemoteIterator(RemoteIterator<PrestoFileStatus> iterator, Path path)
+    private RemoteIterator<PrestoFileStatus> cachingRemoteIterator(RemoteIterator<PrestoFileStatus> iterator, String root, Path path, long invalidations, long modificationTime)
     {
         return new RemoteIterator<PrestoFileStatus>()
         {
@@ -97,7 +191,13 @@ public class CachingDirectoryLister
             {
                 boolean hasNext = iterator.hasNext();
                 if (!hasNext) {
-                    cache.put(path, ImmutableList.copyOf(files));
+                    addCachedPath(root, path);
+                    cache.put(path, new DirectoryListing(root, modificationTime, ImmutableList.copyOf(files)));
+                    // The listing may predate a write committed while it was in flight. An invalidation counted
+                    // after this check searches the cache after the put above, so one of the two discards the listing.
+                    if (invalidationCount.get() != invalidations) {
+                        cache.invalidate(path);
+                    }
                 }
                 return hasNext;
             }
@@ -133,6 +233,12 @@ public class CachingDirectoryLister
         };
     }
 
+    @VisibleForTesting
+    long getCachedPathCount()
+    {
+        return cachedPaths.values().stream().mapToLong(Set::size).sum();
+    }
+
     @Managed
     public void flushCache()
     {
@@ -168,4 +274,39 @@ public class CachingDirectoryLister
     {
         return cache.stats().requestCount();
     }
+
+    @Managed
+    public long getStaleCount()
+    {
+        return staleCount.get();
+    }
+
+    private static class DirectoryListing
+    {
+        private final String root;
+        private final long modificationTime;
+        private final List<PrestoFileStatus> files;
+
+        public DirectoryListing(String root, long modificationTime, List<PrestoFileStatus> files)
+        {
+            this.root = requireNonNull(root, "root is null");
+            this.modificationTime = modificationTime;
+            this.files = requireNonNull(files, "files is null");
+        }
+
+        public String getRoot()
+        {
+            return root;
+        }
+
+        public long getModificationTime()
+        {
+            return modificationTime;
+        }
+
+        public List<PrestoFileStatus> getFiles()
+        {
+            return files;
+        }
+    }
 }
@@ -24,4 +24,11 @@ public interface DirectoryLister
 {
     RemoteIterator<PrestoFileStatus> list(FileSystem fs, Table table, Path path)
             throws IOException;
+
+    /**
+     * Discards any listing kept for the path and its sub directories, after their content was changed.
+     */
+    default void invalidate(Path path)
+    {
+    }
 }
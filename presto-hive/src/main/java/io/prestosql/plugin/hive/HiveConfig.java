@@ -73,6 +73,7 @@ public class HiveConfig
     private int maxPartitionBatchSize = 100;
     private int maxInitialSplits = 200;
     private int splitLoaderConcurrency = 4;
+    private int splitLoaderListingConcurrency;
     private Integer maxSplitsPerSecond;
     private DataSize maxInitialSplitSize;
     private int domainCompactionThreshold = 100;
@@ -156,6 +157,13 @@ public class HiveConfig
     private boolean orcRowDataCacheEnabled;
     private Duration orcRowDataCacheTtl = new Duration(4, HOURS);
     private DataSize orcRowDataCacheMaximumWeight = new DataSize(20, GIGABYTE);
+    private boolean orcRowDataCacheOffHeapEnabled;
+    private boolean parquetFooterCacheEnabled;
+    private Duration parquetFooterCacheTtl = new Duration(4, HOURS);
+    private DataSize parquetFooterCacheMaximumWeight = new DataSize(256, MEGABYTE);
+    private boolean parquetDictionaryCacheEnabled;
+    private Duration parquetDictionaryCacheTtl = new Duration(4, HOURS);
+    private DataSize parquetDictionaryCacheMaximumWeight = new DataSize(1, GIGABYTE);
 
     private String rcfileTimeZone = TimeZone.getDefault().getID();
     private boolean rcfileWriterValidate;
@@ -194,6 +202,7 @@ public class HiveConfig
     private Duration fileStatusCacheExpireAfterWrite = new Duration(24, TimeUnit.HOURS);
     private long fileStatusCacheMaxSize = 1000 * 1000;
     private List<String> fileStatusCacheTables = ImmutableList.of();
+    private boolean fileStatusCacheValidateModificationTime;
 
     private Optional<Duration> hiveTransactionHeartbeatInterval = Optional.empty();
     private int hiveTransactionHeartbeatThreads = 5;
@@ -204,11 +213,13 @@ public class HiveConfig
     private int dynamicFilteringRowFilteringThreshold = 2000;
 
     private boolean orcCacheStatsMetricCollectionEnabled;
+    private boolean parquetCacheStatsMetricCollectionEnabled;
 
     private int vacuumDeltaNumThreshold = 10;
     private double vacuumDeltaPercentThreshold = 0.1;
     private boolean autoVacuumEnabled;
     private boolean orcPredicatePushdownEnabled;
+    private boolean parquetPredicatePushdownEnabled;
     private int hmsWriteBatchSize = 8;
     private boolean deleteSchemaLocationsFallback;
 
@@ -278,6 +289,20 @@ public class HiveConfig
         return this;
     }
 
+    @Min(0)
+    public int getSplitLoaderListingConcurrency()
+    {
+        return splitLoaderListingConcurrency;
+    }
+
+    @Config("hive.split-loader-listing-concurrency")
+    @ConfigDescription("Number of partition directories listed concurrently ahead of split generation, 0 to list them one at a time")
+    public HiveConfig setSplitLoaderListingConcurrency(int splitLoaderListingConcurrency)
+    {
+        this.splitLoaderListingConcurrency = splitLoaderListingConcurrency;
+        return this;
+    }
+
     @Min(1)
     @Nullable
     public Integer getMaxSplitsPerSecond()
@@ -1164,6 +1189,19 @@ public class HiveConfig
         return this;
     }
 
+    public boolean isFileStatusCacheValidateModificationTime()
+    {
+        return fileStatusCacheValidateModificationTime;
+    }
+
+    @Config("hive.file-status-cache-validate-modification-time")
+    @ConfigDescription("Check the modification time of a directory before using its cached file statuses")
+    public HiveConfig setFileStatusCacheValidateModificationTime(boolean fileStatusCacheValidateModificationTime)
+    {
+        this.fileStatusCacheValidateModificationTime = fileStatusCacheValidateModificationTime;
+        return this;
+    }
+
     public int getMetastoreWriteBatchSize()
     {
         return hmsWriteBatchSize;
@@ -1681,6 +1719,19 @@ public class HiveConfig
         return this;
     }
 
+    public boolean isOrcRowDataCacheOffHeapEnabled()
+    {
+        return orcRowDataCacheOffHeapEnabled;
+    }
+
+    @Config("hive.orc.row-data.block.cache.off-heap.enabled")
+    @ConfigDescription("Store Orc row data block cache entries in native memory instead of the Java heap")
+    public HiveConfig setOrcRowDataCacheOffHeapEnabled(boolean orcRowDataCacheOffHeapEnabled)
+    {
+        this.orcRowDataCacheOffHeapEnabled = orcRowDataCacheOffHeapEnabled;
+        return this;
+    }
+
     @Config("hive.transaction-heartbeat-interval")
     @ConfigDescription("Interval after which heartbeat is sent for open Hive transaction")
     public HiveConfig setHiveTransactionHeartbeatInterval(Duration interval)
@@ -1870,6 +1921,112 @@ public class HiveConfig
         return orcPredicatePushdownEnabled;
     }
 
+    @Config("hive.parquet-predicate-pushdown-enabled")
+    @ConfigDescription("Enables processing of predicates within Parquet reading")
+    public HiveConfig setParquetPredicatePushdownEnabled(boolean parquetPredicatePushdownEnabled)
+    {
+        this.parquetPredicatePushdownEnabled = parquetPredicatePushdownEnabled;
+        return this;
+    }
+
+    public boolean isParquetPredicatePushdownEnabled()
+    {
+        return parquetPredicatePushdownEnabled;
+    }
+
+    public boolean isParquetFooterCacheEnabled()
+    {
+        return parquetFooterCacheEnabled;
+    }
+
+    @Config("hive.parquet.footer.cache.enabled")
+    @ConfigDescription("Enable caching of Parquet file footers.")
+    public HiveConfig setParquetFooterCacheEnabled(boolean parquetFooterCacheEnabled)
+    {
+        this.parquetFooterCacheEnabled = parquetFooterCacheEnabled;
+        return this;
+    }
+
+    @MinDuration("0ms")
+    public Duration getParquetFooterCacheTtl()
+    {
+        return parquetFooterCacheTtl;
+    }
+
+    @Config("hive.parquet.footer.cache.ttl")
+    @ConfigDescription("Parquet file footer cache TTL.")
+    public HiveConfig setParquetFooterCacheTtl(Duration parquetFooterCacheTtl)
+    {
+        this.parquetFooterCacheTtl = parquetFooterCacheTtl;
+        return this;
+    }
+
+    public DataSize getParquetFooterCacheMaximumWeight()
+    {
+        return parquetFooterCacheMaximumWeight;
+    }
+
+    @Config("hive.parquet.footer.cache.max.weight")
+    @ConfigDescription("Parquet file footer cache max weight.")
+    public HiveConfig setParquetFooterCacheMaximumWeight(DataSize parquetFooterCacheMaximumWeight)
+    {
+        this.parquetFooterCacheMaximumWeight = parquetFooterCacheMaximumWeight;
+        return this;
+    }
+
+    public boolean isParquetDictionaryCacheEnabled()
+    {
+        return parquetDictionaryCacheEnabled;
+    }
+
+    @Config("hive.parquet.dictionary.cache.enabled")
+    @ConfigDescription("Enable caching of decompressed Parquet dictionary pages.")
+    public HiveConfig setParquetDictionaryCacheEnabled(boolean parquetDictionaryCacheEnabled)
+    {
+        this.parquetDictionaryCacheEnabled = parquetDictionaryCacheEnabled;
+        return this;
+    }
+
+    @MinDuration("0ms")
+    public Duration getParquetDictionaryCacheTtl()
+    {
+        return parquetDictionaryCacheTtl;
+    }
+
+    @Config("hive.parquet.dictionary.cache.ttl")
+    @ConfigDescription("Parquet dictionary page cache TTL.")
+    public HiveConfig setParquetDictionaryCacheTtl(Duration parquetDictionaryCacheTtl)
+    {
+        this.parquetDictionaryCacheTtl = parquetDictionaryCacheTtl;
+        return this;
+    }
+
+    public DataSize getParquetDictionaryCacheMaximumWeight()
+    {
+        return parquetDictionaryCacheMaximumWeight;
+    }
+
+    @Config("hive.parquet.dictionary.cache.max.weight")
+    @ConfigDescription("Parquet dictionary page cache max weight.")
+    public HiveConfig setParquetDictionaryCacheMaximumWeight(DataSize parquetDictionaryCacheMaximumWeight)
+    {
+        this.parquetDictionaryCacheMaximumWeight = parquetDictionaryCacheMaximumWeight;
+        return this;
+    }
+
+    public boolean isParquetCacheStatsMetricCollectionEnabled()
+    {
+        return parquetCacheStatsMetricCollectionEnabled;
+    }
+
+    @Config("hive.parquet-cache-stats-metric-collection.enabled")
+    @ConfigDescription("Whether parquet cache stats metric collection is enabled")
+    public HiveConfig setParquetCacheStatsMetricCollectionEnabled(boolean parquetCacheStatsMetricCollectionEnabled)
+    {
+        this.parquetCacheStatsMetricCollectionEnabled = parquetCacheStatsMetricCollectionEnabled;
+        return this;
+    }
+
     @Config("hive.vacuum-collector-interval")
     @ConfigDescription("Interval after which vacuum collector task will be resubmitted")
     public HiveConfig setVacuumCollectorInterval(Duration interval)
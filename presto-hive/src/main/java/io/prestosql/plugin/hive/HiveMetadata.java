@@ -125,6 +125,7 @@ import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -147,6 +148,7 @@ import static com.google.common.collect.Streams.stream;
 import static io.prestosql.plugin.hive.HiveBucketing.bucketedOnTimestamp;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static io.prestosql.plugin.hive.HiveStorageFormat.ORC;
+import static io.prestosql.plugin.hive.HiveStorageFormat.PARQUET;
 import static io.prestosql.plugin.hive.HiveTableProperties.IS_EXTERNAL_TABLE;
 import static io.prestosql.plugin.hive.HiveTableProperties.LOCATION_PROPERTY;
 import static io.prestosql.plugin.hive.HiveTableProperties.NON_INHERITABLE_PROPERTIES;
@@ -248,6 +250,9 @@ public class HiveMetadata
     protected final ScheduledExecutorService hiveMetastoreClientService;
     private final long vacuumCollectorInterval;
     private final HdfsStorageMonitor hdfsStorageMonitor;
+    private final DirectoryLister directoryLister;
+    // Locations whose cached directory listings are stale once this transaction ends
+    private final Set<Path> writtenPaths = ConcurrentHashMap.newKeySet();
 
     private boolean externalTable;
 
@@ -271,7 +276,8 @@ public class HiveMetadata
             ScheduledExecutorService vacuumExecutorService,
             Optional<Duration> vacuumCollectorInterval,
             ScheduledExecutorService hiveMetastoreClientService,
-            HdfsStorageMonitor hdfsStorageMonitor)
+            HdfsStorageMonitor hdfsStorageMonitor,
+            DirectoryLister directoryLister)
     {
         this.metastore = requireNonNull(metastore, "metastore is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
@@ -296,6 +302,7 @@ public class HiveMetadata
                 .orElseThrow(() -> new PrestoException(GENERIC_INTERNAL_ERROR, "Vacuum collector interval is not set correctly"));
         this.hiveMetastoreClientService = hiveMetastoreClientService;
         this.hdfsStorageMonitor = hdfsStorageMonitor;
+        this.directoryLister = directoryLister;
     }
 
     public SemiTransactionalHiveMetastore getMetastore()
@@ -690,6 +697,84 @@ public class HiveMetadata
         }
     }
 
+    @Override
+    public Optional<Map<String, Long>> getPartitionModificationTimes(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        HiveIdentity identity = new HiveIdentity(session);
+        HiveTableHandle hiveTable = (HiveTableHandle) tableHandle;
+        if (hiveTable.getPartitionColumns().isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> partitionNames = partitionManager.getOrLoadPartitions(session, metastore, identity, hiveTable).stream()
+                .map(HivePartition::getPartitionId)
+                .collect(toImmutableList());
+        ImmutableMap.Builder<String, Long> modificationTimes = ImmutableMap.builder();
+        if (partitionNames.isEmpty()) {
+            return Optional.of(modificationTimes.build());
+        }
+        try {
+            HdfsContext context = new HdfsContext(session, hiveTable.getSchemaName());
+            Map<String, Optional<Partition>> partitions = metastore.getPartitionsByNames(identity, hiveTable.getSchemaName(), hiveTable.getTableName(), partitionNames);
+            // partitions usually share their parent directory, so their statuses are listed together instead of one request per partition
+            Map<Path, Map<String, String>> partitionsByParent = new HashMap<>();
+            for (Map.Entry<String, Optional<Partition>> entry : partitions.entrySet()) {
+                // partition dropped after it was listed
+                if (!entry.getValue().isPresent()) {
+                    continue;
+                }
+                Path partitionPath = new Path(entry.getValue().get().getStorage().getLocation());
+                partitionsByParent.computeIfAbsent(partitionPath.getParent(), parent -> new HashMap<>()).put(partitionPath.getName(), entry.getKey());
+            }
+            for (Map.Entry<Path, Map<String, String>> entry : partitionsByParent.entrySet()) {
+                Path parent = entry.getKey();
+                Map<String, String> partitionsByDirectory = entry.getValue();
+                FileSystem fileSystem = this.hdfsEnvironment.getFileSystem(context, parent);
+                // Same as for the table, the partition directory modification time changes whenever files are added or removed
+                if (partitionsByDirectory.size() == 1) {
+                    Map.Entry<String, String> partition = partitionsByDirectory.entrySet().iterator().next();
+                    modificationTimes.put(partition.getValue(), fileSystem.getFileStatus(new Path(parent, partition.getKey())).getModificationTime());
+                    continue;
+                }
+                for (FileStatus status : fileSystem.listStatus(parent)) {
+                    String partitionName = partitionsByDirectory.get(status.getPath().getName());
+                    if (partitionName != null && status.isDirectory()) {
+                        modificationTimes.put(partitionName, status.getModificationTime());
+                    }
+                }
+            }
+        }
+        // Callers fall back to the table modification time, so don't fail the query
+        catch (Exception e) {
+            log.error("Exception thrown while trying to get partition modified times", e);
+            return Optional.empty();
+        }
+        return Optional.of(modificationTimes.build());
+    }
+
+    @Override
+    public Optional<Set<String>> getExistingPartitionNames(ConnectorSession session, ConnectorTableHandle tableHandle, Collection<String> partitionNames)
+    {
+        HiveTableHandle hiveTable = (HiveTableHandle) tableHandle;
+        if (hiveTable.getPartitionColumns().isEmpty()) {
+            return Optional.empty();
+        }
+        if (partitionNames.isEmpty()) {
+            return Optional.of(ImmutableSet.of());
+        }
+        try {
+            Map<String, Optional<Partition>> partitions = metastore.getPartitionsByNames(new HiveIdentity(session), hiveTable.getSchemaName(), hiveTable.getTableName(), ImmutableList.copyOf(partitionNames));
+            return Optional.of(partitions.entrySet().stream()
+                    .filter(partition -> partition.getValue().isPresent())
+                    .map(Map.Entry::getKey)
+                    .collect(toImmutableSet()));
+        }
+        // Callers treat the partitions as unknown, so don't fail the query
+        catch (Exception e) {
+            log.error("Exception thrown while trying to look up partitions", e);
+            return Optional.empty();
+        }
+    }
+
     @SuppressWarnings("TryWithIdenticalCatches")
     @Override
     public Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix)
@@ -1211,6 +1296,9 @@ public class HiveMetadata
         }
         verifyStorageFormatForCatalog(target.get().getStorage().getStorageFormat());
         metastore.dropTable(session, handle.getSchemaName(), handle.getTableName());
+        if (!target.get().getStorage().getLocation().isEmpty()) {
+            writtenPaths.add(new Path(target.get().getStorage().getLocation()));
+        }
     }
 
     @Override
@@ -1413,6 +1501,7 @@ public class HiveMetadata
         PrincipalPrivileges principalPrivileges = MetastoreUtil.buildInitialPrivilegeSet(handle.getTableOwner());
 
         partitionUpdates = PartitionUpdate.mergePartitionUpdates(partitionUpdates);
+        writtenPaths.add(writeInfo.getTargetPath());
 
         if (session.isRecoveryEnabled()) {
             Set<String> mergedFileNames = collectMergedFileNames(partitionUpdates);
@@ -1736,6 +1825,7 @@ public class HiveMetadata
 
         HiveStorageFormat tableStorageFormat = handle.getTableStorageFormat();
         partitionUpdates = PartitionUpdate.mergePartitionUpdates(partitionUpdates);
+        partitionUpdates.forEach(partitionUpdate -> writtenPaths.add(partitionUpdate.getTargetPath()));
 
         if (session.isSnapshotEnabled()) {
             Set<String> mergedFileNames = collectMergedFileNames(partitionUpdates);
@@ -2341,7 +2431,7 @@ public class HiveMetadata
 
         List<TupleDomain<HiveColumnHandle>> newEffectivePredicates = null;
         boolean isSuitableToPush = false;
-        if (HiveSessionProperties.isOrcPredicatePushdownEnabled(session)) {
+        if (HiveSessionProperties.isOrcPredicatePushdownEnabled(session) || HiveSessionProperties.isParquetPredicatePushdownEnabled(session)) {
             isSuitableToPush = checkIfSuitableToPush(allColumnHandles, tableHandle, session);
         }
 
@@ -2400,9 +2490,10 @@ public class HiveMetadata
     }
 
     /**
-     * This function will be called only user enabled pushdown (i.e. orc_predicate_pushdown_enabled=true).
+     * This function will be called only user enabled pushdown (i.e. orc_predicate_pushdown_enabled=true
+     * or parquet_predicate_pushdown_enabled=true).
      * Then further check if pushdown can be supported by connector. It support iff below all condition satisfies.
-     * 1. Storage Format should be only ORC.
+     * 1. Storage Format should be ORC or PARQUET, with pushdown enabled for that format.
      * 2. Table to be scanned is not transactional table (so effectively DELETE/UPDATE also not supported).
      * 3. Also columns part of the scan are of any primitive data-type except byte.
      * NOTE: This should be adjusted as we continue to support additional functionality.
@@ -2413,9 +2504,12 @@ public class HiveMetadata
      */
     protected boolean checkIfSuitableToPush(Set<ColumnHandle> allColumnHandles, ConnectorTableHandle tableHandle, ConnectorSession session)
     {
-        // We allow predicate pushdown only for non-transaction table of HIVE ORC storage format.
-        if (getHiveStorageFormat(getTableMetadata(session, tableHandle).getProperties()) != ORC
-                || getTransactionalValue(getTableMetadata(session, tableHandle).getProperties())) {
+        // We allow predicate pushdown only for non-transaction table of HIVE ORC or PARQUET storage format.
+        Map<String, Object> tableProperties = getTableMetadata(session, tableHandle).getProperties();
+        HiveStorageFormat storageFormat = getHiveStorageFormat(tableProperties);
+        boolean pushdownEnabled = (storageFormat == ORC && HiveSessionProperties.isOrcPredicatePushdownEnabled(session))
+                || (storageFormat == PARQUET && HiveSessionProperties.isParquetPredicatePushdownEnabled(session));
+        if (!pushdownEnabled || getTransactionalValue(tableProperties)) {
             return false;
         }
 
@@ -2951,14 +3045,33 @@ public class HiveMetadata
     @Override
     public void rollback()
     {
-        metastore.rollback();
+        try {
+            metastore.rollback();
+        }
+        finally {
+            invalidateWrittenPaths();
+        }
     }
 
     @Override
     public void commit()
     {
-        metastore.commit();
-        metastore.submitCleanupTasks();
+        try {
+            metastore.commit();
+            metastore.submitCleanupTasks();
+        }
+        finally {
+            invalidateWrittenPaths();
+        }
+    }
+
+    private void invalidateWrittenPaths()
+    {
+        // A failed commit may still have moved some of the files, so the listings are dropped either way
+        if (directoryLister != null) {
+            writtenPaths.forEach(directoryLister::invalidate);
+        }
+        writtenPaths.clear();
     }
 
     @Override
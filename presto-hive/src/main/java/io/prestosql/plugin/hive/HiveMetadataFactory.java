@@ -70,6 +70,7 @@ public class HiveMetadataFactory
     private Optional<Duration> vacuumCollectorInterval;
     protected final int hmsWriteBatchSize;
     protected final HdfsStorageMonitor hdfsStorageMonitor;
+    protected final DirectoryLister directoryLister;
 
     @Inject
     @SuppressWarnings("deprecation")
@@ -88,7 +89,8 @@ public class HiveMetadataFactory
             TypeTranslator typeTranslator,
             NodeVersion nodeVersion,
             AccessControlMetadataFactory accessControlMetadataFactory,
-            HdfsStorageMonitor hdfsStorageMonitor)
+            HdfsStorageMonitor hdfsStorageMonitor,
+            DirectoryLister directoryLister)
     {
         this(
                 metastore,
@@ -118,7 +120,8 @@ public class HiveMetadataFactory
                 hiveConfig.getAutoVacuumEnabled(),
                 hiveConfig.getVacuumCollectorInterval(),
                 hiveConfig.getMetastoreWriteBatchSize(),
-                hdfsStorageMonitor);
+                hdfsStorageMonitor,
+                directoryLister);
     }
 
     public HiveMetadataFactory(
@@ -148,7 +151,8 @@ public class HiveMetadataFactory
             double vacuumDeltaPercentThreshold,
             boolean autoVacuumEnabled,
             Optional<Duration> vacuumCollectorInterval,
-            int hmsWriteBatchSize, HdfsStorageMonitor hdfsStorageMonitor)
+            int hmsWriteBatchSize, HdfsStorageMonitor hdfsStorageMonitor,
+            DirectoryLister directoryLister)
     {
         this.skipDeletionForAlter = skipDeletionForAlter;
         this.skipTargetCleanupOnRollback = skipTargetCleanupOnRollback;
@@ -179,6 +183,7 @@ public class HiveMetadataFactory
         this.vacuumCollectorInterval = vacuumCollectorInterval;
         this.hmsWriteBatchSize = hmsWriteBatchSize;
         this.hdfsStorageMonitor = hdfsStorageMonitor;
+        this.directoryLister = directoryLister;
     }
 
     @Override
@@ -217,6 +222,7 @@ public class HiveMetadataFactory
                 hiveVacuumService,
                 vacuumCollectorInterval,
                 hiveMetastoreClientService,
-                hdfsStorageMonitor);
+                hdfsStorageMonitor,
+                directoryLister);
     }
 }
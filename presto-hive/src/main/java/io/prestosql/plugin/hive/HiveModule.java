@@ -30,13 +30,18 @@ import io.prestosql.orc.OrcCacheStore;
 import io.prestosql.orc.RowDataCacheStatsLister;
 import io.prestosql.orc.RowIndexCacheStatsLister;
 import io.prestosql.orc.StripeFooterCacheStatsLister;
+import io.prestosql.parquet.ParquetCacheStore;
 import io.prestosql.plugin.hive.metastore.SemiTransactionalHiveMetastore;
 import io.prestosql.plugin.hive.monitor.HdfsStorageMonitor;
 import io.prestosql.plugin.hive.orc.OrcPageSourceFactory;
 import io.prestosql.plugin.hive.orc.OrcSelectivePageSourceFactory;
+import io.prestosql.plugin.hive.parquet.ParquetDictionaryCacheStatsLister;
+import io.prestosql.plugin.hive.parquet.ParquetFooterCacheStatsLister;
 import io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory;
+import io.prestosql.plugin.hive.parquet.ParquetSelectivePageSourceFactory;
 import io.prestosql.plugin.hive.rcfile.RcFilePageSourceFactory;
 import io.prestosql.plugin.hive.s3.PrestoS3ClientFactory;
+import io.prestosql.plugin.hive.util.HiveBlockEncodingSerde;
 import io.prestosql.plugin.hive.util.IndexCache;
 import io.prestosql.plugin.hive.util.IndexCacheLoader;
 import io.prestosql.spi.connector.ConnectorNodePartitioningProvider;
@@ -47,6 +52,7 @@ import io.prestosql.spi.connector.ConnectorSplitManager;
 import javax.inject.Singleton;
 
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -121,6 +127,7 @@ public class HiveModule
 
         Multibinder<HiveSelectivePageSourceFactory> selectivePageSourceFactoryBinder = newSetBinder(binder, HiveSelectivePageSourceFactory.class);
         selectivePageSourceFactoryBinder.addBinding().to(OrcSelectivePageSourceFactory.class).in(Scopes.SINGLETON);
+        selectivePageSourceFactoryBinder.addBinding().to(ParquetSelectivePageSourceFactory.class).in(Scopes.SINGLETON);
 
         Multibinder<HiveFileWriterFactory> fileWriterFactoryBinder = newSetBinder(binder, HiveFileWriterFactory.class);
         binder.bind(OrcFileWriterFactory.class).in(Scopes.SINGLETON);
@@ -144,6 +151,10 @@ public class HiveModule
         newExporter(binder).export(BloomFilterCacheStatsLister.class).withGeneratedName();
         binder.bind(RowDataCacheStatsLister.class).in(Scopes.SINGLETON);
         newExporter(binder).export(RowDataCacheStatsLister.class).withGeneratedName();
+        binder.bind(ParquetFooterCacheStatsLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ParquetFooterCacheStatsLister.class).withGeneratedName();
+        binder.bind(ParquetDictionaryCacheStatsLister.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(ParquetDictionaryCacheStatsLister.class).withGeneratedName();
     }
 
     @ForHive
@@ -231,6 +242,17 @@ public class HiveModule
                 config.getOrcBloomFiltersCacheLimit(),
                 Duration.ofMillis(config.getOrcBloomFiltersCacheTtl().toMillis()),
                 config.getOrcRowDataCacheMaximumWeight(), Duration.ofMillis(config.getOrcRowDataCacheTtl().toMillis()),
-                config.isOrcCacheStatsMetricCollectionEnabled());
+                config.isOrcCacheStatsMetricCollectionEnabled(),
+                config.isOrcRowDataCacheOffHeapEnabled() ? Optional.of(new HiveBlockEncodingSerde()) : Optional.empty());
+    }
+
+    @Provides
+    @Singleton
+    public static ParquetCacheStore getParquetCacheStore(HiveConfig config)
+    {
+        return ParquetCacheStore.builder().newCacheStore(
+                config.getParquetFooterCacheMaximumWeight(), Duration.ofMillis(config.getParquetFooterCacheTtl().toMillis()),
+                config.getParquetDictionaryCacheMaximumWeight(), Duration.ofMillis(config.getParquetDictionaryCacheTtl().toMillis()),
+                config.isParquetCacheStatsMetricCollectionEnabled());
     }
 }
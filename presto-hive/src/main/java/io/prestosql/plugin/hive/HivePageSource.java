@@ -22,6 +22,7 @@ import io.prestosql.plugin.hive.HivePageSourceProvider.BucketAdaptation;
 import io.prestosql.plugin.hive.HivePageSourceProvider.ColumnMapping;
 import io.prestosql.plugin.hive.coercions.HiveCoercer;
 import io.prestosql.plugin.hive.orc.OrcSelectivePageSource;
+import io.prestosql.plugin.hive.parquet.ParquetSelectivePageSource;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.block.Block;
@@ -135,7 +136,7 @@ public class HivePageSource
             }
         }
         this.coercers = localCoercers.build();
-        this.isSelectiveRead = delegate instanceof OrcSelectivePageSource;
+        this.isSelectiveRead = delegate instanceof OrcSelectivePageSource || delegate instanceof ParquetSelectivePageSource;
     }
 
     private static Page extractColumns(Page page, int[] columns)
@@ -72,6 +72,8 @@ public final class HiveSessionProperties
     private static final String PARQUET_MAX_READ_BLOCK_SIZE = "parquet_max_read_block_size";
     private static final String PARQUET_WRITER_BLOCK_SIZE = "parquet_writer_block_size";
     private static final String PARQUET_WRITER_PAGE_SIZE = "parquet_writer_page_size";
+    private static final String PARQUET_FOOTER_CACHE_ENABLED = "parquet_footer_cache_enabled";
+    private static final String PARQUET_DICTIONARY_CACHE_ENABLED = "parquet_dictionary_cache_enabled";
     private static final String MAX_SPLIT_SIZE = "max_split_size";
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
     private static final String RCFILE_OPTIMIZED_WRITER_VALIDATE = "rcfile_optimized_writer_validate";
@@ -87,10 +89,12 @@ public final class HiveSessionProperties
     private static final String DYNAMIC_FILTERING_SPLIT_FILTERING = "dynamic_filtering_partition_filtering";
     private static final String DYNAMIC_FILTERING_ROW_FILTERING_THRESHOLD = "dynamic_filtering_filter_rows_threshold";
     private static final String ORC_PREDICATE_PUSHDOWN = "orc_predicate_pushdown_enabled";
+    private static final String PARQUET_PREDICATE_PUSHDOWN = "parquet_predicate_pushdown_enabled";
     private static final String ORC_DISJUCT_PREDICATE_PUSHDOWN = "orc_disjunct_predicate_pushdown_enabled";
     private static final String ORC_PUSHDOWN_DATACACHE = "orc_pushdown_data_cache_enabled";
     private static final String WRITE_PARTITION_DISTRIBUTION = "write_partition_distribution";
     private static final String METASTORE_WRITE_BATCH_SIZE = "metastore_write_batch_size";
+    private static final String SPLIT_LOADER_LISTING_CONCURRENCY = "split_loader_listing_concurrency";
     private static final String LEGACY_HIVE_VIEW_TRANSLATION = "legacy_hive_view_translation";
     private static final String TIMESTAMP_PRECISION = "timestamp_precision";
 
@@ -304,6 +308,16 @@ public final class HiveSessionProperties
                         "Parquet: Writer page size",
                         parquetFileWriterConfig.getPageSize(),
                         false),
+                booleanProperty(
+                        PARQUET_FOOTER_CACHE_ENABLED,
+                        "Cache Parquet file footers",
+                        hiveConfig.isParquetFooterCacheEnabled(),
+                        false),
+                booleanProperty(
+                        PARQUET_DICTIONARY_CACHE_ENABLED,
+                        "Cache Parquet dictionary pages",
+                        hiveConfig.isParquetDictionaryCacheEnabled(),
+                        false),
                 dataSizeProperty(
                         MAX_SPLIT_SIZE,
                         "Max split size",
@@ -369,6 +383,11 @@ public final class HiveSessionProperties
                         "Batch size for requests to HMS for partition and partition statistics write operation",
                         hiveConfig.getMetastoreWriteBatchSize(),
                         false),
+                integerProperty(
+                        SPLIT_LOADER_LISTING_CONCURRENCY,
+                        "Number of partition directories listed concurrently ahead of split generation",
+                        hiveConfig.getSplitLoaderListingConcurrency(),
+                        false),
                 integerProperty(
                         DYNAMIC_FILTERING_ROW_FILTERING_THRESHOLD,
                         "Only enable row filtering with dynamic filter if the filter size is below this threshold",
@@ -384,6 +403,11 @@ public final class HiveSessionProperties
                         "Experimental: Consume deterministic predicates(conjucts: AND) for ORC scan.",
                         hiveConfig.isOrcPredicatePushdownEnabled(),
                         false),
+                booleanProperty(
+                        PARQUET_PREDICATE_PUSHDOWN,
+                        "Experimental: Consume deterministic predicates for Parquet scan.",
+                        hiveConfig.isParquetPredicatePushdownEnabled(),
+                        false),
                 booleanProperty(
                         ORC_DISJUCT_PREDICATE_PUSHDOWN,
                         "Experimental: Consume deterministic predicates(disjucts: OR) for ORC scan.",
@@ -416,6 +440,15 @@ public final class HiveSessionProperties
         return session.getProperty(METASTORE_WRITE_BATCH_SIZE, Integer.class);
     }
 
+    public static int getSplitLoaderListingConcurrency(ConnectorSession session)
+    {
+        int concurrency = session.getProperty(SPLIT_LOADER_LISTING_CONCURRENCY, Integer.class);
+        if (concurrency < 0) {
+            throw new PrestoException(INVALID_SESSION_PROPERTY, format("%s must not be negative: %s", SPLIT_LOADER_LISTING_CONCURRENCY, concurrency));
+        }
+        return concurrency;
+    }
+
     public static boolean isForceLocalScheduling(ConnectorSession session)
     {
         return session.getProperty(FORCE_LOCAL_SCHEDULING, Boolean.class);
@@ -579,6 +612,16 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_WRITER_PAGE_SIZE, DataSize.class);
     }
 
+    public static boolean isParquetFooterCacheEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_FOOTER_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isParquetDictionaryCacheEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_DICTIONARY_CACHE_ENABLED, Boolean.class);
+    }
+
     public static DataSize getMaxSplitSize(ConnectorSession session)
     {
         return session.getProperty(MAX_SPLIT_SIZE, DataSize.class);
@@ -653,6 +696,11 @@ public final class HiveSessionProperties
         return session.getProperty(ORC_PREDICATE_PUSHDOWN, Boolean.class);
     }
 
+    public static boolean isParquetPredicatePushdownEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_PREDICATE_PUSHDOWN, Boolean.class);
+    }
+
     public static boolean isOrcDisjunctPredicatePushdownEnabled(ConnectorSession session)
     {
         return session.getProperty(ORC_DISJUCT_PREDICATE_PUSHDOWN, Boolean.class);
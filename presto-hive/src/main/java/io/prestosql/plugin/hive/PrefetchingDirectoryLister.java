@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.plugin.hive.HdfsEnvironment.HdfsContext;
+import io.prestosql.plugin.hive.metastore.Table;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists partition directories in the background ahead of split generation, so that the
+ * round trips to the file system of several partitions overlap instead of adding up.
+ */
+class PrefetchingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final Executor executor;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final HdfsContext hdfsContext;
+    private final Map<Path, FutureTask<List<PrestoFileStatus>>> prefetches = new ConcurrentHashMap<>();
+
+    public PrefetchingDirectoryLister(DirectoryLister delegate, Executor executor, HdfsEnvironment hdfsEnvironment, HdfsContext hdfsContext)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.hdfsContext = requireNonNull(hdfsContext, "hdfsContext is null");
+    }
+
+    public void prefetch(Table table, Path path)
+    {
+        FutureTask<List<PrestoFileStatus>> task = new FutureTask<>(() -> hdfsEnvironment.doAs(hdfsContext.getIdentity().getUser(), () -> {
+            FileSystem fs = hdfsEnvironment.getFileSystem(hdfsContext, path);
+            ImmutableList.Builder<PrestoFileStatus> files = ImmutableList.builder();
+            RemoteIterator<PrestoFileStatus> iterator = delegate.list(fs, table, path);
+            while (iterator.hasNext()) {
+                files.add(iterator.next());
+            }
+            return files.build();
+        }));
+        if (prefetches.putIfAbsent(path, task) == null) {
+            executor.execute(task);
+        }
+    }
+
+    public void discard(Path path)
+    {
+        FutureTask<List<PrestoFileStatus>> task = prefetches.remove(path);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    public void discardAll()
+    {
+        prefetches.keySet().forEach(this::discard);
+    }
+
+    @Override
+    public RemoteIterator<PrestoFileStatus> list(FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        FutureTask<List<PrestoFileStatus>> task = prefetches.remove(path);
+        if (task == null || task.isCancelled()) {
+            return delegate.list(fs, table, path);
+        }
+
+        // Run the listing in this thread if the executor has not started it yet, rather than waiting for a free thread
+        task.run();
+        try {
+            return remoteIterator(task.get().iterator());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while listing " + path);
+        }
+        catch (ExecutionException e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public void invalidate(Path path)
+    {
+        delegate.invalidate(path);
+    }
+
+    private static RemoteIterator<PrestoFileStatus> remoteIterator(Iterator<PrestoFileStatus> iterator)
+    {
+        return new RemoteIterator<PrestoFileStatus>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public PrestoFileStatus next()
+            {
+                return iterator.next();
+            }
+        };
+    }
+}
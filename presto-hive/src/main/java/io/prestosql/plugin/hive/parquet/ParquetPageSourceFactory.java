@@ -13,13 +13,18 @@
  */
 package io.prestosql.plugin.hive.parquet;
 
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.units.DataSize;
 import io.prestosql.memory.context.AggregatedMemoryContext;
+import io.prestosql.parquet.ParquetCacheStore;
 import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetDataSource;
+import io.prestosql.parquet.ParquetDataSourceId;
+import io.prestosql.parquet.ParquetFileCacheKey;
 import io.prestosql.parquet.RichColumnDescriptor;
 import io.prestosql.parquet.predicate.Predicate;
 import io.prestosql.parquet.reader.MetadataReader;
@@ -63,9 +68,11 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.base.Throwables.propagateIfPossible;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
 import static io.prestosql.parquet.ParquetTypeUtils.getDescriptors;
@@ -78,6 +85,8 @@ import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_MISSING_DATA;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getParquetMaxReadBlockSize;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isFailOnCorruptedParquetStatistics;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isParquetDictionaryCacheEnabled;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isParquetFooterCacheEnabled;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isUseParquetColumnNames;
 import static io.prestosql.plugin.hive.HiveUtil.getDeserializerClassName;
 import static io.prestosql.plugin.hive.HiveUtil.shouldUseRecordReaderFromInputFormat;
@@ -90,7 +99,7 @@ import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Cate
 public class ParquetPageSourceFactory
         implements HivePageSourceFactory
 {
-    private static final Set<String> PARQUET_SERDE_CLASS_NAMES = ImmutableSet.<String>builder()
+    static final Set<String> PARQUET_SERDE_CLASS_NAMES = ImmutableSet.<String>builder()
             .add("org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe")
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
@@ -100,14 +109,21 @@ public class ParquetPageSourceFactory
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
     private final DateTimeZone timeZone;
+    private final ParquetCacheStore parquetCacheStore;
 
-    @Inject
     public ParquetPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, HiveConfig hiveConfig)
+    {
+        this(typeManager, hdfsEnvironment, stats, hiveConfig, ParquetCacheStore.CACHE_NOTHING);
+    }
+
+    @Inject
+    public ParquetPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, HiveConfig hiveConfig, ParquetCacheStore parquetCacheStore)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
         timeZone = requireNonNull(hiveConfig, "hiveConfig is null").getParquetDateTimeZone();
+        this.parquetCacheStore = requireNonNull(parquetCacheStore, "parquetCacheStore is null");
     }
 
     @Override
@@ -151,7 +167,9 @@ public class ParquetPageSourceFactory
                 typeManager,
                 effectivePredicate,
                 stats,
-                timeZone));
+                timeZone,
+                parquetCacheStore.withEnabledCaches(isParquetFooterCacheEnabled(session), isParquetDictionaryCacheEnabled(session)),
+                dataSourceLastModifiedTime));
     }
 
     public static ParquetPageSource createParquetPageSource(
@@ -170,7 +188,9 @@ public class ParquetPageSourceFactory
             TypeManager typeManager,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             FileFormatDataSourceStats stats,
-            DateTimeZone timeZone)
+            DateTimeZone timeZone,
+            ParquetCacheStore parquetCacheStore,
+            long dataSourceLastModifiedTime)
     {
         AggregatedMemoryContext systemMemoryContext = newSimpleAggregatedMemoryContext();
 
@@ -179,7 +199,8 @@ public class ParquetPageSourceFactory
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
             FSDataInputStream inputStream = hdfsEnvironment.doAs(user, () -> fileSystem.open(path));
-            ParquetMetadata parquetMetadata = MetadataReader.readFooter(inputStream, path, fileSize);
+            ParquetFileCacheKey fileCacheKey = new ParquetFileCacheKey(new ParquetDataSourceId(path.toString()), dataSourceLastModifiedTime);
+            ParquetMetadata parquetMetadata = readFooter(inputStream, path, fileSize, parquetCacheStore, fileCacheKey);
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
             dataSource = buildHdfsParquetDataSource(inputStream, path, fileSize, stats);
@@ -222,7 +243,9 @@ public class ParquetPageSourceFactory
                     dataSource,
                     readerTimeZone,
                     systemMemoryContext,
-                    maxReadBlockSize);
+                    maxReadBlockSize,
+                    parquetCacheStore,
+                    Optional.of(fileCacheKey));
 
             return new ParquetPageSource(
                     parquetReader,
@@ -260,6 +283,22 @@ public class ParquetPageSourceFactory
         }
     }
 
+    static ParquetMetadata readFooter(FSDataInputStream inputStream, Path path, long fileSize, ParquetCacheStore parquetCacheStore, ParquetFileCacheKey fileCacheKey)
+            throws IOException
+    {
+        Cache<ParquetFileCacheKey, ParquetMetadata> footerCache = parquetCacheStore.getFooterCache();
+        if (footerCache == null) {
+            return MetadataReader.readFooter(inputStream, path, fileSize);
+        }
+        try {
+            return footerCache.get(fileCacheKey, () -> MetadataReader.readFooter(inputStream, path, fileSize));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            propagateIfPossible(e.getCause(), IOException.class);
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     public static TupleDomain<ColumnDescriptor> getParquetTupleDomain(Map<List<String>, RichColumnDescriptor> descriptorsByPath, TupleDomain<HiveColumnHandle> effectivePredicate)
     {
         if (effectivePredicate.isNone()) {
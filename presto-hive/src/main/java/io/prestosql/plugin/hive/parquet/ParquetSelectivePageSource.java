@@ -0,0 +1,405 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.parquet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.prestosql.orc.TupleDomainFilter;
+import io.prestosql.parquet.Field;
+import io.prestosql.parquet.ParquetCorruptionException;
+import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.Type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.prestosql.spi.predicate.Utils.nativeValueToBlock;
+import static io.prestosql.spi.type.RealType.REAL;
+import static java.lang.Float.intBitsToFloat;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Parquet counterpart of the ORC selective reader. Every batch is filtered while it is decoded:
+ * <ol>
+ * <li>columns with a conjunct (AND) filter are read one after the other, each one only at the
+ * positions that passed the previous filters;</li>
+ * <li>the disjunct (OR) filters are evaluated on the surviving positions;</li>
+ * <li>the remaining output columns are decoded only at the final positions.</li>
+ * </ol>
+ * Prefilled (partition) columns and columns missing from the file are constants, and the
+ * returned pages contain the output columns only, already coerced.
+ */
+public class ParquetSelectivePageSource
+        implements ConnectorPageSource
+{
+    private final ParquetReader parquetReader;
+    private final Map<Integer, SelectiveColumn> columns;
+    private final List<Integer> outputColumns;
+    private final List<SelectiveColumn> filterColumns;
+    private final List<Map<Integer, TupleDomainFilter>> disjunctFilters;
+    // a constant column does not match its conjunct filter, so no row of the file can qualify
+    private final boolean constantFilterIsFalse;
+
+    private int[] positions = new int[0];
+    private int batchSize;
+    private boolean closed;
+
+    /**
+     * @param fields the Parquet field of every column read from the file, keyed by hive column index
+     * @param types the types of all columns after coercion, keyed by hive column index
+     * @param constantValues the values of the prefilled columns and of the columns missing from the file
+     * @param filters the conjunct filters, keyed by hive column index
+     * @param disjunctFilters the disjunct filters; each entry is a conjunction of per-column filters
+     */
+    public ParquetSelectivePageSource(
+            ParquetReader parquetReader,
+            Map<Integer, Field> fields,
+            Map<Integer, Type> types,
+            Map<Integer, Object> constantValues,
+            List<Integer> outputColumns,
+            Map<Integer, TupleDomainFilter> filters,
+            List<Map<Integer, TupleDomainFilter>> disjunctFilters,
+            Map<Integer, ? extends Function<Block, Block>> coercers)
+    {
+        this.parquetReader = requireNonNull(parquetReader, "parquetReader is null");
+        this.outputColumns = ImmutableList.copyOf(requireNonNull(outputColumns, "outputColumns is null"));
+        this.disjunctFilters = ImmutableList.copyOf(requireNonNull(disjunctFilters, "disjunctFilters is null"));
+        requireNonNull(fields, "fields is null");
+        requireNonNull(constantValues, "constantValues is null");
+        requireNonNull(filters, "filters is null");
+        requireNonNull(coercers, "coercers is null");
+
+        ImmutableMap.Builder<Integer, SelectiveColumn> columnsBuilder = ImmutableMap.builder();
+        ImmutableList.Builder<SelectiveColumn> filterColumnsBuilder = ImmutableList.builder();
+        boolean constantFilterIsFalse = false;
+        for (Map.Entry<Integer, Type> entry : types.entrySet()) {
+            int columnIndex = entry.getKey();
+            Type type = entry.getValue();
+            SelectiveColumn column;
+            if (fields.containsKey(columnIndex)) {
+                column = new SelectiveColumn(type, Optional.of(fields.get(columnIndex)), null, Optional.<Function<Block, Block>>ofNullable(coercers.get(columnIndex)));
+            }
+            else {
+                column = new SelectiveColumn(type, Optional.empty(), constantValues.get(columnIndex), Optional.empty());
+            }
+            columnsBuilder.put(columnIndex, column);
+
+            TupleDomainFilter filter = filters.get(columnIndex);
+            if (filter != null) {
+                if (column.isConstant()) {
+                    constantFilterIsFalse |= !testValue(filter, type, nativeValueToBlock(type, column.constantValue), 0);
+                }
+                else {
+                    column.filter = filter;
+                    filterColumnsBuilder.add(column);
+                }
+            }
+        }
+        this.columns = columnsBuilder.build();
+        this.filterColumns = filterColumnsBuilder.build();
+        this.constantFilterIsFalse = constantFilterIsFalse;
+
+        for (int columnIndex : this.outputColumns) {
+            checkArgument(columns.containsKey(columnIndex), "Unknown output column: %s", columnIndex);
+        }
+        for (Map<Integer, TupleDomainFilter> disjunct : this.disjunctFilters) {
+            for (int columnIndex : disjunct.keySet()) {
+                checkArgument(columns.containsKey(columnIndex), "Unknown filter column: %s", columnIndex);
+            }
+        }
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return parquetReader.getDataSource().getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return parquetReader.getDataSource().getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return parquetReader.getSystemMemoryContext().getBytes();
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            batchSize = closed || constantFilterIsFalse ? 0 : parquetReader.nextBatch();
+            if (batchSize <= 0) {
+                close();
+                return null;
+            }
+
+            for (SelectiveColumn column : columns.values()) {
+                column.reset();
+            }
+            int positionCount = initializePositions(batchSize);
+
+            // conjuncts: every filter column only decodes the positions that passed the previous ones
+            for (SelectiveColumn column : filterColumns) {
+                Block block = getBlock(column, positionCount);
+                int selected = 0;
+                for (int i = 0; i < positionCount; i++) {
+                    if (testValue(column.filter, column.type, block, i)) {
+                        positions[selected] = positions[i];
+                        selected++;
+                    }
+                }
+                positionCount = selected;
+                if (positionCount == 0) {
+                    return new Page(0);
+                }
+            }
+
+            if (!disjunctFilters.isEmpty()) {
+                positionCount = applyDisjunctFilters(positionCount);
+                if (positionCount == 0) {
+                    return new Page(0);
+                }
+            }
+
+            Block[] blocks = new Block[outputColumns.size()];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = getBlock(columns.get(outputColumns.get(i)), positionCount);
+            }
+            return new Page(positionCount, blocks);
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (ParquetCorruptionException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_BAD_DATA, e);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    private int initializePositions(int batchSize)
+    {
+        if (positions.length < batchSize) {
+            positions = new int[batchSize];
+        }
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+        return batchSize;
+    }
+
+    private int applyDisjunctFilters(int positionCount)
+            throws IOException
+    {
+        boolean[] matched = new boolean[positionCount];
+        for (Map<Integer, TupleDomainFilter> disjunct : disjunctFilters) {
+            boolean[] disjunctMatched = new boolean[positionCount];
+            Arrays.fill(disjunctMatched, true);
+            for (Map.Entry<Integer, TupleDomainFilter> entry : disjunct.entrySet()) {
+                SelectiveColumn column = columns.get(entry.getKey());
+                Block block = getBlock(column, positionCount);
+                for (int i = 0; i < positionCount; i++) {
+                    if (disjunctMatched[i] && !testValue(entry.getValue(), column.type, block, i)) {
+                        disjunctMatched[i] = false;
+                    }
+                }
+            }
+            for (int i = 0; i < positionCount; i++) {
+                matched[i] |= disjunctMatched[i];
+            }
+        }
+
+        int selected = 0;
+        for (int i = 0; i < positionCount; i++) {
+            if (matched[i]) {
+                positions[selected] = positions[i];
+                selected++;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the values of the column at the current positions. A column is decoded at most once
+     * per batch, at the positions current at that time; later calls select from that block, since
+     * positions only shrink within a batch.
+     */
+    private Block getBlock(SelectiveColumn column, int positionCount)
+            throws IOException
+    {
+        if (column.isConstant()) {
+            return RunLengthEncodedBlock.create(column.type, column.constantValue, positionCount);
+        }
+
+        if (column.block == null) {
+            Field field = column.field.get();
+            Block block = positionCount == batchSize ? parquetReader.readBlock(field) : parquetReader.readBlock(field, positions, positionCount);
+            if (column.coercer.isPresent()) {
+                block = column.coercer.get().apply(block);
+            }
+            column.block = block;
+            column.blockPositions = Arrays.copyOf(positions, positionCount);
+            return block;
+        }
+
+        if (column.blockPositions.length == positionCount) {
+            return column.block;
+        }
+        int[] blockIndexes = new int[positionCount];
+        int blockIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (column.blockPositions[blockIndex] != positions[i]) {
+                blockIndex++;
+            }
+            blockIndexes[i] = blockIndex;
+        }
+        return column.block.getPositions(blockIndexes, 0, positionCount);
+    }
+
+    static boolean testValue(TupleDomainFilter filter, Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return filter.testNull();
+        }
+        if (type.equals(REAL)) {
+            return filter.testFloat(intBitsToFloat((int) type.getLong(block, position)));
+        }
+        if (type instanceof DecimalType && !((DecimalType) type).isShort()) {
+            Slice value = type.getSlice(block, position);
+            return filter.testDecimal(value.getLong(0), value.getLong(SIZE_OF_LONG));
+        }
+
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return filter.testBoolean(type.getBoolean(block, position));
+        }
+        if (javaType == long.class) {
+            return filter.testLong(type.getLong(block, position));
+        }
+        if (javaType == double.class) {
+            return filter.testDouble(type.getDouble(block, position));
+        }
+        if (javaType == Slice.class) {
+            Slice value = type.getSlice(block, position);
+            if (value.hasByteArray()) {
+                return filter.testBytes(value.byteArray(), value.byteArrayOffset(), value.length());
+            }
+            byte[] bytes = value.getBytes();
+            return filter.testBytes(bytes, 0, bytes.length);
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported type for Parquet predicate pushdown: " + type.getDisplayName());
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            parquetReader.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        requireNonNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            // Self-suppression not permitted
+            if (e != throwable) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("outputColumns", outputColumns)
+                .toString();
+    }
+
+    private static final class SelectiveColumn
+    {
+        private final Type type;
+        private final Optional<Field> field;
+        private final Object constantValue;
+        private final Optional<Function<Block, Block>> coercer;
+        private TupleDomainFilter filter;
+
+        // values decoded in the current batch and the batch positions they belong to
+        private Block block;
+        private int[] blockPositions;
+
+        private SelectiveColumn(Type type, Optional<Field> field, Object constantValue, Optional<Function<Block, Block>> coercer)
+        {
+            this.type = requireNonNull(type, "type is null");
+            this.field = requireNonNull(field, "field is null");
+            this.constantValue = constantValue;
+            this.coercer = requireNonNull(coercer, "coercer is null");
+        }
+
+        private boolean isConstant()
+        {
+            return !field.isPresent();
+        }
+
+        private void reset()
+        {
+            block = null;
+            blockPositions = null;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.parquet;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.prestosql.memory.context.AggregatedMemoryContext;
+import io.prestosql.orc.TupleDomainFilter;
+import io.prestosql.orc.TupleDomainFilterUtils;
+import io.prestosql.parquet.Field;
+import io.prestosql.parquet.ParquetCacheStore;
+import io.prestosql.parquet.ParquetCorruptionException;
+import io.prestosql.parquet.ParquetDataSource;
+import io.prestosql.parquet.ParquetDataSourceId;
+import io.prestosql.parquet.ParquetFileCacheKey;
+import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.parquet.predicate.Predicate;
+import io.prestosql.parquet.reader.ParquetReader;
+import io.prestosql.plugin.hive.DeleteDeltaLocations;
+import io.prestosql.plugin.hive.FileFormatDataSourceStats;
+import io.prestosql.plugin.hive.HdfsEnvironment;
+import io.prestosql.plugin.hive.HiveColumnHandle;
+import io.prestosql.plugin.hive.HiveConfig;
+import io.prestosql.plugin.hive.HivePageSourceProvider.ColumnMapping;
+import io.prestosql.plugin.hive.HiveSelectivePageSourceFactory;
+import io.prestosql.plugin.hive.coercions.HiveCoercer;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.connector.FixedPageSource;
+import io.prestosql.spi.dynamicfilter.DynamicFilterSupplier;
+import io.prestosql.spi.heuristicindex.IndexMetadata;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.TypeManager;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.BlockMissingException;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.parquet.ParquetTypeUtils.getColumnIO;
+import static io.prestosql.parquet.ParquetTypeUtils.getDescriptors;
+import static io.prestosql.parquet.ParquetTypeUtils.lookupColumnByName;
+import static io.prestosql.parquet.predicate.PredicateUtils.buildPredicate;
+import static io.prestosql.parquet.predicate.PredicateUtils.predicateMatches;
+import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getParquetMaxReadBlockSize;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isFailOnCorruptedParquetStatistics;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isParquetDictionaryCacheEnabled;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isParquetFooterCacheEnabled;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isUseParquetColumnNames;
+import static io.prestosql.plugin.hive.HiveUtil.getDeserializerClassName;
+import static io.prestosql.plugin.hive.HiveUtil.shouldUseRecordReaderFromInputFormat;
+import static io.prestosql.plugin.hive.HiveUtil.typedPartitionKey;
+import static io.prestosql.plugin.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
+import static io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory.PARQUET_SERDE_CLASS_NAMES;
+import static io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory.WRITER_TIME_ZONE_KEY;
+import static io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory.getParquetTupleDomain;
+import static io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory.getParquetType;
+import static io.prestosql.plugin.hive.parquet.ParquetPageSourceFactory.readFooter;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates {@link ParquetSelectivePageSource}s for scans whose predicates were pushed into the
+ * connector (refer HiveMetadata.checkIfSuitableToPush).
+ */
+public class ParquetSelectivePageSourceFactory
+        implements HiveSelectivePageSourceFactory
+{
+    private final TypeManager typeManager;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final DateTimeZone timeZone;
+    private final ParquetCacheStore parquetCacheStore;
+
+    public ParquetSelectivePageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, HiveConfig hiveConfig)
+    {
+        this(typeManager, hdfsEnvironment, stats, hiveConfig, ParquetCacheStore.CACHE_NOTHING);
+    }
+
+    @Inject
+    public ParquetSelectivePageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, FileFormatDataSourceStats stats, HiveConfig hiveConfig, ParquetCacheStore parquetCacheStore)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        timeZone = requireNonNull(hiveConfig, "hiveConfig is null").getParquetDateTimeZone();
+        this.parquetCacheStore = requireNonNull(parquetCacheStore, "parquetCacheStore is null");
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            Map<Integer, String> prefilledValues,
+            List<Integer> outputColumns,
+            TupleDomain<HiveColumnHandle> domainPredicate,
+            Optional<List<TupleDomain<HiveColumnHandle>>> additionPredicates,
+            Optional<DeleteDeltaLocations> deleteDeltaLocations,
+            Optional<Long> startRowOffsetOfFile,
+            Optional<List<IndexMetadata>> indexes,
+            boolean splitCacheable,
+            List<ColumnMapping> columnMappings,
+            Map<Integer, HiveCoercer> coercers,
+            long dataSourceLastModifiedTime,
+            Optional<DynamicFilterSupplier> dynamicFilterSupplier)
+    {
+        if (!PARQUET_SERDE_CLASS_NAMES.contains(getDeserializerClassName(schema)) || shouldUseRecordReaderFromInputFormat(configuration, schema)) {
+            return Optional.empty();
+        }
+
+        checkArgument(!deleteDeltaLocations.isPresent(), "Delete delta is not supported");
+
+        // no row can match when every disjunct is none, while an empty list of disjunct filters would let all rows pass
+        List<TupleDomain<HiveColumnHandle>> disjunctDomains = additionPredicates.orElseGet(ImmutableList::of);
+        if (domainPredicate.isNone() || (!disjunctDomains.isEmpty() && disjunctDomains.stream().allMatch(TupleDomain::isNone))) {
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+
+        return Optional.of(createParquetSelectivePageSource(
+                hdfsEnvironment,
+                session.getUser(),
+                configuration,
+                path,
+                start,
+                length,
+                fileSize,
+                columns,
+                prefilledValues,
+                outputColumns,
+                domainPredicate,
+                disjunctDomains,
+                columnMappings,
+                coercers,
+                isUseParquetColumnNames(session),
+                isFailOnCorruptedParquetStatistics(session),
+                getParquetMaxReadBlockSize(session),
+                typeManager,
+                stats,
+                timeZone,
+                parquetCacheStore.withEnabledCaches(isParquetFooterCacheEnabled(session), isParquetDictionaryCacheEnabled(session)),
+                dataSourceLastModifiedTime));
+    }
+
+    public static ParquetSelectivePageSource createParquetSelectivePageSource(
+            HdfsEnvironment hdfsEnvironment,
+            String user,
+            Configuration configuration,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            List<HiveColumnHandle> columns,
+            Map<Integer, String> prefilledValues,
+            List<Integer> outputColumns,
+            TupleDomain<HiveColumnHandle> domainPredicate,
+            List<TupleDomain<HiveColumnHandle>> disjunctDomains,
+            List<ColumnMapping> columnMappings,
+            Map<Integer, HiveCoercer> coercers,
+            boolean useParquetColumnNames,
+            boolean failOnCorruptedParquetStatistics,
+            DataSize maxReadBlockSize,
+            TypeManager typeManager,
+            FileFormatDataSourceStats stats,
+            DateTimeZone timeZone,
+            ParquetCacheStore parquetCacheStore,
+            long dataSourceLastModifiedTime)
+    {
+        AggregatedMemoryContext systemMemoryContext = newSimpleAggregatedMemoryContext();
+
+        ParquetDataSource dataSource = null;
+        DateTimeZone readerTimeZone = timeZone;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
+            FSDataInputStream inputStream = hdfsEnvironment.doAs(user, () -> fileSystem.open(path));
+            ParquetFileCacheKey fileCacheKey = new ParquetFileCacheKey(new ParquetDataSourceId(path.toString()), dataSourceLastModifiedTime);
+            ParquetMetadata parquetMetadata = readFooter(inputStream, path, fileSize, parquetCacheStore, fileCacheKey);
+            FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
+            MessageType fileSchema = fileMetaData.getSchema();
+            dataSource = buildHdfsParquetDataSource(inputStream, path, fileSize, stats);
+            String writerTimeZoneId = fileMetaData.getKeyValueMetaData().get(WRITER_TIME_ZONE_KEY);
+            if (writerTimeZoneId != null && !writerTimeZoneId.equalsIgnoreCase(readerTimeZone.getID())) {
+                readerTimeZone = DateTimeZone.forID(writerTimeZoneId);
+            }
+
+            // columns read from the file, keyed by hive column index; prefilled columns and columns missing
+            // from the file become constants
+            Map<Integer, org.apache.parquet.schema.Type> parquetFields = new HashMap<>();
+            for (HiveColumnHandle column : columns) {
+                if (column.getColumnType() == REGULAR && !prefilledValues.containsKey(column.getHiveColumnIndex())) {
+                    org.apache.parquet.schema.Type parquetType = getParquetType(column, fileSchema, useParquetColumnNames);
+                    if (parquetType != null) {
+                        parquetFields.put(column.getHiveColumnIndex(), parquetType);
+                    }
+                }
+            }
+
+            MessageType requestedSchema = new MessageType(fileSchema.getName(), ImmutableList.copyOf(parquetFields.values()));
+
+            ImmutableList.Builder<BlockMetaData> footerBlocks = ImmutableList.builder();
+            for (BlockMetaData block : parquetMetadata.getBlocks()) {
+                long firstDataPage = block.getColumns().get(0).getFirstDataPageOffset();
+                if (firstDataPage >= start && firstDataPage < start + length) {
+                    footerBlocks.add(block);
+                }
+            }
+
+            // only the conjuncts can prune row groups
+            Map<List<String>, RichColumnDescriptor> descriptorsByPath = getDescriptors(fileSchema, requestedSchema);
+            TupleDomain<ColumnDescriptor> parquetTupleDomain = getParquetTupleDomain(descriptorsByPath, domainPredicate);
+            Predicate parquetPredicate = buildPredicate(requestedSchema, parquetTupleDomain, descriptorsByPath);
+            final ParquetDataSource finalDataSource = dataSource;
+            ImmutableList.Builder<BlockMetaData> blocks = ImmutableList.builder();
+            for (BlockMetaData block : footerBlocks.build()) {
+                if (predicateMatches(parquetPredicate, block, finalDataSource, descriptorsByPath, parquetTupleDomain, failOnCorruptedParquetStatistics)) {
+                    blocks.add(block);
+                }
+            }
+            MessageColumnIO messageColumnIO = getColumnIO(fileSchema, requestedSchema);
+            ParquetReader parquetReader = new ParquetReader(
+                    Optional.ofNullable(fileMetaData.getCreatedBy()),
+                    messageColumnIO,
+                    blocks.build(),
+                    dataSource,
+                    readerTimeZone,
+                    systemMemoryContext,
+                    maxReadBlockSize,
+                    parquetCacheStore,
+                    Optional.of(fileCacheKey));
+
+            Map<Integer, Field> fields = new HashMap<>();
+            Map<Integer, Object> constantValues = new HashMap<>();
+            for (HiveColumnHandle column : columns) {
+                int columnIndex = column.getHiveColumnIndex();
+                Type type = typeManager.getType(column.getTypeSignature());
+                org.apache.parquet.schema.Type parquetType = parquetFields.get(columnIndex);
+                Optional<Field> field = parquetType == null ? Optional.empty() : ParquetColumnIOConverter.constructField(type, lookupColumnByName(messageColumnIO, parquetType.getName()));
+                if (field.isPresent()) {
+                    fields.put(columnIndex, field.get());
+                }
+                else if (prefilledValues.containsKey(columnIndex)) {
+                    constantValues.put(columnIndex, typedPartitionKey(prefilledValues.get(columnIndex), type, column.getName()));
+                }
+            }
+
+            // filters are evaluated on the values as seen by the query, i.e. after coercion
+            Map<Integer, Type> types = columnMappings.stream()
+                    .map(ColumnMapping::getHiveColumnHandle)
+                    .collect(toImmutableMap(HiveColumnHandle::getHiveColumnIndex, column -> typeManager.getType(column.getTypeSignature()), (first, second) -> first));
+            Map<String, Integer> columnIndices = columns.stream()
+                    .collect(toImmutableMap(HiveColumnHandle::getName, HiveColumnHandle::getHiveColumnIndex));
+
+            Map<Integer, TupleDomainFilter> filters = toTupleDomainFilters(domainPredicate, columnIndices);
+            List<Map<Integer, TupleDomainFilter>> disjunctFilters = ImmutableList.of();
+            if (disjunctDomains.stream().noneMatch(TupleDomain::isAll)) {
+                disjunctFilters = disjunctDomains.stream()
+                        .filter(domain -> !domain.isNone())
+                        .map(domain -> toTupleDomainFilters(domain, columnIndices))
+                        .collect(toImmutableList());
+            }
+
+            return new ParquetSelectivePageSource(
+                    parquetReader,
+                    fields,
+                    types,
+                    constantValues,
+                    outputColumns,
+                    filters,
+                    disjunctFilters,
+                    coercers);
+        }
+        catch (Exception e) {
+            try {
+                if (dataSource != null) {
+                    dataSource.close();
+                }
+            }
+            catch (IOException ignored) {
+            }
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            if (e instanceof ParquetCorruptionException) {
+                throw new PrestoException(HIVE_BAD_DATA, e);
+            }
+            if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
+                    e instanceof FileNotFoundException) {
+                throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
+            }
+            String message = format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage());
+            if (e instanceof BlockMissingException) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+    }
+
+    private static Map<Integer, TupleDomainFilter> toTupleDomainFilters(TupleDomain<HiveColumnHandle> domain, Map<String, Integer> columnIndices)
+    {
+        return domain.transform(columnHandle -> columnIndices.get(columnHandle.getColumnName()))
+                .getDomains().get().entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> TupleDomainFilterUtils.toFilter(entry.getValue())));
+    }
+}
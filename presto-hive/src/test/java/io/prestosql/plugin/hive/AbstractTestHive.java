@@ -111,6 +111,7 @@ import io.prestosql.testing.TestingNodeManager;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.joda.time.DateTime;
 import org.testng.annotations.AfterClass;
@@ -132,6 +133,7 @@ import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
@@ -588,6 +590,8 @@ public abstract class AbstractTestHive
     protected ExecutorService executor;
     protected ExecutorService executorRefresh;
 
+    private final List<Path> invalidatedPaths = new CopyOnWriteArrayList<>();
+
     private ScheduledExecutorService heartbeatService;
     private ScheduledExecutorService vacuumExecutorService;
     private ScheduledExecutorService hiveMetastoreClientService;
@@ -737,6 +741,23 @@ public abstract class AbstractTestHive
         hdfsEnvironment = new HdfsEnvironment(hdfsConfiguration, hiveConfig, new NoHdfsAuthentication());
         locationService = new HiveLocationService(hdfsEnvironment);
         JsonCodec<PartitionUpdate> partitionUpdateCodec = JsonCodec.jsonCodec(PartitionUpdate.class);
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(hiveConfig);
+        DirectoryLister directoryLister = new DirectoryLister()
+        {
+            @Override
+            public RemoteIterator<PrestoFileStatus> list(FileSystem fs, Table table, Path path)
+                    throws IOException
+            {
+                return cachingDirectoryLister.list(fs, table, path);
+            }
+
+            @Override
+            public void invalidate(Path path)
+            {
+                invalidatedPaths.add(path);
+                cachingDirectoryLister.invalidate(path);
+            }
+        };
         metadataFactory = new HiveMetadataFactory(
                 metastoreClient,
                 hdfsEnvironment,
@@ -762,14 +783,15 @@ public abstract class AbstractTestHive
                 SqlStandardAccessControlMetadata::new,
                 10, 0.1, false,
                 Optional.of(Duration.valueOf("5m")), hiveConfig.getMetastoreWriteBatchSize(),
-                new HdfsStorageMonitor(hdfsEnvironment, MoreExecutors.listeningDecorator(newCachedThreadPool(daemonThreadsNamed("hdfs-monitor-" + "test" + "-%s")))));
+                new HdfsStorageMonitor(hdfsEnvironment, MoreExecutors.listeningDecorator(newCachedThreadPool(daemonThreadsNamed("hdfs-monitor-" + "test" + "-%s")))),
+                directoryLister);
         transactionManager = new HiveTransactionManager();
         splitManager = new HiveSplitManager(
                 transactionHandle -> ((HiveMetadata) transactionManager.get(transactionHandle)).getMetastore(),
                 partitionManager,
                 new NamenodeStats(),
                 hdfsEnvironment,
-                new CachingDirectoryLister(hiveConfig),
+                directoryLister,
                 directExecutor(),
                 new HiveCoercionPolicy(TYPE_MANAGER),
                 new CounterStat(),
@@ -2408,6 +2430,52 @@ public abstract class AbstractTestHive
         }
     }
 
+    @Test
+    public void testWritesInvalidateDirectoryListings()
+            throws Exception
+    {
+        SchemaTableName tableName = temporaryTable("invalidate_listings");
+        try {
+            doCreateEmptyTable(tableName, ORC, CREATE_TABLE_COLUMNS);
+            Path tableLocation;
+            try (Transaction transaction = newTransaction()) {
+                Table table = transaction.getMetastore(tableName.getSchemaName())
+                        .getTable(new HiveIdentity(newSession()), tableName.getSchemaName(), tableName.getTableName())
+                        .orElseThrow(AssertionError::new);
+                tableLocation = new Path(table.getStorage().getLocation());
+            }
+            long invalidations = countInvalidations(tableLocation);
+
+            // a rolled back insert may have left files behind
+            try (Transaction transaction = newTransaction()) {
+                ConnectorSession session = newSession();
+                ConnectorMetadata metadata = transaction.getMetadata();
+                metadata.beginQuery(session);
+                ConnectorInsertTableHandle insertTableHandle = metadata.beginInsert(session, getTableHandle(metadata, tableName));
+                ConnectorPageSink sink = pageSinkProvider.createPageSink(transaction.getTransactionHandle(), session, insertTableHandle);
+                sink.appendPage(CREATE_TABLE_DATA.toPage());
+                Collection<Slice> fragments = getFutureValue(sink.finish());
+                metadata.finishInsert(session, insertTableHandle, fragments, ImmutableList.of());
+                assertEquals(countInvalidations(tableLocation), invalidations);
+                transaction.rollback();
+            }
+            assertEquals(countInvalidations(tableLocation), invalidations + 1);
+
+            insertData(tableName, CREATE_TABLE_DATA);
+            assertEquals(countInvalidations(tableLocation), invalidations + 2);
+        }
+        finally {
+            dropTable(tableName);
+        }
+    }
+
+    private long countInvalidations(Path location)
+    {
+        return invalidatedPaths.stream()
+                .filter(location::equals)
+                .count();
+    }
+
     @Test(enabled = false)
     public void testInsertOverwriteUnpartitioned()
             throws Exception
@@ -191,6 +191,7 @@ public abstract class AbstractTestHiveFileSystem
                 hdfsEnvironment);
         locationService = new HiveLocationService(hdfsEnvironment);
         JsonCodec<PartitionUpdate> partitionUpdateCodec = JsonCodec.jsonCodec(PartitionUpdate.class);
+        DirectoryLister directoryLister = new CachingDirectoryLister(new HiveConfig());
         metadataFactory = new HiveMetadataFactory(
                 config,
                 metastoreClient,
@@ -206,14 +207,15 @@ public abstract class AbstractTestHiveFileSystem
                 new HiveTypeTranslator(),
                 new NodeVersion("test_version"),
                 SqlStandardAccessControlMetadata::new,
-                new HdfsStorageMonitor(hdfsEnvironment, MoreExecutors.listeningDecorator(newCachedThreadPool(daemonThreadsNamed("hdfs-monitor-" + "test" + "-%s")))));
+                new HdfsStorageMonitor(hdfsEnvironment, MoreExecutors.listeningDecorator(newCachedThreadPool(daemonThreadsNamed("hdfs-monitor-" + "test" + "-%s")))),
+                directoryLister);
         transactionManager = new HiveTransactionManager();
         splitManager = new HiveSplitManager(
                 transactionHandle -> ((HiveMetadata) transactionManager.get(transactionHandle)).getMetastore(),
                 hivePartitionManager,
                 new NamenodeStats(),
                 hdfsEnvironment,
-                new CachingDirectoryLister(new HiveConfig()),
+                directoryLister,
                 new BoundedExecutor(executors, config.getMaxSplitIteratorThreads()),
                 new HiveCoercionPolicy(TYPE_MANAGER),
                 new CounterStat(),
@@ -68,12 +68,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -287,6 +291,183 @@ public class TestBackgroundHiveSplitLoader
         assertEquals(cachingDirectoryLister.getMissCount(), 1);
     }
 
+    @Test
+    public void testCachedDirectoryListerInvalidate()
+            throws Exception
+    {
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(new Duration(5, TimeUnit.MINUTES), 1000, ImmutableList.of("test_dbname.test_table"));
+        FileSystem fileSystem = new TestingHdfsFileSystem(TEST_FILES);
+        Path tablePath = new Path("hdfs://VOL1:9000/db_name/table_name");
+
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(cachingDirectoryLister.getMissCount(), 1);
+        assertEquals(cachingDirectoryLister.getHitCount(), 1);
+
+        // a location that only shares a prefix with the table keeps its listing
+        cachingDirectoryLister.invalidate(new Path("hdfs://VOL1:9000/db_name/table"));
+        drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath));
+        assertEquals(cachingDirectoryLister.getHitCount(), 2);
+
+        // writing to the database directory discards the listings below it
+        cachingDirectoryLister.invalidate(new Path("/db_name"));
+        drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath));
+        assertEquals(cachingDirectoryLister.getMissCount(), 2);
+        assertEquals(cachingDirectoryLister.getHitCount(), 2);
+    }
+
+    @Test
+    public void testCachedDirectoryListerInvalidatePartition()
+            throws Exception
+    {
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(new Duration(5, TimeUnit.MINUTES), 1000, ImmutableList.of("test_dbname.test_table"));
+        FileSystem fileSystem = new TestingHdfsFileSystem(TEST_FILES);
+        Path tablePath = new Path("hdfs://VOL1:9000/db_name/table_name");
+        Path firstPartition = new Path(tablePath, "partitionColumn=1");
+        Path secondPartition = new Path(tablePath, "partitionColumn=2");
+        Path externalPartition = new Path("hdfs://VOL1:9000/external/partitionColumn=3");
+
+        for (Path path : ImmutableList.of(firstPartition, secondPartition, externalPartition)) {
+            assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, PARTITIONED_TABLE, path)), TEST_FILES.size());
+        }
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 3);
+
+        // writing to one partition keeps the listings of the other partitions of the table
+        cachingDirectoryLister.invalidate(firstPartition);
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 2);
+        drainFiles(cachingDirectoryLister.list(fileSystem, PARTITIONED_TABLE, secondPartition));
+        assertEquals(cachingDirectoryLister.getHitCount(), 1);
+        drainFiles(cachingDirectoryLister.list(fileSystem, PARTITIONED_TABLE, firstPartition));
+        assertEquals(cachingDirectoryLister.getMissCount(), 4);
+
+        // partitions outside of the table location are invalidated by their own location
+        cachingDirectoryLister.invalidate(new Path("/external"));
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 2);
+
+        cachingDirectoryLister.invalidate(tablePath);
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 0);
+        drainFiles(cachingDirectoryLister.list(fileSystem, PARTITIONED_TABLE, secondPartition));
+        assertEquals(cachingDirectoryLister.getMissCount(), 5);
+    }
+
+    @Test
+    public void testCachedDirectoryListerInvalidateDuringListing()
+            throws Exception
+    {
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(new Duration(5, TimeUnit.MINUTES), 1000, ImmutableList.of("test_dbname.test_table"));
+        FileSystem fileSystem = new TestingHdfsFileSystem(TEST_FILES);
+        Path tablePath = new Path("hdfs://VOL1:9000/db_name/table_name");
+
+        // a write commits while the table is being listed, before the listing is cached
+        RemoteIterator<PrestoFileStatus> iterator = cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath);
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        cachingDirectoryLister.invalidate(tablePath);
+        assertEquals(drainFiles(iterator), TEST_FILES.size() - 1);
+
+        // the listing started before the write is not kept
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 0);
+        drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath));
+        assertEquals(cachingDirectoryLister.getMissCount(), 2);
+
+        // a listing started after the write is cached
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 1);
+        drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath));
+        assertEquals(cachingDirectoryLister.getHitCount(), 1);
+    }
+
+    @Test
+    public void testCachedDirectoryListerValidatesModificationTime()
+            throws Exception
+    {
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(new Duration(5, TimeUnit.MINUTES), 1000, ImmutableList.of("test_dbname.test_table"), true);
+        AtomicLong modificationTime = new AtomicLong(1);
+        FileSystem fileSystem = new TestingHdfsFileSystem(TEST_FILES)
+        {
+            @Override
+            public FileStatus getFileStatus(Path f)
+            {
+                return new FileStatus(0, true, 0, 0, modificationTime.get(), f);
+            }
+        };
+        Path tablePath = new Path("hdfs://VOL1:9000/db_name/table_name");
+
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(cachingDirectoryLister.getMissCount(), 1);
+        assertEquals(cachingDirectoryLister.getStaleCount(), 0);
+
+        // the directory changed outside of this cluster, so it is listed again
+        modificationTime.set(2);
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(cachingDirectoryLister.getStaleCount(), 1);
+        assertEquals(cachingDirectoryLister.getCachedPathCount(), 1);
+
+        assertEquals(drainFiles(cachingDirectoryLister.list(fileSystem, SIMPLE_TABLE, tablePath)), TEST_FILES.size());
+        assertEquals(cachingDirectoryLister.getStaleCount(), 1);
+        assertEquals(cachingDirectoryLister.getHitCount(), 3);
+    }
+
+    @Test
+    public void testListingConcurrency()
+            throws Exception
+    {
+        Table table = table(PARTITION_COLUMNS, Optional.empty(), ImmutableMap.of());
+        List<HivePartitionMetadata> hivePartitionMetadatas = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Storage storage = new Storage(
+                    table.getStorage().getStorageFormat(),
+                    "hdfs://VOL1:9000/db_name/table_name/partitionColumn=" + i,
+                    Optional.empty(),
+                    false,
+                    ImmutableMap.of());
+            hivePartitionMetadatas.add(new HivePartitionMetadata(
+                    new HivePartition(new SchemaTableName("testSchema", "table_name")),
+                    Optional.of(new Partition("test_dbname", "test_table", ImmutableList.of(String.valueOf(i)), storage, table.getDataColumns(), ImmutableMap.of())),
+                    ImmutableMap.of()));
+        }
+        Set<Path> listedPaths = ConcurrentHashMap.newKeySet();
+        AtomicInteger listings = new AtomicInteger();
+        DirectoryLister directoryLister = (fs, listedTable, path) -> {
+            listings.incrementAndGet();
+            listedPaths.add(path);
+            return new PrestoFileStatusRemoteIterator(fs.listLocatedStatus(path));
+        };
+
+        ConnectorSession connectorSession = new TestingConnectorSession(
+                new HiveSessionProperties(
+                        new HiveConfig()
+                                .setMaxSplitSize(new DataSize(1.0, GIGABYTE))
+                                .setSplitLoaderListingConcurrency(2),
+                        new OrcFileWriterConfig(),
+                        new ParquetFileWriterConfig()).getSessionProperties());
+
+        BackgroundHiveSplitLoader backgroundHiveSplitLoader = new BackgroundHiveSplitLoader(
+                table,
+                hivePartitionMetadatas,
+                TupleDomain.all(),
+                BackgroundHiveSplitLoader.BucketSplitInfo.createBucketSplitInfo(Optional.empty(), Optional.empty()),
+                connectorSession,
+                new TestingHdfsEnvironment(TEST_FILES),
+                new NamenodeStats(),
+                directoryLister,
+                EXECUTOR,
+                1,
+                false,
+                Optional.empty(),
+                null,
+                Optional.empty(),
+                Collections.emptyMap(), null);
+
+        HiveSplitSource hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader);
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+
+        // every partition is listed once, whether its listing was prefetched or not
+        assertEquals(drainSplits(hiveSplitSource).size(), hivePartitionMetadatas.size() * TEST_FILES.size());
+        assertEquals(listings.get(), hivePartitionMetadatas.size());
+        assertEquals(listedPaths.size(), hivePartitionMetadatas.size());
+    }
+
     @Test
     public void testGetBucketNumber()
     {
@@ -691,6 +872,17 @@ public class TestBackgroundHiveSplitLoader
         return splits.build();
     }
 
+    private static int drainFiles(RemoteIterator<PrestoFileStatus> iterator)
+            throws IOException
+    {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
     private static BackgroundHiveSplitLoader backgroundHiveSplitLoader(
             List<LocatedFileStatus> files,
             TupleDomain<HiveColumnHandle> tupleDomain)
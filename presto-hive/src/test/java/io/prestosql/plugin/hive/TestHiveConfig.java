@@ -59,6 +59,7 @@ public class TestHiveConfig
                 .setMaxInitialSplits(200)
                 .setMaxInitialSplitSize(new DataSize(32, Unit.MEGABYTE))
                 .setSplitLoaderConcurrency(4)
+                .setSplitLoaderListingConcurrency(0)
                 .setMaxSplitsPerSecond(null)
                 .setDomainCompactionThreshold(100)
                 .setWriterSortBufferSize(new DataSize(64, Unit.MEGABYTE))
@@ -103,6 +104,9 @@ public class TestHiveConfig
                 .setOrcRowIndexCacheEnabled(false).setOrcRowIndexCacheTtl(new Duration(4, TimeUnit.HOURS)).setOrcRowIndexCacheLimit(250_000)
                 .setOrcBloomFiltersCacheEnabled(false).setOrcBloomFiltersCacheTtl(new Duration(4, TimeUnit.HOURS)).setOrcBloomFiltersCacheLimit(250_000)
                 .setOrcRowDataCacheEnabled(false).setOrcRowDataCacheTtl(new Duration(4, TimeUnit.HOURS)).setOrcRowDataCacheMaximumWeight(new DataSize(20, GIGABYTE))
+                .setOrcRowDataCacheOffHeapEnabled(false)
+                .setParquetFooterCacheEnabled(false).setParquetFooterCacheTtl(new Duration(4, TimeUnit.HOURS)).setParquetFooterCacheMaximumWeight(new DataSize(256, Unit.MEGABYTE))
+                .setParquetDictionaryCacheEnabled(false).setParquetDictionaryCacheTtl(new Duration(4, TimeUnit.HOURS)).setParquetDictionaryCacheMaximumWeight(new DataSize(1, GIGABYTE))
                 .setOrcLazyReadSmallRanges(true)
                 .setRcfileTimeZone(TimeZone.getDefault().getID())
                 .setRcfileWriterValidate(false)
@@ -134,6 +138,7 @@ public class TestHiveConfig
                 .setFileStatusCacheExpireAfterWrite(new Duration(24, TimeUnit.HOURS))
                 .setFileStatusCacheMaxSize(1000 * 1000)
                 .setFileStatusCacheTables("")
+                .setFileStatusCacheValidateModificationTime(false)
                 .setHiveTransactionHeartbeatInterval(null)
                 .setHiveTransactionHeartbeatThreads(5)
                 .setTableCreatesWithLocationAllowed(true)
@@ -141,6 +146,7 @@ public class TestHiveConfig
                 .setDynamicFilterPartitionFilteringEnabled(true)
                 .setDynamicFilteringRowFilteringThreshold(2000)
                 .setOrcCacheStatsMetricCollectionEnabled(false)
+                .setParquetCacheStatsMetricCollectionEnabled(false)
                 .setVacuumCleanupRecheckInterval(new Duration(5, TimeUnit.MINUTES))
                 .setVacuumServiceThreads(2)
                 .setMetastoreClientServiceThreads(4)
@@ -148,6 +154,7 @@ public class TestHiveConfig
                 .setAutoVacuumEnabled(false)
                 .setVacuumDeltaPercentThreshold(0.1)
                 .setOrcPredicatePushdownEnabled(false)
+                .setParquetPredicatePushdownEnabled(false)
                 .setVacuumCollectorInterval(new Duration(5, TimeUnit.MINUTES))
                 .setMaxSplitsToGroup(1)
                 .setWorkerMetaStoreCacheEnabled(false)
@@ -191,6 +198,7 @@ public class TestHiveConfig
                 .put("hive.max-initial-splits", "10")
                 .put("hive.max-initial-split-size", "16MB")
                 .put("hive.split-loader-concurrency", "1")
+                .put("hive.split-loader-listing-concurrency", "16")
                 .put("hive.max-splits-per-second", "1")
                 .put("hive.domain-compaction-threshold", "42")
                 .put("hive.writer-sort-buffer-size", "13MB")
@@ -235,6 +243,13 @@ public class TestHiveConfig
                 .put("hive.orc.row-data.block.cache.enabled", "true")
                 .put("hive.orc.row-data.block.cache.ttl", "1h")
                 .put("hive.orc.row-data.block.cache.max.weight", "1MB")
+                .put("hive.orc.row-data.block.cache.off-heap.enabled", "true")
+                .put("hive.parquet.footer.cache.enabled", "true")
+                .put("hive.parquet.footer.cache.ttl", "1h")
+                .put("hive.parquet.footer.cache.max.weight", "1MB")
+                .put("hive.parquet.dictionary.cache.enabled", "true")
+                .put("hive.parquet.dictionary.cache.ttl", "1h")
+                .put("hive.parquet.dictionary.cache.max.weight", "1MB")
                 .put("hive.orc.lazy-read-small-ranges", "false")
                 .put("hive.rcfile.time-zone", nonDefaultTimeZone().getID())
                 .put("hive.rcfile.writer.validate", "true")
@@ -267,11 +282,13 @@ public class TestHiveConfig
                 .put("hive.file-status-cache-tables", "foo.bar1, foo.bar2")
                 .put("hive.file-status-cache-size", "1000")
                 .put("hive.file-status-cache-expire-time", "30m")
+                .put("hive.file-status-cache-validate-modification-time", "true")
                 .put("hive.transaction-heartbeat-interval", "10s")
                 .put("hive.transaction-heartbeat-threads", "10")
                 .put("hive.metastore.thrift.client.ssl.enabled", "true")
                 .put("hive.table-creates-with-location-allowed", "false")
                 .put("hive.orc-cache-stats-metric-collection.enabled", "true")
+                .put("hive.parquet-cache-stats-metric-collection.enabled", "true")
                 .put("hive.vacuum-cleanup-recheck-interval", "10m")
                 .put("hive.vacuum-service-threads", "5")
                 .put("hive.metastore-client-service-threads", "5")
@@ -279,6 +296,7 @@ public class TestHiveConfig
                 .put("hive.vacuum-delta-percent-threshold", "0.6")
                 .put("hive.auto-vacuum-enabled", "true")
                 .put("hive.orc-predicate-pushdown-enabled", "true")
+                .put("hive.parquet-predicate-pushdown-enabled", "true")
                 .put("hive.vacuum-collector-interval", "5s")
                 .put("hive.max-splits-to-group", "20")
                 .put("hive.worker-metastore-cache-enabled", "true")
@@ -308,6 +326,7 @@ public class TestHiveConfig
                 .setMaxInitialSplits(10)
                 .setMaxInitialSplitSize(new DataSize(16, Unit.MEGABYTE))
                 .setSplitLoaderConcurrency(1)
+                .setSplitLoaderListingConcurrency(16)
                 .setMaxSplitsPerSecond(1)
                 .setDomainCompactionThreshold(42)
                 .setWriterSortBufferSize(new DataSize(13, Unit.MEGABYTE))
@@ -352,6 +371,9 @@ public class TestHiveConfig
                 .setOrcRowIndexCacheEnabled(true).setOrcRowIndexCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcRowIndexCacheLimit(100)
                 .setOrcBloomFiltersCacheEnabled(true).setOrcBloomFiltersCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcBloomFiltersCacheLimit(100)
                 .setOrcRowDataCacheEnabled(true).setOrcRowDataCacheTtl(new Duration(1, TimeUnit.HOURS)).setOrcRowDataCacheMaximumWeight(new DataSize(1, MEGABYTE))
+                .setOrcRowDataCacheOffHeapEnabled(true)
+                .setParquetFooterCacheEnabled(true).setParquetFooterCacheTtl(new Duration(1, TimeUnit.HOURS)).setParquetFooterCacheMaximumWeight(new DataSize(1, MEGABYTE))
+                .setParquetDictionaryCacheEnabled(true).setParquetDictionaryCacheTtl(new Duration(1, TimeUnit.HOURS)).setParquetDictionaryCacheMaximumWeight(new DataSize(1, MEGABYTE))
                 .setOrcLazyReadSmallRanges(false)
                 .setRcfileTimeZone(nonDefaultTimeZone().getID())
                 .setRcfileWriterValidate(true)
@@ -384,6 +406,7 @@ public class TestHiveConfig
                 .setFileStatusCacheTables("foo.bar1,foo.bar2")
                 .setFileStatusCacheMaxSize(1000)
                 .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES))
+                .setFileStatusCacheValidateModificationTime(true)
                 .setHiveTransactionHeartbeatInterval(new Duration(10, TimeUnit.SECONDS))
                 .setHiveTransactionHeartbeatThreads(10)
                 .setTableCreatesWithLocationAllowed(false)
@@ -391,6 +414,7 @@ public class TestHiveConfig
                 .setDynamicFilterPartitionFilteringEnabled(false)
                 .setDynamicFilteringRowFilteringThreshold(10000)
                 .setOrcCacheStatsMetricCollectionEnabled(true)
+                .setParquetCacheStatsMetricCollectionEnabled(true)
                 .setVacuumCleanupRecheckInterval(new Duration(10, TimeUnit.MINUTES))
                 .setVacuumServiceThreads(5)
                 .setMetastoreClientServiceThreads(5)
@@ -398,6 +422,7 @@ public class TestHiveConfig
                 .setAutoVacuumEnabled(true)
                 .setVacuumDeltaPercentThreshold(0.6)
                 .setOrcPredicatePushdownEnabled(true)
+                .setParquetPredicatePushdownEnabled(true)
                 .setVacuumCollectorInterval(new Duration(5, TimeUnit.SECONDS))
                 .setMaxSplitsToGroup(20)
                 .setWorkerMetaStoreCacheEnabled(true)
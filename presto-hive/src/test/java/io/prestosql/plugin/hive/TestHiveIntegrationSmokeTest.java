@@ -5279,6 +5279,33 @@ public class TestHiveIntegrationSmokeTest
         }
     }
 
+    @Test
+    public void testParquetPredicatePushdown()
+    {
+        Session session = Session.builder(getSession())
+                .setCatalogSessionProperty(getSession().getCatalog().get(), "parquet_predicate_pushdown_enabled", "true")
+                .build();
+        try {
+            assertUpdate(session, "CREATE TABLE parquet_pushdown (id1 int, id2 double, id3 decimal(19,2), id4 varchar(10), id5 real, part int) with (format='parquet', partitioned_by=ARRAY['part'])");
+            assertUpdate(session, "INSERT INTO parquet_pushdown VALUES (1, 1.5, 3.20, 'abc', 5.5, 1), (2, 2.5, 33.22, 'xyz', null, 1), (3, null, 333.33, 'abcd', 7.5, 2), (4, 4.5, null, null, 8.5, 2)", 4);
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id1 > 1 AND id4 = 'xyz'", "SELECT 2");
+            assertQuery(session, "SELECT id1, id4 FROM parquet_pushdown WHERE id2 IS NULL", "SELECT 3, 'abcd'");
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id3 IN (3.20, 333.33)", "VALUES 1, 3");
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id5 < 8", "VALUES 1, 3");
+            assertQuery(session, "SELECT id1, part FROM parquet_pushdown WHERE part = 2 AND id2 > 1", "SELECT 4, 2");
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id1 = 1 OR id4 = 'abcd'", "VALUES 1, 3");
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id2 < 2 OR (part = 2 AND id3 IS NULL)", "VALUES 1, 4");
+            assertQuery(session, "SELECT count(*) FROM parquet_pushdown WHERE part = 3", "SELECT 0");
+
+            assertUpdate(session, "ALTER TABLE parquet_pushdown ADD COLUMN id6 int");
+            assertQuery(session, "SELECT id1 FROM parquet_pushdown WHERE id6 IS NULL AND id1 < 3", "VALUES 1, 2");
+            assertQuery(session, "SELECT count(*) FROM parquet_pushdown WHERE id6 = 1", "SELECT 0");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS parquet_pushdown");
+        }
+    }
+
     @Test
     public void testNonEqualDynamicFilter()
     {
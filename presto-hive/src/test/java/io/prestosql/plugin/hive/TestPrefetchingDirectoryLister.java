@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.plugin.hive.HdfsEnvironment.HdfsContext;
+import io.prestosql.plugin.hive.TestBackgroundHiveSplitLoader.TestingHdfsEnvironment;
+import io.prestosql.plugin.hive.metastore.Column;
+import io.prestosql.plugin.hive.metastore.StorageFormat;
+import io.prestosql.plugin.hive.metastore.Table;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.prestosql.plugin.hive.HiveTestUtils.SESSION;
+import static io.prestosql.plugin.hive.HiveType.HIVE_STRING;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestPrefetchingDirectoryLister
+{
+    private static final Path PARTITION_PATH = new Path("hdfs://VOL1:9000/db_name/table_name/partitionColumn=1");
+    private static final List<LocatedFileStatus> FILES = ImmutableList.of(
+            locatedFileStatus(new Path(PARTITION_PATH, "000000_0")),
+            locatedFileStatus(new Path(PARTITION_PATH, "000000_1")));
+    private static final Table TABLE = Table.builder()
+            .setDatabaseName("test_dbname")
+            .setTableName("test_table")
+            .setOwner("testOwner")
+            .setTableType(TableType.MANAGED_TABLE.toString())
+            .setDataColumns(ImmutableList.of(new Column("col1", HIVE_STRING, Optional.empty())))
+            .withStorage(storage -> storage
+                    .setStorageFormat(StorageFormat.create(
+                            "com.facebook.hive.orc.OrcSerde",
+                            "org.apache.hadoop.hive.ql.io.RCFileInputFormat",
+                            "org.apache.hadoop.hive.ql.io.RCFileInputFormat"))
+                    .setLocation("hdfs://VOL1:9000/db_name/table_name"))
+            .build();
+
+    private final HdfsEnvironment hdfsEnvironment = new TestingHdfsEnvironment(FILES);
+    private final HdfsContext hdfsContext = new HdfsContext(SESSION, "test_dbname", "test_table");
+    private List<Runnable> tasks;
+    private AtomicInteger listings;
+    private PrefetchingDirectoryLister directoryLister;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tasks = new ArrayList<>();
+        listings = new AtomicInteger();
+        DirectoryLister delegate = (fs, table, path) -> {
+            listings.incrementAndGet();
+            return new PrestoFileStatusRemoteIterator(fs.listLocatedStatus(path));
+        };
+        directoryLister = new PrefetchingDirectoryLister(delegate, tasks::add, hdfsEnvironment, hdfsContext);
+    }
+
+    @Test
+    public void testPrefetchedListing()
+            throws Exception
+    {
+        directoryLister.prefetch(TABLE, PARTITION_PATH);
+        directoryLister.prefetch(TABLE, PARTITION_PATH);
+        assertEquals(tasks.size(), 1);
+        assertEquals(listings.get(), 0);
+
+        tasks.remove(0).run();
+        assertEquals(listings.get(), 1);
+
+        assertEquals(drain(directoryLister.list(getFileSystem(), TABLE, PARTITION_PATH)), FILES.size());
+        assertEquals(listings.get(), 1);
+
+        // the prefetched listing is used once, the next listing goes to the delegate
+        assertEquals(drain(directoryLister.list(getFileSystem(), TABLE, PARTITION_PATH)), FILES.size());
+        assertEquals(listings.get(), 2);
+    }
+
+    @Test
+    public void testListingNotStartedRunsInCaller()
+            throws Exception
+    {
+        directoryLister.prefetch(TABLE, PARTITION_PATH);
+
+        // no executor thread was free yet, so the caller lists the directory itself
+        assertEquals(drain(directoryLister.list(getFileSystem(), TABLE, PARTITION_PATH)), FILES.size());
+        assertEquals(listings.get(), 1);
+
+        tasks.remove(0).run();
+        assertEquals(listings.get(), 1);
+    }
+
+    @Test
+    public void testDiscard()
+            throws Exception
+    {
+        directoryLister.prefetch(TABLE, PARTITION_PATH);
+        directoryLister.discard(PARTITION_PATH);
+
+        tasks.remove(0).run();
+        assertEquals(listings.get(), 0);
+
+        assertEquals(drain(directoryLister.list(getFileSystem(), TABLE, PARTITION_PATH)), FILES.size());
+        assertEquals(listings.get(), 1);
+    }
+
+    @Test
+    public void testListingFailure()
+    {
+        DirectoryLister delegate = (fs, table, path) -> {
+            throw new IOException("listing failed");
+        };
+        PrefetchingDirectoryLister failingLister = new PrefetchingDirectoryLister(delegate, tasks::add, hdfsEnvironment, hdfsContext);
+        failingLister.prefetch(TABLE, PARTITION_PATH);
+        tasks.remove(0).run();
+
+        assertThatThrownBy(() -> failingLister.list(getFileSystem(), TABLE, PARTITION_PATH))
+                .isInstanceOf(IOException.class)
+                .hasMessage("listing failed");
+    }
+
+    private FileSystem getFileSystem()
+            throws IOException
+    {
+        return hdfsEnvironment.getFileSystem(hdfsContext, PARTITION_PATH);
+    }
+
+    private static int drain(RemoteIterator<PrestoFileStatus> iterator)
+            throws IOException
+    {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static LocatedFileStatus locatedFileStatus(Path path)
+    {
+        return new LocatedFileStatus(0L, false, 0, 0L, 0L, 0L, null, null, null, null, path, new BlockLocation[] {new BlockLocation()});
+    }
+}
@@ -13,44 +13,82 @@
  */
 package io.prestosql.plugin.hive.parquet;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.prestosql.parquet.ParquetCacheStore;
 import io.prestosql.plugin.hive.FileFormatDataSourceStats;
 import io.prestosql.plugin.hive.HdfsConfigurationInitializer;
 import io.prestosql.plugin.hive.HdfsEnvironment;
+import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.plugin.hive.HiveConfig;
 import io.prestosql.plugin.hive.HiveHdfsConfiguration;
+import io.prestosql.plugin.hive.HiveSessionProperties;
+import io.prestosql.plugin.hive.OrcFileWriterConfig;
+import io.prestosql.plugin.hive.ParquetFileWriterConfig;
 import io.prestosql.plugin.hive.authentication.NoHdfsAuthentication;
+import io.prestosql.plugin.hive.benchmark.FormatWriter;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.connector.ConnectorPageSource;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.testing.TestingTypeManager;
+import io.prestosql.testing.TestingConnectorSession;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hudi.hadoop.realtime.HoodieParquetRealtimeInputFormat;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.IntStream;
 
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static io.prestosql.plugin.hive.HiveCompressionCodec.NONE;
 import static io.prestosql.plugin.hive.HiveStorageFormat.PARQUET;
+import static io.prestosql.plugin.hive.HiveType.HIVE_STRING;
 import static io.prestosql.plugin.hive.HiveUtil.shouldUseRecordReaderFromInputFormat;
+import static io.prestosql.plugin.hive.benchmark.FileFormat.PRESTO_PARQUET;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.nio.file.Files.createTempDirectory;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_INPUT_FORMAT;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_OUTPUT_FORMAT;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_SERDE;
 import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 public class TestParquetPageSourceFactory
 {
     private static final String PARQUET_HIVE_SERDE = "parquet.hive.serde.ParquetHiveSerDe";
+    private static final int ROW_COUNT = 1000;
 
+    private HdfsEnvironment hdfsEnvironment;
     private ParquetPageSourceFactory parquetPageSourceFactory;
 
     @BeforeClass
     public void setUp()
     {
         HiveHdfsConfiguration hiveHdfsConfiguration = new HiveHdfsConfiguration(new HdfsConfigurationInitializer(new HiveConfig(), ImmutableSet.of()), ImmutableSet.of());
-        HdfsEnvironment hdfsEnvironment = new HdfsEnvironment(hiveHdfsConfiguration, new HiveConfig(), new NoHdfsAuthentication());
+        hdfsEnvironment = new HdfsEnvironment(hiveHdfsConfiguration, new HiveConfig(), new NoHdfsAuthentication());
         parquetPageSourceFactory = new ParquetPageSourceFactory(new TestingTypeManager(), hdfsEnvironment, new FileFormatDataSourceStats(), new HiveConfig());
     }
 
@@ -58,6 +96,7 @@ public class TestParquetPageSourceFactory
     public void cleanUp()
     {
         parquetPageSourceFactory = null;
+        hdfsEnvironment = null;
     }
 
     @Test
@@ -84,4 +123,97 @@ public class TestParquetPageSourceFactory
         assertTrue(shouldUseRecordReaderFromInputFormat(new Configuration(), schema));
         assertFalse(optionalPageSource.isPresent());
     }
+
+    @Test
+    public void testFooterAndDictionaryCaches()
+            throws Exception
+    {
+        HiveConfig hiveConfig = new HiveConfig()
+                .setParquetFooterCacheEnabled(true)
+                .setParquetDictionaryCacheEnabled(true);
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(hiveConfig, new OrcFileWriterConfig(), new ParquetFileWriterConfig()).getSessionProperties());
+        ParquetCacheStore cacheStore = ParquetCacheStore.builder().newCacheStore(
+                new DataSize(1, MEGABYTE), Duration.ofHours(1),
+                new DataSize(1, MEGABYTE), Duration.ofHours(1),
+                true);
+        ParquetPageSourceFactory cachingPageSourceFactory = new ParquetPageSourceFactory(new TestingTypeManager(), hdfsEnvironment, new FileFormatDataSourceStats(), hiveConfig, cacheStore);
+
+        File tempDir = createTempDirectory(getClass().getName()).toFile();
+        try {
+            File file = new File(tempDir, "test.parquet");
+            writeFile(session, file, "value_");
+
+            assertEquals(readValues(cachingPageSourceFactory, session, file, 1), expectedValues("value_"));
+            assertCacheStats(cacheStore.getFooterCache().stats(), 0, 1);
+            assertCacheStats(cacheStore.getDictionaryCache().stats(), 0, 1);
+            assertTrue(cacheStore.getDictionaryCache().asMap().values().stream().allMatch(Optional::isPresent));
+
+            // the second read of the same file takes the footer and the dictionary from the caches
+            assertEquals(readValues(cachingPageSourceFactory, session, file, 1), expectedValues("value_"));
+            assertCacheStats(cacheStore.getFooterCache().stats(), 1, 1);
+            assertCacheStats(cacheStore.getDictionaryCache().stats(), 1, 1);
+
+            // a rewritten file has a new modification time, so nothing cached for the old one is used
+            verify(file.delete());
+            writeFile(session, file, "changed_");
+            assertEquals(readValues(cachingPageSourceFactory, session, file, 2), expectedValues("changed_"));
+            assertCacheStats(cacheStore.getFooterCache().stats(), 1, 2);
+            assertCacheStats(cacheStore.getDictionaryCache().stats(), 1, 2);
+        }
+        finally {
+            deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    private static void writeFile(ConnectorSession session, File file, String valuePrefix)
+            throws IOException
+    {
+        // a few distinct values, so the column is dictionary encoded
+        BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, ROW_COUNT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            VARCHAR.writeString(blockBuilder, valuePrefix + (i % 10));
+        }
+        try (FormatWriter writer = PRESTO_PARQUET.createFileFormatWriter(session, file, ImmutableList.of("test"), ImmutableList.of(VARCHAR), NONE)) {
+            writer.writePage(new Page(blockBuilder.build()));
+        }
+    }
+
+    private static Set<String> readValues(ParquetPageSourceFactory pageSourceFactory, ConnectorSession session, File file, long lastModifiedTime)
+            throws IOException
+    {
+        Properties schema = new Properties();
+        schema.setProperty(SERIALIZATION_LIB, PARQUET.getSerDe());
+        schema.setProperty(FILE_INPUT_FORMAT, PARQUET.getInputFormat());
+        schema.setProperty(META_TABLE_COLUMNS, "test");
+        schema.setProperty(META_TABLE_COLUMN_TYPES, HIVE_STRING.getHiveTypeName().toString());
+        List<HiveColumnHandle> columns = ImmutableList.of(new HiveColumnHandle("test", HIVE_STRING, VARCHAR.getTypeSignature(), 0, REGULAR, Optional.empty()));
+
+        ImmutableSet.Builder<String> values = ImmutableSet.builder();
+        try (ConnectorPageSource pageSource = pageSourceFactory.createPageSource(new Configuration(), session, new Path(file.toURI()), 0L, file.length(), file.length(), schema, columns, TupleDomain.all(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), null, false, lastModifiedTime).get()) {
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block = page.getBlock(0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    values.add(VARCHAR.getSlice(block, position).toStringUtf8());
+                }
+            }
+        }
+        return values.build();
+    }
+
+    private static Set<String> expectedValues(String valuePrefix)
+    {
+        return IntStream.range(0, 10)
+                .mapToObj(i -> valuePrefix + i)
+                .collect(toImmutableSet());
+    }
+
+    private static void assertCacheStats(CacheStats stats, long hits, long misses)
+    {
+        assertEquals(stats.hitCount(), hits);
+        assertEquals(stats.missCount(), misses);
+    }
 }
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.hetu.core.transport.execution.buffer.PageCompressionCodec;
 import io.prestosql.exchange.RetryPolicy;
 import io.prestosql.execution.QueryManagerConfig;
 import io.prestosql.execution.TaskManagerConfig;
@@ -118,6 +119,7 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID = "enable_forced_exchange_below_group_id";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
     public static final String PUSH_PARTIAL_AGGREGATION_THROUGH_JOIN = "push_partial_aggregation_through_join";
@@ -125,6 +127,7 @@ public final class SystemSessionProperties
     public static final String FORCE_SINGLE_NODE_OUTPUT = "force_single_node_output";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_SIZE = "filter_and_project_min_output_page_size";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_ROW_COUNT = "filter_and_project_min_output_page_row_count";
+    public static final String VECTORIZED_FILTER_AND_PROJECT_ENABLED = "vectorized_filter_and_project_enabled";
     public static final String DISTRIBUTED_SORT = "distributed_sort";
     public static final String USE_MARK_DISTINCT = "use_mark_distinct";
     public static final String PREFER_PARTIAL_AGGREGATION = "prefer_partial_aggregation";
@@ -612,6 +615,12 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                enumProperty(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        "Compression codec used in exchanges when exchange compression is enabled",
+                        PageCompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false),
                 booleanProperty(
                         ENABLE_INTERMEDIATE_AGGREGATIONS,
                         "Enable the use of intermediate aggregations",
@@ -647,6 +656,11 @@ public final class SystemSessionProperties
                         "Experimental: Minimum output page row count for filter and project operators",
                         featuresConfig.getFilterAndProjectMinOutputPageRowCount(),
                         false),
+                booleanProperty(
+                        VECTORIZED_FILTER_AND_PROJECT_ENABLED,
+                        "Experimental: Evaluate simple filters and projections over primitive columns in vectorized loops",
+                        featuresConfig.isVectorizedFilterAndProjectEnabled(),
+                        false),
                 booleanProperty(
                         DISTRIBUTED_SORT,
                         "Parallelize sort across multiple nodes",
@@ -1437,6 +1451,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static PageCompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, PageCompressionCodec.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -1472,6 +1491,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_ROW_COUNT, Integer.class);
     }
 
+    public static boolean isVectorizedFilterAndProjectEnabled(Session session)
+    {
+        return session.getSystemProperty(VECTORIZED_FILTER_AND_PROJECT_ENABLED, Boolean.class);
+    }
+
     public static boolean useMarkDistinct(Session session)
     {
         return session.getSystemProperty(USE_MARK_DISTINCT, Boolean.class);
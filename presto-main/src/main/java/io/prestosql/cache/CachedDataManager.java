@@ -14,58 +14,99 @@
  */
 package io.prestosql.cache;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.airlift.node.NodeInfo;
+import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.cache.elements.CachedDataKey;
 import io.prestosql.cache.elements.CachedDataStorage;
+import io.prestosql.cache.elements.SharedCachedDataEntry;
 import io.prestosql.execution.QueryIdGenerator;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.SessionPropertyManager;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.CatalogSchemaTableName;
 import io.prestosql.spi.connector.QualifiedObjectName;
 import io.prestosql.spi.metadata.TableHandle;
 import io.prestosql.spi.security.Identity;
+import io.prestosql.statestore.StateStoreProvider;
 import io.prestosql.utils.HetuConfig;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class CachedDataManager
 {
     private static final Logger LOG = Logger.get(CachedDataManager.class);
+    private static final Duration SHARED_CACHE_HEARTBEAT_INTERVAL = new Duration(30, SECONDS);
+    // a coordinator without a heartbeat for this long is considered stopped, its tables are dropped by the others
+    private static final Duration SHARED_CACHE_OWNER_EXPIRATION = new Duration(5, MINUTES);
 
+    // hot tier: entries served from their materialized tables
     private final Optional<Cache<CachedDataKey, CachedDataStorage>> dataCache;
+    // warm tier: entries evicted from the hot tier whose tables are kept until the warm tier overflows
+    private final Optional<Cache<CachedDataKey, CachedDataStorage>> warmDataCache;
     private final Optional<Map<CachedDataKey, Map<Long, CachedDataStorage>>> waitingDelete;
+    private final Optional<SharedCachedDataRegistry> sharedRegistry;
+    private final Optional<ScheduledExecutorService> sharedCacheExecutor;
+    private final Supplier<Session> maintenanceSession;
+    // tables materialized by another coordinator, they are dropped by their owner only
+    private final Set<CatalogSchemaTableName> adoptedTables = ConcurrentHashMap.newKeySet();
     private final CacheStorageMonitor monitor;
     private final Metadata metadata;
     private final AtomicLong currentSize = new AtomicLong();
     private final long cachedDataMaxSize;
-    private final String userName;
     private final AtomicBoolean isReady = new AtomicBoolean();
 
-    @Inject
     public CachedDataManager(HetuConfig hetuConfig,
                              CacheStorageMonitor monitor,
                              Metadata metadata,
                              QueryIdGenerator queryIdGenerator,
                              SessionPropertyManager sessionPropertyManager)
+    {
+        this(hetuConfig, monitor, metadata, queryIdGenerator, sessionPropertyManager, null, null);
+    }
+
+    @Inject
+    public CachedDataManager(HetuConfig hetuConfig,
+                             CacheStorageMonitor monitor,
+                             Metadata metadata,
+                             QueryIdGenerator queryIdGenerator,
+                             SessionPropertyManager sessionPropertyManager,
+                             StateStoreProvider stateStoreProvider,
+                             NodeInfo nodeInfo)
     {
         if (hetuConfig.isCteMaterializationEnabled()) {
             Session.SessionBuilder sessionBuilder = Session.builder(sessionPropertyManager)
@@ -76,18 +117,19 @@ public class CachedDataManager
                 @Override
                 public void onRemoval(RemovalNotification<CachedDataKey, CachedDataStorage> notification)
                 {
+                    if (notification.getValue().isCommitted()) {
+                        currentSize.addAndGet(-notification.getValue().getDataSize());
+                    }
                     if (notification.wasEvicted()) {
                         LOG.info("CTE Materialized entry evicted, Cause: %s", notification.getCause().name());
                         if (notification.getValue().getRefCount() <= 0) {
+                            if (warmDataCache.isPresent() && notification.getValue().isCommitted()) {
+                                // demote, the table is kept and the entry can be promoted again on the next hit
+                                warmDataCache.get().put(notification.getKey(), notification.getValue());
+                                return;
+                            }
                             Session session = sessionBuilder.setQueryId(queryIdGenerator.createNextQueryId()).build();
-                            monitor.stopTableMonitorForModification(notification.getValue(), session);
-                            cacheWalk(ImmutableSet.of(notification.getKey()), ((key, cds) -> {
-                                Optional<TableHandle> tableHandle = metadata.getTableHandle(session, QualifiedObjectName.valueOf(cds.getDataTable()));
-                                if (tableHandle.isPresent()) {
-                                    metadata.dropTable(session, tableHandle.get());
-                                }
-                                return null;
-                            }));
+                            dropDataTable(notification.getKey(), notification.getValue(), session);
                         }
                         else {
                             // mark for dropping when reference count reduce
@@ -111,17 +153,74 @@ public class CachedDataManager
                     .removalListener(listener)
                     .build());
 
+            long warmMaxSize = hetuConfig.getExecutionDataCacheWarmMaxSize().toBytes();
+            if (warmMaxSize > 0) {
+                RemovalListener<CachedDataKey, CachedDataStorage> warmListener = notification -> {
+                    // explicit removals are promotions or invalidations which drop the table themselves
+                    if (notification.wasEvicted()) {
+                        LOG.info("CTE Materialized warm entry evicted, Cause: %s", notification.getCause().name());
+                        Session session = sessionBuilder.setQueryId(queryIdGenerator.createNextQueryId()).build();
+                        dropDataTable(notification.getKey(), notification.getValue(), session);
+                    }
+                };
+                this.warmDataCache = Optional.of(CacheBuilder.newBuilder()
+                        .maximumWeight(warmMaxSize)
+                        .weigher((Weigher<CachedDataKey, CachedDataStorage>) (key, value) -> (int) value.getDataSize())
+                        .removalListener(warmListener)
+                        .build());
+            }
+            else {
+                this.warmDataCache = Optional.empty();
+            }
+
             this.waitingDelete = Optional.of(new ConcurrentHashMap<>());
+            this.maintenanceSession = () -> sessionBuilder.setQueryId(queryIdGenerator.createNextQueryId()).build();
+            if (hetuConfig.isMultipleCoordinatorEnabled() && hetuConfig.isCteMaterializationSharedCacheEnabled() && stateStoreProvider != null && nodeInfo != null) {
+                // the node id identifies the coordinator across restarts, so that it recognizes the tables it left behind
+                this.sharedRegistry = Optional.of(new SharedCachedDataRegistry(stateStoreProvider, nodeInfo.getNodeId(), SHARED_CACHE_OWNER_EXPIRATION.toMillis()));
+                this.sharedCacheExecutor = Optional.of(newSingleThreadScheduledExecutor(daemonThreadsNamed("cte-shared-cache-%s")));
+            }
+            else {
+                this.sharedRegistry = Optional.empty();
+                this.sharedCacheExecutor = Optional.empty();
+            }
         }
         else {
             this.dataCache = Optional.empty();
+            this.warmDataCache = Optional.empty();
             this.waitingDelete = Optional.empty();
+            this.sharedRegistry = Optional.empty();
+            this.sharedCacheExecutor = Optional.empty();
+            this.maintenanceSession = () -> {
+                throw new IllegalStateException("CTE materialization is disabled");
+            };
         }
 
         this.monitor = requireNonNull(monitor, "monitor is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.cachedDataMaxSize = hetuConfig.getExecutionDataCacheMaxSize().toBytes();
-        this.userName = requireNonNull(hetuConfig, "hetuConfig is null").getCachingUserName();
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        sharedCacheExecutor.ifPresent(executor -> executor.scheduleWithFixedDelay(() -> {
+            try {
+                sharedRegistry.get().heartbeat();
+                if (isReady.get()) {
+                    dropTablesOfStoppedCoordinators(maintenanceSession.get());
+                }
+            }
+            catch (RuntimeException e) {
+                LOG.warn(e, "Error maintaining the shared CTE materialization cache");
+            }
+        }, 0, SHARED_CACHE_HEARTBEAT_INTERVAL.toMillis(), MILLISECONDS));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        sharedCacheExecutor.ifPresent(ScheduledExecutorService::shutdownNow);
     }
 
     public boolean isDataCachedEnabled()
@@ -136,6 +235,9 @@ public class CachedDataManager
         }
 
         CachedDataStorage object = get(dataKey);
+        if (object == null) {
+            object = adoptSharedEntry(dataKey, session);
+        }
         if (object != null && validateCacheEntry(dataKey, object, session)) {
             /* Increment listener count */
             object.grab();
@@ -164,11 +266,7 @@ public class CachedDataManager
                 /* Drop the cached data table */
                 if (deletedCds.getRefCount() <= 0) {
                     // mark for dropping when reference count reduce
-                    monitor.stopTableMonitorForModification(deletedCds, session);
-                    Optional<TableHandle> tableHandle = metadata.getTableHandle(session, QualifiedObjectName.valueOf(deletedCds.getDataTable()));
-                    if (tableHandle.isPresent()) {
-                        metadata.dropTable(session, tableHandle.get());
-                    }
+                    dropDataTable(dataKey, deletedCds, session);
                     waitingDelete.get().get(dataKey).remove(cdsTime);
                     if (waitingDelete.get().get(dataKey).isEmpty()) {
                         waitingDelete.get().remove(dataKey);
@@ -195,6 +293,11 @@ public class CachedDataManager
         }
 
         currentSize.addAndGet(data.getDataSize());
+        if (sharedRegistry.isPresent() && data.isCommitted() && !data.isNonCachable() && monitor.checkTableValidity(data, session)) {
+            // other coordinators can only tell whether the entry is stale from the modification times of the source tables
+            getSourceModificationTimes(dataKey.getTables(), session)
+                    .ifPresent(modificationTimes -> sharedRegistry.get().publish(dataKey, data, modificationTimes));
+        }
     }
 
     private boolean isSizeAvailableForCacheLimits(long requiredSize)
@@ -227,6 +330,15 @@ public class CachedDataManager
             sizeToFree -= cds.getDataSize();
         }
 
+        if (warmDataCache.isPresent()) {
+            for (CachedDataKey key : toDelete.build()) {
+                CachedDataStorage cds = dataCache.get().asMap().remove(key);
+                if (cds != null) {
+                    warmDataCache.get().put(key, cds);
+                }
+            }
+            return;
+        }
         invalidate(toDelete.build(), session);
     }
 
@@ -236,15 +348,109 @@ public class CachedDataManager
             return null;
         }
 
-        return dataCache.get().getIfPresent(dataKey);
+        CachedDataStorage object = dataCache.get().getIfPresent(dataKey);
+        if (object == null && warmDataCache.isPresent()) {
+            // promote a warm entry back to the hot tier
+            object = warmDataCache.get().asMap().remove(dataKey);
+            if (object != null) {
+                dataCache.get().put(dataKey, object);
+                currentSize.addAndGet(object.getDataSize());
+            }
+        }
+        return object;
+    }
+
+    private CachedDataStorage adoptSharedEntry(CachedDataKey dataKey, Session session)
+    {
+        if (!sharedRegistry.isPresent()) {
+            return null;
+        }
+
+        Optional<SharedCachedDataEntry> entry = sharedRegistry.get().lookup(dataKey);
+        if (!entry.isPresent() || sharedRegistry.get().isOwner(entry.get())) {
+            return null;
+        }
+
+        CatalogSchemaTableName dataTable = QualifiedObjectName.valueOf(entry.get().getDataTable()).asCatalogSchemaTableName();
+        if (!metadata.getTableHandle(monitor.updateIdentity(session), QualifiedObjectName.valueOf(dataTable)).isPresent()) {
+            return null;
+        }
+
+        CachedDataStorage cds = new CachedDataStorage(dataKey, dataTable, null, null);
+        if (!isUpToDate(entry.get(), getSourceModificationTimes(dataKey.getTables(), session))) {
+            LOG.debug("Shared CTE materialization is stale for key: %s", dataKey);
+            sharedRegistry.get().retract(dataKey, cds);
+            return null;
+        }
+
+        cds.commit(cds.getCreateTime() + entry.get().getRuntime(), entry.get().getDataSize());
+        monitor.monitorTableForModification(cds, session);
+        adoptedTables.add(dataTable);
+        CachedDataStorage existing = dataCache.get().asMap().putIfAbsent(dataKey, cds);
+        if (existing != null) {
+            // lost the race against a local materialization or another adoption
+            adoptedTables.remove(dataTable);
+            monitor.stopTableMonitorForModification(cds, session);
+            return existing;
+        }
+        currentSize.addAndGet(cds.getDataSize());
+        LOG.debug("Adopted CTE materialization shared by another coordinator for key: %s", dataKey);
+        return cds;
+    }
+
+    /**
+     * The source tables must be unchanged since the entry was published, and must not have been modified after it was committed
+     */
+    private static boolean isUpToDate(SharedCachedDataEntry entry, Optional<Map<String, Long>> modificationTimes)
+    {
+        return modificationTimes.isPresent()
+                && modificationTimes.get().equals(entry.getSourceModificationTimes())
+                && modificationTimes.get().values().stream().allMatch(modificationTime -> modificationTime <= entry.getCommitTime());
+    }
+
+    /**
+     * Returns the last modified time of each source table, or empty if any of them is unknown
+     */
+    private Optional<Map<String, Long>> getSourceModificationTimes(Collection<String> tables, Session session)
+    {
+        Session newSession = monitor.updateIdentity(session);
+        ImmutableMap.Builder<String, Long> modificationTimes = ImmutableMap.builder();
+        try {
+            for (String table : tables) {
+                Optional<TableHandle> tableHandle = metadata.getTableHandle(newSession, QualifiedObjectName.valueOf(table));
+                if (!tableHandle.isPresent()) {
+                    return Optional.empty();
+                }
+                LongSupplier modificationTime = metadata.getTableLastModifiedTimeSupplier(newSession, tableHandle.get());
+                if (modificationTime == null || modificationTime.getAsLong() < 0) {
+                    return Optional.empty();
+                }
+                modificationTimes.put(table, modificationTime.getAsLong());
+            }
+        }
+        catch (PrestoException e) {
+            // the connector does not report modification times
+            return Optional.empty();
+        }
+        return Optional.of(modificationTimes.build());
     }
 
     private boolean validateCacheEntry(CachedDataKey key, CachedDataStorage object, Session session)
     {
+        if (adoptedTables.contains(object.getDataTable()) && !sharedRegistry.get().isRegistered(object.getDataTable())) {
+            // the owner dropped the table
+            dataCache.get().invalidate(key);
+            adoptedTables.remove(object.getDataTable());
+            monitor.stopTableMonitorForModification(object, session);
+            return false;
+        }
+
         if (monitor.checkTableValidity(object, session)) {
             return true;
         }
 
+        sharedRegistry.ifPresent(registry -> registry.retract(key, object));
+
         /* Drop the cached data table */
         if (object.getRefCount() <= 0) {
             // mark for dropping when reference count reduce
@@ -260,6 +466,8 @@ public class CachedDataManager
     public void put(CachedDataKey key, CachedDataStorage value, Session session)
     {
         if (dataCache.isPresent()) {
+            // register before the table is created, a table without an owner is dropped as a leftover
+            sharedRegistry.ifPresent(registry -> registry.register(value.getDataTable()));
             monitor.monitorTableForModification(value, session);
             value.grab();
             dataCache.get().put(key, value);
@@ -270,15 +478,11 @@ public class CachedDataManager
     {
         if (dataCache.isPresent()) { /* Add invalidators for storage as cacheWalker */
             cacheWalk(keySet, ((key, cds) -> {
-                monitor.stopTableMonitorForModification(cds, session);
-                Optional<TableHandle> tableHandle = metadata.getTableHandle(session, QualifiedObjectName.valueOf(cds.getDataTable()));
-                if (tableHandle.isPresent()) {
-                    metadata.dropTable(session, tableHandle.get());
-                }
-
+                dropDataTable(key, cds, session);
                 return null;
             }));
             dataCache.get().invalidateAll(keySet);
+            warmDataCache.ifPresent(cache -> cache.invalidateAll(keySet));
         }
     }
 
@@ -286,33 +490,112 @@ public class CachedDataManager
     {
         if (dataCache.isPresent()) { /* Add invalidators for storage as cacheWalker */
             cacheWalkAll(((key, cds) -> {
-                monitor.stopTableMonitorForModification(cds, session);
-                Identity identity = session.getIdentity();
-                identity = new Identity(userName, identity.getGroups(), identity.getPrincipal(), identity.getRoles(), identity.getExtraCredentials());
-                Session newSession = session.withUpdatedIdentity(identity);
-                Optional<TableHandle> tableHandle = metadata.getTableHandle(newSession, QualifiedObjectName.valueOf(cds.getDataTable()));
-                if (tableHandle.isPresent()) {
-                    metadata.dropTable(newSession, tableHandle.get());
-                }
-
+                dropDataTable(key, cds, session);
                 return null;
             }));
             dataCache.get().invalidateAll();
+            warmDataCache.ifPresent(Cache::invalidateAll);
         }
     }
 
+    /**
+     * Walks the entries of the hot and the warm tier
+     */
     public void cacheWalkAll(BiFunction<CachedDataKey, CachedDataStorage, Void> walker)
     {
         if (dataCache.isPresent() && walker != null) {
             dataCache.get().asMap().forEach((key, value) -> walker.apply(key, value));
+            warmDataCache.ifPresent(cache -> cache.asMap().forEach((key, value) -> walker.apply(key, value)));
         }
     }
 
+    /**
+     * Walks the entries of the hot and the warm tier for the given keys
+     */
     public void cacheWalk(Iterable<CachedDataKey> keySet, BiFunction<CachedDataKey, CachedDataStorage, Void> walker)
     {
         if (dataCache.isPresent() && walker != null) {
             dataCache.get().getAllPresent(keySet).forEach((key, value) -> walker.apply(key, value));
+            warmDataCache.ifPresent(cache -> cache.getAllPresent(keySet).forEach((key, value) -> walker.apply(key, value)));
+        }
+    }
+
+    private void dropDataTable(CachedDataKey key, CachedDataStorage cds, Session session)
+    {
+        monitor.stopTableMonitorForModification(cds, session);
+        sharedRegistry.ifPresent(registry -> registry.retract(key, cds));
+        if (adoptedTables.remove(cds.getDataTable())) {
+            // the owning coordinator drops the table
+            return;
+        }
+
+        dropTable(cds.getDataTable(), session);
+        sharedRegistry.ifPresent(registry -> registry.unregister(cds.getDataTable()));
+    }
+
+    private void dropTable(CatalogSchemaTableName dataTable, Session session)
+    {
+        Session newSession = monitor.updateIdentity(session);
+        Optional<TableHandle> tableHandle = metadata.getTableHandle(newSession, QualifiedObjectName.valueOf(dataTable));
+        if (tableHandle.isPresent()) {
+            metadata.dropTable(newSession, tableHandle.get());
+        }
+    }
+
+    /**
+     * Drops the tables materialized by coordinators which stopped. The tables still served by this
+     * coordinator are taken over instead, and dropped once their entries are evicted.
+     */
+    @VisibleForTesting
+    void dropTablesOfStoppedCoordinators(Session session)
+    {
+        if (!sharedRegistry.isPresent()) {
+            return;
+        }
+
+        SharedCachedDataRegistry registry = sharedRegistry.get();
+        registry.getTableOwners().ifPresent(owners -> owners.forEach((table, owner) -> {
+            if (registry.isAlive(owner)) {
+                return;
+            }
+
+            CatalogSchemaTableName dataTable = QualifiedObjectName.valueOf(table).asCatalogSchemaTableName();
+            if (adoptedTables.remove(dataTable)) {
+                LOG.info("Taking over CTE materialization table %s of stopped coordinator %s", table, owner);
+                registry.takeOver(dataTable);
+                return;
+            }
+
+            LOG.info("Dropping CTE materialization table %s of stopped coordinator %s", table, owner);
+            registry.retractAll(dataTable);
+            dropTable(dataTable, session);
+            registry.unregister(dataTable);
+        }));
+    }
+
+    /**
+     * Checks whether a table found in the cache schema when the coordinator starts is a leftover: it is not
+     * registered, or it was registered by this coordinator before it restarted, or by a coordinator which stopped.
+     * Tables shared or being materialized by the other coordinators are kept.
+     */
+    public boolean isLeftoverSharedTable(CatalogSchemaTableName dataTable)
+    {
+        if (!sharedRegistry.isPresent()) {
+            return false;
+        }
+
+        SharedCachedDataRegistry registry = sharedRegistry.get();
+        Optional<Map<String, String>> owners = registry.getTableOwners();
+        if (!owners.isPresent()) {
+            return false;
+        }
+        String owner = owners.get().get(dataTable.toString());
+        if (owner != null && !owner.equals(registry.getOwner()) && registry.isAlive(owner)) {
+            return false;
         }
+        registry.retractAll(dataTable);
+        registry.unregister(dataTable);
+        return true;
     }
 
     public void setReady()
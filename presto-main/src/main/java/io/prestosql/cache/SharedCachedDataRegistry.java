@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.prestosql.cache.elements.CachedDataKey;
+import io.prestosql.cache.elements.CachedDataStorage;
+import io.prestosql.cache.elements.SharedCachedDataEntry;
+import io.prestosql.spi.connector.CatalogSchemaTableName;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.spi.type.TypeId;
+import io.prestosql.statestore.StateStoreProvider;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_CACHE_COLLECTION_NAME;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_TABLES_COLLECTION_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publishes committed CTE materialization entries to the state store, keyed by a digest of
+ * the {@link CachedDataKey} that is identical on every coordinator, so that a coordinator
+ * missing an entry locally can reuse the table materialized by another coordinator.
+ * <p>
+ * Every materialized table is registered with the coordinator owning it, and each coordinator
+ * records a heartbeat, so that the tables of a coordinator which stopped can be dropped by the others.
+ */
+public class SharedCachedDataRegistry
+{
+    private static final Logger LOG = Logger.get(SharedCachedDataRegistry.class);
+    private static final JsonCodec<SharedCachedDataEntry> ENTRY_CODEC = jsonCodec(SharedCachedDataEntry.class);
+
+    private final StateStoreProvider stateStoreProvider;
+    private final String owner;
+    private final long ownerExpirationMillis;
+
+    public SharedCachedDataRegistry(StateStoreProvider stateStoreProvider, String owner, long ownerExpirationMillis)
+    {
+        this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
+        this.owner = requireNonNull(owner, "owner is null");
+        this.ownerExpirationMillis = ownerExpirationMillis;
+    }
+
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public Optional<SharedCachedDataEntry> lookup(CachedDataKey key)
+    {
+        Optional<StateMap<String, String>> stateMap = getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME);
+        if (!stateMap.isPresent()) {
+            return Optional.empty();
+        }
+
+        String json = stateMap.get().get(sharedKey(key));
+        if (json == null) {
+            return Optional.empty();
+        }
+        return decode(json);
+    }
+
+    public void publish(CachedDataKey key, CachedDataStorage cds, Map<String, Long> sourceModificationTimes)
+    {
+        getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME).ifPresent(stateMap -> stateMap.put(
+                sharedKey(key),
+                ENTRY_CODEC.toJson(new SharedCachedDataEntry(cds.getDataTable().toString(), cds.getDataSize(), cds.getRuntime(), cds.getCommitTime(), sourceModificationTimes, owner))));
+    }
+
+    /**
+     * Removes the shared entry of the key if it still refers to the data table of the given storage
+     */
+    public void retract(CachedDataKey key, CachedDataStorage cds)
+    {
+        Optional<StateMap<String, String>> stateMap = getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME);
+        if (!stateMap.isPresent()) {
+            return;
+        }
+
+        String sharedKey = sharedKey(key);
+        String json = stateMap.get().get(sharedKey);
+        if (json != null && decode(json).map(entry -> entry.getDataTable().equals(cds.getDataTable().toString())).orElse(true)) {
+            stateMap.get().remove(sharedKey);
+        }
+    }
+
+    /**
+     * Removes every shared entry which refers to the given data table
+     */
+    public void retractAll(CatalogSchemaTableName dataTable)
+    {
+        getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME).ifPresent(stateMap -> ImmutableMap.copyOf(stateMap.getAll()).forEach((sharedKey, json) -> {
+            if (decode(json).map(entry -> entry.getDataTable().equals(dataTable.toString())).orElse(true)) {
+                stateMap.remove(sharedKey);
+            }
+        }));
+    }
+
+    public boolean isOwner(SharedCachedDataEntry entry)
+    {
+        return owner.equals(entry.getOwner());
+    }
+
+    /**
+     * Records this coordinator as the owner of a data table, before the table is created
+     */
+    public void register(CatalogSchemaTableName dataTable)
+    {
+        getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME).ifPresent(stateMap -> stateMap.put(dataTable.toString(), owner));
+    }
+
+    public void unregister(CatalogSchemaTableName dataTable)
+    {
+        getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME).ifPresent(stateMap -> stateMap.remove(dataTable.toString()));
+    }
+
+    public boolean isRegistered(CatalogSchemaTableName dataTable)
+    {
+        return getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME).map(stateMap -> stateMap.containsKey(dataTable.toString())).orElse(true);
+    }
+
+    /**
+     * Makes this coordinator the owner of a data table of a coordinator which stopped, along with the shared entries referring to it
+     */
+    public void takeOver(CatalogSchemaTableName dataTable)
+    {
+        register(dataTable);
+        getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME).ifPresent(stateMap -> ImmutableMap.copyOf(stateMap.getAll()).forEach((sharedKey, json) ->
+                decode(json)
+                        .filter(entry -> entry.getDataTable().equals(dataTable.toString()))
+                        .ifPresent(entry -> stateMap.put(sharedKey, ENTRY_CODEC.toJson(entry.withOwner(owner))))));
+    }
+
+    /**
+     * Returns the owner of each registered data table, or empty if the state store is not available
+     */
+    public Optional<Map<String, String>> getTableOwners()
+    {
+        return getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME).map(stateMap -> ImmutableMap.copyOf(stateMap.getAll()));
+    }
+
+    public void heartbeat()
+    {
+        getStateMap(CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME).ifPresent(stateMap -> stateMap.put(owner, String.valueOf(System.currentTimeMillis())));
+    }
+
+    /**
+     * A coordinator is alive as long as it recorded a heartbeat within the owner expiration
+     */
+    public boolean isAlive(String coordinator)
+    {
+        if (owner.equals(coordinator)) {
+            return true;
+        }
+        Optional<StateMap<String, String>> stateMap = getStateMap(CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME);
+        if (!stateMap.isPresent()) {
+            // the state of the other coordinators is unknown
+            return true;
+        }
+        String heartbeat = stateMap.get().get(coordinator);
+        return heartbeat != null && System.currentTimeMillis() - Long.parseLong(heartbeat) < ownerExpirationMillis;
+    }
+
+    private Optional<SharedCachedDataEntry> decode(String json)
+    {
+        try {
+            return Optional.of(ENTRY_CODEC.fromJson(json));
+        }
+        catch (IllegalArgumentException e) {
+            LOG.warn(e, "Invalid shared CTE materialization entry: %s", json);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<StateMap<String, String>> getStateMap(String name)
+    {
+        StateStore stateStore = stateStoreProvider.getStateStore();
+        if (stateStore == null) {
+            return Optional.empty();
+        }
+        return Optional.of((StateMap<String, String>) stateStore.getOrCreateStateCollection(name, StateCollection.Type.MAP));
+    }
+
+    /**
+     * CachedDataKey uses hash based collections, hash them in sorted order so that every coordinator derives the same key
+     */
+    static String sharedKey(CachedDataKey key)
+    {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(String.valueOf(key.getQuery()), UTF_8);
+        for (String table : new TreeSet<>(key.getTables())) {
+            hasher.putByte((byte) 0).putString(table, UTF_8);
+        }
+        for (Map.Entry<String, TypeId> column : new TreeMap<>(key.getColumnTypes()).entrySet()) {
+            hasher.putByte((byte) 1).putString(column.getKey(), UTF_8).putString(column.getValue().getId(), UTF_8);
+        }
+        for (String rule : new TreeSet<>(key.getRules())) {
+            hasher.putByte((byte) 2).putString(rule, UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.cache.elements;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Committed cache entry as published to the state store, so that other coordinators can serve it
+ */
+public class SharedCachedDataEntry
+{
+    private final String dataTable;
+    private final long dataSize;
+    private final long runtime;
+    private final long commitTime;
+    // last modified time of each source table when the entry was committed
+    private final Map<String, Long> sourceModificationTimes;
+    private final String owner;
+
+    @JsonCreator
+    public SharedCachedDataEntry(@JsonProperty("dataTable") String dataTable,
+                                 @JsonProperty("dataSize") long dataSize,
+                                 @JsonProperty("runtime") long runtime,
+                                 @JsonProperty("commitTime") long commitTime,
+                                 @JsonProperty("sourceModificationTimes") Map<String, Long> sourceModificationTimes,
+                                 @JsonProperty("owner") String owner)
+    {
+        this.dataTable = requireNonNull(dataTable, "dataTable is null");
+        this.dataSize = dataSize;
+        this.runtime = runtime;
+        this.commitTime = commitTime;
+        this.sourceModificationTimes = ImmutableMap.copyOf(requireNonNull(sourceModificationTimes, "sourceModificationTimes is null"));
+        this.owner = requireNonNull(owner, "owner is null");
+    }
+
+    @JsonProperty
+    public String getDataTable()
+    {
+        return dataTable;
+    }
+
+    @JsonProperty
+    public long getDataSize()
+    {
+        return dataSize;
+    }
+
+    @JsonProperty
+    public long getRuntime()
+    {
+        return runtime;
+    }
+
+    @JsonProperty
+    public long getCommitTime()
+    {
+        return commitTime;
+    }
+
+    @JsonProperty
+    public Map<String, Long> getSourceModificationTimes()
+    {
+        return sourceModificationTimes;
+    }
+
+    @JsonProperty
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    public SharedCachedDataEntry withOwner(String newOwner)
+    {
+        return new SharedCachedDataEntry(dataTable, dataSize, runtime, commitTime, sourceModificationTimes, newOwner);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("dataTable", dataTable)
+                .add("dataSize", dataSize)
+                .add("runtime", runtime)
+                .add("commitTime", commitTime)
+                .add("sourceModificationTimes", sourceModificationTimes)
+                .add("owner", owner)
+                .toString();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.connector.system;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.hetu.core.spi.cube.CubeMetadata;
+import io.hetu.core.spi.cube.CubeStatement;
+import io.hetu.core.spi.cube.aggregator.AggregationSignature;
+import io.hetu.core.spi.cube.io.CubeMetaStore;
+import io.prestosql.Session;
+import io.prestosql.cube.CubeAdvisor;
+import io.prestosql.cube.CubeAdvisor.CubeCandidate;
+import io.prestosql.cube.CubeManager;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metastore.HetuMetaStoreManager;
+import io.prestosql.queryhistory.QueryHistoryConfig;
+import io.prestosql.security.AccessControl;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.ConnectorTransactionHandle;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.InMemoryRecordSet;
+import io.prestosql.spi.connector.InMemoryRecordSet.Builder;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.connector.RecordCursor;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.connector.SystemTable;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.metastore.HetuMetastore;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.queryhistory.QueryHistoryEntity;
+import io.prestosql.spi.queryhistory.QueryHistoryResult;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.sql.parser.SqlParser;
+
+import javax.inject.Inject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.prestosql.connector.system.SystemConnectorSessionUtil.toSession;
+import static io.prestosql.cube.CubeManager.STAR_TREE;
+import static io.prestosql.metadata.MetadataUtil.TableMetadataBuilder.tableMetadataBuilder;
+import static io.prestosql.spi.connector.SystemTable.Distribution.SINGLE_COORDINATOR;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.VarcharType.createUnboundedVarcharType;
+import static java.lang.Double.NaN;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Recommends star-tree cubes for the aggregation queries recorded in the query history.
+ */
+public class CubeRecommendationSystemTable
+        implements SystemTable
+{
+    private static final Logger LOG = Logger.get(CubeRecommendationSystemTable.class);
+
+    private static final SchemaTableName CUBE_RECOMMENDATIONS_TABLE_NAME = new SchemaTableName("runtime", "cube_recommendations");
+
+    private static final ConnectorTableMetadata CUBE_RECOMMENDATIONS_TABLE = tableMetadataBuilder(CUBE_RECOMMENDATIONS_TABLE_NAME)
+            .column("source_table", createUnboundedVarcharType())
+            .column("dimensions", createUnboundedVarcharType())
+            .column("aggregations", createUnboundedVarcharType())
+            .column("query_count", BIGINT)
+            .column("total_cpu_time_ms", BIGINT)
+            .column("source_rows", DOUBLE)
+            .column("estimated_cube_rows", DOUBLE)
+            .column("reduction_factor", DOUBLE)
+            .column("matching_cube", createUnboundedVarcharType())
+            .column("create_statement", createUnboundedVarcharType())
+            .build();
+
+    private final Metadata metadata;
+    private final AccessControl accessControl;
+    private final SqlParser sqlParser;
+    private final HetuMetaStoreManager metaStoreManager;
+    private final CubeManager cubeManager;
+    private final int maxQueryHistoryCount;
+
+    @Inject
+    public CubeRecommendationSystemTable(Metadata metadata, AccessControl accessControl, SqlParser sqlParser, HetuMetaStoreManager metaStoreManager, CubeManager cubeManager,
+            QueryHistoryConfig queryHistoryConfig)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.accessControl = requireNonNull(accessControl, "accessControl is null");
+        this.sqlParser = requireNonNull(sqlParser, "sqlParser is null");
+        this.metaStoreManager = requireNonNull(metaStoreManager, "metaStoreManager is null");
+        this.cubeManager = requireNonNull(cubeManager, "cubeManager is null");
+        this.maxQueryHistoryCount = requireNonNull(queryHistoryConfig, "queryHistoryConfig is null").getMaxQueryHistoryCount();
+    }
+
+    @Override
+    public Distribution getDistribution()
+    {
+        return SINGLE_COORDINATOR;
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata()
+    {
+        return CUBE_RECOMMENDATIONS_TABLE;
+    }
+
+    @Override
+    public RecordCursor cursor(ConnectorTransactionHandle transactionHandle, ConnectorSession connectorSession, TupleDomain<Integer> constraint)
+    {
+        Session session = toSession(transactionHandle, connectorSession);
+        Builder table = InMemoryRecordSet.builder(CUBE_RECOMMENDATIONS_TABLE);
+
+        List<CubeCandidate> candidates = new ArrayList<>();
+        for (CubeCandidate candidate : CubeAdvisor.recommend(sqlParser, getFinishedQueries())) {
+            QualifiedObjectName sourceTable = candidate.getSourceTable();
+            if (!canSelect(session, sourceTable)) {
+                continue;
+            }
+
+            Optional<TableHandle> tableHandle = Optional.empty();
+            double sourceRows = NaN;
+            double cubeRows = NaN;
+            try {
+                tableHandle = metadata.getTableHandle(session, sourceTable);
+                if (tableHandle.isPresent()) {
+                    TableStatistics statistics = metadata.getTableStatistics(session, tableHandle.get(), Constraint.alwaysTrue(), true);
+                    Map<String, ColumnHandle> columnHandles = metadata.getColumnHandles(session, tableHandle.get());
+                    sourceRows = statistics.getRowCount().getValue();
+                    cubeRows = CubeAdvisor.estimateCubeRows(statistics, columnHandles, candidate.getDimensions());
+                }
+            }
+            catch (PrestoException e) {
+                LOG.debug(e, "Failed to get statistics for table: %s", sourceTable);
+            }
+            if (!tableHandle.isPresent()) {
+                // The table has been dropped since the queries ran
+                continue;
+            }
+            candidates.add(candidate.withEstimatedRows(sourceRows, cubeRows));
+        }
+
+        Optional<CubeMetaStore> cubeMetaStore = cubeManager.getMetaStore(STAR_TREE);
+        Map<QualifiedObjectName, Integer> cubesPerTable = new HashMap<>();
+        for (CubeCandidate candidate : CubeAdvisor.rank(candidates)) {
+            QualifiedObjectName sourceTable = candidate.getSourceTable();
+            int cubeNumber = cubesPerTable.merge(sourceTable, 1, Integer::sum);
+            String cubeName = new QualifiedObjectName(sourceTable.getCatalogName(), sourceTable.getSchemaName(), sourceTable.getObjectName() + "_cube_" + cubeNumber).toString();
+            table.addRow(
+                    sourceTable.toString(),
+                    String.join(", ", candidate.getDimensions()),
+                    candidate.getAggregations().stream().map(AggregationSignature::toString).collect(joining(", ")),
+                    candidate.getQueryCount(),
+                    candidate.getCpuTimeMillis(),
+                    toNullable(candidate.getSourceRows()),
+                    toNullable(candidate.getCubeRows()),
+                    toNullable(candidate.getReductionFactor()),
+                    cubeMetaStore.flatMap(metaStore -> getMatchingCube(metaStore, candidate)).orElse(null),
+                    CubeAdvisor.toCreateCubeStatement(cubeName, candidate));
+        }
+
+        return table.build().cursor();
+    }
+
+    private List<QueryHistoryEntity> getFinishedQueries()
+    {
+        HetuMetastore hetuMetastore = metaStoreManager.getHetuMetastore();
+        if (hetuMetastore == null) {
+            return ImmutableList.of();
+        }
+        try {
+            QueryHistoryResult result = hetuMetastore.getQueryHistory(0, maxQueryHistoryCount, "", "", "", "", "", "", "",
+                    ImmutableList.of("FINISHED"), ImmutableList.of("null"), "createTime", "desc");
+            if (result == null || result.getQueries() == null) {
+                return ImmutableList.of();
+            }
+            return result.getQueries();
+        }
+        catch (RuntimeException e) {
+            // Not every metastore records the query history
+            LOG.debug(e, "Failed to get the query history");
+            return ImmutableList.of();
+        }
+    }
+
+    private boolean canSelect(Session session, QualifiedObjectName tableName)
+    {
+        SchemaTableName schemaTableName = tableName.asSchemaTableName();
+        try {
+            Set<SchemaTableName> allowed = accessControl.filterTables(session.getRequiredTransactionId(), session.getIdentity(), tableName.getCatalogName(), ImmutableSet.of(schemaTableName));
+            return allowed.contains(schemaTableName);
+        }
+        catch (PrestoException e) {
+            // The catalog may have been dropped since the queries ran
+            LOG.debug(e, "Failed to check access to table: %s", tableName);
+            return false;
+        }
+    }
+
+    private static Optional<String> getMatchingCube(CubeMetaStore cubeMetaStore, CubeCandidate candidate)
+    {
+        CubeStatement.Builder builder = CubeStatement.newBuilder().from(candidate.getSourceTable().toString());
+        candidate.getDimensions().forEach(dimension -> builder.select(dimension).groupByAddString(dimension));
+        candidate.getAggregations().forEach(builder::aggregate);
+        try {
+            return CubeMetadata.filter(cubeMetaStore.getMetadataList(candidate.getSourceTable().toString()), builder.build()).stream()
+                    .map(CubeMetadata::getCubeName)
+                    .findFirst();
+        }
+        catch (RuntimeException e) {
+            LOG.debug(e, "Failed to get cubes for table: %s", candidate.getSourceTable());
+            return Optional.empty();
+        }
+    }
+
+    private static Double toNullable(double value)
+    {
+        return Double.isNaN(value) ? null : value;
+    }
+}
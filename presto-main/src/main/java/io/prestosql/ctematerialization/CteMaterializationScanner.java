@@ -42,6 +42,7 @@ import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.StandardErrorCode;
 import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.connector.CatalogSchemaTableName;
 import io.prestosql.spi.connector.Connector;
 import io.prestosql.spi.connector.ConnectorMetadata;
 import io.prestosql.spi.connector.SchemaTableName;
@@ -84,6 +85,7 @@ public class CteMaterializationScanner
     private final ScheduledExecutorService timeoutExecutor;
     private final boolean isCteMaterializationEnabled;
     private final boolean isMultiCoordinatorEnabled;
+    private final boolean isSharedCacheEnabled;
     private final String cachingConnectorName;
     private final String cachingSchemaName;
     private final String cachingUserName;
@@ -104,6 +106,7 @@ public class CteMaterializationScanner
     {
         this.isCteMaterializationEnabled = featuresConfig.isCTEMaterializationEnabled();
         this.isMultiCoordinatorEnabled = hetuConfig.isMultipleCoordinatorEnabled();
+        this.isSharedCacheEnabled = hetuConfig.isCteMaterializationSharedCacheEnabled();
         this.catalogManager = requireNonNull(catalogManager, "catalogManager is null");
         this.dispatchManager = requireNonNull(dispatchManager, "dispatchManager is null");
         this.sessionPropertyManager = requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
@@ -122,7 +125,7 @@ public class CteMaterializationScanner
     @PostConstruct
     public void start()
     {
-        if (!isMultiCoordinatorEnabled && isCteMaterializationEnabled) {
+        if (isCteMaterializationEnabled && (!isMultiCoordinatorEnabled || isSharedCacheEnabled)) {
             checkState(!cteMaterializationScanService.isShutdown(), "Cte Materialization scanner has been destroyed");
 
             // start scan.
@@ -152,6 +155,10 @@ public class CteMaterializationScanner
                 List<String> tables = getCteCacheTables(catalog, cachingSchemaName);
                 if (tables != null && 0 != tables.size()) {
                     for (String cteCachedTable : tables) {
+                        // the other tables are shared or still being materialized by the other coordinators
+                        if (isMultiCoordinatorEnabled && !cacheDataManager.isLeftoverSharedTable(new CatalogSchemaTableName(catalog.getCatalogName(), cachingSchemaName, cteCachedTable))) {
+                            continue;
+                        }
                         try {
                             createCteMaterializationSchema(catalog, cteCachedTable, true);
                         }
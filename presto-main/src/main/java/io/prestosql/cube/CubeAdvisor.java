@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.cube;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.Duration;
+import io.hetu.core.spi.cube.aggregator.AggregationSignature;
+import io.prestosql.cost.AggregationStatsRule;
+import io.prestosql.cost.PlanNodeStatsEstimate;
+import io.prestosql.cost.SymbolStatsEstimate;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.plan.Symbol;
+import io.prestosql.spi.queryhistory.QueryHistoryEntity;
+import io.prestosql.spi.statistics.ColumnStatistics;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.sql.parser.ParsingException;
+import io.prestosql.sql.parser.ParsingOptions;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.sql.tree.AliasedRelation;
+import io.prestosql.sql.tree.DefaultExpressionTraversalVisitor;
+import io.prestosql.sql.tree.DereferenceExpression;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.GroupingElement;
+import io.prestosql.sql.tree.Identifier;
+import io.prestosql.sql.tree.LongLiteral;
+import io.prestosql.sql.tree.Query;
+import io.prestosql.sql.tree.QuerySpecification;
+import io.prestosql.sql.tree.Relation;
+import io.prestosql.sql.tree.SelectItem;
+import io.prestosql.sql.tree.SimpleGroupBy;
+import io.prestosql.sql.tree.SingleColumn;
+import io.prestosql.sql.tree.Statement;
+import io.prestosql.sql.tree.SubqueryExpression;
+import io.prestosql.sql.tree.Table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+import static io.hetu.core.spi.cube.CubeAggregateFunction.COUNT;
+import static io.hetu.core.spi.cube.CubeAggregateFunction.SUPPORTED_FUNCTIONS;
+import static io.prestosql.sql.util.AstUtils.preOrder;
+import static java.lang.Double.NaN;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Mines finished queries for aggregations over a single table and proposes
+ * the star-tree cubes that would answer them.
+ */
+public class CubeAdvisor
+{
+    // A cube holding more than half the rows of its source table saves little over scanning the table
+    private static final double MIN_REDUCTION_FACTOR = 2;
+
+    // Candidates whose saving is unknown are ranked after every estimated one, by the cpu time they cover
+    private static final Comparator<CubeCandidate> RANKING = Comparator.<CubeCandidate, Boolean>comparing(candidate -> Double.isNaN(candidate.getEstimatedSavedCpuTimeMillis()))
+            .thenComparing(Comparator.comparingDouble(CubeCandidate::getEstimatedSavedCpuTimeMillis).reversed())
+            .thenComparing(Comparator.comparingLong(CubeCandidate::getCpuTimeMillis).reversed())
+            .thenComparing(Comparator.comparingLong(CubeCandidate::getQueryCount).reversed())
+            .thenComparing(candidate -> candidate.getSourceTable().toString())
+            .thenComparing(candidate -> candidate.getDimensions().size());
+
+    private CubeAdvisor()
+    {
+        //utility class
+    }
+
+    /**
+     * Proposes one cube for each distinct set of dimensions seen in the query history.
+     * A cube covers every query whose dimensions are a subset of its own. The candidates
+     * have no row estimates yet, so they are ranked by the total cpu time of the queries they cover.
+     *
+     * @see #rank
+     */
+    public static List<CubeCandidate> recommend(SqlParser sqlParser, List<QueryHistoryEntity> queries)
+    {
+        List<CubeCandidate> patterns = new ArrayList<>();
+        for (QueryHistoryEntity query : queries) {
+            extractCandidate(sqlParser, query).ifPresent(patterns::add);
+        }
+
+        Map<QualifiedObjectName, Set<Set<String>>> dimensionsByTable = new LinkedHashMap<>();
+        for (CubeCandidate pattern : patterns) {
+            dimensionsByTable.computeIfAbsent(pattern.getSourceTable(), table -> new LinkedHashSet<>()).add(pattern.getDimensions());
+        }
+
+        List<CubeCandidate> candidates = new ArrayList<>();
+        for (Map.Entry<QualifiedObjectName, Set<Set<String>>> entry : dimensionsByTable.entrySet()) {
+            for (Set<String> dimensions : entry.getValue()) {
+                Set<AggregationSignature> aggregations = new TreeSet<>();
+                long queryCount = 0;
+                long cpuTimeMillis = 0;
+                for (CubeCandidate pattern : patterns) {
+                    if (pattern.getSourceTable().equals(entry.getKey()) && pattern.isAnsweredBy(dimensions)) {
+                        aggregations.addAll(pattern.getAggregations());
+                        queryCount += pattern.getQueryCount();
+                        cpuTimeMillis += pattern.getCpuTimeMillis();
+                    }
+                }
+                candidates.add(new CubeCandidate(entry.getKey(), dimensions, aggregations, false, queryCount, cpuTimeMillis));
+            }
+        }
+
+        candidates.sort(RANKING);
+        return candidates;
+    }
+
+    /**
+     * Ranks candidates with estimated rows by the cpu time they would save. A wide cube covering many
+     * queries can be nearly as large as its source table, so a narrow cube covering fewer queries
+     * may save more. Candidates that barely reduce the rows of their source table are dropped.
+     */
+    public static List<CubeCandidate> rank(List<CubeCandidate> candidates)
+    {
+        return candidates.stream()
+                .filter(candidate -> !(candidate.getReductionFactor() < MIN_REDUCTION_FACTOR))
+                .sorted(RANKING)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Extracts the cube able to answer a finished query, or empty if the query is not
+     * a plain aggregation over a single table that a star-tree cube supports.
+     */
+    public static Optional<CubeCandidate> extractCandidate(SqlParser sqlParser, QueryHistoryEntity queryHistory)
+    {
+        if (queryHistory.getQuery() == null) {
+            return Optional.empty();
+        }
+        Statement statement;
+        try {
+            statement = sqlParser.createStatement(queryHistory.getQuery(), new ParsingOptions());
+        }
+        catch (ParsingException e) {
+            return Optional.empty();
+        }
+        if (!(statement instanceof Query)) {
+            return Optional.empty();
+        }
+        Query query = (Query) statement;
+        if (query.getWith().isPresent() || !(query.getQueryBody() instanceof QuerySpecification)) {
+            return Optional.empty();
+        }
+        QuerySpecification specification = (QuerySpecification) query.getQueryBody();
+        Optional<QualifiedObjectName> sourceTable = specification.getFrom().flatMap(relation -> getTableName(relation, queryHistory));
+        if (!sourceTable.isPresent()) {
+            return Optional.empty();
+        }
+
+        List<Expression> selectExpressions = new ArrayList<>();
+        for (SelectItem item : specification.getSelect().getSelectItems()) {
+            if (!(item instanceof SingleColumn)) {
+                return Optional.empty();
+            }
+            selectExpressions.add(((SingleColumn) item).getExpression());
+        }
+
+        Set<String> group = new TreeSet<>();
+        if (specification.getGroupBy().isPresent()) {
+            for (GroupingElement element : specification.getGroupBy().get().getGroupingElements()) {
+                if (!(element instanceof SimpleGroupBy)) {
+                    return Optional.empty();
+                }
+                for (Expression expression : ((SimpleGroupBy) element).getExpressions()) {
+                    Optional<String> column = resolveOrdinal(expression, selectExpressions).flatMap(CubeAdvisor::getColumnName);
+                    if (!column.isPresent()) {
+                        return Optional.empty();
+                    }
+                    group.add(column.get());
+                }
+            }
+        }
+
+        Set<AggregationSignature> aggregations = new TreeSet<>();
+        for (Expression expression : selectExpressions) {
+            if (expression instanceof FunctionCall) {
+                Optional<AggregationSignature> aggregation = getAggregation((FunctionCall) expression);
+                if (!aggregation.isPresent()) {
+                    return Optional.empty();
+                }
+                aggregations.add(aggregation.get());
+            }
+            else if (!getColumnName(expression).filter(group::contains).isPresent()) {
+                return Optional.empty();
+            }
+        }
+        if (specification.getHaving().isPresent()) {
+            List<FunctionCall> calls = preOrder(specification.getHaving().get())
+                    .filter(FunctionCall.class::isInstance)
+                    .map(FunctionCall.class::cast)
+                    .collect(ImmutableList.toImmutableList());
+            for (FunctionCall call : calls) {
+                Optional<AggregationSignature> aggregation = getAggregation(call);
+                if (!aggregation.isPresent()) {
+                    return Optional.empty();
+                }
+                aggregations.add(aggregation.get());
+            }
+        }
+        if (aggregations.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // The cube optimizer can only push down predicates on columns of the cube group
+        Set<String> dimensions = new TreeSet<>(group);
+        if (specification.getWhere().isPresent()) {
+            Expression where = specification.getWhere().get();
+            if (preOrder(where).anyMatch(SubqueryExpression.class::isInstance)) {
+                return Optional.empty();
+            }
+            dimensions.addAll(getColumnReferences(where));
+        }
+
+        // Count distinct can only be answered by a cube whose group matches exactly
+        boolean exactGroup = aggregations.stream().anyMatch(AggregationSignature::isDistinct);
+        if (exactGroup && !group.equals(dimensions)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new CubeCandidate(sourceTable.get(), dimensions, aggregations, exactGroup, 1, getCpuTimeMillis(queryHistory)));
+    }
+
+    /**
+     * Estimates the number of rows of a cube with the given dimensions the way the planner
+     * estimates an aggregation, returning NaN when the statistics of a dimension are unknown.
+     */
+    public static double estimateCubeRows(TableStatistics statistics, Map<String, ColumnHandle> columnHandles, Collection<String> dimensions)
+    {
+        double rowCount = statistics.getRowCount().getValue();
+        if (Double.isNaN(rowCount)) {
+            return NaN;
+        }
+        if (dimensions.isEmpty()) {
+            return Math.min(1, rowCount);
+        }
+
+        PlanNodeStatsEstimate.Builder sourceStats = PlanNodeStatsEstimate.builder().setOutputRowCount(rowCount);
+        List<Symbol> groupBySymbols = new ArrayList<>();
+        for (String dimension : dimensions) {
+            ColumnHandle columnHandle = columnHandles.get(dimension);
+            ColumnStatistics columnStatistics = columnHandle == null ? null : statistics.getColumnStatistics().get(columnHandle);
+            if (columnStatistics == null || columnStatistics.getDistinctValuesCount().isUnknown()) {
+                return NaN;
+            }
+            Symbol symbol = new Symbol(dimension);
+            groupBySymbols.add(symbol);
+            sourceStats.addSymbolStatistics(symbol, SymbolStatsEstimate.builder()
+                    .setDistinctValuesCount(columnStatistics.getDistinctValuesCount().getValue())
+                    .setNullsFraction(columnStatistics.getNullsFraction().getValue())
+                    .build());
+        }
+        return AggregationStatsRule.groupBy(sourceStats.build(), groupBySymbols, ImmutableMap.of()).getOutputRowCount();
+    }
+
+    /**
+     * Builds the CREATE CUBE statement of a candidate.
+     */
+    public static String toCreateCubeStatement(String cubeName, CubeCandidate candidate)
+    {
+        StringJoiner aggregations = new StringJoiner(", ");
+        candidate.getAggregations().forEach(aggregation -> aggregations.add(aggregation.toString()));
+        return "CREATE CUBE " + cubeName +
+                " ON " + candidate.getSourceTable() +
+                " WITH (AGGREGATIONS = (" + aggregations + ")" +
+                ", GROUP = (" + String.join(", ", candidate.getDimensions()) + "))";
+    }
+
+    private static Optional<QualifiedObjectName> getTableName(Relation relation, QueryHistoryEntity queryHistory)
+    {
+        if (relation instanceof AliasedRelation) {
+            relation = ((AliasedRelation) relation).getRelation();
+        }
+        if (!(relation instanceof Table)) {
+            return Optional.empty();
+        }
+        List<String> parts = ((Table) relation).getName().getParts();
+        String catalog = parts.size() > 2 ? parts.get(parts.size() - 3) : queryHistory.getCatalog();
+        String schema = parts.size() > 1 ? parts.get(parts.size() - 2) : queryHistory.getSchemata();
+        if (parts.size() > 3 || isNullOrEmpty(catalog) || isNullOrEmpty(schema)) {
+            return Optional.empty();
+        }
+        return Optional.of(new QualifiedObjectName(catalog.toLowerCase(ENGLISH), schema.toLowerCase(ENGLISH), parts.get(parts.size() - 1).toLowerCase(ENGLISH)));
+    }
+
+    private static Optional<Expression> resolveOrdinal(Expression expression, List<Expression> selectExpressions)
+    {
+        if (expression instanceof LongLiteral) {
+            long ordinal = ((LongLiteral) expression).getValue();
+            if (ordinal < 1 || ordinal > selectExpressions.size()) {
+                return Optional.empty();
+            }
+            return Optional.of(selectExpressions.get((int) ordinal - 1));
+        }
+        return Optional.of(expression);
+    }
+
+    private static Optional<AggregationSignature> getAggregation(FunctionCall call)
+    {
+        String function = call.getName().toString().toLowerCase(ENGLISH);
+        if (!SUPPORTED_FUNCTIONS.contains(function) || call.getWindow().isPresent() || call.getFilter().isPresent() || call.getOrderBy().isPresent()) {
+            return Optional.empty();
+        }
+        List<Expression> arguments = call.getArguments();
+        boolean isCount = function.equals(COUNT.getName());
+        if (isCount && !call.isDistinct() && (arguments.isEmpty() || (arguments.size() == 1 && arguments.get(0) instanceof LongLiteral))) {
+            return Optional.of(AggregationSignature.count());
+        }
+        if (arguments.size() != 1 || (call.isDistinct() && !isCount)) {
+            return Optional.empty();
+        }
+        return getColumnName(arguments.get(0)).map(column -> new AggregationSignature(function, column, call.isDistinct()));
+    }
+
+    private static Optional<String> getColumnName(Expression expression)
+    {
+        if (expression instanceof Identifier) {
+            return Optional.of(((Identifier) expression).getValue().toLowerCase(ENGLISH));
+        }
+        if (expression instanceof DereferenceExpression) {
+            return Optional.of(((DereferenceExpression) expression).getField().getValue().toLowerCase(ENGLISH));
+        }
+        return Optional.empty();
+    }
+
+    private static Set<String> getColumnReferences(Expression expression)
+    {
+        ImmutableSet.Builder<String> columns = ImmutableSet.builder();
+        new DefaultExpressionTraversalVisitor<Void, Void>() {
+            @Override
+            protected Void visitDereferenceExpression(DereferenceExpression node, Void context)
+            {
+                // Columns may be qualified by the table name or alias
+                columns.add(node.getField().getValue().toLowerCase(ENGLISH));
+                return null;
+            }
+
+            @Override
+            protected Void visitIdentifier(Identifier node, Void context)
+            {
+                columns.add(node.getValue().toLowerCase(ENGLISH));
+                return null;
+            }
+        }.process(expression, null);
+        return columns.build();
+    }
+
+    private static long getCpuTimeMillis(QueryHistoryEntity queryHistory)
+    {
+        try {
+            return (long) Duration.valueOf(queryHistory.getTotalCpuTime()).getValue(MILLISECONDS);
+        }
+        catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isNullOrEmpty(String value)
+    {
+        return value == null || value.isEmpty();
+    }
+
+    public static class CubeCandidate
+    {
+        private final QualifiedObjectName sourceTable;
+        private final Set<String> dimensions;
+        private final Set<AggregationSignature> aggregations;
+        private final boolean exactGroup;
+        private final long queryCount;
+        private final long cpuTimeMillis;
+        private final double sourceRows;
+        private final double cubeRows;
+
+        public CubeCandidate(QualifiedObjectName sourceTable, Set<String> dimensions, Set<AggregationSignature> aggregations, boolean exactGroup, long queryCount, long cpuTimeMillis)
+        {
+            this(sourceTable, dimensions, aggregations, exactGroup, queryCount, cpuTimeMillis, NaN, NaN);
+        }
+
+        private CubeCandidate(QualifiedObjectName sourceTable, Set<String> dimensions, Set<AggregationSignature> aggregations, boolean exactGroup, long queryCount, long cpuTimeMillis,
+                double sourceRows, double cubeRows)
+        {
+            this.sourceTable = requireNonNull(sourceTable, "sourceTable is null");
+            this.dimensions = new TreeSet<>(requireNonNull(dimensions, "dimensions is null"));
+            this.aggregations = new TreeSet<>(requireNonNull(aggregations, "aggregations is null"));
+            this.exactGroup = exactGroup;
+            this.queryCount = queryCount;
+            this.cpuTimeMillis = cpuTimeMillis;
+            this.sourceRows = sourceRows;
+            this.cubeRows = cubeRows;
+        }
+
+        /**
+         * Returns a copy of the candidate with the estimated rows of its source table and cube, NaN if unknown.
+         */
+        public CubeCandidate withEstimatedRows(double sourceRows, double cubeRows)
+        {
+            return new CubeCandidate(sourceTable, dimensions, aggregations, exactGroup, queryCount, cpuTimeMillis, sourceRows, cubeRows);
+        }
+
+        public QualifiedObjectName getSourceTable()
+        {
+            return sourceTable;
+        }
+
+        public Set<String> getDimensions()
+        {
+            return dimensions;
+        }
+
+        public Set<AggregationSignature> getAggregations()
+        {
+            return aggregations;
+        }
+
+        public long getQueryCount()
+        {
+            return queryCount;
+        }
+
+        public long getCpuTimeMillis()
+        {
+            return cpuTimeMillis;
+        }
+
+        public double getSourceRows()
+        {
+            return sourceRows;
+        }
+
+        public double getCubeRows()
+        {
+            return cubeRows;
+        }
+
+        /**
+         * Returns how many times fewer rows the cube holds than its source table, or NaN if unknown.
+         */
+        public double getReductionFactor()
+        {
+            if (Double.isNaN(sourceRows) || Double.isNaN(cubeRows) || cubeRows <= 0) {
+                return NaN;
+            }
+            return sourceRows / cubeRows;
+        }
+
+        /**
+         * Returns the cpu time of the covered queries that reading the cube instead of its source table
+         * would save, assuming the cpu time is proportional to the rows read, or NaN if unknown.
+         */
+        public double getEstimatedSavedCpuTimeMillis()
+        {
+            return cpuTimeMillis * (1 - 1 / getReductionFactor());
+        }
+
+        boolean isAnsweredBy(Set<String> cubeDimensions)
+        {
+            return exactGroup ? dimensions.equals(cubeDimensions) : cubeDimensions.containsAll(dimensions);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CubeCandidate that = (CubeCandidate) o;
+            return exactGroup == that.exactGroup &&
+                    queryCount == that.queryCount &&
+                    cpuTimeMillis == that.cpuTimeMillis &&
+                    Double.compare(sourceRows, that.sourceRows) == 0 &&
+                    Double.compare(cubeRows, that.cubeRows) == 0 &&
+                    Objects.equals(sourceTable, that.sourceTable) &&
+                    Objects.equals(dimensions, that.dimensions) &&
+                    Objects.equals(aggregations, that.aggregations);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sourceTable, dimensions, aggregations, exactGroup, queryCount, cpuTimeMillis, sourceRows, cubeRows);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "CubeCandidate{" +
+                    "sourceTable=" + sourceTable +
+                    ", dimensions=" + dimensions +
+                    ", aggregations=" + aggregations +
+                    ", queryCount=" + queryCount +
+                    ", cpuTimeMillis=" + cpuTimeMillis +
+                    ", sourceRows=" + sourceRows +
+                    ", cubeRows=" + cubeRows +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.cube;
+
+import io.hetu.core.spi.cube.CubeMetadata;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.ConstraintApplicationResult;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tracks the source table partitions whose data has been inserted into a cube,
+ * so that a cube remains usable after new partitions are appended to the source table.
+ */
+public class CubeSourcePartitions
+{
+    private CubeSourcePartitions()
+    {
+        //utility class
+    }
+
+    /**
+     * Returns the last modified time of each source table partition matching the predicate,
+     * or empty if the connector cannot report partitions for the table.
+     */
+    public static Optional<Map<String, Long>> getSourcePartitions(Metadata metadata, Session session, TableHandle sourceTableHandle, TupleDomain<ColumnHandle> predicate)
+    {
+        TableHandle tableHandle = sourceTableHandle;
+        if (!predicate.isAll()) {
+            tableHandle = metadata.applyFilter(session, sourceTableHandle, new Constraint(predicate))
+                    .map(ConstraintApplicationResult::getHandle)
+                    .orElse(sourceTableHandle);
+        }
+        return metadata.getPartitionLastModifiedTimes(session, tableHandle);
+    }
+
+    /**
+     * Checks if the cube holds up to date data for the partitions of the source table read by a query.
+     * Every partition read by the query must have been inserted into the cube and not modified since. The cube
+     * must also not hold data of dropped partitions: they are no longer listed, so whether the query would have
+     * read them is unknown, and any dropped partition makes the cube out of date.
+     * Cubes that do not record their source partitions fall back to comparing the table modification time.
+     *
+     * @param queryPartitions partitions matching the query predicate
+     * @param existingPartitions partitions recorded by the cube that still exist in the source table
+     */
+    public static boolean isCubeUpToDate(CubeMetadata cubeMetadata, long tableLastModifiedTime, Optional<Map<String, Long>> queryPartitions, Optional<Set<String>> existingPartitions)
+    {
+        if (cubeMetadata.getSourcePartitions().isEmpty()) {
+            return cubeMetadata.getSourceTableLastUpdatedTime() >= tableLastModifiedTime;
+        }
+        if (!queryPartitions.isPresent() || !existingPartitions.isPresent()) {
+            return false;
+        }
+        return coversPartitions(cubeMetadata, queryPartitions.get()) && !hasDroppedPartitions(cubeMetadata, existingPartitions.get());
+    }
+
+    /**
+     * Checks if every given partition was inserted into the cube and has not been modified since.
+     */
+    public static boolean coversPartitions(CubeMetadata cubeMetadata, Map<String, Long> partitions)
+    {
+        Map<String, Long> cubePartitions = cubeMetadata.getSourcePartitions();
+        return partitions.entrySet().stream()
+                .allMatch(partition -> partition.getValue().equals(cubePartitions.get(partition.getKey())));
+    }
+
+    /**
+     * Checks if any partition inserted into the cube has been dropped from the source table since.
+     */
+    public static boolean hasDroppedPartitions(CubeMetadata cubeMetadata, Set<String> existingPartitions)
+    {
+        return !existingPartitions.containsAll(cubeMetadata.getSourcePartitions().keySet());
+    }
+
+    /**
+     * Checks if any partition inserted into the cube has been modified or dropped since.
+     * Such a cube holds outdated data that can only be fixed by overwriting it.
+     */
+    public static boolean hasModifiedPartitions(CubeMetadata cubeMetadata, Map<String, Long> currentPartitions)
+    {
+        return cubeMetadata.getSourcePartitions().entrySet().stream()
+                .anyMatch(partition -> !partition.getValue().equals(currentPartitions.get(partition.getKey())));
+    }
+
+    /**
+     * Merges the partitions of an incremental insert into the partitions already covered by the cube.
+     */
+    public static Map<String, Long> mergePartitions(Map<String, Long> existingPartitions, Map<String, Long> insertedPartitions)
+    {
+        Map<String, Long> merged = new HashMap<>(insertedPartitions);
+        //Keep the time recorded by the earlier insert so that a modification in between is still detected
+        merged.putAll(existingPartitions);
+        return merged;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.cube;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Remembers the source table partitions looked up while planning a query. The cube rules are
+ * applied repeatedly to the same plan, so without it every application would list the partitions again.
+ * Entries are keyed by query, so a later query always sees the current partitions.
+ */
+public class CubeSourcePartitionsCache
+{
+    private static final long MAX_ENTRIES = 1000;
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 10;
+
+    private final Metadata metadata;
+    private final Cache<List<Object>, Optional<Map<String, Long>>> sourcePartitions = newCache();
+    private final Cache<List<Object>, Optional<Set<String>>> existingPartitions = newCache();
+
+    public CubeSourcePartitionsCache(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    /**
+     * Returns the last modified time of each source table partition matching the predicate.
+     *
+     * @see CubeSourcePartitions#getSourcePartitions
+     */
+    public Optional<Map<String, Long>> getSourcePartitions(Session session, TableHandle sourceTableHandle, TupleDomain<ColumnHandle> predicate)
+    {
+        List<Object> key = ImmutableList.of(session.getQueryId(), sourceTableHandle, predicate);
+        Optional<Map<String, Long>> partitions = sourcePartitions.getIfPresent(key);
+        if (partitions == null) {
+            partitions = CubeSourcePartitions.getSourcePartitions(metadata, session, sourceTableHandle, predicate);
+            sourcePartitions.put(key, partitions);
+        }
+        return partitions;
+    }
+
+    /**
+     * Returns which of the given source table partitions still exist. Only the catalog is consulted,
+     * so the lookup stays cheap even though the partitions are not read by the query.
+     */
+    public Optional<Set<String>> getExistingPartitions(Session session, TableHandle sourceTableHandle, Set<String> partitionNames)
+    {
+        List<Object> key = ImmutableList.of(session.getQueryId(), sourceTableHandle, ImmutableSet.copyOf(partitionNames));
+        Optional<Set<String>> partitions = existingPartitions.getIfPresent(key);
+        if (partitions == null) {
+            partitions = metadata.getExistingPartitionNames(session, sourceTableHandle, partitionNames);
+            existingPartitions.put(key, partitions);
+        }
+        return partitions;
+    }
+
+    private static <V> Cache<List<Object>, V> newCache()
+    {
+        return CacheBuilder.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, MINUTES)
+                .build();
+    }
+}
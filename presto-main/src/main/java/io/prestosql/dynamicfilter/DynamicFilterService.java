@@ -50,6 +50,7 @@ import io.prestosql.sql.planner.SubPlan;
 import io.prestosql.sql.planner.optimizations.PlanNodeSearcher;
 import io.prestosql.sql.planner.plan.SemiJoinNode;
 import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.statestore.listener.StateStoreListenerManager;
 import io.prestosql.utils.DynamicFilterUtils;
 
 import javax.annotation.PostConstruct;
@@ -58,6 +59,7 @@ import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -97,6 +99,7 @@ import static io.prestosql.spi.statestore.StateCollection.Type.SET;
 import static io.prestosql.sql.DynamicFilters.extractDynamicFilters;
 import static io.prestosql.sql.planner.ExpressionExtractor.extractExpressions;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static io.prestosql.utils.DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS;
 import static io.prestosql.utils.DynamicFilterUtils.createKey;
 import static io.prestosql.utils.DynamicFilterUtils.findFilterNodeInStage;
 import static io.prestosql.utils.DynamicFilterUtils.getDynamicFilterDataType;
@@ -108,10 +111,17 @@ public class DynamicFilterService
     private final ScheduledExecutorService filterMergeExecutor;
     private static final int THREAD_POOL_SIZE = 1;
     private static final int MERGE_DYNAMIC_FILTER_INTERVAL = 1;
+    // once a listener for published partial filters is registered, filters are merged as soon as their last task
+    // publishes, see onPartialDynamicFilterPublished, and the periodic merge only catches missed publish events
+    private static final long FALLBACK_MERGE_DYNAMIC_FILTER_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
     private ScheduledFuture<?> backgroundTask;
+    private volatile boolean partialDynamicFilterListenerRegistered;
+    private long lastMergeNanos;
 
     private final Map<String, Map<String, DynamicFilterRegistryInfo>> dynamicFilters = new ConcurrentHashMap<>();
     private final Map<String, CopyOnWriteArraySet<TaskId>> dynamicFiltersToTask = new ConcurrentHashMap<>();
+    // tasks collection key of each registered filter -> query id and filter id
+    private final Map<String, Entry<String, String>> registeredTaskCollections = new ConcurrentHashMap<>();
     private static final Map<String, Map<String, DynamicFilter>> cachedDynamicFilters = new HashMap<>();
     private final List<String> finishedQuery = Collections.synchronizedList(new ArrayList<>());
     private List<QueryId> registeredQueries = new ArrayList<>();
@@ -139,6 +149,10 @@ public class DynamicFilterService
         checkState(backgroundTask == null, "Dynamic filter merger already started");
         backgroundTask = filterMergeExecutor.scheduleWithFixedDelay(() -> {
             try {
+                if (partialDynamicFilterListenerRegistered && System.nanoTime() - lastMergeNanos < FALLBACK_MERGE_DYNAMIC_FILTER_INTERVAL_NANOS) {
+                    return;
+                }
+                lastMergeNanos = System.nanoTime();
                 if (this.stateStoreProvider.getStateStore() != null) {
                     mergeDynamicFilters();
                     removeFinishedQuery();
@@ -159,81 +173,130 @@ public class DynamicFilterService
         filterMergeExecutor.shutdownNow();
     }
 
+    /**
+     * Listens for the tasks publishing their partial dynamic filters, so that the filters are merged without polling
+     *
+     * @param listenerManager the State Store listener manager
+     */
+    public void registerPartialDynamicFilterListener(StateStoreListenerManager listenerManager)
+    {
+        if (listenerManager.addStateStoreListener(new PartialDynamicFilterListener(this), PUBLISHED_PARTIAL_DYNAMIC_FILTERS)) {
+            partialDynamicFilterListenerRegistered = true;
+        }
+    }
+
+    /**
+     * Invoked when a task has published its partial result for a dynamic filter, merges the filter
+     * right away once all the tasks registered for it have published
+     *
+     * @param publishedKey key of the published event, as created by {@link DynamicFilterUtils#createPublishedKey}
+     */
+    public void onPartialDynamicFilterPublished(String publishedKey)
+    {
+        int separator = publishedKey.lastIndexOf(DynamicFilterUtils.TASK_SEPARATOR);
+        if (separator < 0) {
+            return;
+        }
+        // filters of queries managed by other coordinators are not registered here
+        Entry<String, String> filter = registeredTaskCollections.get(publishedKey.substring(0, separator));
+        if (filter == null) {
+            return;
+        }
+        // merging happens on the same thread as the periodic merge, so that each filter is merged only once
+        filterMergeExecutor.execute(() -> {
+            try {
+                if (stateStoreProvider.getStateStore() != null) {
+                    mergeDynamicFilter(filter.getKey(), filter.getValue());
+                }
+            }
+            catch (Exception e) {
+                log.error("Error merging Dynamic Filters: " + e.getMessage());
+            }
+        });
+    }
+
     /**
      * Global Dynamic Filter merging, periodically looks for dynamic filters that can be merged and merges them
      */
     private void mergeDynamicFilters()
     {
-        final StateStore stateStore = stateStoreProvider.getStateStore();
         for (Map.Entry<String, Map<String, DynamicFilterRegistryInfo>> queryToDynamicFiltersEntry : dynamicFilters.entrySet()) {
-            final String queryId = queryToDynamicFiltersEntry.getKey();
-            if (!cachedDynamicFilters.containsKey(queryId)) {
-                cachedDynamicFilters.put(queryId, new ConcurrentHashMap<>());
+            for (String filterId : queryToDynamicFiltersEntry.getValue().keySet()) {
+                mergeDynamicFilter(queryToDynamicFiltersEntry.getKey(), filterId);
             }
-            Map<String, DynamicFilter> cachedDynamicFiltersForQuery = cachedDynamicFilters.get(queryId);
-            StateMap mergedDynamicFilters = (StateMap) stateStore.getOrCreateStateCollection(DynamicFilterUtils.MERGED_DYNAMIC_FILTERS, MAP);
-
-            for (Map.Entry<String, DynamicFilterRegistryInfo> columnToDynamicFilterEntry : queryToDynamicFiltersEntry.getValue().entrySet()) {
-                if (columnToDynamicFilterEntry.getValue().isMerged()) {
-                    continue;
-                }
+        }
+    }
 
-                final String filterId = columnToDynamicFilterEntry.getKey();
-                final Type filterType = columnToDynamicFilterEntry.getValue().getType();
-                final DataType filterDataType = columnToDynamicFilterEntry.getValue().getDataType();
-                final Optional<Predicate<List>> dfFilter = columnToDynamicFilterEntry.getValue().getFilter();
-                final Symbol column = columnToDynamicFilterEntry.getValue().getSymbol();
-                final String filterKey = createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
+    private void mergeDynamicFilter(String queryId, String filterId)
+    {
+        Map<String, DynamicFilterRegistryInfo> filters = dynamicFilters.get(queryId);
+        DynamicFilterRegistryInfo registryInfo = filters == null ? null : filters.get(filterId);
+        if (registryInfo == null || registryInfo.isMerged()) {
+            return;
+        }
 
-                if (!hasMergeCondition(filterId, queryId)) {
-                    continue;
-                }
+        final StateStore stateStore = stateStoreProvider.getStateStore();
+        if (!cachedDynamicFilters.containsKey(queryId)) {
+            cachedDynamicFilters.put(queryId, new ConcurrentHashMap<>());
+        }
+        Map<String, DynamicFilter> cachedDynamicFiltersForQuery = cachedDynamicFilters.get(queryId);
 
-                Collection<Object> results = ((StateSet) stateStore.getStateCollection(createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId))).getAll();
-                try {
-                    DynamicFilter mergedFilter;
-                    if (filterDataType == BLOOM_FILTER) {
-                        BloomFilter mergedBloomFilter = mergeBloomFilters(results);
-                        if (mergedBloomFilter.expectedFpp() > DynamicFilterUtils.BLOOM_FILTER_EXPECTED_FPP) {
-                            throw new PrestoException(GENERIC_INTERNAL_ERROR, "FPP too high: " + mergedBloomFilter.approximateElementCount());
-                        }
-                        mergedFilter = new BloomFilterDynamicFilter(filterKey, null, mergedBloomFilter, filterType);
+        final Type filterType = registryInfo.getType();
+        final DataType filterDataType = registryInfo.getDataType();
+        final Optional<Predicate<List>> dfFilter = registryInfo.getFilter();
+        final Symbol column = registryInfo.getSymbol();
+        final String filterKey = createKey(DynamicFilterUtils.FILTERPREFIX, filterId, queryId);
 
-                        if (filterType == GLOBAL) {
-                            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-                                mergedBloomFilter.writeTo(out);
-                                byte[] filter = out.toByteArray();
-                                mergedDynamicFilters.put(filterKey, filter);
-                            }
-                        }
-                    }
-                    else if (filterDataType == HASHSET) {
-                        Set mergedSet = mergeHashSets(results);
-                        mergedFilter = DynamicFilterFactory.create(filterKey, null, mergedSet, filterType, dfFilter, Optional.empty());
+        if (!hasMergeCondition(filterId, queryId)) {
+            return;
+        }
 
-                        mergedFilter.setMinMax();
+        // the merged filters are only written here and pushed to the workers by the state store listener,
+        // look the map up once the filter can be merged rather than on every poll
+        StateMap mergedDynamicFilters = (StateMap) stateStore.getOrCreateStateCollection(DynamicFilterUtils.MERGED_DYNAMIC_FILTERS, MAP);
+        Collection<Object> results = ((StateSet) stateStore.getStateCollection(createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId))).getAll();
+        try {
+            DynamicFilter mergedFilter;
+            if (filterDataType == BLOOM_FILTER) {
+                BloomFilter mergedBloomFilter = mergeBloomFilters(results);
+                if (mergedBloomFilter.expectedFpp() > DynamicFilterUtils.BLOOM_FILTER_EXPECTED_FPP) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "FPP too high: " + mergedBloomFilter.approximateElementCount());
+                }
+                mergedFilter = new BloomFilterDynamicFilter(filterKey, null, mergedBloomFilter, filterType);
 
-                        if (filterType == GLOBAL) {
-                            mergedDynamicFilters.put(filterKey, mergedSet);
-                        }
-                    }
-                    else {
-                        throw new PrestoException(GENERIC_INTERNAL_ERROR, "Unsupported filter data type: " + filterDataType);
+                if (filterType == GLOBAL) {
+                    try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                        mergedBloomFilter.writeTo(out);
+                        byte[] filter = out.toByteArray();
+                        mergedDynamicFilters.put(filterKey, filter);
                     }
-
-                    log.debug("Merged successfully dynamic filter id: "
-                            + filterId + "-" + queryId + " type: " + filterDataType
-                            + ", column: " + column + ", item count: " + mergedFilter.getSize());
-                    cachedDynamicFiltersForQuery.put(filterId, mergedFilter);
-                }
-                catch (IOException | PrestoException e) {
-                    log.warn("Could not merge dynamic filter: " + e.getLocalizedMessage());
                 }
-                finally {
-                    // for each dynamic filter we only try to merge it once
-                    columnToDynamicFilterEntry.getValue().setMerged();
+            }
+            else if (filterDataType == HASHSET) {
+                Set mergedSet = mergeHashSets(results);
+                mergedFilter = DynamicFilterFactory.create(filterKey, null, mergedSet, filterType, dfFilter, Optional.empty());
+
+                mergedFilter.setMinMax();
+
+                if (filterType == GLOBAL) {
+                    mergedDynamicFilters.put(filterKey, mergedSet);
                 }
             }
+            else {
+                throw new PrestoException(GENERIC_INTERNAL_ERROR, "Unsupported filter data type: " + filterDataType);
+            }
+
+            log.debug("Merged successfully dynamic filter id: "
+                    + filterId + "-" + queryId + " type: " + filterDataType
+                    + ", column: " + column + ", item count: " + mergedFilter.getSize());
+            cachedDynamicFiltersForQuery.put(filterId, mergedFilter);
+        }
+        catch (IOException | PrestoException e) {
+            log.warn("Could not merge dynamic filter: " + e.getLocalizedMessage());
+        }
+        finally {
+            // for each dynamic filter we only try to merge it once
+            registryInfo.setMerged();
         }
     }
 
@@ -361,6 +424,7 @@ public class DynamicFilterService
                 dynamicFiltersToTask.putIfAbsent(filterId + "-" + queryId, new CopyOnWriteArraySet<>());
                 CopyOnWriteArraySet<TaskId> taskSet = dynamicFiltersToTask.get(filterId + "-" + queryId);
                 taskSet.addAll(taskIds);
+                registeredTaskCollections.put(createKey(DynamicFilterUtils.TASKSPREFIX, filterId, queryId), new SimpleImmutableEntry<>(queryId, filterId));
                 log.debug("registerTasks source " + filterId + " filters:" + filters + ", workers: "
                         + workers.stream().map(x -> x.getNodeIdentifier()).collect(Collectors.joining(",")) +
                         ", taskIds: " + taskIds.stream().map(TaskId::toString).collect(Collectors.joining(",")));
@@ -378,6 +442,16 @@ public class DynamicFilterService
         synchronized (finishedQuery) {
             finishedQuery.add(queryId);
         }
+        filterMergeExecutor.execute(() -> {
+            try {
+                if (stateStoreProvider.getStateStore() != null) {
+                    removeFinishedQuery();
+                }
+            }
+            catch (Exception e) {
+                log.error("Error removing Dynamic Filters: " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -389,10 +463,20 @@ public class DynamicFilterService
     private void clearPartialResults(String filterId, String queryId)
     {
         StateStore stateStore = stateStoreProvider.getStateStore();
+        String tasksKey = createKey(DynamicFilterUtils.TASKSPREFIX, filterId, queryId);
         if (stateStore != null) {
             clearStatesInStateStore(stateStore, createKey(DynamicFilterUtils.PARTIALPREFIX, filterId, queryId));
-            clearStatesInStateStore(stateStore, createKey(DynamicFilterUtils.TASKSPREFIX, filterId, queryId));
+            clearStatesInStateStore(stateStore, tasksKey);
+
+            StateMap publishedPartialFilters = (StateMap) stateStore.getStateCollection(DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS);
+            Set<TaskId> taskIds = dynamicFiltersToTask.get(filterId + "-" + queryId);
+            if (publishedPartialFilters != null && taskIds != null) {
+                publishedPartialFilters.removeAll(taskIds.stream()
+                        .map(taskId -> DynamicFilterUtils.createPublishedKey(filterId, queryId, taskId.toString()))
+                        .collect(Collectors.toSet()));
+            }
         }
+        registeredTaskCollections.remove(tasksKey);
         dynamicFiltersToTask.remove(filterId + "-" + queryId);
     }
 
@@ -43,6 +43,8 @@ public class FileSystemExchangeConfig
     private int exchangeSinkBuffersPerPartition = 2;
     private DataSize exchangeSinkMaxFileSize = new DataSize(1, GIGABYTE);
     private int exchangeSourceConcurrentReaders = 4;
+    private int exchangeSinkWriterThreads = 8;
+    private DataSize exchangeSinkMaxInFlightSize = new DataSize(64, MEGABYTE);
     private int maxOutputPartitionCount = 50;
     private int exchangeFileListingParallelism = 50;
     private String exchangeFilesystemType = "local";
@@ -155,6 +157,34 @@ public class FileSystemExchangeConfig
         return this;
     }
 
+    @Min(1)
+    public int getExchangeSinkWriterThreads()
+    {
+        return exchangeSinkWriterThreads;
+    }
+
+    @Config("exchange.sink-writer-threads")
+    @ConfigDescription("Number of threads writing the exchange sink files in the background")
+    public FileSystemExchangeConfig setExchangeSinkWriterThreads(int exchangeSinkWriterThreads)
+    {
+        this.exchangeSinkWriterThreads = exchangeSinkWriterThreads;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getExchangeSinkMaxInFlightSize()
+    {
+        return exchangeSinkMaxInFlightSize;
+    }
+
+    @Config("exchange.sink-max-in-flight-size")
+    @ConfigDescription("Max size of the data handed to the background writers but not yet written; sinks are blocked above it")
+    public FileSystemExchangeConfig setExchangeSinkMaxInFlightSize(DataSize exchangeSinkMaxInFlightSize)
+    {
+        this.exchangeSinkMaxInFlightSize = exchangeSinkMaxInFlightSize;
+        return this;
+    }
+
     @Min(1)
     public int getExchangeSourceConcurrentReaders()
     {
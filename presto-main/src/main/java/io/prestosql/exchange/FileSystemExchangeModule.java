@@ -32,6 +32,7 @@ public class FileSystemExchangeModule
 
         buildConfigObject(FileSystemExchangeConfig.class);
         binder.bind(FileSystemExchangeStorage.class).to(HetuFileSystemExchangeStorage.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(FileSystemExchangeStorage.class).withGeneratedName();
 
         binder.bind(FileSystemExchangeManager.class).in(Scopes.SINGLETON);
     }
@@ -134,6 +134,11 @@ public class FileSystemExchangeSink
     @Override
     public CompletableFuture<Void> isBlocked()
     {
+        // the writers write behind, so the sink is blocked both by the free buffers and by the bytes not yet written
+        ListenableFuture<Void> writeBlocked = exchangeStorage.isWriteBlocked();
+        if (!writeBlocked.isDone()) {
+            return toCompletableFuture(writeBlocked);
+        }
         return (bufferPool != null) ? bufferPool.isBlocked() : NOT_BLOCKED;
     }
 
@@ -410,7 +415,8 @@ public class FileSystemExchangeSink
                 currentFileSize = 0;
             }
 
-            currentWriter.write(page, directSerde);
+            ListenableFuture<Void> writeFuture = currentWriter.write(page, directSerde);
+            addExceptionCallback(writeFuture, throwable -> failure.compareAndSet(null, throwable));
             currentFileSize += requiredPageStorageSize;
         }
 
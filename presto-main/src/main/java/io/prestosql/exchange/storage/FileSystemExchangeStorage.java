@@ -46,6 +46,11 @@ public interface FileSystemExchangeStorage
 
     int getWriterBufferSize();
 
+    /**
+     * Completes when the data handed to the exchange writers but not yet written falls below the configured limit.
+     */
+    ListenableFuture<Void> isWriteBlocked();
+
     @Override
     void close() throws IOException;
 }
@@ -18,9 +18,12 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.exchange.ExchangeSourceFile;
 import io.prestosql.exchange.FileStatus;
+import io.prestosql.exchange.FileSystemExchangeConfig;
 import io.prestosql.exchange.FileSystemExchangeConfig.DirectSerialisationType;
 import io.prestosql.spi.filesystem.HetuFileSystemClient;
+import org.weakref.jmx.Managed;
 
+import javax.annotation.PreDestroy;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.inject.Inject;
@@ -33,11 +36,14 @@ import java.security.spec.AlgorithmParameterSpec;
 import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Math.toIntExact;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class HetuFileSystemExchangeStorage
         implements FileSystemExchangeStorage
@@ -45,13 +51,22 @@ public class HetuFileSystemExchangeStorage
     private HetuFileSystemClient fileSystemClient;
     private final AlgorithmParameterSpec algorithmParameterSpec;
     private static final int BUFFER_SIZE_IN_BYTES = toIntExact(new DataSize(4, KILOBYTE).toBytes());
+    private final ExecutorService writerExecutor;
+    private final InFlightWriteLimiter inFlightWriteLimiter;
 
-    @Inject
     public HetuFileSystemExchangeStorage()
+    {
+        this(new FileSystemExchangeConfig());
+    }
+
+    @Inject
+    public HetuFileSystemExchangeStorage(FileSystemExchangeConfig config)
     {
         byte[] iv = new byte[16];
         new SecureRandom().nextBytes(iv);
         this.algorithmParameterSpec = new IvParameterSpec(iv);
+        this.writerExecutor = newFixedThreadPool(config.getExchangeSinkWriterThreads(), daemonThreadsNamed("exchange-storage-writer-%s"));
+        this.inFlightWriteLimiter = new InFlightWriteLimiter(config.getExchangeSinkMaxInFlightSize().toBytes());
     }
 
     public void setFileSystemClient(HetuFileSystemClient fsClient)
@@ -132,9 +147,23 @@ public class HetuFileSystemExchangeStorage
         return BUFFER_SIZE_IN_BYTES;
     }
 
+    @Override
+    public ListenableFuture<Void> isWriteBlocked()
+    {
+        return inFlightWriteLimiter.isBlocked();
+    }
+
+    @Managed
+    public long getInFlightWriteBytes()
+    {
+        return inFlightWriteLimiter.getInFlightBytes();
+    }
+
+    @PreDestroy
     @Override
     public void close()
     {
+        writerExecutor.shutdownNow();
     }
 
     @Override
@@ -146,6 +175,6 @@ public class HetuFileSystemExchangeStorage
     @Override
     public ExchangeStorageWriter createExchangeWriter(URI file, Optional<SecretKey> secretKey, boolean exchangeCompressionEnabled, DirectSerialisationType directSerialisationType, int directSerialisationBufferSize)
     {
-        return new HetuFileSystemExchangeWriter(file, fileSystemClient, secretKey, exchangeCompressionEnabled, algorithmParameterSpec, directSerialisationType, directSerialisationBufferSize);
+        return new HetuFileSystemExchangeWriter(file, fileSystemClient, secretKey, exchangeCompressionEnabled, algorithmParameterSpec, directSerialisationType, directSerialisationBufferSize, writerExecutor, inFlightWriteLimiter);
     }
 }
@@ -15,7 +15,9 @@ package io.prestosql.exchange.storage;
 
 import com.esotericsoftware.kryo.io.Output;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.compress.snappy.SnappyFramedOutputStream;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.Slice;
 import io.hetu.core.transport.execution.buffer.PagesSerde;
@@ -41,49 +43,80 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
-import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.MoreExecutors.newSequentialExecutor;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.util.Objects.requireNonNull;
 
+/**
+ * Writes one exchange file behind the caller: the data is handed to a sequential executor backed by the
+ * shared storage writer pool, so files of different partitions are written concurrently while the writes
+ * of one file keep their order. The returned futures complete once the data has reached the output stream.
+ * Pages serialized by the writer are retained until written, and accounted in {@link #getRetainedSize()}, so that
+ * the bytes in flight count towards the memory of the query owning the exchange sink.
+ */
 public class HetuFileSystemExchangeWriter
         implements ExchangeStorageWriter
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(HetuFileSystemExchangeWriter.class).instanceSize();
     private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
-    private final OutputStream outputStream;
+    private final URI file;
+    private final HetuFileSystemClient fileSystemClient;
+    private final Optional<SecretKey> secretKey;
+    private final boolean exchangeCompressionEnabled;
+    private final AlgorithmParameterSpec algorithmParameterSpec;
     private final DirectSerialisationType directSerialisationType;
     private final int directSerialisationBufferSize;
+    private final Executor executor;
+    private final InFlightWriteLimiter inFlightWriteLimiter;
+    private final AtomicLong serializedBytes = new AtomicLong();
+
+    // only accessed by the tasks of the sequential executor
+    private OutputStream outputStream;
+    private Throwable failure;
+    private volatile boolean aborted;
 
-    public HetuFileSystemExchangeWriter(URI file, HetuFileSystemClient fileSystemClient, Optional<SecretKey> secretKey, boolean exchangeCompressionEnabled, AlgorithmParameterSpec algorithmParameterSpec, FileSystemExchangeConfig.DirectSerialisationType directSerialisationType, int directSerialisationBufferSize)
+    public HetuFileSystemExchangeWriter(URI file, HetuFileSystemClient fileSystemClient, Optional<SecretKey> secretKey, boolean exchangeCompressionEnabled, AlgorithmParameterSpec algorithmParameterSpec, FileSystemExchangeConfig.DirectSerialisationType directSerialisationType, int directSerialisationBufferSize, Executor writerExecutor, InFlightWriteLimiter inFlightWriteLimiter)
     {
+        this.file = requireNonNull(file, "file is null");
+        this.fileSystemClient = requireNonNull(fileSystemClient, "fileSystemClient is null");
+        this.secretKey = requireNonNull(secretKey, "secretKey is null");
+        this.exchangeCompressionEnabled = exchangeCompressionEnabled;
+        this.algorithmParameterSpec = algorithmParameterSpec;
         this.directSerialisationBufferSize = directSerialisationBufferSize;
         this.directSerialisationType = directSerialisationType;
+        this.executor = newSequentialExecutor(requireNonNull(writerExecutor, "writerExecutor is null"));
+        this.inFlightWriteLimiter = requireNonNull(inFlightWriteLimiter, "inFlightWriteLimiter is null");
+    }
+
+    private OutputStream createOutputStream()
+    {
         try {
             Path path = Paths.get(file.toString());
             if (secretKey.isPresent() && exchangeCompressionEnabled) {
                 Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
                 cipher.init(Cipher.ENCRYPT_MODE, secretKey.get(), algorithmParameterSpec);
-                this.outputStream = new SnappyFramedOutputStream(new CipherOutputStream(fileSystemClient.newOutputStream(path), cipher));
+                return new SnappyFramedOutputStream(new CipherOutputStream(fileSystemClient.newOutputStream(path), cipher));
             }
             else if (secretKey.isPresent()) {
                 Cipher cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
                 cipher.init(Cipher.ENCRYPT_MODE, secretKey.get(), algorithmParameterSpec);
-                this.outputStream = new CipherOutputStream(fileSystemClient.newOutputStream(path), cipher);
+                return new CipherOutputStream(fileSystemClient.newOutputStream(path), cipher);
             }
             else if (exchangeCompressionEnabled) {
-                this.outputStream = new SnappyFramedOutputStream(new OutputStreamSliceOutput(fileSystemClient.newOutputStream(path), directSerialisationBufferSize));
+                return new SnappyFramedOutputStream(new OutputStreamSliceOutput(fileSystemClient.newOutputStream(path), directSerialisationBufferSize));
             }
             else {
                 if (directSerialisationType == DirectSerialisationType.KRYO) {
-                    this.outputStream = new Output(fileSystemClient.newOutputStream(path), directSerialisationBufferSize);
-                }
-                else if (directSerialisationType == DirectSerialisationType.JAVA) {
-                    this.outputStream = new OutputStreamSliceOutput(fileSystemClient.newOutputStream(path), directSerialisationBufferSize);
+                    return new Output(fileSystemClient.newOutputStream(path), directSerialisationBufferSize);
                 }
                 else {
-                    this.outputStream = new OutputStreamSliceOutput(fileSystemClient.newOutputStream(path), directSerialisationBufferSize);
+                    return new OutputStreamSliceOutput(fileSystemClient.newOutputStream(path), directSerialisationBufferSize);
                 }
             }
         }
@@ -96,50 +129,147 @@ public class HetuFileSystemExchangeWriter
     @Override
     public ListenableFuture<Void> write(Slice slice)
     {
-        try {
-            outputStream.write(slice.getBytes());
-        }
-        catch (IOException | RuntimeException e) {
-            return immediateFailedFuture(e);
-        }
-        return immediateFuture(null);
+        // the slice is owned by the caller until the returned future completes, so it is written without a copy
+        return submitWrite(slice.length(), output -> {
+            if (slice.hasByteArray()) {
+                output.write(slice.byteArray(), slice.byteArrayOffset(), slice.length());
+            }
+            else {
+                output.write(slice.getBytes());
+            }
+        });
     }
 
     @Override
     public ListenableFuture<Void> write(Page page, PagesSerde serde)
     {
         checkState(directSerialisationType != DirectSerialisationType.OFF, "Should be used with direct serialization is enabled!");
-        serde.serialize(outputStream, page);
-        return immediateFuture(null);
+        // the serde is not thread safe, so the page is serialized on the caller thread and only the bytes are written behind
+        if (directSerialisationType == DirectSerialisationType.KRYO) {
+            Output buffer = new Output(directSerialisationBufferSize, -1);
+            serde.serialize(buffer, page);
+            byte[] bytes = buffer.getBuffer();
+            int length = buffer.position();
+            return retain(bytes.length, submitWrite(length, output -> output.write(bytes, 0, length)));
+        }
+        DynamicSliceOutput buffer = new DynamicSliceOutput(directSerialisationBufferSize);
+        serde.serialize(buffer, page);
+        Slice slice = buffer.slice();
+        return retain(buffer.getRetainedSize(), submitWrite(slice.length(), output -> output.write(slice.byteArray(), slice.byteArrayOffset(), slice.length())));
+    }
+
+    private ListenableFuture<Void> retain(long retainedBytes, ListenableFuture<Void> future)
+    {
+        serializedBytes.addAndGet(retainedBytes);
+        future.addListener(() -> serializedBytes.addAndGet(-retainedBytes), directExecutor());
+        return future;
+    }
+
+    private ListenableFuture<Void> submitWrite(long bytes, StreamWriter writer)
+    {
+        inFlightWriteLimiter.reserve(bytes);
+        ListenableFuture<Void> future = submit(() -> {
+            if (!aborted) {
+                writer.write(getOutputStream());
+            }
+        }, false);
+        future.addListener(() -> inFlightWriteLimiter.release(bytes), directExecutor());
+        return future;
     }
 
     @Override
     public ListenableFuture<Void> finish()
     {
-        try {
+        return submit(() -> getOutputStream().close(), true);
+    }
+
+    @Override
+    public ListenableFuture<Void> abort()
+    {
+        // pending writes are skipped, only the stream is closed
+        aborted = true;
+        return submit(this::closeOutputStream, true);
+    }
+
+    private OutputStream getOutputStream()
+    {
+        if (outputStream == null) {
+            outputStream = createOutputStream();
+        }
+        return outputStream;
+    }
+
+    private void closeOutputStream()
+            throws IOException
+    {
+        if (outputStream != null) {
             outputStream.close();
         }
-        catch (IOException | RuntimeException e) {
-            return immediateFailedFuture(e);
+    }
+
+    /**
+     * Runs the task behind the previous ones. Once a task failed, the following ones fail with the same error,
+     * but closing tasks still close the output stream, so that it is not leaked.
+     */
+    private ListenableFuture<Void> submit(StreamTask task, boolean closing)
+    {
+        SettableFuture<Void> future = SettableFuture.create();
+        try {
+            executor.execute(() -> {
+                if (failure != null) {
+                    if (closing) {
+                        closeAfterFailure();
+                    }
+                    future.setException(failure);
+                    return;
+                }
+                try {
+                    task.run();
+                    future.set(null);
+                }
+                catch (IOException | RuntimeException e) {
+                    failure = e;
+                    future.setException(e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // the sequential executor only rejects when none of its tasks is running, so the stream can be closed here
+            if (closing) {
+                closeAfterFailure();
+            }
+            future.setException(e);
         }
-        return immediateFuture(null);
+        return future;
     }
 
-    @Override
-    public ListenableFuture<Void> abort()
+    private void closeAfterFailure()
     {
         try {
-            outputStream.close();
+            closeOutputStream();
         }
         catch (IOException | RuntimeException e) {
-            return immediateFailedFuture(e);
+            if (failure != null && failure != e) {
+                failure.addSuppressed(e);
+            }
         }
-        return immediateFuture(null);
     }
 
     @Override
     public long getRetainedSize()
     {
-        return INSTANCE_SIZE;
+        return INSTANCE_SIZE + serializedBytes.get();
+    }
+
+    private interface StreamTask
+    {
+        void run()
+                throws IOException;
+    }
+
+    private interface StreamWriter
+    {
+        void write(OutputStream output)
+                throws IOException;
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.exchange.storage;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+
+/**
+ * Accounts for the bytes handed to the exchange writers but not yet written to storage.
+ * Reserving never blocks; once the limit is exceeded, {@link #isBlocked()} returns a future
+ * that completes when enough writes have finished, so that the sinks can stop their producers.
+ */
+@ThreadSafe
+class InFlightWriteLimiter
+{
+    private static final ListenableFuture<Void> NOT_BLOCKED = immediateFuture(null);
+
+    private final long maxInFlightBytes;
+    @GuardedBy("this")
+    private long inFlightBytes;
+    @GuardedBy("this")
+    private SettableFuture<Void> notFull;
+
+    public InFlightWriteLimiter(long maxInFlightBytes)
+    {
+        checkArgument(maxInFlightBytes > 0, "maxInFlightBytes must be positive");
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public synchronized void reserve(long bytes)
+    {
+        inFlightBytes += bytes;
+    }
+
+    public void release(long bytes)
+    {
+        SettableFuture<Void> future = null;
+        synchronized (this) {
+            inFlightBytes -= bytes;
+            if (inFlightBytes < maxInFlightBytes && notFull != null) {
+                future = notFull;
+                notFull = null;
+            }
+        }
+        if (future != null) {
+            future.set(null);
+        }
+    }
+
+    public synchronized ListenableFuture<Void> isBlocked()
+    {
+        if (inFlightBytes < maxInFlightBytes) {
+            return NOT_BLOCKED;
+        }
+        if (notFull == null) {
+            notFull = SettableFuture.create();
+        }
+        return notFull;
+    }
+
+    public synchronized long getInFlightBytes()
+    {
+        return inFlightBytes;
+    }
+}
@@ -15,6 +15,7 @@
 package io.prestosql.execution;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.spi.statestore.StateMap;
@@ -23,6 +24,9 @@ import io.prestosql.statestore.StateStoreConstants;
 import io.prestosql.statestore.StateStoreProvider;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -96,18 +100,29 @@ public class SplitCacheStateUpdater
         }
         StateMap<String, String> stateMap = (StateMap<String, String>) stateStore.getStateCollection(StateStoreConstants.SPLIT_CACHE_METADATA_NAME);
 
-        splitCacheMap.getAndClearDroppedCaches().forEach(stateMap::remove);
+        Set<String> droppedCaches = ImmutableSet.copyOf(splitCacheMap.getAndClearDroppedCaches());
+        if (!droppedCaches.isEmpty()) {
+            stateMap.removeAll(droppedCaches);
+        }
 
-        splitCacheMap.tableCacheInfoMap().forEach((fqTableName, localCacheInfo) -> {
+        //Read all the tables in one call and write the updated ones in one batch
+        Map<String, TableCacheInfo> localCacheInfos = splitCacheMap.tableCacheInfoMap();
+        if (localCacheInfos.isEmpty()) {
+            return;
+        }
+        Map<String, String> stateStoreCacheInfos = stateMap.getAll(ImmutableSet.copyOf(localCacheInfos.keySet()));
+        Map<String, String> updatedCacheInfos = new HashMap<>();
+        localCacheInfos.forEach((fqTableName, localCacheInfo) -> {
             try {
                 //Async update works only when new cache predicates added and splits are scheduled or updated
                 //It does not perform merge also in case if both local info and state store are updated.
                 //The logic is very simple. Only update state store if local copy is more recent than the one in state store.
-                TableCacheInfo stateStoreCacheInfo = stateMap.containsKey(fqTableName) ? mapper.readerFor(TableCacheInfo.class).readValue(stateMap.get(fqTableName)) : null;
+                String stateStoreJson = stateStoreCacheInfos.get(fqTableName);
+                TableCacheInfo stateStoreCacheInfo = stateStoreJson != null ? mapper.readerFor(TableCacheInfo.class).readValue(stateStoreJson) : null;
                 if (stateStoreCacheInfo == null || localCacheInfo.getLastUpdated().isAfter(stateStoreCacheInfo.getLastUpdated())) {
                     log.info("Updating state store split cache map for table %s.", fqTableName);
                     String json = mapper.writeValueAsString(localCacheInfo);
-                    stateMap.put(fqTableName, json);
+                    updatedCacheInfos.put(fqTableName, json);
                 }
                 else if (localCacheInfo.getLastUpdated().isBefore(stateStoreCacheInfo.getLastUpdated())) {
                     log.debug("Not updating state store split cache map for table %s. Local copy is outdated. State store split cache map is more recent. Local split cache map should be updated.", fqTableName);
@@ -117,6 +132,9 @@ public class SplitCacheStateUpdater
                 log.error(e, "Unable to update state store split cache map.");
             }
         });
+        if (!updatedCacheInfos.isEmpty()) {
+            stateMap.putAll(updatedCacheInfos);
+        }
     }
 
     public void stop()
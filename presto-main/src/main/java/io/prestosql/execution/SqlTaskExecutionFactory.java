@@ -44,6 +44,7 @@ import java.util.OptionalInt;
 import java.util.concurrent.Executor;
 
 import static com.google.common.base.Throwables.throwIfUnchecked;
+import static io.prestosql.SystemSessionProperties.getExchangeCompressionCodec;
 import static io.prestosql.SystemSessionProperties.getExtensionExecutionPlannerClassPath;
 import static io.prestosql.SystemSessionProperties.getExtensionExecutionPlannerJarPath;
 import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
@@ -96,8 +97,8 @@ public class SqlTaskExecutionFactory
                 cpuTimerEnabled,
                 totalPartitions,
                 consumer,
-                new PagesSerdeFactory(metadata.getFunctionAndTypeManager().getBlockEncodingSerde(), isExchangeCompressionEnabled(session)),
-                new PagesSerdeFactory(metadata.getFunctionAndTypeManager().getBlockKryoEncodingSerde(), isExchangeCompressionEnabled(session)));
+                new PagesSerdeFactory(metadata.getFunctionAndTypeManager().getBlockEncodingSerde(), isExchangeCompressionEnabled(session), getExchangeCompressionCodec(session)),
+                new PagesSerdeFactory(metadata.getFunctionAndTypeManager().getBlockKryoEncodingSerde(), isExchangeCompressionEnabled(session), getExchangeCompressionCodec(session)));
 
         LocalExecutionPlan localExecutionPlan = null;
         try (SetThreadName ignored = new SetThreadName("Task-%s", taskStateMachine.getTaskId())) {
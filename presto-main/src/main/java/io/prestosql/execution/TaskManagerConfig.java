@@ -73,6 +73,7 @@ public class TaskManagerConfig
     private int taskYieldThreads = 3;
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
+    private Integer splitQueueShards;
 
     @MinDuration("1ms")
     @MaxDuration("10s")
@@ -208,6 +209,23 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    public int getSplitQueueShards()
+    {
+        if (splitQueueShards == null) {
+            return Math.max(1, maxWorkerThreads / 16);
+        }
+        return splitQueueShards;
+    }
+
+    @Config("task.split-queue-shards")
+    @ConfigDescription("Number of split queues the worker threads are spread over; idle threads steal from the other queues")
+    public TaskManagerConfig setSplitQueueShards(int splitQueueShards)
+    {
+        this.splitQueueShards = splitQueueShards;
+        return this;
+    }
+
     @Min(1)
     public int getMaxWorkerThreads()
     {
@@ -28,11 +28,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -43,40 +46,59 @@ public class MultilevelSplitQueue
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
-    @GuardedBy("lock")
-    private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+    private final Shard[] shards;
+    private final AtomicInteger nextShard = new AtomicInteger();
 
+    /**
+     * Number of offers so far. Runners read it before scanning the shards and only
+     * park if it is unchanged afterwards, so an offer to a shard that was already
+     * scanned can not be missed.
+     */
+    private final AtomicLong offerCount = new AtomicLong();
+
+    private final AtomicInteger[] levelWaitingCount = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
     private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelMinPriority;
     private final List<CounterStat> selectedLevelCounters;
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition notEmpty = lock.newCondition();
+    private final CounterStat stolenSplits = new CounterStat();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LongAdder contendedLockAcquisitions = new LongAdder();
 
     private final double levelTimeMultiplier;
 
     @Inject
     public MultilevelSplitQueue(TaskManagerConfig taskManagerConfig)
     {
-        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue());
+        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue(), taskManagerConfig.getSplitQueueShards());
     }
 
     public MultilevelSplitQueue(double levelTimeMultiplier)
     {
+        this(levelTimeMultiplier, 1);
+    }
+
+    public MultilevelSplitQueue(double levelTimeMultiplier, int shardCount)
+    {
+        checkArgument(shardCount > 0, "shardCount must be at least 1");
         this.levelMinPriority = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
-        this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
         ImmutableList.Builder<CounterStat> counters = ImmutableList.builder();
 
         for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
             levelScheduledTime[i] = new AtomicLong();
             levelMinPriority[i] = new AtomicLong(-1);
-            levelWaitingSplits.add(new PriorityQueue<>());
+            levelWaitingCount[i] = new AtomicInteger();
             counters.add(new CounterStat());
         }
 
         this.selectedLevelCounters = counters.build();
 
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+
         this.levelTimeMultiplier = levelTimeMultiplier;
     }
 
@@ -85,6 +107,17 @@ public class MultilevelSplitQueue
         levelScheduledTime[level].addAndGet(nanos);
     }
 
+    /**
+     * Offers the split to one of the shards, chosen round robin. Splits that are re-queued
+     * by a runner thread should use {@link #offer(PrioritizedSplitRunner, int)} to stay
+     * in the runner's own shard.
+     */
+    public void offer(PrioritizedSplitRunner split)
+    {
+        int shard = shards.length == 1 ? 0 : Math.floorMod(nextShard.getAndIncrement(), shards.length);
+        offer(split, shard);
+    }
+
     /**
      * During periods of time when a level has no waiting splits, it will not accumulate
      * scheduled time and will fall behind relative to other levels.
@@ -93,17 +126,19 @@ public class MultilevelSplitQueue
      * previously-empty level.
      * <p>
      * To prevent this we set the scheduled time for levels which were empty to the expected
-     * scheduled time.
+     * scheduled time. A level counts as empty only if it is empty in every shard.
      */
-    public void offer(PrioritizedSplitRunner split)
+    public void offer(PrioritizedSplitRunner split, int shardIndex)
     {
         checkArgument(split != null, "split is null");
+        checkElementIndex(shardIndex, shards.length, "shardIndex");
 
         split.setReady();
         int level = split.getPriority().getLevel();
-        lock.lock();
+        Shard shard = shards[shardIndex];
+        lock(shard.lock);
         try {
-            if (levelWaitingSplits.get(level).isEmpty()) {
+            if (levelWaitingCount[level].getAndIncrement() == 0) {
                 // Accesses to levelScheduledTime are not synchronized, so we have a data race
                 // here - our level time math will be off. However, the staleness is bounded by
                 // the fact that only running splits that complete during this computation
@@ -114,40 +149,141 @@ public class MultilevelSplitQueue
                 levelScheduledTime[level].addAndGet(delta);
             }
 
-            levelWaitingSplits.get(level).offer(split);
-            notEmpty.signal();
+            shard.levelWaitingSplits.get(level).offer(split);
+            shard.size++;
+            offerCount.incrementAndGet();
+            if (shard.waitingRunners.get() > 0) {
+                shard.notEmpty.signal();
+                return;
+            }
         }
         finally {
-            lock.unlock();
+            shard.lock.unlock();
+        }
+
+        // nobody is parked on the target shard, wake up a runner of another shard to steal the split
+        for (int i = 1; i < shards.length; i++) {
+            Shard other = shards[(shardIndex + i) % shards.length];
+            if (other.waitingRunners.get() > 0) {
+                lock(other.lock);
+                try {
+                    other.notEmpty.signal();
+                }
+                finally {
+                    other.lock.unlock();
+                }
+                return;
+            }
         }
     }
 
     public PrioritizedSplitRunner take()
             throws InterruptedException
     {
+        return take(0);
+    }
+
+    /**
+     * Takes the next split from the given shard, stealing from the other shards
+     * if it is empty, and waits if all shards are empty.
+     */
+    public PrioritizedSplitRunner take(int shardIndex)
+            throws InterruptedException
+    {
+        checkElementIndex(shardIndex, shards.length, "shardIndex");
+        Shard home = shards[shardIndex];
         while (true) {
-            lock.lockInterruptibly();
-            try {
-                PrioritizedSplitRunner result;
-                while ((result = pollSplit()) == null) {
-                    notEmpty.await();
-                }
+            long observedOffers = offerCount.get();
+            PrioritizedSplitRunner result = poll(home);
+            if (result == null) {
+                result = steal(shardIndex);
+            }
+            if (result == null) {
+                awaitOffer(home, observedOffers);
+                continue;
+            }
 
-                if (result.updateLevelPriority()) {
-                    offer(result);
-                    continue;
-                }
+            if (result.updateLevelPriority()) {
+                offer(result, shardIndex);
+                continue;
+            }
+
+            int selectedLevel = result.getPriority().getLevel();
+            levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
+            selectedLevelCounters.get(selectedLevel).update(1);
+
+            return result;
+        }
+    }
 
-                int selectedLevel = result.getPriority().getLevel();
-                levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
-                selectedLevelCounters.get(selectedLevel).update(1);
+    private PrioritizedSplitRunner poll(Shard shard)
+            throws InterruptedException
+    {
+        lockInterruptibly(shard.lock);
+        try {
+            return pollSplit(shard);
+        }
+        finally {
+            shard.lock.unlock();
+        }
+    }
 
+    private PrioritizedSplitRunner steal(int shardIndex)
+            throws InterruptedException
+    {
+        for (int i = 1; i < shards.length; i++) {
+            Shard victim = shards[(shardIndex + i) % shards.length];
+            if (victim.size == 0) {
+                continue;
+            }
+            PrioritizedSplitRunner result = poll(victim);
+            if (result != null) {
+                stolenSplits.update(1);
                 return result;
             }
-            finally {
-                lock.unlock();
+        }
+        return null;
+    }
+
+    private void awaitOffer(Shard shard, long observedOffers)
+            throws InterruptedException
+    {
+        lockInterruptibly(shard.lock);
+        shard.waitingRunners.incrementAndGet();
+        try {
+            if (offerCount.get() == observedOffers) {
+                shard.notEmpty.await();
             }
         }
+        finally {
+            shard.waitingRunners.decrementAndGet();
+            shard.lock.unlock();
+        }
+    }
+
+    private void lock(ReentrantLock lock)
+    {
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            recordLockWait(start);
+        }
+    }
+
+    private void lockInterruptibly(ReentrantLock lock)
+            throws InterruptedException
+    {
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lockInterruptibly();
+            recordLockWait(start);
+        }
+    }
+
+    private void recordLockWait(long start)
+    {
+        lockWaitNanos.add(System.nanoTime() - start);
+        contendedLockAcquisitions.increment();
     }
 
     /**
@@ -156,16 +292,17 @@ public class MultilevelSplitQueue
      * <p>
      * This function selects the level that has the lowest ratio of actual to the target time
      * with the objective of minimizing deviation from the target scheduled time. From this level,
-     * we pick the split with the lowest priority.
+     * we pick the split with the lowest priority. The level times are shared by all shards, so
+     * every shard steers towards the same targets.
      */
-    @GuardedBy("lock")
-    private PrioritizedSplitRunner pollSplit()
+    @GuardedBy("shard.lock")
+    private PrioritizedSplitRunner pollSplit(Shard shard)
     {
         long targetScheduledTime = getLevel0TargetTime();
         double worstRatio = 1;
         int selectedLevel = -1;
         for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-            if (!levelWaitingSplits.get(level).isEmpty()) {
+            if (!shard.levelWaitingSplits.get(level).isEmpty()) {
                 long levelTime = levelScheduledTime[level].get();
                 double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
                 if (selectedLevel == -1 || ratio > worstRatio) {
@@ -181,13 +318,14 @@ public class MultilevelSplitQueue
             return null;
         }
 
-        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
+        PrioritizedSplitRunner result = shard.levelWaitingSplits.get(selectedLevel).poll();
         checkState(result != null, "pollSplit cannot return null");
+        shard.size--;
+        levelWaitingCount[selectedLevel].decrementAndGet();
 
         return result;
     }
 
-    @GuardedBy("lock")
     private long getLevel0TargetTime()
     {
         long level0TargetTime = levelScheduledTime[0].get();
@@ -248,27 +386,30 @@ public class MultilevelSplitQueue
     public void remove(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.remove(split);
-            }
-        }
-        finally {
-            lock.unlock();
-        }
+        removeAll(ImmutableList.of(split));
     }
 
     public void removeAll(Collection<PrioritizedSplitRunner> splits)
     {
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.removeAll(splits);
+        for (Shard shard : shards) {
+            if (shard.size == 0) {
+                continue;
+            }
+            lock(shard.lock);
+            try {
+                for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                    PriorityQueue<PrioritizedSplitRunner> levelSplits = shard.levelWaitingSplits.get(level);
+                    for (PrioritizedSplitRunner split : splits) {
+                        if (levelSplits.remove(split)) {
+                            shard.size--;
+                            levelWaitingCount[level].decrementAndGet();
+                        }
+                    }
+                }
+            }
+            finally {
+                shard.lock.unlock();
             }
-        }
-        finally {
-            lock.unlock();
         }
     }
 
@@ -280,17 +421,11 @@ public class MultilevelSplitQueue
 
     public int size()
     {
-        lock.lock();
-        try {
-            int total = 0;
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                total += level.size();
-            }
-            return total;
-        }
-        finally {
-            lock.unlock();
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.size;
         }
+        return total;
     }
 
     public static int computeLevel(long threadUsageNanos)
@@ -311,6 +446,31 @@ public class MultilevelSplitQueue
         return levelScheduledTime[level].longValue();
     }
 
+    @Managed
+    public int getShards()
+    {
+        return shards.length;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStolenSplits()
+    {
+        return stolenSplits;
+    }
+
+    @Managed
+    public long getLockWaitNanos()
+    {
+        return lockWaitNanos.sum();
+    }
+
+    @Managed
+    public long getContendedLockAcquisitions()
+    {
+        return contendedLockAcquisitions.sum();
+    }
+
     @Managed
     public long getLevel0Time()
     {
@@ -375,4 +535,26 @@ public class MultilevelSplitQueue
     {
         return selectedLevelCounters.get(4);
     }
+
+    private static final class Shard
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+
+        @GuardedBy("lock")
+        private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+
+        // written under the lock, read without it to skip empty shards
+        private volatile int size;
+
+        private final AtomicInteger waitingRunners = new AtomicInteger();
+
+        private Shard()
+        {
+            levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
+            for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
+                levelWaitingSplits.add(new PriorityQueue<>());
+            }
+        }
+    }
 }
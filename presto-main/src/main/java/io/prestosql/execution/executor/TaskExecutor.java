@@ -58,6 +58,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.DoubleSupplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -160,6 +161,8 @@ public class TaskExecutor
     private final TimeStat blockedQuantaWallTime = new TimeStat(MICROSECONDS);
     private final TimeStat unblockedQuantaWallTime = new TimeStat(MICROSECONDS);
 
+    private final LongAdder schedulerLockWaitNanos = new LongAdder();
+
     private volatile boolean closed;
 
     @Inject
@@ -222,7 +225,7 @@ public class TaskExecutor
     {
         checkState(!closed, "TaskExecutor is closed");
         for (int i = 0; i < runnerThreads; i++) {
-            addRunnerThread();
+            addRunnerThread(i % waitingSplits.getShards());
         }
     }
 
@@ -247,10 +250,10 @@ public class TaskExecutor
                 .toString();
     }
 
-    private synchronized void addRunnerThread()
+    private synchronized void addRunnerThread(int shard)
     {
         try {
-            executor.execute(embedVersion.embedVersion(new TaskRunner()));
+            executor.execute(embedVersion.embedVersion(new TaskRunner(shard)));
         }
         catch (RejectedExecutionException ignored) {
         }
@@ -351,7 +354,9 @@ public class TaskExecutor
     private void doRemoveTask(TaskHandle taskHandle)
     {
         List<PrioritizedSplitRunner> splits;
+        long lockStart = System.nanoTime();
         synchronized (this) {
+            schedulerLockWaitNanos.add(System.nanoTime() - lockStart);
             tasks.remove(taskHandle);
             splits = taskHandle.destroy();
 
@@ -378,7 +383,9 @@ public class TaskExecutor
     {
         List<PrioritizedSplitRunner> splitsToDestroy = new ArrayList<>();
         List<ListenableFuture<?>> finishedFutures = new ArrayList<>(taskSplits.size());
+        long lockStart = System.nanoTime();
         synchronized (this) {
+            schedulerLockWaitNanos.add(System.nanoTime() - lockStart);
             for (SplitRunner taskSplit : taskSplits) {
                 PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(
                         taskHandle,
@@ -420,24 +427,12 @@ public class TaskExecutor
     private void splitFinished(PrioritizedSplitRunner split)
     {
         completedSplitsPerLevel.incrementAndGet(split.getPriority().getLevel());
+        boolean intermediate;
+        long lockStart = System.nanoTime();
         synchronized (this) {
+            schedulerLockWaitNanos.add(System.nanoTime() - lockStart);
             allSplits.remove(split);
-
-            long wallNanos = System.nanoTime() - split.getCreatedNanos();
-            splitWallTime.add(Duration.succinctNanos(wallNanos));
-
-            if (intermediateSplits.remove(split)) {
-                intermediateSplitWallTime.add(wallNanos);
-                intermediateSplitScheduledTime.add(split.getScheduledNanos());
-                intermediateSplitWaitTime.add(split.getWaitNanos());
-                intermediateSplitCpuTime.add(split.getCpuTimeNanos());
-            }
-            else {
-                leafSplitWallTime.add(wallNanos);
-                leafSplitScheduledTime.add(split.getScheduledNanos());
-                leafSplitWaitTime.add(split.getWaitNanos());
-                leafSplitCpuTime.add(split.getCpuTimeNanos());
-            }
+            intermediate = intermediateSplits.remove(split);
 
             TaskHandle taskHandle = split.getTaskHandle();
             taskHandle.splitComplete(split);
@@ -446,6 +441,23 @@ public class TaskExecutor
 
             addNewEntrants();
         }
+
+        // the stats are thread safe, so record them outside of the synchronized block
+        long wallNanos = System.nanoTime() - split.getCreatedNanos();
+        splitWallTime.add(Duration.succinctNanos(wallNanos));
+        if (intermediate) {
+            intermediateSplitWallTime.add(wallNanos);
+            intermediateSplitScheduledTime.add(split.getScheduledNanos());
+            intermediateSplitWaitTime.add(split.getWaitNanos());
+            intermediateSplitCpuTime.add(split.getCpuTimeNanos());
+        }
+        else {
+            leafSplitWallTime.add(wallNanos);
+            leafSplitScheduledTime.add(split.getScheduledNanos());
+            leafSplitWaitTime.add(split.getWaitNanos());
+            leafSplitCpuTime.add(split.getCpuTimeNanos());
+        }
+
         // call destroy outside of synchronized block as it is expensive and doesn't need a lock on the task executor
         split.destroy();
     }
@@ -526,6 +538,12 @@ public class TaskExecutor
             implements Runnable
     {
         private final long runnerId = NEXT_RUNNER_ID.getAndIncrement();
+        private final int shard;
+
+        private TaskRunner(int shard)
+        {
+            this.shard = shard;
+        }
 
         @Override
         public void run()
@@ -535,7 +553,7 @@ public class TaskExecutor
                     // select next worker
                     final PrioritizedSplitRunner split;
                     try {
-                        split = waitingSplits.take();
+                        split = waitingSplits.take(shard);
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -563,7 +581,7 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                waitingSplits.offer(split);
+                                waitingSplits.offer(split, shard);
                             }
                             else {
                                 blockedSplits.put(split, blocked);
@@ -596,7 +614,7 @@ public class TaskExecutor
             finally {
                 // unless we have been closed, we need to replace this thread
                 if (!closed) {
-                    addRunnerThread();
+                    addRunnerThread(shard);
                 }
             }
         }
@@ -636,6 +654,12 @@ public class TaskExecutor
         return intermediateSplits.size();
     }
 
+    @Managed
+    public long getSchedulerLockWaitNanos()
+    {
+        return schedulerLockWaitNanos.sum();
+    }
+
     @Managed
     public int getWaitingSplits()
     {
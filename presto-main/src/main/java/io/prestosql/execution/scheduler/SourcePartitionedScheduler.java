@@ -325,35 +325,22 @@ public class SourcePartitionedScheduler
             else if (pendingSplits.isEmpty()) {
                 // try to get the next batch
                 if (scheduleGroup.nextSplitBatchFuture == null) {
-                    scheduleGroup.nextSplitBatchFuture = splitSource.getNextBatch(scheduleGroup.partitionHandle, lifespan, splitBatchSize - pendingSplits.size());
-
-                    long start = System.nanoTime();
-                    addSuccessCallback(scheduleGroup.nextSplitBatchFuture, () -> stage.recordGetSplitTime(start));
+                    scheduleGroup.nextSplitBatchFuture = getNextSplitBatch(scheduleGroup, lifespan, splitBatchSize - pendingSplits.size(), applyFilter);
                 }
 
                 if (scheduleGroup.nextSplitBatchFuture.isDone()) {
+                    // the batch was already filtered by the heuristic index when applyFilter is set
                     SplitBatch nextSplits = getFutureValue(scheduleGroup.nextSplitBatchFuture);
                     scheduleGroup.nextSplitBatchFuture = null;
 
-                    // add split filter to filter out split has no valid rows
-                    Pair<Optional<RowExpression>, Map<Symbol, ColumnHandle>> pair = SplitFiltering.getExpression(stage);
-
-                    if (SystemSessionProperties.isRecoveryEnabled(session)) {
-                        List<Split> batchSplits = nextSplits.getSplits();
-                        // Don't apply filter to MarkerSplit
-                        if (batchSplits.size() == 1 && batchSplits.get(0).getConnectorSplit() instanceof MarkerSplit) {
-                            applyFilter = false;
-                        }
-                    }
-
-                    List<Split> filteredSplit = applyFilter ? SplitFiltering.getFilteredSplit(pair.getFirst(),
-                            SplitFiltering.getFullyQualifiedName(stage), pair.getSecond(), nextSplits, heuristicIndexerManager) : nextSplits.getSplits();
-
                     //In case of ORC small size files/splits are grouped
-                    List<Split> groupedSmallFilesList = splitSource.groupSmallSplits(filteredSplit, lifespan, maxSplitGroup);
-                    filteredSplit = groupedSmallFilesList;
+                    List<Split> filteredSplit = splitSource.groupSmallSplits(nextSplits.getSplits(), lifespan, maxSplitGroup);
 
                     pendingSplits.addAll(filteredSplit);
+                    if (!nextSplits.isLastBatch() && applyFilter && !SystemSessionProperties.isRecoveryEnabled(session)) {
+                        // enumerate and filter the next batch while the splits of this one are being placed
+                        scheduleGroup.nextSplitBatchFuture = getNextSplitBatch(scheduleGroup, lifespan, splitBatchSize, true);
+                    }
                     if (nextSplits.isLastBatch()) {
                         if (scheduleGroup.state == ScheduleGroupState.INITIALIZED && pendingSplits.isEmpty()) {
                             // Add an empty split in case no splits have been produced for the source.
@@ -472,6 +459,11 @@ public class SourcePartitionedScheduler
             if (scheduleGroup.nextSplitBatchFuture == null && scheduleGroup.pendingSplits.isEmpty() && scheduleGroup.state != ScheduleGroupState.DONE) {
                 anyNotBlocked = true;
             }
+            else if (scheduleGroup.nextSplitBatchFuture != null && scheduleGroup.pendingSplits.isEmpty()) {
+                // all splits are placed while the prefetched batch is still being filtered
+                overallBlockedFutures.add(scheduleGroup.nextSplitBatchFuture);
+                anyBlockedOnNextSplitBatch = true;
+            }
         }
 
         // * `splitSource.isFinished` invocation may fail after `splitSource.close` has been invoked.
@@ -552,6 +544,37 @@ public class SourcePartitionedScheduler
                 overallSplitAssignmentCount);
     }
 
+    private ListenableFuture<SplitBatch> getNextSplitBatch(ScheduleGroup scheduleGroup, Lifespan lifespan, int maxSize, boolean applyFilter)
+    {
+        ListenableFuture<SplitBatch> nextSplitBatchFuture = splitSource.getNextBatch(scheduleGroup.partitionHandle, lifespan, maxSize);
+
+        long start = System.nanoTime();
+        addSuccessCallback(nextSplitBatchFuture, () -> stage.recordGetSplitTime(start));
+
+        if (!applyFilter) {
+            return nextSplitBatchFuture;
+        }
+        // filter on the split filter pool, so index lookups do not stall this scheduler or the other stages
+        return Futures.transform(nextSplitBatchFuture, this::filterSplitBatch, heuristicIndexerManager.getSplitFilterExecutor());
+    }
+
+    private SplitBatch filterSplitBatch(SplitBatch nextSplits)
+    {
+        if (SystemSessionProperties.isRecoveryEnabled(session)) {
+            List<Split> batchSplits = nextSplits.getSplits();
+            // Don't apply filter to MarkerSplit
+            if (batchSplits.size() == 1 && batchSplits.get(0).getConnectorSplit() instanceof MarkerSplit) {
+                return nextSplits;
+            }
+        }
+
+        // add split filter to filter out split has no valid rows
+        Pair<Optional<RowExpression>, Map<Symbol, ColumnHandle>> pair = SplitFiltering.getExpression(stage);
+        List<Split> filteredSplits = SplitFiltering.getFilteredSplit(pair.getFirst(),
+                SplitFiltering.getFullyQualifiedName(stage), pair.getSecond(), nextSplits, heuristicIndexerManager);
+        return new SplitBatch(filteredSplits, nextSplits.isLastBatch());
+    }
+
     private synchronized void dropListenersFromWhenFinishedOrNewLifespansAdded()
     {
         // whenFinishedOrNewLifespanAdded may remain in a not-done state for an extended period of time.
@@ -33,6 +33,10 @@ import io.prestosql.spi.metastore.HetuMetastore;
 import io.prestosql.spi.service.PropertyService;
 import io.prestosql.testing.NoOpIndexClient;
 import io.prestosql.testing.NoOpIndexWriter;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -43,8 +47,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class HeuristicIndexerManager
 {
@@ -52,6 +60,7 @@ public class HeuristicIndexerManager
     private final HetuMetaStoreManager hetuMetaStoreManager;
     private static IndexFactory factory;
     private static final Logger LOG = Logger.get(HeuristicIndexerManager.class);
+    private static final int DEFAULT_SPLIT_FILTERING_THREADS = 4;
 
     private Path root;
     private HetuFileSystemClient fs;
@@ -59,6 +68,9 @@ public class HeuristicIndexerManager
     private IndexClient indexClient = new NoOpIndexClient();
     private IndexWriter indexWriter = new NoOpIndexWriter();
 
+    private final SplitFilteringStats splitFilteringStats = new SplitFilteringStats();
+    private ExecutorService splitFilterExecutor;
+
     @Inject
     public HeuristicIndexerManager(FileSystemClientManager fileSystemClientManager, HetuMetaStoreManager hetuMetaStoreManager)
     {
@@ -88,6 +100,37 @@ public class HeuristicIndexerManager
         return indexClient;
     }
 
+    /**
+     * Bounded pool the split schedulers hand their split batches to for filtering, so index lookups
+     * do not run on the scheduling threads.
+     */
+    public synchronized Executor getSplitFilterExecutor()
+    {
+        if (splitFilterExecutor == null) {
+            int threads = DEFAULT_SPLIT_FILTERING_THREADS;
+            if (PropertyService.containsProperty(HetuConstant.FILTER_SPLIT_FILTERING_THREADS)) {
+                threads = Math.max(1, PropertyService.getLongProperty(HetuConstant.FILTER_SPLIT_FILTERING_THREADS).intValue());
+            }
+            splitFilterExecutor = newFixedThreadPool(threads, daemonThreadsNamed("split-filter-%s"));
+        }
+        return splitFilterExecutor;
+    }
+
+    @Managed
+    @Nested
+    public SplitFilteringStats getSplitFilteringStats()
+    {
+        return splitFilteringStats;
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        if (splitFilterExecutor != null) {
+            splitFilterExecutor.shutdownNow();
+        }
+    }
+
     private IndexCache getIndexCache()
     {
         return SplitFiltering.getCache(indexClient);
@@ -14,9 +14,12 @@
  */
 package io.prestosql.heuristicindex;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.execution.SqlStageExecution;
@@ -66,9 +69,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.prestosql.spi.function.OperatorType.IS_DISTINCT_FROM;
 import static io.prestosql.spi.heuristicindex.SerializationUtils.deserializeStripeSymbol;
 
@@ -82,6 +88,7 @@ public class SplitFiltering
     private static final String MAX_MODIFIED_TIME = "__hetu__maxmodifiedtime";
     private static final String TABLE_LEVEL_KEY = "__index__is__table__level__";
     private static final String PRELOAD_ALL_KEY = "ALL";
+    private static final int FORWARD_INDEX_FILTER_BATCH_SIZE = 32;
 
     private static IndexCache indexCache;
 
@@ -95,6 +102,12 @@ public class SplitFiltering
         indexCache = new IndexCache(cacheLoader, indexClient);
     }
 
+    @VisibleForTesting
+    static synchronized void setCache(IndexCache cache)
+    {
+        indexCache = cache;
+    }
+
     public static IndexCache getCache(IndexClient indexClient)
     {
         if (PropertyService.getBooleanProperty(HetuConstant.FILTER_ENABLED)) {
@@ -146,6 +159,8 @@ public class SplitFiltering
         List<Split> allSplits = nextSplits.getSplits();
         String fullQualifiedTableName = tableName.get();
         long initialSplitsSize = allSplits.size();
+        SplitFilteringStats stats = heuristicIndexerManager.getSplitFilteringStats();
+        long start = System.nanoTime();
 
         List<IndexRecord> indexRecords;
         try {
@@ -181,16 +196,22 @@ public class SplitFiltering
         }
         else if (!forwardIndexRecords.isEmpty() && invertedIndexRecords.isEmpty()) {
             splitsToReturn = filterUsingInvertedIndex(expression.get(), allSplits, fullQualifiedTableName, referencedColumns, forwardIndexRecords, heuristicIndexerManager);
+            stats.getInvertedIndex().record(System.nanoTime() - start, allSplits.size(), splitsToReturn.size());
         }
         else if (!invertedIndexRecords.isEmpty() && forwardIndexRecords.isEmpty()) {
             splitsToReturn = filterUsingForwardIndex(expression.get(), allSplits, fullQualifiedTableName, referencedColumns, invertedIndexRecords, heuristicIndexerManager);
+            stats.getForwardIndex().record(System.nanoTime() - start, allSplits.size(), splitsToReturn.size());
         }
         else {
             // filter using both indexes and return the smallest set of splits.
             List<Split> splitsToReturn1 = filterUsingInvertedIndex(expression.get(), allSplits, fullQualifiedTableName, referencedColumns, forwardIndexRecords, heuristicIndexerManager);
+            long invertedEnd = System.nanoTime();
+            stats.getInvertedIndex().record(invertedEnd - start, allSplits.size(), splitsToReturn1.size());
             List<Split> splitsToReturn2 = filterUsingForwardIndex(expression.get(), allSplits, fullQualifiedTableName, referencedColumns, invertedIndexRecords, heuristicIndexerManager);
+            stats.getForwardIndex().record(System.nanoTime() - invertedEnd, allSplits.size(), splitsToReturn2.size());
             splitsToReturn = splitsToReturn1.size() < splitsToReturn2.size() ? splitsToReturn1 : splitsToReturn2;
         }
+        stats.getTotal().record(System.nanoTime() - start, allSplits.size(), splitsToReturn.size());
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("totalSplitsProcessed: " + totalSplitsProcessed.addAndGet(initialSplitsSize));
@@ -202,47 +223,69 @@ public class SplitFiltering
 
     private static List<Split> filterUsingForwardIndex(RowExpression expression, List<Split> inputSplits, String fullQualifiedTableName, Set<String> referencedColumns, Map<String, IndexRecord> indexRecordKeyToRecordMap, HeuristicIndexerManager indexerManager)
     {
-        return inputSplits.parallelStream()
-                .filter(split -> {
-                    Map<String, List<IndexMetadata>> allIndices = new HashMap<>();
+        Predicate<Split> matches = split -> {
+            Map<String, List<IndexMetadata>> allIndices = new HashMap<>();
 
-                    for (String col : referencedColumns) {
-                        List<IndexMetadata> splitIndices = getCache(indexerManager.getIndexClient()).getIndices(fullQualifiedTableName, col, split, indexRecordKeyToRecordMap);
+            for (String col : referencedColumns) {
+                List<IndexMetadata> splitIndices = getCache(indexerManager.getIndexClient()).getIndices(fullQualifiedTableName, col, split, indexRecordKeyToRecordMap);
 
-                        if (splitIndices == null || splitIndices.size() == 0) {
-                            // no index found, keep split
-                            continue;
-                        }
+                if (splitIndices == null || splitIndices.size() == 0) {
+                    // no index found, keep split
+                    continue;
+                }
 
-                        // Group each type of index together and make sure they are sorted in ascending order
-                        // with respect to their SplitStart
-                        Map<String, List<IndexMetadata>> indexGroupMap = new HashMap<>();
-                        for (IndexMetadata splitIndex : splitIndices) {
-                            List<IndexMetadata> indexGroup = indexGroupMap.computeIfAbsent(splitIndex.getIndex().getId(), k -> new ArrayList<>());
-                            insert(indexGroup, splitIndex);
-                        }
+                // Group each type of index together and make sure they are sorted in ascending order
+                // with respect to their SplitStart
+                Map<String, List<IndexMetadata>> indexGroupMap = new HashMap<>();
+                for (IndexMetadata splitIndex : splitIndices) {
+                    List<IndexMetadata> indexGroup = indexGroupMap.computeIfAbsent(splitIndex.getIndex().getId(), k -> new ArrayList<>());
+                    insert(indexGroup, splitIndex);
+                }
 
-                        List<String> sortedIndexTypeKeys = new LinkedList<>(indexGroupMap.keySet());
-                        sortedIndexTypeKeys.sort(Comparator.comparingInt(e -> FORWARD_INDEX.contains(e) ? FORWARD_INDEX.indexOf(e) : Integer.MAX_VALUE));
+                List<String> sortedIndexTypeKeys = new LinkedList<>(indexGroupMap.keySet());
+                sortedIndexTypeKeys.sort(Comparator.comparingInt(e -> FORWARD_INDEX.contains(e) ? FORWARD_INDEX.indexOf(e) : Integer.MAX_VALUE));
 
-                        for (String indexTypeKey : sortedIndexTypeKeys) {
-                            List<IndexMetadata> validIndices = indexGroupMap.get(indexTypeKey);
-                            if (validIndices != null) {
-                                validIndices = RangeUtil.subArray(validIndices, split.getConnectorSplit().getStartIndex(), split.getConnectorSplit().getEndIndex());
-                                List<IndexMetadata> indicesOfCol = allIndices.getOrDefault(col, new LinkedList<>());
-                                indicesOfCol.addAll(validIndices);
-                                allIndices.put(col, indicesOfCol);
-                            }
-                        }
+                for (String indexTypeKey : sortedIndexTypeKeys) {
+                    List<IndexMetadata> validIndices = indexGroupMap.get(indexTypeKey);
+                    if (validIndices != null) {
+                        validIndices = RangeUtil.subArray(validIndices, split.getConnectorSplit().getStartIndex(), split.getConnectorSplit().getEndIndex());
+                        List<IndexMetadata> indicesOfCol = allIndices.getOrDefault(col, new LinkedList<>());
+                        indicesOfCol.addAll(validIndices);
+                        allIndices.put(col, indicesOfCol);
                     }
+                }
+            }
 
-                    if (allIndices.isEmpty()) {
-                        return true;
-                    }
+            if (allIndices.isEmpty()) {
+                return true;
+            }
+
+            return indexerManager.getIndexFilter(allIndices).matches(expression);
+        };
+
+        if (inputSplits.size() <= FORWARD_INDEX_FILTER_BATCH_SIZE) {
+            return inputSplits.stream().filter(matches).collect(Collectors.toList());
+        }
 
-                    return indexerManager.getIndexFilter(allIndices).matches(expression);
-                })
-                .collect(Collectors.toList());
+        // Filter the batches on the split filter pool. The calling thread filters every batch no pool thread has
+        // picked up yet, rather than waiting for one, so that callers running on the pool itself cannot starve it
+        List<ListenableFutureTask<List<Split>>> tasks = new ArrayList<>();
+        for (List<Split> batch : Lists.partition(inputSplits, FORWARD_INDEX_FILTER_BATCH_SIZE)) {
+            ListenableFutureTask<List<Split>> task = ListenableFutureTask.create(() -> batch.stream().filter(matches).collect(Collectors.toList()));
+            try {
+                indexerManager.getSplitFilterExecutor().execute(task);
+            }
+            catch (RejectedExecutionException e) {
+                // the batch is filtered by the calling thread
+            }
+            tasks.add(task);
+        }
+        List<Split> splitsToReturn = new ArrayList<>(inputSplits.size());
+        for (ListenableFutureTask<List<Split>> task : tasks) {
+            task.run();
+            splitsToReturn.addAll(getFutureValue(task));
+        }
+        return splitsToReturn;
     }
 
     private static List<Split> filterUsingInvertedIndex(RowExpression expression, List<Split> inputSplits, String fullQualifiedTableName, Set<String> referencedColumns, Map<String, IndexRecord> indexRecordKeyToRecordMap, HeuristicIndexerManager indexerManager)
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.heuristicindex;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Latency and pruning statistics of the heuristic index split filtering on the coordinator.
+ * <p>
+ * Forward indices (MINMAX, BLOOM, BITMAP) are evaluated together for every split, so they share one
+ * set of statistics; inverted indices (BTREE) are looked up once per split batch.
+ */
+public class SplitFilteringStats
+{
+    private final IndexFilteringStats total = new IndexFilteringStats();
+    private final IndexFilteringStats forwardIndex = new IndexFilteringStats();
+    private final IndexFilteringStats invertedIndex = new IndexFilteringStats();
+
+    @Managed
+    @Nested
+    public IndexFilteringStats getTotal()
+    {
+        return total;
+    }
+
+    @Managed
+    @Nested
+    public IndexFilteringStats getForwardIndex()
+    {
+        return forwardIndex;
+    }
+
+    @Managed
+    @Nested
+    public IndexFilteringStats getInvertedIndex()
+    {
+        return invertedIndex;
+    }
+
+    public static class IndexFilteringStats
+    {
+        private final TimeStat filterTime = new TimeStat(MILLISECONDS);
+        private final CounterStat inputSplits = new CounterStat();
+        private final CounterStat prunedSplits = new CounterStat();
+
+        public void record(long filterNanos, int inputSplitCount, int outputSplitCount)
+        {
+            filterTime.add(filterNanos, NANOSECONDS);
+            inputSplits.update(inputSplitCount);
+            prunedSplits.update(inputSplitCount - outputSplitCount);
+        }
+
+        @Managed
+        @Nested
+        public TimeStat getFilterTime()
+        {
+            return filterTime;
+        }
+
+        @Managed
+        @Nested
+        public CounterStat getInputSplits()
+        {
+            return inputSplits;
+        }
+
+        @Managed
+        @Nested
+        public CounterStat getPrunedSplits()
+        {
+            return prunedSplits;
+        }
+
+        @Managed
+        public double getPruningRatio()
+        {
+            long input = inputSplits.getTotalCount();
+            return input == 0 ? 0 : (double) prunedSplits.getTotalCount() / input;
+        }
+    }
+}
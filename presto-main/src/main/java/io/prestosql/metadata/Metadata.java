@@ -544,6 +544,24 @@ public interface Metadata
         return null;
     }
 
+    /**
+     * Returns the last modified time of each partition of the table, keyed by partition name,
+     * if the connector is able to report them.
+     */
+    default Optional<Map<String, Long>> getPartitionLastModifiedTimes(Session session, TableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns which of the given partitions of the table still exist,
+     * if the connector is able to look them up.
+     */
+    default Optional<Set<String>> getExistingPartitionNames(Session session, TableHandle tableHandle, Collection<String> partitionNames)
+    {
+        return Optional.empty();
+    }
+
     FunctionAndTypeManager getFunctionAndTypeManager();
 
     ProcedureRegistry getProcedureRegistry();
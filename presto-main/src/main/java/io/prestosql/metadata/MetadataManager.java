@@ -1626,6 +1626,22 @@ public final class MetadataManager
         return () -> modificationTime;
     }
 
+    @Override
+    public Optional<Map<String, Long>> getPartitionLastModifiedTimes(Session session, TableHandle tableHandle)
+    {
+        CatalogName catalogName = tableHandle.getCatalogName();
+        ConnectorMetadata connectorMetadata = getMetadata(session, catalogName);
+        return connectorMetadata.getPartitionModificationTimes(session.toConnectorSession(catalogName), tableHandle.getConnectorHandle());
+    }
+
+    @Override
+    public Optional<Set<String>> getExistingPartitionNames(Session session, TableHandle tableHandle, Collection<String> partitionNames)
+    {
+        CatalogName catalogName = tableHandle.getCatalogName();
+        ConnectorMetadata connectorMetadata = getMetadata(session, catalogName);
+        return connectorMetadata.getExistingPartitionNames(session.toConnectorSession(catalogName), tableHandle.getConnectorHandle(), partitionNames);
+    }
+
     public List<SqlFunction> listFunctions(Optional<Session> session)
     {
         // TODO: transactional when FunctionManager is made transactional
@@ -362,6 +362,7 @@ public final class SessionPropertyManager
             PropertyService.setProperty(HetuConstant.FILTER_CACHE_TTL, hetuConfig.getIndexCacheTTL());
             PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOADING_DELAY, hetuConfig.getIndexCacheLoadingDelay());
             PropertyService.setProperty(HetuConstant.FILTER_CACHE_LOADING_THREADS, hetuConfig.getIndexCacheLoadingThreads());
+            PropertyService.setProperty(HetuConstant.FILTER_SPLIT_FILTERING_THREADS, hetuConfig.getSplitFilteringThreads());
             PropertyService.setProperty(HetuConstant.FILTER_CACHE_SOFT_REFERENCE, hetuConfig.isIndexCacheSoftReferenceEnabled());
             PropertyService.setProperty(HetuConstant.INDEXSTORE_URI, hetuConfig.getIndexStoreUri());
             PropertyService.setProperty(HetuConstant.INDEXSTORE_FILESYSTEM_PROFILE, hetuConfig.getIndexStoreFileSystemProfile());
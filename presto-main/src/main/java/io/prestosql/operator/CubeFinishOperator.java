@@ -37,6 +37,7 @@ import java.util.Optional;
 import static com.google.common.base.Preconditions.checkState;
 import static io.hetu.core.spi.cube.CubeStatus.READY;
 import static io.prestosql.cube.CubeManager.STAR_TREE;
+import static io.prestosql.cube.CubeSourcePartitions.mergePartitions;
 import static java.util.Objects.requireNonNull;
 
 // create cube statement does not have snapshot support
@@ -160,6 +161,9 @@ public class CubeFinishOperator
             CubeMetadataBuilder builder = cubeMetastore.getBuilder(cubeMetadata);
             builder.withCubeFilter(mergePredicates(cubeMetadata.getCubeFilter(), updateMetadata.getDataPredicateString()));
             builder.setTableLastUpdatedTime(updateMetadata.getTableLastUpdatedTime());
+            builder.setSourcePartitions(updateMetadata.isOverwrite()
+                    ? updateMetadata.getSourcePartitions()
+                    : mergePartitions(cubeMetadata.getSourcePartitions(), updateMetadata.getSourcePartitions()));
             builder.setCubeLastUpdatedTime(System.currentTimeMillis());
             builder.setCubeStatus(READY);
             cubeMetastore.persist(builder.build());
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.project;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.IntArrayBlock;
+import io.prestosql.spi.block.LongArrayBlock;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.type.Type;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.operator.project.SelectedPositions.positionsList;
+import static io.prestosql.operator.project.SelectedPositions.positionsRange;
+import static java.lang.Double.longBitsToDouble;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filter that is a conjunction of range predicates on primitive columns. Instead of evaluating generated
+ * code position by position, each predicate runs one loop over the values array of its block and narrows
+ * a selection vector holding the positions that still qualify, so the loops are free of per-position calls
+ * and branches.
+ */
+public class VectorizedPageFilter
+        implements PageFilter
+{
+    private final InputChannels inputChannels;
+    private final List<Range> ranges;
+
+    public VectorizedPageFilter(InputChannels inputChannels, List<Range> ranges)
+    {
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.ranges = ImmutableList.copyOf(requireNonNull(ranges, "ranges is null"));
+        checkArgument(!this.ranges.isEmpty(), "ranges is empty");
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(ConnectorSession session, Page page)
+    {
+        int positionCount = page.getPositionCount();
+        int[] positions = new int[positionCount];
+        int selectedCount = positionCount;
+        boolean dense = true;
+        for (Range range : ranges) {
+            selectedCount = range.filter(page.getBlock(range.channel).getLoadedBlock(), positions, selectedCount, dense);
+            dense = false;
+            if (selectedCount == 0) {
+                break;
+            }
+        }
+
+        if (selectedCount == positionCount) {
+            return positionsRange(0, positionCount);
+        }
+        return positionsList(positions, 0, selectedCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("inputChannels", inputChannels)
+                .add("ranges", ranges)
+                .toString();
+    }
+
+    /**
+     * Values of a BIGINT, INTEGER or DATE column within [low, high], or outside of it when negated
+     */
+    public static Range longRange(int channel, Type type, long low, long high, boolean negated)
+    {
+        return new LongRange(channel, type, low, high, negated);
+    }
+
+    /**
+     * Values of a DOUBLE column within [low, high], or outside of it when negated. NaN is never within the range.
+     */
+    public static Range doubleRange(int channel, Type type, double low, double high, boolean negated)
+    {
+        return new DoubleRange(channel, type, low, high, negated);
+    }
+
+    public abstract static class Range
+    {
+        protected final int channel;
+        protected final Type type;
+        protected final boolean negated;
+
+        private Range(int channel, Type type, boolean negated)
+        {
+            checkArgument(channel >= 0, "channel is negative");
+            this.channel = channel;
+            this.type = requireNonNull(type, "type is null");
+            this.negated = negated;
+        }
+
+        /**
+         * Compacts the first count positions to the ones within the range, and returns how many remain.
+         * When dense the candidate positions are 0 to count - 1 and the positions array is only written.
+         * Null values are never selected.
+         */
+        abstract int filter(Block block, int[] positions, int count, boolean dense);
+    }
+
+    private static class LongRange
+            extends Range
+    {
+        private final long low;
+        private final long high;
+
+        private LongRange(int channel, Type type, long low, long high, boolean negated)
+        {
+            super(channel, type, negated);
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        int filter(Block block, int[] positions, int count, boolean dense)
+        {
+            if (block instanceof LongArrayBlock) {
+                return filter((long[]) block.getValues(), block.getValueNulls(), block.getBlockOffset(), positions, count, dense);
+            }
+            if (block instanceof IntArrayBlock) {
+                return filter((int[]) block.getValues(), block.getValueNulls(), block.getBlockOffset(), positions, count, dense);
+            }
+
+            int selectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int position = dense ? i : positions[i];
+                positions[selectedCount] = position;
+                if (!block.isNull(position)) {
+                    long value = type.getLong(block, position);
+                    selectedCount += ((value >= low & value <= high) != negated) ? 1 : 0;
+                }
+            }
+            return selectedCount;
+        }
+
+        private int filter(long[] values, boolean[] valueIsNull, int offset, int[] positions, int count, boolean dense)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int position = dense ? i : positions[i];
+                long value = values[position + offset];
+                boolean selected = (value >= low & value <= high) != negated;
+                if (valueIsNull != null) {
+                    selected &= !valueIsNull[position + offset];
+                }
+                positions[selectedCount] = position;
+                selectedCount += selected ? 1 : 0;
+            }
+            return selectedCount;
+        }
+
+        private int filter(int[] values, boolean[] valueIsNull, int offset, int[] positions, int count, boolean dense)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int position = dense ? i : positions[i];
+                long value = values[position + offset];
+                boolean selected = (value >= low & value <= high) != negated;
+                if (valueIsNull != null) {
+                    selected &= !valueIsNull[position + offset];
+                }
+                positions[selectedCount] = position;
+                selectedCount += selected ? 1 : 0;
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("channel", channel)
+                    .add("low", low)
+                    .add("high", high)
+                    .add("negated", negated)
+                    .toString();
+        }
+    }
+
+    private static class DoubleRange
+            extends Range
+    {
+        private final double low;
+        private final double high;
+
+        private DoubleRange(int channel, Type type, double low, double high, boolean negated)
+        {
+            super(channel, type, negated);
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        int filter(Block block, int[] positions, int count, boolean dense)
+        {
+            if (block instanceof LongArrayBlock) {
+                return filter((long[]) block.getValues(), block.getValueNulls(), block.getBlockOffset(), positions, count, dense);
+            }
+
+            int selectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int position = dense ? i : positions[i];
+                positions[selectedCount] = position;
+                if (!block.isNull(position)) {
+                    double value = type.getDouble(block, position);
+                    selectedCount += ((value >= low & value <= high) != negated) ? 1 : 0;
+                }
+            }
+            return selectedCount;
+        }
+
+        private int filter(long[] values, boolean[] valueIsNull, int offset, int[] positions, int count, boolean dense)
+        {
+            int selectedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int position = dense ? i : positions[i];
+                double value = longBitsToDouble(values[position + offset]);
+                boolean selected = (value >= low & value <= high) != negated;
+                if (valueIsNull != null) {
+                    selected &= !valueIsNull[position + offset];
+                }
+                positions[selectedCount] = position;
+                selectedCount += selected ? 1 : 0;
+            }
+            return selectedCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("channel", channel)
+                    .add("low", low)
+                    .add("high", high)
+                    .add("negated", negated)
+                    .toString();
+        }
+    }
+}
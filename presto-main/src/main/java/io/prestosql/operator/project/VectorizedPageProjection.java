@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.project;
+
+import io.prestosql.operator.CompletedWork;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.LongArrayBlock;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Arithmetic between two BIGINT or DOUBLE operands, each a column or a constant. The operand values of the
+ * selected positions are gathered into dense arrays first, so that the arithmetic itself is a plain loop over
+ * primitive arrays the JIT can unroll and vectorize. The result is null where either operand is null.
+ */
+public class VectorizedPageProjection
+        implements PageProjection
+{
+    private final Type type;
+    private final OperatorType operator;
+    private final InputChannels inputChannels;
+    private final Operand left;
+    private final Operand right;
+
+    public VectorizedPageProjection(Type type, OperatorType operator, InputChannels inputChannels, Operand left, Operand right)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.operator = requireNonNull(operator, "operator is null");
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        checkArgument(isSupported(type, operator), "Unsupported operator %s for type %s", operator, type);
+    }
+
+    public static boolean isSupported(Type type, OperatorType operator)
+    {
+        switch (operator) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                return type.equals(BIGINT) || type.equals(DOUBLE);
+            case DIVIDE:
+                // integer division has to fail on zero divisors, leave it to the generated code
+                return type.equals(DOUBLE);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public Work<Block> project(ConnectorSession session, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        requireNonNull(page, "page is null");
+        requireNonNull(selectedPositions, "selectedPositions is null");
+
+        int size = selectedPositions.size();
+        boolean[] valueIsNull = new boolean[size];
+        boolean mayHaveNull = left.gatherNulls(page, selectedPositions, valueIsNull) | right.gatherNulls(page, selectedPositions, valueIsNull);
+
+        long[] result = new long[size];
+        if (type.equals(BIGINT)) {
+            long[] leftValues = left.gatherLongs(page, selectedPositions, valueIsNull);
+            long[] rightValues = right.gatherLongs(page, selectedPositions, valueIsNull);
+            projectBigint(leftValues, rightValues, result);
+        }
+        else {
+            double[] leftValues = left.gatherDoubles(page, selectedPositions);
+            double[] rightValues = right.gatherDoubles(page, selectedPositions);
+            projectDouble(leftValues, rightValues, result);
+        }
+        return new CompletedWork<>(new LongArrayBlock(size, mayHaveNull ? Optional.of(valueIsNull) : Optional.empty(), result));
+    }
+
+    private void projectBigint(long[] left, long[] right, long[] result)
+    {
+        switch (operator) {
+            case ADD: {
+                // overflow when both operands have the same sign and the result has a different one
+                long overflow = 0;
+                for (int i = 0; i < result.length; i++) {
+                    long value = left[i] + right[i];
+                    overflow |= (left[i] ^ value) & (right[i] ^ value);
+                    result[i] = value;
+                }
+                if (overflow < 0) {
+                    for (int i = 0; i < result.length; i++) {
+                        try {
+                            Math.addExact(left[i], right[i]);
+                        }
+                        catch (ArithmeticException e) {
+                            throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, format("bigint addition overflow: %s + %s", left[i], right[i]), e);
+                        }
+                    }
+                }
+                return;
+            }
+            case SUBTRACT: {
+                // overflow when the operands have different signs and the result has a different sign than the left one
+                long overflow = 0;
+                for (int i = 0; i < result.length; i++) {
+                    long value = left[i] - right[i];
+                    overflow |= (left[i] ^ right[i]) & (left[i] ^ value);
+                    result[i] = value;
+                }
+                if (overflow < 0) {
+                    for (int i = 0; i < result.length; i++) {
+                        try {
+                            Math.subtractExact(left[i], right[i]);
+                        }
+                        catch (ArithmeticException e) {
+                            throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, format("bigint subtraction overflow: %s - %s", left[i], right[i]), e);
+                        }
+                    }
+                }
+                return;
+            }
+            case MULTIPLY:
+                for (int i = 0; i < result.length; i++) {
+                    try {
+                        result[i] = Math.multiplyExact(left[i], right[i]);
+                    }
+                    catch (ArithmeticException e) {
+                        throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, format("bigint multiplication overflow: %s * %s", left[i], right[i]), e);
+                    }
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    private void projectDouble(double[] left, double[] right, long[] result)
+    {
+        switch (operator) {
+            case ADD:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = doubleToLongBits(left[i] + right[i]);
+                }
+                return;
+            case SUBTRACT:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = doubleToLongBits(left[i] - right[i]);
+                }
+                return;
+            case MULTIPLY:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = doubleToLongBits(left[i] * right[i]);
+                }
+                return;
+            case DIVIDE:
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = doubleToLongBits(left[i] / right[i]);
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("type", type)
+                .add("operator", operator)
+                .add("left", left)
+                .add("right", right)
+                .toString();
+    }
+
+    /**
+     * A column of the input page, or a constant
+     */
+    public static final class Operand
+    {
+        private final int channel;
+        private final long longConstant;
+        private final double doubleConstant;
+
+        private Operand(int channel, long longConstant, double doubleConstant)
+        {
+            this.channel = channel;
+            this.longConstant = longConstant;
+            this.doubleConstant = doubleConstant;
+        }
+
+        public static Operand column(int channel)
+        {
+            checkArgument(channel >= 0, "channel is negative");
+            return new Operand(channel, 0, 0);
+        }
+
+        public static Operand bigintConstant(long value)
+        {
+            return new Operand(-1, value, 0);
+        }
+
+        public static Operand doubleConstant(double value)
+        {
+            return new Operand(-1, 0, value);
+        }
+
+        private boolean isConstant()
+        {
+            return channel < 0;
+        }
+
+        private boolean gatherNulls(Page page, SelectedPositions selectedPositions, boolean[] valueIsNull)
+        {
+            if (isConstant()) {
+                return false;
+            }
+            Block block = page.getBlock(channel).getLoadedBlock();
+            if (!block.mayHaveNull()) {
+                return false;
+            }
+            int[] positions = selectedPositions.isList() ? selectedPositions.getPositions() : null;
+            int offset = selectedPositions.getOffset();
+            boolean hasNull = false;
+            for (int i = 0; i < valueIsNull.length; i++) {
+                boolean isNull = block.isNull(positions == null ? offset + i : positions[offset + i]);
+                valueIsNull[i] |= isNull;
+                hasNull |= isNull;
+            }
+            return hasNull;
+        }
+
+        /**
+         * Values of null positions are zero, so that they can not overflow
+         */
+        private long[] gatherLongs(Page page, SelectedPositions selectedPositions, boolean[] valueIsNull)
+        {
+            long[] values = new long[selectedPositions.size()];
+            if (isConstant()) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = valueIsNull[i] ? 0 : longConstant;
+                }
+                return values;
+            }
+            Block block = page.getBlock(channel).getLoadedBlock();
+            int[] positions = selectedPositions.isList() ? selectedPositions.getPositions() : null;
+            int offset = selectedPositions.getOffset();
+            if (block instanceof LongArrayBlock) {
+                long[] blockValues = (long[]) block.getValues();
+                int blockOffset = block.getBlockOffset();
+                for (int i = 0; i < values.length; i++) {
+                    int position = positions == null ? offset + i : positions[offset + i];
+                    values[i] = valueIsNull[i] ? 0 : blockValues[position + blockOffset];
+                }
+            }
+            else {
+                for (int i = 0; i < values.length; i++) {
+                    int position = positions == null ? offset + i : positions[offset + i];
+                    values[i] = valueIsNull[i] ? 0 : BIGINT.getLong(block, position);
+                }
+            }
+            return values;
+        }
+
+        private double[] gatherDoubles(Page page, SelectedPositions selectedPositions)
+        {
+            double[] values = new double[selectedPositions.size()];
+            if (isConstant()) {
+                Arrays.fill(values, doubleConstant);
+                return values;
+            }
+            Block block = page.getBlock(channel).getLoadedBlock();
+            int[] positions = selectedPositions.isList() ? selectedPositions.getPositions() : null;
+            int offset = selectedPositions.getOffset();
+            if (block instanceof LongArrayBlock) {
+                long[] blockValues = (long[]) block.getValues();
+                int blockOffset = block.getBlockOffset();
+                for (int i = 0; i < values.length; i++) {
+                    int position = positions == null ? offset + i : positions[offset + i];
+                    values[i] = longBitsToDouble(blockValues[position + blockOffset]);
+                }
+            }
+            else {
+                for (int i = 0; i < values.length; i++) {
+                    int position = positions == null ? offset + i : positions[offset + i];
+                    if (!block.isNull(position)) {
+                        values[i] = DOUBLE.getDouble(block, position);
+                    }
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public String toString()
+        {
+            if (isConstant()) {
+                return toStringHelper(this).add("longConstant", longConstant).add("doubleConstant", doubleConstant).toString();
+            }
+            return toStringHelper(this).add("channel", channel).toString();
+        }
+    }
+}
@@ -38,6 +38,7 @@ import io.prestosql.discovery.HetuDiscoveryModule;
 import io.prestosql.dynamicfilter.CrossRegionDynamicFilterListener;
 import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.dynamicfilter.DynamicFilterListener;
+import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.eventlistener.EventListenerManager;
 import io.prestosql.eventlistener.EventListenerModule;
 import io.prestosql.exchange.ExchangeManagerModule;
@@ -189,6 +190,10 @@ public class PrestoServer
                     injector.getInstance(DynamicFilterCacheManager.class),
                     injector.getInstance(ServerConfig.class),
                     injector.getInstance(NodeSchedulerConfig.class));
+            if (injector.getInstance(ServerConfig.class).isCoordinator()) {
+                // merge dynamic filters as soon as the tasks have published them
+                injector.getInstance(DynamicFilterService.class).registerPartialDynamicFilterListener(injector.getInstance(StateStoreListenerManager.class));
+            }
 
             // Initialize snapshot Manager
             injector.getInstance(RecoveryUtils.class).initialize();
@@ -571,6 +571,7 @@ public class ServerMainModule
 
         // HeuristicIndexerManager
         binder.bind(HeuristicIndexerManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(HeuristicIndexerManager.class).withGeneratedName();
 
         // RecoveryUtils
         binder.bind(RecoveryUtils.class).in(Scopes.SINGLETON);
@@ -24,6 +24,7 @@ import io.prestosql.failuredetector.FailureDetector;
 import io.prestosql.failuredetector.NoOpFailureDetector;
 import io.prestosql.failuredetector.WorkerGossipFailureDetectorModule;
 import io.prestosql.queryeditorui.QueryEditorConfig;
+import io.prestosql.queryhistory.QueryHistoryConfig;
 import io.prestosql.server.security.NoOpWebUIAuthenticator;
 import io.prestosql.server.security.WebUIAuthenticator;
 import io.prestosql.statestore.NoOpStateStoreLauncher;
@@ -81,6 +82,8 @@ public class WorkerModule
         binder.bind(QueryManager.class).toInstance(newProxy(QueryManager.class, (proxy, method, args) -> {
             throw new UnsupportedOperationException();
         }));
+        // The cube recommendations system table only reads the query history on the coordinator
+        configBinder(binder).bindConfig(QueryHistoryConfig.class);
 
         binder.bind(StateStoreLauncher.class).to(NoOpStateStoreLauncher.class).in(Scopes.SINGLETON);
 
@@ -46,6 +46,7 @@ import io.prestosql.cost.StatsCalculator;
 import io.prestosql.dispatcher.DispatchManager;
 import io.prestosql.dynamicfilter.DynamicFilterCacheManager;
 import io.prestosql.dynamicfilter.DynamicFilterListener;
+import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.eventlistener.EventListenerManager;
 import io.prestosql.exchange.ExchangeManagerModule;
 import io.prestosql.exchange.ExchangeManagerRegistry;
@@ -375,6 +376,9 @@ public class TestingPrestoServer
                     injector.getInstance(DynamicFilterCacheManager.class),
                     injector.getInstance(ServerConfig.class),
                     injector.getInstance(NodeSchedulerConfig.class));
+            if (coordinator) {
+                injector.getInstance(DynamicFilterService.class).registerPartialDynamicFilterListener(injector.getInstance(StateStoreListenerManager.class));
+            }
         }
         catch (Exception e) {
             // ignore
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * ContentDefinedChunker splits a serialized state stream into chunks whose boundaries depend on the content
+ * (gear rolling hash), so that data inserted or appended to a state only changes the chunks around the modification.
+ * This allows consecutive snapshots of the same component to share unchanged chunks.
+ */
+class ContentDefinedChunker
+        extends OutputStream
+{
+    static final int DEFAULT_MIN_CHUNK_SIZE = 256 * 1024;
+    static final int DEFAULT_AVERAGE_CHUNK_SIZE = 1024 * 1024;
+    static final int DEFAULT_MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    // Fixed seed: chunk boundaries must be identical across snapshots and across workers
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x5eedc0deL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    interface ChunkConsumer
+    {
+        void accept(byte[] buffer, int length)
+                throws IOException;
+    }
+
+    private final ChunkConsumer consumer;
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final long mask;
+    // Grows up to maxChunkSize, so that small states do not allocate a full chunk
+    private byte[] buffer;
+
+    private int position;
+    private long hash;
+    private boolean closed;
+
+    ContentDefinedChunker(ChunkConsumer consumer)
+    {
+        this(consumer, DEFAULT_MIN_CHUNK_SIZE, DEFAULT_AVERAGE_CHUNK_SIZE, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    ContentDefinedChunker(ChunkConsumer consumer, int minChunkSize, int averageChunkSize, int maxChunkSize)
+    {
+        checkArgument(Integer.bitCount(averageChunkSize) == 1, "averageChunkSize must be a power of 2");
+        checkArgument(minChunkSize > 0 && minChunkSize <= averageChunkSize && averageChunkSize <= maxChunkSize, "invalid chunk sizes");
+        this.consumer = requireNonNull(consumer, "consumer is null");
+        this.minChunkSize = minChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.mask = averageChunkSize - 1;
+        this.buffer = new byte[Math.min(INITIAL_BUFFER_SIZE, maxChunkSize)];
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException
+    {
+        ensureCapacity();
+        buffer[position++] = (byte) b;
+        hash = (hash << 1) + GEAR[b & 0xFF];
+        if (position == maxChunkSize || (position >= minChunkSize && (hash & mask) == 0)) {
+            emit();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+            throws IOException
+    {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            ensureCapacity();
+            byte b = bytes[i];
+            buffer[position++] = b;
+            hash = (hash << 1) + GEAR[b & 0xFF];
+            if (position == maxChunkSize || (position >= minChunkSize && (hash & mask) == 0)) {
+                emit();
+            }
+        }
+    }
+
+    /**
+     * Emits the last (partial) chunk. The underlying consumer is not closed.
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (!closed) {
+            closed = true;
+            if (position > 0) {
+                emit();
+            }
+        }
+    }
+
+    private void ensureCapacity()
+    {
+        if (position == buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, maxChunkSize));
+        }
+    }
+
+    private void emit()
+            throws IOException
+    {
+        consumer.accept(buffer, position);
+        position = 0;
+        hash = 0;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.snapshot;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * DeltaStateManifest describes how to reassemble an incrementally stored state:
+ * the serialized state is the concatenation of the listed ranges, which may live in
+ * data files written by this snapshot (delta) or by earlier snapshots of the same component (base).
+ */
+public class DeltaStateManifest
+        implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    // Number of delta files on top of the last full (base) data file
+    private final int generation;
+    private final List<Range> ranges;
+
+    public DeltaStateManifest(int generation, List<Range> ranges)
+    {
+        this.generation = generation;
+        this.ranges = Collections.unmodifiableList(new ArrayList<>(requireNonNull(ranges, "ranges is null")));
+    }
+
+    public int getGeneration()
+    {
+        return generation;
+    }
+
+    public List<Range> getRanges()
+    {
+        return ranges;
+    }
+
+    public long getStateSize()
+    {
+        return ranges.stream().mapToLong(Range::getLength).sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("generation", generation)
+                .add("ranges", ranges.size())
+                .toString();
+    }
+
+    /**
+     * A contiguous range of bytes in a data file. The file is relative to the snapshot root.
+     */
+    public static class Range
+            implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> dataFile;
+        private final long offset;
+        private final long length;
+
+        public Range(List<String> dataFile, long offset, long length)
+        {
+            this.dataFile = Collections.unmodifiableList(new ArrayList<>(requireNonNull(dataFile, "dataFile is null")));
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public List<String> getDataFile()
+        {
+            return dataFile;
+        }
+
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        public long getLength()
+        {
+            return length;
+        }
+
+        /**
+         * Returns a range covering this range followed by {@code next}, or null if they are not adjacent.
+         */
+        Range merge(Range next)
+        {
+            if (dataFile.equals(next.dataFile) && offset + length == next.offset) {
+                return new Range(dataFile, offset, length + next.length);
+            }
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("dataFile", dataFile)
+                    .add("offset", offset)
+                    .add("length", length)
+                    .toString();
+        }
+    }
+}
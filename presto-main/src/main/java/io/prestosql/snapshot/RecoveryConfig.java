@@ -42,6 +42,8 @@ public class RecoveryConfig
     public static final String SPILLER_SPILL_PROFILE = "experimental.spiller-spill-profile";
     public static final String SPILLER_SPILL_TO_HDFS = "experimental.spiller-spill-to-hdfs";
     public static final String ELIMINATE_DUPLICATE_SPILL_FILES = "experimental.eliminate-duplicate-spill-files";
+    public static final String SNAPSHOT_INCREMENTAL = "hetu.snapshot.incremental";
+    public static final String SNAPSHOT_MAX_DELTA_CHAIN_LENGTH = "hetu.snapshot.maxDeltaChainLength";
 
     private String snapshotProfile;
     private String spillProfile;
@@ -55,6 +57,8 @@ public class RecoveryConfig
     private Duration snapshotTimeInterval = new Duration(5, TimeUnit.MINUTES);
     private long snapshotSplitCountInterval = 1_000;
     private boolean snapshotUseKryoSerialization;
+    private boolean incrementalSnapshotEnabled;
+    private int snapshotMaxDeltaChainLength = 8;
 
     public enum IntervalType
     {
@@ -205,4 +209,31 @@ public class RecoveryConfig
         this.eliminateDuplicateSpillFilesEnabled = eliminateDuplicateSpillFilesEnabled;
         return this;
     }
+
+    public boolean isIncrementalSnapshotEnabled()
+    {
+        return incrementalSnapshotEnabled;
+    }
+
+    @Config(SNAPSHOT_INCREMENTAL)
+    @ConfigDescription("only store the parts of operator states that changed since the previous snapshot")
+    public RecoveryConfig setIncrementalSnapshotEnabled(boolean incrementalSnapshotEnabled)
+    {
+        this.incrementalSnapshotEnabled = incrementalSnapshotEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSnapshotMaxDeltaChainLength()
+    {
+        return snapshotMaxDeltaChainLength;
+    }
+
+    @Config(SNAPSHOT_MAX_DELTA_CHAIN_LENGTH)
+    @ConfigDescription("maximum number of incremental snapshots stored on top of a full snapshot before it is compacted")
+    public RecoveryConfig setSnapshotMaxDeltaChainLength(int snapshotMaxDeltaChainLength)
+    {
+        this.snapshotMaxDeltaChainLength = snapshotMaxDeltaChainLength;
+        return this;
+    }
 }
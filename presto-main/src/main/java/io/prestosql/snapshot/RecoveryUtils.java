@@ -133,7 +133,8 @@ public class RecoveryUtils
             try {
                 HetuFileSystemClient fs = profile == null ?
                         fileSystemClientManager.getFileSystemClient(root) : fileSystemClientManager.getFileSystemClient(profile, root);
-                return new SnapshotFileBasedClient(fs, root, fileSystemClientManager, spillProfile, spillToHdfs, recoveryConfig.isSnapshotUseKryoSerialization());
+                int maxDeltaChainLength = recoveryConfig.isIncrementalSnapshotEnabled() ? recoveryConfig.getSnapshotMaxDeltaChainLength() : 0;
+                return new SnapshotFileBasedClient(fs, root, fileSystemClientManager, spillProfile, spillToHdfs, recoveryConfig.isSnapshotUseKryoSerialization(), maxDeltaChainLength);
             }
             catch (Exception e) {
                 LOG.warn(e, "Failed to create SnapshotFileBasedClient");
@@ -15,23 +15,37 @@
 package io.prestosql.snapshot;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
 import io.prestosql.filesystem.FileSystemClientManager;
 import io.prestosql.spi.filesystem.HetuFileSystemClient;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,6 +56,9 @@ public class SnapshotFileBasedClient
         implements SnapshotStoreClient
 {
     private static final Logger LOG = Logger.get(SnapshotFileBasedClient.class);
+    private static final byte[] DELTA_STATE_MAGIC = "HSDELTA1".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAX_CHUNK_INDEXES = 10_000;
+    private static final long CHUNK_INDEX_EXPIRATION_MINUTES = 30;
 
     private final HetuFileSystemClient fsClient;
     private final FileSystemClientManager fileSystemClientManager;
@@ -49,8 +66,22 @@ public class SnapshotFileBasedClient
     private final boolean useKryo;
     private final String spillProfile;
     private final boolean spillToHdfs;
+    // 0 when incremental snapshot is disabled
+    private final int maxDeltaChainLength;
+    // Chunks stored by the latest snapshot of each component, keyed by state hierarchy without the snapshot id.
+    // Queries are only deleted through the coordinator, so workers rely on the bound and the expiration to drop
+    // the indexes of finished queries. Losing an index only makes the next snapshot of the component a full one.
+    private final Cache<List<String>, ChunkIndex> chunkIndexes = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CHUNK_INDEXES)
+            .expireAfterAccess(CHUNK_INDEX_EXPIRATION_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     public SnapshotFileBasedClient(HetuFileSystemClient fsClient, Path rootPath, FileSystemClientManager fileSystemClientManager, String spillProfile, boolean spillToHdfs, boolean useKryo)
+    {
+        this(fsClient, rootPath, fileSystemClientManager, spillProfile, spillToHdfs, useKryo, 0);
+    }
+
+    public SnapshotFileBasedClient(HetuFileSystemClient fsClient, Path rootPath, FileSystemClientManager fileSystemClientManager, String spillProfile, boolean spillToHdfs, boolean useKryo, int maxDeltaChainLength)
     {
         this.fsClient = fsClient;
         this.rootPath = rootPath;
@@ -58,6 +89,7 @@ public class SnapshotFileBasedClient
         this.spillProfile = spillProfile;
         this.spillToHdfs = spillToHdfs;
         this.useKryo = useKryo;
+        this.maxDeltaChainLength = maxDeltaChainLength;
     }
 
     @Override
@@ -69,13 +101,19 @@ public class SnapshotFileBasedClient
 
         fsClient.createDirectories(file.getParent());
 
-        try (OutputStream outputStream = fsClient.newOutputStream(file)) {
-            RecoveryUtils.serializeState(state, outputStream, useKryo);
+        Long size;
+        if (maxDeltaChainLength > 0) {
+            size = storeDeltaState(snapshotStateId, file, state);
+        }
+        else {
+            try (OutputStream outputStream = fsClient.newOutputStream(file)) {
+                RecoveryUtils.serializeState(state, outputStream, useKryo);
+            }
+            size = dataCollector == null ? null : (Long) fsClient.getAttribute(file, "size");
         }
         timer.stop();
         if (dataCollector != null) {
             long snapshotId = snapshotStateId.getSnapshotId();
-            Long size = (Long) fsClient.getAttribute(file, "size");
             if (size != null) {
                 dataCollector.updateSnapshotCaptureSize(snapshotId, size.longValue());
             }
@@ -83,6 +121,102 @@ public class SnapshotFileBasedClient
         }
     }
 
+    /**
+     * Store the state as a delta against the previous snapshot of the same component.
+     * Only chunks that were not part of the previous state are written to a new data file;
+     * the state file itself holds a manifest listing where every chunk of the state is located.
+     * After maxDeltaChainLength deltas the full state is written again, to bound the number of files read on restore.
+     *
+     * @return number of bytes written
+     */
+    private long storeDeltaState(SnapshotStateId snapshotStateId, Path file, Object state)
+            throws IOException
+    {
+        List<String> hierarchy = snapshotStateId.getHierarchy();
+        List<String> componentKey = new ArrayList<>(hierarchy);
+        componentKey.remove(1);
+        ChunkIndex previous = chunkIndexes.getIfPresent(componentKey);
+        int generation = previous == null || previous.generation >= maxDeltaChainLength ? 0 : previous.generation + 1;
+        Map<HashCode, DeltaStateManifest.Range> reusableChunks = generation == 0 ? new HashMap<>() : previous.chunks;
+
+        // Data file names are unique, so that ranges referenced by other manifests are never overwritten
+        List<String> dataHierarchy = new ArrayList<>(hierarchy);
+        dataHierarchy.set(dataHierarchy.size() - 1, dataHierarchy.get(dataHierarchy.size() - 1) + "_delta_" + UUID.randomUUID());
+        Path dataFile = RecoveryUtils.createStatePath(rootPath, dataHierarchy);
+
+        Map<HashCode, DeltaStateManifest.Range> chunks = new HashMap<>();
+        List<DeltaStateManifest.Range> ranges = new ArrayList<>();
+        long[] written = new long[1];
+        try (OutputStream dataStream = fsClient.newOutputStream(dataFile)) {
+            ContentDefinedChunker chunker = new ContentDefinedChunker((buffer, length) -> {
+                HashCode hash = Hashing.murmur3_128().hashBytes(buffer, 0, length);
+                DeltaStateManifest.Range range = chunks.get(hash);
+                if (range == null) {
+                    range = reusableChunks.get(hash);
+                }
+                if (range == null || range.getLength() != length) {
+                    dataStream.write(buffer, 0, length);
+                    range = new DeltaStateManifest.Range(dataHierarchy, written[0], length);
+                    written[0] += length;
+                }
+                chunks.put(hash, range);
+                int last = ranges.size() - 1;
+                DeltaStateManifest.Range merged = last < 0 ? null : ranges.get(last).merge(range);
+                if (merged != null) {
+                    ranges.set(last, merged);
+                }
+                else {
+                    ranges.add(range);
+                }
+            });
+            RecoveryUtils.serializeState(state, chunker, useKryo);
+            chunker.close();
+        }
+        if (written[0] == 0) {
+            fsClient.deleteIfExists(dataFile);
+        }
+
+        DynamicSliceOutput manifestOutput = new DynamicSliceOutput(1024);
+        manifestOutput.writeBytes(DELTA_STATE_MAGIC);
+        try (ObjectOutputStream oos = new ObjectOutputStream(manifestOutput)) {
+            oos.writeObject(new DeltaStateManifest(generation, ranges));
+        }
+        try (OutputStream outputStream = fsClient.newOutputStream(file)) {
+            manifestOutput.slice().getBytes(0, outputStream, manifestOutput.size());
+        }
+
+        chunkIndexes.put(componentKey, new ChunkIndex(generation, chunks));
+        return written[0] + manifestOutput.size();
+    }
+
+    private InputStream openDeltaState(DeltaStateManifest manifest)
+    {
+        Iterator<DeltaStateManifest.Range> ranges = manifest.getRanges().iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>()
+        {
+            @Override
+            public boolean hasMoreElements()
+            {
+                return ranges.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement()
+            {
+                DeltaStateManifest.Range range = ranges.next();
+                Path dataFile = RecoveryUtils.createStatePath(rootPath, range.getDataFile());
+                try {
+                    InputStream inputStream = fsClient.newInputStream(dataFile);
+                    ByteStreams.skipFully(inputStream, range.getOffset());
+                    return ByteStreams.limit(inputStream, range.getLength());
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read snapshot delta file " + dataFile, e);
+                }
+            }
+        });
+    }
+
     @Override
     public Optional<Object> loadState(SnapshotStateId snapshotStateId, SnapshotDataCollector dataCollector)
             throws IOException, ClassNotFoundException
@@ -94,13 +228,30 @@ public class SnapshotFileBasedClient
             return Optional.empty();
         }
 
-        try (InputStream inputStream = fsClient.newInputStream(file)) {
-            result = Optional.of(RecoveryUtils.deserializeState(inputStream, useKryo));
+        long size;
+        try (InputStream inputStream = new BufferedInputStream(fsClient.newInputStream(file))) {
+            byte[] magic = new byte[DELTA_STATE_MAGIC.length];
+            inputStream.mark(magic.length);
+            if (ByteStreams.read(inputStream, magic, 0, magic.length) == magic.length && Arrays.equals(magic, DELTA_STATE_MAGIC)) {
+                // incrementally stored state: reassemble from the ranges listed in the manifest
+                DeltaStateManifest manifest = (DeltaStateManifest) new ObjectInputStream(inputStream).readObject();
+                try (InputStream stateStream = openDeltaState(manifest)) {
+                    result = Optional.of(RecoveryUtils.deserializeState(stateStream, useKryo));
+                }
+                catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                size = manifest.getStateSize();
+            }
+            else {
+                inputStream.reset();
+                result = Optional.of(RecoveryUtils.deserializeState(inputStream, useKryo));
+                size = dataCollector == null ? 0 : (Long) fsClient.getAttribute(file, "size");
+            }
         }
         timer.stop();
         if (dataCollector != null) {
-            Long size = (Long) fsClient.getAttribute(file, "size");
-            dataCollector.updateSnapshotRestoreSize(size.longValue());
+            dataCollector.updateSnapshotRestoreSize(size);
             dataCollector.updateSnapshotRestoreCpuTime(timer.elapsed(TimeUnit.MILLISECONDS));
         }
         return result;
@@ -212,6 +363,7 @@ public class SnapshotFileBasedClient
             throws IOException
     {
         Path file = RecoveryUtils.createStatePath(rootPath, queryId);
+        chunkIndexes.asMap().keySet().removeIf(componentKey -> componentKey.get(0).equals(queryId));
         fsClient.deleteRecursively(file);
     }
 
@@ -303,6 +455,18 @@ public class SnapshotFileBasedClient
         }
     }
 
+    private static class ChunkIndex
+    {
+        private final int generation;
+        private final Map<HashCode, DeltaStateManifest.Range> chunks;
+
+        private ChunkIndex(int generation, Map<HashCode, DeltaStateManifest.Range> chunks)
+        {
+            this.generation = generation;
+            this.chunks = chunks;
+        }
+    }
+
     private HetuFileSystemClient getSpillerFileSystemClient(Path filePath) throws IOException
     {
         return !spillToHdfs || spillProfile == null ? fileSystemClientManager.getFileSystemClient(filePath) : fileSystemClientManager.getFileSystemClient(spillProfile, filePath);
@@ -63,6 +63,7 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writeSerializedPage;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
@@ -76,11 +77,12 @@ import static java.util.Objects.requireNonNull;
 
 @RestorableConfig(uncapturedFields = {"closer", "serde",
         "spillerStats", "localSpillContext", "memoryContext", "executor", "spillInProgress", "cipherIV", "spillCipher", "fileSystemClientManager", "fileSystemClient",
-        "spillPath", "output", "oldState", "closed", "outputStream", "sessionTargetFile", "useSessionDirectSerde"})
+        "spillPath", "output", "oldState", "closed", "outputStream", "sessionTargetFile", "useSessionDirectSerde", "readAheadExecutor", "readAhead"})
 public class FileSingleStreamSpiller
         extends FileSingleSessionStreamSpiller
         implements SingleStreamSpiller
 {
+    // default size and alignment unit of the spill file stream buffers
     @VisibleForTesting
     static final int BUFFER_SIZE = 4 * 1024;
 
@@ -92,6 +94,9 @@ public class FileSingleStreamSpiller
     private final LocalMemoryContext memoryContext;
 
     private final ListeningExecutorService executor;
+    private final Optional<ListeningExecutorService> readAheadExecutor;
+    private ReadAheadIterator<Page> readAhead;
+    private final int ioBufferSize;
 
     private boolean writable = true;
     private long spilledPagesInMemorySize;
@@ -132,10 +137,15 @@ public class FileSingleStreamSpiller
             FileSystemClientManager fileSystemClientManager,
             boolean isSingleSessionSpiller,
             boolean isSnapshotEnabled,
-            String queryId)
+            String queryId,
+            int ioBufferSize,
+            Optional<ListeningExecutorService> readAheadExecutor)
     {
+        checkArgument(ioBufferSize > 0 && ioBufferSize % BUFFER_SIZE == 0, "ioBufferSize must be a positive multiple of %s", BUFFER_SIZE);
         this.serde = requireNonNull(serde, "serde is null");
         this.executor = requireNonNull(executor, "executor is null");
+        this.readAheadExecutor = requireNonNull(readAheadExecutor, "readAheadExecutor is null");
+        this.ioBufferSize = ioBufferSize;
         this.spillerStats = requireNonNull(spillerStats, "spillerStats is null");
         if (spillToHdfs) {
             this.spillPath = Paths.get(spillPath.toString(), queryId);
@@ -162,7 +172,7 @@ public class FileSingleStreamSpiller
         // This means we start accounting for the memory before the spiller thread allocates it, and we release the memory reservation
         // before/after the spiller thread allocates that memory -- -- whether before or after depends on whether writePages() is in the
         // middle of execution when close() is called (note that this applies to both readPages() and writePages() methods).
-        this.memoryContext.setBytes(BUFFER_SIZE);
+        this.memoryContext.setBytes(ioBufferSize);
         try {
             this.fileSystemClient = getFileSystem(spillPath, spillToHdfs, spillProfile, fileSystemClientManager);
         }
@@ -185,10 +195,10 @@ public class FileSingleStreamSpiller
             super.setTargetFile(getTargetFile(), useDirectSerde);
             try {
                 if (useDirectSerde) {
-                    super.setOutputStream(getStreamForWriting(getOutputStreamBasedOnSpillLocation(), BUFFER_SIZE));
+                    super.setOutputStream(getStreamForWriting(getOutputStreamBasedOnSpillLocation(), ioBufferSize));
                 }
                 else {
-                    super.setOutput(new OutputStreamSliceOutput(getOutputStreamBasedOnSpillLocation(), BUFFER_SIZE));
+                    super.setOutput(new OutputStreamSliceOutput(getOutputStreamBasedOnSpillLocation(), ioBufferSize));
                 }
             }
             catch (IOException e) {
@@ -258,7 +268,7 @@ public class FileSingleStreamSpiller
     void writePages(Iterator<Page> pageIterator)
     {
         checkState(writable, "Spilling no longer allowed. The spiller has been made non-writable on first read for subsequent reads to be consistent");
-        try (SliceOutput output = new OutputStreamSliceOutput(getOutputStreamBasedOnSpillLocation(), BUFFER_SIZE)) {
+        try (SliceOutput output = new OutputStreamSliceOutput(getOutputStreamBasedOnSpillLocation(), ioBufferSize)) {
             Stopwatch timer = Stopwatch.createStarted();
             while (pageIterator.hasNext()) {
                 Page page = pageIterator.next();
@@ -302,7 +312,7 @@ public class FileSingleStreamSpiller
     private void writePagesDirect(Iterator<Page> pageIterator)
     {
         checkState(writable, "Spilling no longer allowed. The spiller has been made non-writable on first read for subsequent reads to be consistent");
-        try (OutputStream output = getStreamForWriting(getOutputStreamBasedOnSpillLocation(), BUFFER_SIZE)) {
+        try (OutputStream output = getStreamForWriting(getOutputStreamBasedOnSpillLocation(), ioBufferSize)) {
             Stopwatch timer = Stopwatch.createStarted();
             while (pageIterator.hasNext()) {
                 Page page = pageIterator.next();
@@ -372,20 +382,26 @@ public class FileSingleStreamSpiller
 
             if (useDirectSerde) {
                 if (spillToHdfs) {
-                    pages = PagesSerdeUtil.readPagesDirect(serde, getStreamForReading(input, BUFFER_SIZE), getSessionDirectStreamEndOfData(), spillPrefetchReadPages);
+                    pages = PagesSerdeUtil.readPagesDirect(serde, getStreamForReading(input, ioBufferSize), getSessionDirectStreamEndOfData(), spillPrefetchReadPages);
                 }
                 else {
-                    pages = PagesSerdeUtil.readPagesDirect(serde, getStreamForReading(input, BUFFER_SIZE), getStreamEndOfData(), spillPrefetchReadPages);
+                    pages = PagesSerdeUtil.readPagesDirect(serde, getStreamForReading(input, ioBufferSize), getStreamEndOfData(), spillPrefetchReadPages);
                 }
             }
             else {
                 if (spillToHdfs) {
-                    pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE), spillPrefetchReadPages, getSessionStreamEndOfData());
+                    pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, ioBufferSize), spillPrefetchReadPages, getSessionStreamEndOfData());
                 }
                 else {
-                    pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE), spillPrefetchReadPages);
+                    pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, ioBufferSize), spillPrefetchReadPages);
                 }
             }
+            if (readAheadExecutor.isPresent() && !spillToHdfs) {
+                // the pages read ahead are accounted along with the I/O buffer
+                readAhead = new ReadAheadIterator<>(pages, readAheadExecutor.get(), spillPrefetchReadPages,
+                        Page::getRetainedSizeInBytes, bufferedBytes -> memoryContext.setBytes(ioBufferSize + bufferedBytes));
+                pages = readAhead;
+            }
             return closeWhenExhausted(pages, input, localSpillContext);
         }
         catch (IOException e) {
@@ -396,6 +412,10 @@ public class FileSingleStreamSpiller
     @Override
     public void close()
     {
+        if (readAhead != null) {
+            // wait for a read in flight before the file is closed and the memory is released
+            readAhead.cancel();
+        }
         closer.register(localSpillContext);
         closer.register(() -> memoryContext.setBytes(0));
         try {
@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
 import io.hetu.core.transport.execution.buffer.PagesSerde;
 import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
 import io.prestosql.filesystem.FileSystemClientManager;
@@ -45,6 +46,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.spi.StandardErrorCode.OUT_OF_SPILL_SPACE;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
@@ -69,6 +71,8 @@ public class FileSingleStreamSpillerFactory
     private final boolean spillDirectSerdeEnabled;
     private final boolean useKryo;
     private final boolean spillCompressionEnabled;
+    private final int ioBufferSize;
+    private final Optional<ListeningExecutorService> readAheadExecutor;
     private int roundRobinIndex;
     private int spillPrefetchReadPages;
     private boolean spillToHdfs;
@@ -94,7 +98,11 @@ public class FileSingleStreamSpillerFactory
                 requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillUseKryoSerialization(),
                 requireNonNull(featuresConfig, "featuresConfig is null").isSpillToHdfs(),
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillProfile(),
-                requireNonNull(fileSystemClientManager, "fileSystemClientManager is null"));
+                requireNonNull(fileSystemClientManager, "fileSystemClientManager is null"),
+                alignBufferSize(requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").getSpillIoBufferSize()),
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillReadAheadEnabled()
+                        ? Optional.of(listeningDecorator(newFixedThreadPool(nodeSpillConfig.getSpillReadAheadThreads(), daemonThreadsNamed("spill-read-ahead-%s"))))
+                        : Optional.empty());
     }
 
     @VisibleForTesting
@@ -132,6 +140,30 @@ public class FileSingleStreamSpillerFactory
             boolean spillToHdfs,
             String spillProfile,
             FileSystemClientManager fileSystemClientManager)
+    {
+        this(executor, blockEncodingSerde, spillerStats, spillPaths, maxUsedSpaceThreshold,
+                spillCompressionEnabled, spillEncryptionEnabled, spillDirectSerdeEnabled,
+                spillPrefetchReadPages, useKryo, spillToHdfs, spillProfile, fileSystemClientManager,
+                FileSingleStreamSpiller.BUFFER_SIZE, Optional.empty());
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            boolean spillCompressionEnabled,
+            boolean spillEncryptionEnabled,
+            boolean spillDirectSerdeEnabled,
+            int spillPrefetchReadPages,
+            boolean useKryo,
+            boolean spillToHdfs,
+            String spillProfile,
+            FileSystemClientManager fileSystemClientManager,
+            int ioBufferSize,
+            Optional<ListeningExecutorService> readAheadExecutor)
     {
         checkArgument(!(blockEncodingSerde instanceof KryoBlockEncodingSerde)
                         || (blockEncodingSerde instanceof KryoBlockEncodingSerde && spillDirectSerdeEnabled),
@@ -152,6 +184,17 @@ public class FileSingleStreamSpillerFactory
         this.useKryo = useKryo;
         this.fileSystemClientManager = fileSystemClientManager;
         this.spillPaths = ImmutableList.copyOf(spillPaths);
+        this.ioBufferSize = ioBufferSize;
+        this.readAheadExecutor = requireNonNull(readAheadExecutor, "readAheadExecutor is null");
+    }
+
+    /**
+     * Spill files are written and read through buffers of whole 4kB blocks
+     */
+    private static int alignBufferSize(DataSize bufferSize)
+    {
+        long blockSize = FileSingleStreamSpiller.BUFFER_SIZE;
+        return toIntExact((bufferSize.toBytes() + blockSize - 1) / blockSize * blockSize);
     }
 
     public synchronized void cleanupOldSpillFiles()
@@ -163,6 +206,7 @@ public class FileSingleStreamSpillerFactory
     public void destroy()
     {
         executor.shutdownNow();
+        readAheadExecutor.ifPresent(ListeningExecutorService::shutdownNow);
     }
 
     private synchronized void cleanupOldSpillFiles(Path path, boolean spillToHdfs, String spillProfile, FileSystemClientManager fileSystemClientManager)
@@ -205,7 +249,8 @@ public class FileSingleStreamSpillerFactory
         else {
             spillPath = isSpillToHdfs ? Paths.get("/tmp/hetu/snapshot") : getNextSpillPath();
         }
-        return new FileSingleStreamSpiller(serde, executor, spillPath, spillerStats, spillContext, memoryContext, spillCipher, spillCompressionEnabled, spillDirectSerdeEnabled, spillPrefetchReadPages, useKryo, isSpillToHdfs, spillProfile, fileSystemClientManager, isSingleSessionSpiller, isSnapshotEnabled, queryId);
+        return new FileSingleStreamSpiller(serde, executor, spillPath, spillerStats, spillContext, memoryContext, spillCipher, spillCompressionEnabled, spillDirectSerdeEnabled, spillPrefetchReadPages, useKryo, isSpillToHdfs, spillProfile, fileSystemClientManager, isSingleSessionSpiller, isSnapshotEnabled, queryId,
+                ioBufferSize, readAheadExecutor);
     }
 
     private synchronized Path getHdfsSpillPath(Path spillToHdfsPath)
@@ -14,7 +14,10 @@
 package io.prestosql.spiller;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.DataSize;
+import io.airlift.units.MaxDataSize;
+import io.airlift.units.MinDataSize;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -32,6 +35,9 @@ public class NodeSpillConfig
 
     private int spillPrefetchReadPages = 1;
     private boolean spillUseKryoSerialization;
+    private DataSize spillIoBufferSize = new DataSize(4, DataSize.Unit.KILOBYTE);
+    private boolean spillReadAheadEnabled;
+    private int spillReadAheadThreads = 4;
 
     @NotNull
     public DataSize getMaxSpillPerNode()
@@ -120,4 +126,47 @@ public class NodeSpillConfig
         this.spillUseKryoSerialization = spillUseKryoSerialization;
         return this;
     }
+
+    @NotNull
+    @MinDataSize("4kB")
+    @MaxDataSize("16MB")
+    public DataSize getSpillIoBufferSize()
+    {
+        return spillIoBufferSize;
+    }
+
+    @Config("experimental.spill-io-buffer-size")
+    @ConfigDescription("Size of the buffer of each spill file stream, rounded up to a multiple of 4kB")
+    public NodeSpillConfig setSpillIoBufferSize(DataSize spillIoBufferSize)
+    {
+        this.spillIoBufferSize = spillIoBufferSize;
+        return this;
+    }
+
+    public boolean isSpillReadAheadEnabled()
+    {
+        return spillReadAheadEnabled;
+    }
+
+    @Config("experimental.spill-read-ahead-enabled")
+    @ConfigDescription("Read and deserialize the next batch of spilled pages in the background while the current one is processed")
+    public NodeSpillConfig setSpillReadAheadEnabled(boolean spillReadAheadEnabled)
+    {
+        this.spillReadAheadEnabled = spillReadAheadEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSpillReadAheadThreads()
+    {
+        return spillReadAheadThreads;
+    }
+
+    @Config("experimental.spill-read-ahead-threads")
+    @ConfigDescription("Number of threads reading spilled pages ahead, shared by all spill files of the node")
+    public NodeSpillConfig setSpillReadAheadThreads(int spillReadAheadThreads)
+    {
+        this.spillReadAheadThreads = spillReadAheadThreads;
+        return this;
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pulls the next batch of the source iterator on a background executor while the current batch is consumed,
+ * so that reading and deserializing spilled pages overlaps with processing them.
+ * The source is only ever accessed by one task at a time. The size of the elements read ahead and not consumed
+ * yet is reported to the buffered bytes listener, so that it can be accounted as memory of the reader.
+ */
+class ReadAheadIterator<T>
+        extends AbstractIterator<T>
+{
+    private final Iterator<T> source;
+    private final Executor executor;
+    private final int batchSize;
+    private final ToLongFunction<T> sizeOf;
+    private final LongConsumer bufferedBytesListener;
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final Object sourceLock = new Object();
+
+    @GuardedBy("sourceLock")
+    private boolean cancelled;
+    private Iterator<T> currentBatch = Collections.emptyIterator();
+    private ListenableFutureTask<List<T>> nextBatch;
+
+    ReadAheadIterator(Iterator<T> source, Executor executor, int batchSize, ToLongFunction<T> sizeOf, LongConsumer bufferedBytesListener)
+    {
+        checkArgument(batchSize > 0, "batchSize must be positive");
+        this.source = requireNonNull(source, "source is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.batchSize = batchSize;
+        this.sizeOf = requireNonNull(sizeOf, "sizeOf is null");
+        this.bufferedBytesListener = requireNonNull(bufferedBytesListener, "bufferedBytesListener is null");
+    }
+
+    @Override
+    protected T computeNext()
+    {
+        if (!currentBatch.hasNext()) {
+            if (nextBatch == null) {
+                nextBatch = readNextBatch();
+            }
+            // read the batch on this thread if no executor thread has picked it up yet, rather than waiting for one
+            nextBatch.run();
+            List<T> batch = getFutureValue(nextBatch);
+            if (batch.isEmpty()) {
+                return endOfData();
+            }
+            currentBatch = batch.iterator();
+            nextBatch = readNextBatch();
+        }
+        T next = currentBatch.next();
+        updateBufferedBytes(-sizeOf.applyAsLong(next));
+        return next;
+    }
+
+    /**
+     * Stops reading ahead, and waits for a read which has already started to complete,
+     * so that the source can be closed once this method returns
+     */
+    void cancel()
+    {
+        if (nextBatch != null) {
+            nextBatch.cancel(false);
+        }
+        synchronized (sourceLock) {
+            cancelled = true;
+        }
+    }
+
+    private ListenableFutureTask<List<T>> readNextBatch()
+    {
+        ListenableFutureTask<List<T>> task = ListenableFutureTask.create(() -> {
+            List<T> batch = new ArrayList<>(batchSize);
+            synchronized (sourceLock) {
+                while (!cancelled && batch.size() < batchSize && source.hasNext()) {
+                    T next = source.next();
+                    batch.add(next);
+                    updateBufferedBytes(sizeOf.applyAsLong(next));
+                }
+            }
+            return batch;
+        });
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // the task is run by the consumer when it needs the batch
+        }
+        return task;
+    }
+
+    private synchronized void updateBufferedBytes(long delta)
+    {
+        bufferedBytesListener.accept(bufferedBytes.addAndGet(delta));
+    }
+}
@@ -23,6 +23,7 @@ import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MaxDataSize;
+import io.hetu.core.transport.execution.buffer.PageCompressionCodec;
 import io.prestosql.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import io.prestosql.operator.aggregation.histogram.HistogramGroupImplementation;
 import io.prestosql.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -100,6 +101,7 @@ public class FeaturesConfig
     private boolean pushLimitThroughSemiJoin = true;
     private boolean pushLimitThroughOuterJoin = true;
     private boolean exchangeCompressionEnabled;
+    private PageCompressionCodec exchangeCompressionCodec = PageCompressionCodec.ZSTD;
     private boolean legacyMapSubscript;
     private boolean optimizeMixedDistinctAggregations;
     private boolean unwrapCasts = true;
@@ -167,6 +169,7 @@ public class FeaturesConfig
 
     private DataSize filterAndProjectMinOutputPageSize = new DataSize(500, KILOBYTE);
     private int filterAndProjectMinOutputPageRowCount = 256;
+    private boolean vectorizedFilterAndProjectEnabled;
     private int maxGroupingSets = 2048;
     //transform selfjoin to aggregates if applicable
     private boolean transformSelfJoinToGroupby = true;
@@ -1166,6 +1169,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public PageCompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Compression codec used for exchanges when compression is enabled: ZSTD compresses whole pages, ADAPTIVE chooses a codec per block")
+    public FeaturesConfig setExchangeCompressionCodec(PageCompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -1252,6 +1269,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isVectorizedFilterAndProjectEnabled()
+    {
+        return vectorizedFilterAndProjectEnabled;
+    }
+
+    @Config("experimental.vectorized-filter-and-project-enabled")
+    @ConfigDescription("Evaluate simple filters and projections over primitive columns in vectorized loops instead of generated per-row code")
+    public FeaturesConfig setVectorizedFilterAndProjectEnabled(boolean vectorizedFilterAndProjectEnabled)
+    {
+        this.vectorizedFilterAndProjectEnabled = vectorizedFilterAndProjectEnabled;
+        return this;
+    }
+
     @Config("histogram.implementation")
     public FeaturesConfig setHistogramGroupImplementation(HistogramGroupImplementation groupByMode)
     {
@@ -58,6 +58,7 @@ import io.prestosql.spi.heuristicindex.IndexClient;
 import io.prestosql.spi.heuristicindex.IndexRecord;
 import io.prestosql.spi.heuristicindex.Pair;
 import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.security.AccessDeniedException;
 import io.prestosql.spi.security.Identity;
 import io.prestosql.spi.security.ViewExpression;
@@ -213,6 +214,8 @@ import static com.google.common.collect.Iterables.transform;
 import static io.prestosql.SystemSessionProperties.getMaxGroupingSets;
 import static io.prestosql.SystemSessionProperties.isEnableStarTreeIndex;
 import static io.prestosql.cube.CubeManager.STAR_TREE;
+import static io.prestosql.cube.CubeSourcePartitions.getSourcePartitions;
+import static io.prestosql.cube.CubeSourcePartitions.hasModifiedPartitions;
 import static io.prestosql.metadata.MetadataUtil.createQualifiedObjectName;
 import static io.prestosql.metadata.MetadataUtil.getRequiredCatalogHandle;
 import static io.prestosql.spi.StandardErrorCode.INVALID_COLUMN_MASK;
@@ -548,6 +551,16 @@ class StatementAnalyzer
             return type instanceof CharType || (type instanceof VarcharType && !((VarcharType) type).isUnbounded()) || hasNestedBoundedCharacterType(type);
         }
 
+        private boolean onlyNewPartitionsAdded(CubeMetadata cubeMetadata, TableHandle sourceTableHandle)
+        {
+            if (cubeMetadata.getSourcePartitions().isEmpty()) {
+                return false;
+            }
+            return getSourcePartitions(metadata, session, sourceTableHandle, TupleDomain.all())
+                    .map(partitions -> !hasModifiedPartitions(cubeMetadata, partitions))
+                    .orElse(false);
+        }
+
         @Override
         protected Scope visitInsertCube(InsertCube insertCube, Optional<Scope> scope)
         {
@@ -577,8 +590,11 @@ class StatementAnalyzer
                 throw new SemanticException(TABLE_STATE_INCORRECT, insertCube, "Cannot allow insert into cube. Cube might return incorrect results. Unable to identify last modified of the time source table.");
             }
             // If Original table was updated since Cube was built then We cannot allow any more updates on the Cube.
-            // User must create new cube from the source table and try insert overwrite cube
-            if (!insertCube.isOverwrite() && cubeMetadata.getCubeStatus() == CubeStatus.READY && tableLastModifiedTime.getAsLong() > cubeMetadata.getSourceTableLastUpdatedTime()) {
+            // User must create new cube from the source table and try insert overwrite cube.
+            // The only exception is when new partitions were added but none of the partitions already in the Cube changed,
+            // then the new partitions can be inserted incrementally.
+            if (!insertCube.isOverwrite() && cubeMetadata.getCubeStatus() == CubeStatus.READY && tableLastModifiedTime.getAsLong() > cubeMetadata.getSourceTableLastUpdatedTime()
+                    && !onlyNewPartitionsAdded(cubeMetadata, sourceTableHandle)) {
                 throw new SemanticException(TABLE_STATE_INCORRECT, insertCube, "Cannot insert into cube. Source table has been updated since Cube was last updated. Try INSERT OVERWRITE CUBE or Create new a cube");
             }
 
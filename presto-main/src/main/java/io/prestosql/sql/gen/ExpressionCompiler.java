@@ -55,6 +55,7 @@ import static java.util.Objects.requireNonNull;
 public class ExpressionCompiler
 {
     private final PageFunctionCompiler pageFunctionCompiler;
+    private final VectorizedPageFunctionFactory vectorizedPageFunctionFactory;
     private final LoadingCache<CacheKey, Class<? extends CursorProcessor>> cursorProcessors;
     private final CacheStatsMBean cacheStatsMBean;
 
@@ -63,6 +64,7 @@ public class ExpressionCompiler
     {
         requireNonNull(metadata, "metadata is null");
         this.pageFunctionCompiler = requireNonNull(pageFunctionCompiler, "pageFunctionCompiler is null");
+        this.vectorizedPageFunctionFactory = new VectorizedPageFunctionFactory(metadata.getFunctionAndTypeManager());
         this.cursorProcessors = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(1000)
@@ -92,18 +94,44 @@ public class ExpressionCompiler
 
     public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections, Optional<String> classNameSuffix)
     {
-        return compilePageProcessor(filter, projections, classNameSuffix, OptionalInt.empty());
+        return compilePageProcessor(filter, projections, classNameSuffix, OptionalInt.empty(), false);
+    }
+
+    /**
+     * When vectorized evaluation is enabled, the filter and the projections recognized by {@link VectorizedPageFunctionFactory}
+     * are evaluated in loops over the primitive arrays of the blocks, the others still use generated code
+     */
+    public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections, Optional<String> classNameSuffix, boolean vectorizedEvaluation)
+    {
+        return compilePageProcessor(filter, projections, classNameSuffix, OptionalInt.empty(), vectorizedEvaluation);
     }
 
     private Supplier<PageProcessor> compilePageProcessor(
             Optional<RowExpression> filter,
             List<? extends RowExpression> projections,
             Optional<String> classNameSuffix,
-            OptionalInt initialBatchSize)
+            OptionalInt initialBatchSize,
+            boolean vectorizedEvaluation)
     {
-        Optional<Supplier<PageFilter>> filterFunctionSupplier = filter.map(expression -> pageFunctionCompiler.compileFilter(expression, classNameSuffix));
+        Optional<Supplier<PageFilter>> filterFunctionSupplier = filter.map(expression -> {
+            if (vectorizedEvaluation) {
+                Optional<Supplier<PageFilter>> vectorizedFilter = vectorizedPageFunctionFactory.createFilter(expression);
+                if (vectorizedFilter.isPresent()) {
+                    return vectorizedFilter.get();
+                }
+            }
+            return pageFunctionCompiler.compileFilter(expression, classNameSuffix);
+        });
         List<Supplier<PageProjection>> pageProjectionSuppliers = projections.stream()
-                .map(projection -> pageFunctionCompiler.compileProjection(projection, classNameSuffix))
+                .map(projection -> {
+                    if (vectorizedEvaluation) {
+                        Optional<Supplier<PageProjection>> vectorizedProjection = vectorizedPageFunctionFactory.createProjection(projection);
+                        if (vectorizedProjection.isPresent()) {
+                            return vectorizedProjection.get();
+                        }
+                    }
+                    return pageFunctionCompiler.compileProjection(projection, classNameSuffix);
+                })
                 .collect(toImmutableList());
 
         return () -> {
@@ -123,7 +151,7 @@ public class ExpressionCompiler
     @VisibleForTesting
     public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections, int initialBatchSize)
     {
-        return compilePageProcessor(filter, projections, Optional.empty(), OptionalInt.of(initialBatchSize));
+        return compilePageProcessor(filter, projections, Optional.empty(), OptionalInt.of(initialBatchSize), false);
     }
 
     private <T> Class<? extends T> compile(Optional<RowExpression> filter, List<RowExpression> projections, BodyCompiler bodyCompiler, Class<? extends T> superType)
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.FunctionAndTypeManager;
+import io.prestosql.operator.project.InputChannels;
+import io.prestosql.operator.project.PageFilter;
+import io.prestosql.operator.project.PageProjection;
+import io.prestosql.operator.project.VectorizedPageFilter;
+import io.prestosql.operator.project.VectorizedPageProjection;
+import io.prestosql.operator.project.VectorizedPageProjection.Operand;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.relation.CallExpression;
+import io.prestosql.spi.relation.ConstantExpression;
+import io.prestosql.spi.relation.InputReferenceExpression;
+import io.prestosql.spi.relation.RowExpression;
+import io.prestosql.spi.relation.SpecialForm;
+import io.prestosql.spi.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static io.prestosql.operator.project.VectorizedPageFilter.doubleRange;
+import static io.prestosql.operator.project.VectorizedPageFilter.longRange;
+import static io.prestosql.spi.relation.SpecialForm.Form.AND;
+import static io.prestosql.spi.relation.SpecialForm.Form.BETWEEN;
+import static io.prestosql.spi.relation.SpecialForm.Form.BETWEEN_AND;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Recognizes filters and projections simple enough to be evaluated by {@link VectorizedPageFilter} and
+ * {@link VectorizedPageProjection}:
+ * <ul>
+ * <li>filters that are a conjunction of comparisons and BETWEEN predicates between a BIGINT, INTEGER,
+ * DATE or DOUBLE column and constants</li>
+ * <li>projections that add, subtract, multiply (or for DOUBLE divide) two BIGINT or DOUBLE operands,
+ * each a column or a constant</li>
+ * </ul>
+ * Anything else is left to the generated code of {@link PageFunctionCompiler}.
+ */
+public class VectorizedPageFunctionFactory
+{
+    private final FunctionAndTypeManager functionAndTypeManager;
+
+    public VectorizedPageFunctionFactory(FunctionAndTypeManager functionAndTypeManager)
+    {
+        this.functionAndTypeManager = requireNonNull(functionAndTypeManager, "functionAndTypeManager is null");
+    }
+
+    public Optional<Supplier<PageFilter>> createFilter(RowExpression filter)
+    {
+        List<RowExpression> conjuncts = new ArrayList<>();
+        flattenConjuncts(filter, conjuncts);
+
+        List<Integer> fields = new ArrayList<>();
+        ImmutableList.Builder<VectorizedPageFilter.Range> ranges = ImmutableList.builder();
+        for (RowExpression conjunct : conjuncts) {
+            Optional<VectorizedPageFilter.Range> range = toRange(conjunct, fields);
+            if (!range.isPresent()) {
+                return Optional.empty();
+            }
+            ranges.add(range.get());
+        }
+
+        PageFilter pageFilter = new VectorizedPageFilter(new InputChannels(fields), ranges.build());
+        return Optional.of(() -> pageFilter);
+    }
+
+    public Optional<Supplier<PageProjection>> createProjection(RowExpression projection)
+    {
+        if (!(projection instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) projection;
+        Optional<OperatorType> operator = getOperatorType(call);
+        Type type = call.getType();
+        if (!operator.isPresent() || !VectorizedPageProjection.isSupported(type, operator.get()) || call.getArguments().size() != 2) {
+            return Optional.empty();
+        }
+
+        List<Integer> fields = new ArrayList<>();
+        Optional<Operand> left = toOperand(call.getArguments().get(0), type, fields);
+        Optional<Operand> right = toOperand(call.getArguments().get(1), type, fields);
+        // leave constant folding to the generated code
+        if (!left.isPresent() || !right.isPresent() || fields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        PageProjection pageProjection = new VectorizedPageProjection(type, operator.get(), new InputChannels(fields), left.get(), right.get());
+        return Optional.of(() -> pageProjection);
+    }
+
+    private static void flattenConjuncts(RowExpression expression, List<RowExpression> conjuncts)
+    {
+        if (expression instanceof SpecialForm && (((SpecialForm) expression).getForm() == AND || ((SpecialForm) expression).getForm() == BETWEEN_AND)) {
+            for (RowExpression argument : ((SpecialForm) expression).getArguments()) {
+                flattenConjuncts(argument, conjuncts);
+            }
+            return;
+        }
+        conjuncts.add(expression);
+    }
+
+    private Optional<VectorizedPageFilter.Range> toRange(RowExpression expression, List<Integer> fields)
+    {
+        if (expression instanceof SpecialForm && ((SpecialForm) expression).getForm() == BETWEEN) {
+            List<RowExpression> arguments = ((SpecialForm) expression).getArguments();
+            return toRange(OperatorType.BETWEEN, arguments, fields);
+        }
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            Optional<OperatorType> operator = getOperatorType(call);
+            if (operator.isPresent()) {
+                return toRange(operator.get(), call.getArguments(), fields);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<VectorizedPageFilter.Range> toRange(OperatorType operator, List<RowExpression> arguments, List<Integer> fields)
+    {
+        if (operator == OperatorType.BETWEEN) {
+            if (arguments.size() != 3 || !(arguments.get(0) instanceof InputReferenceExpression)) {
+                return Optional.empty();
+            }
+            InputReferenceExpression column = (InputReferenceExpression) arguments.get(0);
+            Optional<Object> low = getConstant(arguments.get(1), column.getType());
+            Optional<Object> high = getConstant(arguments.get(2), column.getType());
+            if (!isSupportedFilterType(column.getType()) || !low.isPresent() || !high.isPresent()) {
+                return Optional.empty();
+            }
+            int channel = getChannel(column, fields);
+            if (column.getType().equals(DOUBLE)) {
+                return Optional.of(doubleRange(channel, column.getType(), (double) low.get(), (double) high.get(), false));
+            }
+            return Optional.of(longRange(channel, column.getType(), (long) low.get(), (long) high.get(), false));
+        }
+
+        if (arguments.size() != 2) {
+            return Optional.empty();
+        }
+        RowExpression left = arguments.get(0);
+        RowExpression right = arguments.get(1);
+        if (left instanceof ConstantExpression && right instanceof InputReferenceExpression) {
+            Optional<OperatorType> flipped = flip(operator);
+            if (!flipped.isPresent()) {
+                return Optional.empty();
+            }
+            return toRange(flipped.get(), ImmutableList.of(right, left), fields);
+        }
+        if (!(left instanceof InputReferenceExpression) || !isSupportedFilterType(left.getType())) {
+            return Optional.empty();
+        }
+        Optional<Object> constant = getConstant(right, left.getType());
+        if (!constant.isPresent()) {
+            return Optional.empty();
+        }
+
+        Type type = left.getType();
+        int channel = getChannel((InputReferenceExpression) left, fields);
+        if (type.equals(DOUBLE)) {
+            return toDoubleRange(operator, channel, type, (double) constant.get());
+        }
+        return toLongRange(operator, channel, type, (long) constant.get());
+    }
+
+    private static Optional<VectorizedPageFilter.Range> toLongRange(OperatorType operator, int channel, Type type, long value)
+    {
+        switch (operator) {
+            case EQUAL:
+                return Optional.of(longRange(channel, type, value, value, false));
+            case NOT_EQUAL:
+                return Optional.of(longRange(channel, type, value, value, true));
+            case LESS_THAN:
+                return Optional.of(value == Long.MIN_VALUE ? longRange(channel, type, 0, -1, false) : longRange(channel, type, Long.MIN_VALUE, value - 1, false));
+            case LESS_THAN_OR_EQUAL:
+                return Optional.of(longRange(channel, type, Long.MIN_VALUE, value, false));
+            case GREATER_THAN:
+                return Optional.of(value == Long.MAX_VALUE ? longRange(channel, type, 0, -1, false) : longRange(channel, type, value + 1, Long.MAX_VALUE, false));
+            case GREATER_THAN_OR_EQUAL:
+                return Optional.of(longRange(channel, type, value, Long.MAX_VALUE, false));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Strict bounds are turned into inclusive ones with the adjacent double value. A NaN bound selects nothing,
+     * which matches the comparisons: all of them are false for NaN, except for not equal.
+     */
+    private static Optional<VectorizedPageFilter.Range> toDoubleRange(OperatorType operator, int channel, Type type, double value)
+    {
+        switch (operator) {
+            case EQUAL:
+                return Optional.of(doubleRange(channel, type, value, value, false));
+            case NOT_EQUAL:
+                return Optional.of(doubleRange(channel, type, value, value, true));
+            case LESS_THAN:
+                return Optional.of(value == Double.NEGATIVE_INFINITY ? doubleRange(channel, type, Double.NaN, Double.NaN, false) : doubleRange(channel, type, Double.NEGATIVE_INFINITY, Math.nextDown(value), false));
+            case LESS_THAN_OR_EQUAL:
+                return Optional.of(doubleRange(channel, type, Double.NEGATIVE_INFINITY, value, false));
+            case GREATER_THAN:
+                return Optional.of(value == Double.POSITIVE_INFINITY ? doubleRange(channel, type, Double.NaN, Double.NaN, false) : doubleRange(channel, type, Math.nextUp(value), Double.POSITIVE_INFINITY, false));
+            case GREATER_THAN_OR_EQUAL:
+                return Optional.of(doubleRange(channel, type, value, Double.POSITIVE_INFINITY, false));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<OperatorType> flip(OperatorType operator)
+    {
+        switch (operator) {
+            case EQUAL:
+            case NOT_EQUAL:
+                return Optional.of(operator);
+            case LESS_THAN:
+                return Optional.of(OperatorType.GREATER_THAN);
+            case LESS_THAN_OR_EQUAL:
+                return Optional.of(OperatorType.GREATER_THAN_OR_EQUAL);
+            case GREATER_THAN:
+                return Optional.of(OperatorType.LESS_THAN);
+            case GREATER_THAN_OR_EQUAL:
+                return Optional.of(OperatorType.LESS_THAN_OR_EQUAL);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<Operand> toOperand(RowExpression expression, Type type, List<Integer> fields)
+    {
+        if (!expression.getType().equals(type)) {
+            return Optional.empty();
+        }
+        if (expression instanceof InputReferenceExpression) {
+            return Optional.of(Operand.column(getChannel((InputReferenceExpression) expression, fields)));
+        }
+        Optional<Object> constant = getConstant(expression, type);
+        if (!constant.isPresent()) {
+            return Optional.empty();
+        }
+        if (type.equals(DOUBLE)) {
+            return Optional.of(Operand.doubleConstant((double) constant.get()));
+        }
+        return Optional.of(Operand.bigintConstant((long) constant.get()));
+    }
+
+    /**
+     * Value of a non null constant of the given type
+     */
+    private static Optional<Object> getConstant(RowExpression expression, Type type)
+    {
+        if (!(expression instanceof ConstantExpression) || !expression.getType().equals(type)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(((ConstantExpression) expression).getValue());
+    }
+
+    /**
+     * Channel of the column in the page passed to the filter or projection, which only holds their input channels
+     */
+    private static int getChannel(InputReferenceExpression column, List<Integer> fields)
+    {
+        int channel = fields.indexOf(column.getField());
+        if (channel < 0) {
+            fields.add(column.getField());
+            channel = fields.size() - 1;
+        }
+        return channel;
+    }
+
+    private static boolean isSupportedFilterType(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(DATE) || type.equals(DOUBLE);
+    }
+
+    private Optional<OperatorType> getOperatorType(CallExpression call)
+    {
+        return functionAndTypeManager.getFunctionMetadata(call.getFunctionHandle()).getOperatorType();
+    }
+}
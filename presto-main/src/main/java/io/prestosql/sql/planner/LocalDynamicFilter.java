@@ -33,6 +33,7 @@ import io.prestosql.spi.plan.Symbol;
 import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.relation.RowExpression;
 import io.prestosql.spi.relation.VariableReferenceExpression;
+import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateSet;
 import io.prestosql.spi.statestore.StateStore;
 import io.prestosql.spi.util.BloomFilter;
@@ -55,12 +56,15 @@ import static io.prestosql.SystemSessionProperties.getDynamicFilteringBloomFilte
 import static io.prestosql.SystemSessionProperties.getDynamicFilteringDataType;
 import static io.prestosql.spi.dynamicfilter.BloomFilterDynamicFilter.convertBloomFilterToByteArray;
 import static io.prestosql.spi.dynamicfilter.DynamicFilter.DataType.BLOOM_FILTER;
+import static io.prestosql.spi.statestore.StateCollection.Type.MAP;
 import static io.prestosql.spi.statestore.StateCollection.Type.SET;
 import static io.prestosql.sql.DynamicFilters.Descriptor;
 import static io.prestosql.sql.DynamicFilters.extractDynamicFilters;
 import static io.prestosql.utils.DynamicFilterUtils.PARTIALPREFIX;
+import static io.prestosql.utils.DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS;
 import static io.prestosql.utils.DynamicFilterUtils.TASKSPREFIX;
 import static io.prestosql.utils.DynamicFilterUtils.createKey;
+import static io.prestosql.utils.DynamicFilterUtils.createPublishedKey;
 import static io.prestosql.utils.DynamicFilterUtils.findFilterNodeInStage;
 import static io.prestosql.utils.DynamicFilterUtils.getDynamicFilterDataType;
 import static java.util.Objects.requireNonNull;
@@ -276,6 +280,8 @@ public class LocalDynamicFilter
                 ((StateSet) stateStore.getOrCreateStateCollection(key, SET)).add(filterValues);
             }
             ((StateSet) stateStore.getOrCreateStateCollection(createKey(TASKSPREFIX, filterId, channel.getQueryId()), SET)).add(taskId.toString());
+            // notify the coordinator, so that it can merge the filter as soon as the last task has published
+            ((StateMap) stateStore.getOrCreateStateCollection(PUBLISHED_PARTIAL_DYNAMIC_FILTERS, MAP)).put(createPublishedKey(filterId, channel.getQueryId(), taskId.toString()), taskId.toString());
             log.debug("creating new " + dataType + " dynamic filter for size of: " + result.size() + ", key: " + key + ", taskId: " + taskId);
         }
     }
@@ -57,6 +57,7 @@ import io.prestosql.spi.plan.ProjectNode;
 import io.prestosql.spi.plan.Symbol;
 import io.prestosql.spi.plan.TableScanNode;
 import io.prestosql.spi.plan.ValuesNode;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.relation.ConstantExpression;
 import io.prestosql.spi.statistics.TableStatisticsMetadata;
 import io.prestosql.spi.type.CharType;
@@ -141,6 +142,7 @@ import static com.google.common.collect.Streams.zip;
 import static io.prestosql.SystemSessionProperties.getRetryPolicy;
 import static io.prestosql.SystemSessionProperties.isCTEReuseEnabled;
 import static io.prestosql.SystemSessionProperties.isSkipAttachingStatsWithPlan;
+import static io.prestosql.cube.CubeSourcePartitions.getSourcePartitions;
 import static io.prestosql.metadata.MetadataUtil.createQualifiedObjectName;
 import static io.prestosql.metadata.MetadataUtil.toSchemaTableName;
 import static io.prestosql.spi.StandardErrorCode.NOT_FOUND;
@@ -643,6 +645,15 @@ public class LogicalPlanner
         Map<Symbol, Type> predicateColumnsType = predicateColumns.stream()
                 .map(identifier -> new Symbol(identifier.getValue()))
                 .collect(Collectors.toMap(Function.identity(), symbol -> planSymbolAllocator.getTypes().get(symbol), (key1, ignored) -> key1));
+        //Record the source partitions read by this insert, so that later inserts only need to cover new partitions
+        TupleDomain<ColumnHandle> insertedDataDomain = TupleDomain.all();
+        if (rewritten != null) {
+            Map<String, ColumnHandle> sourceColumnHandles = metadata.getColumnHandles(session, sourceTableHandle);
+            insertedDataDomain = ExpressionDomainTranslator.fromPredicate(metadata, session, ExpressionUtils.rewriteIdentifiersToSymbolReferences(rewritten), planSymbolAllocator.getTypes())
+                    .getTupleDomain()
+                    .transform(symbol -> sourceColumnHandles.get(symbol.getName()));
+        }
+        Map<String, Long> sourcePartitions = getSourcePartitions(metadata, session, sourceTableHandle, insertedDataDomain).orElse(ImmutableMap.of());
         CubeFinishNode cubeFinishNode = new CubeFinishNode(
                 idAllocator.getNextId(),
                 tableWriterPlan.getRoot(),
@@ -651,7 +662,8 @@ public class LogicalPlanner
                         tableMetadata.getQualifiedName().toString(),
                         tableLastModifiedTimeSupplier.getAsLong(),
                         rewritten != null ? ExpressionFormatter.formatExpression(rewritten, Optional.empty()) : null,
-                        insertCubeStatement.isOverwrite()),
+                        insertCubeStatement.isOverwrite(),
+                        sourcePartitions),
                 predicateColumnsType);
         return new RelationPlan(cubeFinishNode, analysis.getScope(insertCubeStatement), cubeFinishNode.getOutputSymbols());
     }
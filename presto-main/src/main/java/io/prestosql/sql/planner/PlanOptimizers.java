@@ -21,6 +21,7 @@ import io.prestosql.cost.CostComparator;
 import io.prestosql.cost.StatsCalculator;
 import io.prestosql.cost.TaskCountEstimator;
 import io.prestosql.cube.CubeManager;
+import io.prestosql.cube.CubeSourcePartitionsCache;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.scheduler.NodeSchedulerConfig;
 import io.prestosql.metadata.InternalNodeManager;
@@ -302,6 +303,8 @@ public class PlanOptimizers
         builder.add(new AdjustApplicableOptimizationRule()); //This must be the first rule, as based on this next set of rule to apply will vary.
 
         builder.add(new PruneCTENodes(metadata, typeAnalyzer, false, true));
+        // shared by the cube rules so that the source partitions are looked up once per query
+        CubeSourcePartitionsCache cubePartitionsCache = new CubeSourcePartitionsCache(metadata);
         Set<Rule<?>> predicatePushDownRules = ImmutableSet.of(
                 new MergeFilters());
 
@@ -442,8 +445,8 @@ public class PlanOptimizers
                                         new RemoveRedundantEnforceSingleRowNode(),
                                         new RemoveRedundantExists(),
                                         new ImplementFilteredAggregations(),
-                                        new StarTreeAggregationRule(cubeManager, metadata),
-                                        new OptimizeAggregationOverJoin(cubeManager, metadata),
+                                        new StarTreeAggregationRule(cubeManager, metadata, cubePartitionsCache),
+                                        new OptimizeAggregationOverJoin(cubeManager, metadata, cubePartitionsCache),
                                         new SingleDistinctAggregationToGroupBy(),
                                         new MultipleDistinctAggregationToMarkDistinct(),
                                         new ImplementBernoulliSampleAsFilter(metadata),
@@ -26,6 +26,7 @@ import io.hetu.core.spi.cube.CubeMetadata;
 import io.hetu.core.spi.cube.aggregator.AggregationSignature;
 import io.hetu.core.spi.cube.io.CubeMetaStore;
 import io.prestosql.Session;
+import io.prestosql.cube.CubeSourcePartitionsCache;
 import io.prestosql.expressions.RowExpressionRewriter;
 import io.prestosql.expressions.RowExpressionTreeRewriter;
 import io.prestosql.metadata.Metadata;
@@ -95,6 +96,7 @@ import java.util.stream.Collectors;
 
 import static io.hetu.core.spi.cube.CubeAggregateFunction.COUNT;
 import static io.hetu.core.spi.cube.CubeAggregateFunction.SUM;
+import static io.prestosql.cube.CubeSourcePartitions.isCubeUpToDate;
 import static io.prestosql.spi.StandardErrorCode.CUBE_ERROR;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.prestosql.spi.connector.StandardWarningCode.EXPIRED_CUBE;
@@ -116,6 +118,7 @@ public class CubeOptimizer
     private Rule.Context context;
     private Metadata metadata;
     private CubeMetaStore cubeMetaStore;
+    private CubeSourcePartitionsCache partitionsCache;
     private List<CubeMetadata> matchingMetadataList = new ArrayList<>();
     private CubeMetadata cubeMetadata;
     private AggregationNode aggregationNode;
@@ -145,6 +148,7 @@ public class CubeOptimizer
             Rule.Context context,
             Metadata metadata,
             CubeMetaStore cubeMetaStore,
+            CubeSourcePartitionsCache partitionsCache,
             AggregationNode aggNode,
             List<ProjectNode> projections,
             FilterNode filterNode,
@@ -154,6 +158,7 @@ public class CubeOptimizer
         optimizer.context = requireNonNull(context, "Context is null");
         optimizer.metadata = requireNonNull(metadata, "Metadata is null");
         optimizer.cubeMetaStore = requireNonNull(cubeMetaStore, "CubeMetaStore is null");
+        optimizer.partitionsCache = requireNonNull(partitionsCache, "CubeSourcePartitionsCache is null");
         optimizer.aggregationNode = requireNonNull(aggNode, "Aggregation node is null");
         optimizer.intermediateProjections.addAll(requireNonNull(projections, "Project nodes are null"));
         optimizer.filterNode = filterNode;
@@ -165,6 +170,7 @@ public class CubeOptimizer
             Rule.Context context,
             Metadata metadata,
             CubeMetaStore cubeMetaStore,
+            CubeSourcePartitionsCache partitionsCache,
             AggregationNode aggNode,
             List<ProjectNode> projections,
             FilterNode filterNode,
@@ -174,6 +180,7 @@ public class CubeOptimizer
         optimizer.context = requireNonNull(context, "Context is null");
         optimizer.metadata = requireNonNull(metadata, "Metadata is null");
         optimizer.cubeMetaStore = requireNonNull(cubeMetaStore, "CubeMetaStore is null");
+        optimizer.partitionsCache = requireNonNull(partitionsCache, "CubeSourcePartitionsCache is null");
         optimizer.aggregationNode = requireNonNull(aggNode, "Aggregation node is null");
         optimizer.intermediateProjections.addAll(requireNonNull(projections, "Project nodes are null"));
         optimizer.filterNode = filterNode;
@@ -202,22 +209,44 @@ public class CubeOptimizer
             return Optional.empty();
         }
 
+        //Cubes that record their source partitions remain usable as long as the partitions read by the query are covered
+        Optional<Map<String, Long>> queryPartitions = Optional.empty();
+        Optional<Set<String>> existingPartitions = Optional.empty();
+        Set<String> cubePartitions = matchingMetadataList.stream()
+                .flatMap(cubeMetadata -> cubeMetadata.getSourcePartitions().keySet().stream())
+                .collect(Collectors.toSet());
+        if (!cubePartitions.isEmpty()) {
+            TupleDomain<ColumnHandle> queryDomain = getSourceTableQueryDomain();
+            queryPartitions = partitionsCache.getSourcePartitions(context.getSession(), sourceTableHandle, queryDomain);
+            existingPartitions = partitionsCache.getExistingPartitions(context.getSession(), sourceTableHandle, cubePartitions);
+        }
+        Optional<Map<String, Long>> finalQueryPartitions = queryPartitions;
+        Optional<Set<String>> finalExistingPartitions = existingPartitions;
         matchingMetadataList = matchingMetadataList.stream()
-                .filter(cubeMetadata -> cubeMetadata.getSourceTableLastUpdatedTime() >= lastModifiedTime)
+                .filter(cubeMetadata -> isCubeUpToDate(cubeMetadata, lastModifiedTime, finalQueryPartitions, finalExistingPartitions))
                 .collect(Collectors.toList());
 
         if (matchingMetadataList.isEmpty()) {
             context.getWarningCollector().add(new PrestoWarning(EXPIRED_CUBE, sourceTableMetadata.getTable().toString() + " has been modified after creating cubes. Ignoring expired cubes."));
             return Optional.empty();
         }
-        //If multiple matching cubes found, then cube with fewer group by columns (could also mean least number of rows) and pick the most recent cube
-        Comparator<CubeMetadata> byGroupSize = Comparator.comparingInt(cm -> cm.getGroup().size());
-        Comparator<CubeMetadata> byLastModifiedTime = Comparator.comparingLong(CubeMetadata::getLastUpdatedTime).reversed();
-        matchingMetadataList.sort(byGroupSize.thenComparing(byLastModifiedTime));
+        //If multiple matching cubes found, then pick the cube with the least number of rows
+        CubeOptimizerUtil.sortBySize(matchingMetadataList, metadata, context.getSession());
         cubeMetadata = matchingMetadataList.get(0);
         return Optional.ofNullable(rewrite());
     }
 
+    private TupleDomain<ColumnHandle> getSourceTableQueryDomain()
+    {
+        if (filterNode == null) {
+            return TupleDomain.all();
+        }
+        //Predicates on columns of the other join tables are ignored
+        return ExpressionDomainTranslator.fromPredicate(metadata, context.getSession(), castToExpression(filterNode.getPredicate()), context.getSymbolAllocator().getTypes())
+                .getTupleDomain()
+                .transform(symbol -> sourceTableScanNode.getAssignments().get(symbol));
+    }
+
     PlanNode rewrite()
     {
         cubeTableHandle = metadata.getTableHandle(context.getSession(), QualifiedObjectName.valueOf(cubeMetadata.getCubeName())).get();
@@ -16,9 +16,15 @@
 package io.prestosql.sql.planner.optimizations;
 
 import io.hetu.core.spi.cube.CubeAggregateFunction;
+import io.hetu.core.spi.cube.CubeMetadata;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.TableMetadata;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.metadata.TableHandle;
 import io.prestosql.spi.plan.AggregationNode;
 import io.prestosql.spi.plan.FilterNode;
 import io.prestosql.spi.plan.PlanNode;
@@ -28,6 +34,7 @@ import io.prestosql.spi.plan.TableScanNode;
 import io.prestosql.spi.relation.CallExpression;
 import io.prestosql.spi.relation.RowExpression;
 import io.prestosql.spi.relation.VariableReferenceExpression;
+import io.prestosql.spi.statistics.Estimate;
 import io.prestosql.sql.planner.SymbolsExtractor;
 import io.prestosql.sql.relational.OriginalExpressionUtils;
 import io.prestosql.sql.tree.Cast;
@@ -35,6 +42,7 @@ import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.Literal;
 import io.prestosql.sql.tree.SymbolReference;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -126,6 +134,35 @@ public class CubeOptimizerUtil
         return true;
     }
 
+    /**
+     * Orders the matching cubes so that the cube with the fewest rows comes first, as reading and
+     * re-aggregating a smaller cube is cheaper. Row counts come from the table statistics of the cubes,
+     * cubes without statistics come last. Ties are broken by the number of group by columns and then
+     * by picking the most recently updated cube.
+     */
+    static void sortBySize(List<CubeMetadata> cubeMetadataList, Metadata metadata, Session session)
+    {
+        if (cubeMetadataList.size() <= 1) {
+            return;
+        }
+        Map<String, Double> rowCounts = new HashMap<>();
+        cubeMetadataList.forEach(cubeMetadata -> rowCounts.put(cubeMetadata.getCubeName(), getRowCount(cubeMetadata, metadata, session)));
+        Comparator<CubeMetadata> byRowCount = Comparator.comparingDouble(cubeMetadata -> rowCounts.get(cubeMetadata.getCubeName()));
+        Comparator<CubeMetadata> byGroupSize = Comparator.comparingInt(cubeMetadata -> cubeMetadata.getGroup().size());
+        Comparator<CubeMetadata> byLastModifiedTime = Comparator.comparingLong(CubeMetadata::getLastUpdatedTime).reversed();
+        cubeMetadataList.sort(byRowCount.thenComparing(byGroupSize).thenComparing(byLastModifiedTime));
+    }
+
+    private static double getRowCount(CubeMetadata cubeMetadata, Metadata metadata, Session session)
+    {
+        Optional<TableHandle> cubeTableHandle = metadata.getTableHandle(session, QualifiedObjectName.valueOf(cubeMetadata.getCubeName()));
+        if (!cubeTableHandle.isPresent()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        Estimate rowCount = metadata.getTableStatistics(session, cubeTableHandle.get(), Constraint.alwaysTrue(), false).getRowCount();
+        return rowCount.isUnknown() ? Double.POSITIVE_INFINITY : rowCount.getValue();
+    }
+
     /**
      * Construct a map of symbols mapping to constant value or the underlying column name.
      *
@@ -19,6 +19,7 @@ import io.airlift.log.Logger;
 import io.hetu.core.spi.cube.io.CubeMetaStore;
 import io.prestosql.Session;
 import io.prestosql.cube.CubeManager;
+import io.prestosql.cube.CubeSourcePartitionsCache;
 import io.prestosql.matching.Capture;
 import io.prestosql.matching.Captures;
 import io.prestosql.matching.Pattern;
@@ -98,10 +99,18 @@ public class OptimizeAggregationOverJoin
 
     private final Metadata metadata;
 
+    private final CubeSourcePartitionsCache partitionsCache;
+
     public OptimizeAggregationOverJoin(CubeManager cubeManager, Metadata metadata)
+    {
+        this(cubeManager, metadata, new CubeSourcePartitionsCache(metadata));
+    }
+
+    public OptimizeAggregationOverJoin(CubeManager cubeManager, Metadata metadata, CubeSourcePartitionsCache partitionsCache)
     {
         this.cubeManager = requireNonNull(cubeManager, "cubeManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
+        this.partitionsCache = requireNonNull(partitionsCache, "partitionsCache is null");
     }
 
     @Override
@@ -164,6 +173,7 @@ public class OptimizeAggregationOverJoin
             Optional<PlanNode> optimized = CubeOptimizer.forPlan(context,
                     metadata,
                     cubeMetaStore,
+                    partitionsCache,
                     node,
                     projectNodes,
                     filterNode.map(FilterNode.class::cast).orElse(null),
@@ -24,6 +24,7 @@ import io.hetu.core.spi.cube.io.CubeMetaStore;
 import io.prestosql.Session;
 import io.prestosql.SystemSessionProperties;
 import io.prestosql.cube.CubeManager;
+import io.prestosql.cube.CubeSourcePartitionsCache;
 import io.prestosql.cube.CubeStatementGenerator;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.matching.Capture;
@@ -32,6 +33,7 @@ import io.prestosql.matching.Pattern;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.TableMetadata;
 import io.prestosql.spi.PrestoWarning;
+import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.metadata.TableHandle;
 import io.prestosql.spi.plan.AggregationNode;
 import io.prestosql.spi.plan.FilterNode;
@@ -57,7 +59,6 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -69,6 +70,7 @@ import java.util.stream.Collectors;
 
 import static io.prestosql.SystemSessionProperties.isEnableStarTreeIndex;
 import static io.prestosql.cube.CubeManager.STAR_TREE;
+import static io.prestosql.cube.CubeSourcePartitions.isCubeUpToDate;
 import static io.prestosql.matching.Capture.newCapture;
 import static io.prestosql.spi.connector.StandardWarningCode.EXPIRED_CUBE;
 import static io.prestosql.sql.planner.plan.Patterns.aggregation;
@@ -140,10 +142,18 @@ public class StarTreeAggregationRule
 
     private final Metadata metadata;
 
+    private final CubeSourcePartitionsCache partitionsCache;
+
     public StarTreeAggregationRule(CubeManager cubeManager, Metadata metadata)
+    {
+        this(cubeManager, metadata, new CubeSourcePartitionsCache(metadata));
+    }
+
+    public StarTreeAggregationRule(CubeManager cubeManager, Metadata metadata, CubeSourcePartitionsCache partitionsCache)
     {
         this.cubeManager = cubeManager;
         this.metadata = requireNonNull(metadata, "metadata is null");
+        this.partitionsCache = requireNonNull(partitionsCache, "partitionsCache is null");
     }
 
     @Override
@@ -272,8 +282,21 @@ public class StarTreeAggregationRule
         if (lastModifiedTime == -1L) {
             return Result.empty();
         }
+        //Cubes that record their source partitions remain usable as long as the partitions read by the query are covered
+        Optional<Map<String, Long>> queryPartitions = Optional.empty();
+        Optional<Set<String>> existingPartitions = Optional.empty();
+        Set<String> cubePartitions = matchedCubeMetadataList.stream()
+                .flatMap(cubeMetadata -> cubeMetadata.getSourcePartitions().keySet().stream())
+                .collect(Collectors.toSet());
+        if (!cubePartitions.isEmpty()) {
+            TupleDomain<ColumnHandle> queryDomain = getQueryDomain((FilterNode) filterNode, tableScanNode, session, symbolAllocator.getTypes());
+            queryPartitions = partitionsCache.getSourcePartitions(session, tableHandle, queryDomain);
+            existingPartitions = partitionsCache.getExistingPartitions(session, tableHandle, cubePartitions);
+        }
+        Optional<Map<String, Long>> finalQueryPartitions = queryPartitions;
+        Optional<Set<String>> finalExistingPartitions = existingPartitions;
         matchedCubeMetadataList = matchedCubeMetadataList.stream()
-                .filter(cubeMetadata -> cubeMetadata.getSourceTableLastUpdatedTime() >= lastModifiedTime)
+                .filter(cubeMetadata -> isCubeUpToDate(cubeMetadata, lastModifiedTime, finalQueryPartitions, finalExistingPartitions))
                 .collect(Collectors.toList());
 
         if (matchedCubeMetadataList.isEmpty()) {
@@ -281,14 +304,25 @@ public class StarTreeAggregationRule
             return Result.empty();
         }
 
-        //If multiple cubes are matching then lets select the recent built cube
-        //so sort the cube based on the last updated time stamp
-        matchedCubeMetadataList.sort(Comparator.comparingLong(CubeMetadata::getLastUpdatedTime).reversed());
+        //If multiple cubes are matching then lets select the smallest cube, finer grained cubes are re-aggregated
+        //to answer queries with fewer group by columns
+        CubeOptimizerUtil.sortBySize(matchedCubeMetadataList, metadata, session);
         CubeMetadata matchedCubeMetadata = matchedCubeMetadataList.get(0);
         AggregationRewriteWithCube aggregationRewriteWithCube = new AggregationRewriteWithCube(metadata, session, symbolAllocator, idAllocator, symbolMapping, matchedCubeMetadata);
         return Result.ofPlanNode(aggregationRewriteWithCube.rewrite(aggregationNode, rewriteByRemovingSourceFilter(filterNode, matchedCubeMetadata)));
     }
 
+    private TupleDomain<ColumnHandle> getQueryDomain(FilterNode filterNode, TableScanNode tableScanNode, Session session, TypeProvider types)
+    {
+        if (filterNode == null) {
+            return TupleDomain.all();
+        }
+        //Predicates on symbols not directly read from the table are ignored, so more partitions may be returned but never fewer
+        return ExpressionDomainTranslator.fromPredicate(metadata, session, castToExpression(filterNode.getPredicate()), types)
+                .getTupleDomain()
+                .transform(symbol -> tableScanNode.getAssignments().get(symbol));
+    }
+
     private FilterNode rewriteByRemovingSourceFilter(PlanNode filterNode, CubeMetadata matchedCubeMetadata)
     {
         FilterNode rewritten = (FilterNode) filterNode;
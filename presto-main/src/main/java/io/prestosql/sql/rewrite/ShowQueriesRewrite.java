@@ -52,6 +52,7 @@ import io.prestosql.spi.function.SqlFunction;
 import io.prestosql.spi.function.SqlInvokedFunction;
 import io.prestosql.spi.heuristicindex.IndexRecord;
 import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.security.PrestoPrincipal;
 import io.prestosql.spi.security.PrincipalType;
 import io.prestosql.spi.service.PropertyService;
@@ -135,6 +136,8 @@ import static io.prestosql.connector.informationschema.InformationSchemaMetadata
 import static io.prestosql.connector.informationschema.InformationSchemaMetadata.TABLE_TABLE_PRIVILEGES;
 import static io.prestosql.connector.informationschema.InformationSchemaMetadata.TABLE_VIEWS;
 import static io.prestosql.cube.CubeManager.STAR_TREE;
+import static io.prestosql.cube.CubeSourcePartitions.getSourcePartitions;
+import static io.prestosql.cube.CubeSourcePartitions.hasModifiedPartitions;
 import static io.prestosql.metadata.FunctionAndTypeManager.qualifyObjectName;
 import static io.prestosql.metadata.MetadataListing.listCatalogs;
 import static io.prestosql.metadata.MetadataListing.listSchemas;
@@ -321,6 +324,16 @@ final class ShowQueriesRewrite
                     // The table handle isn't present, or we got an error while trying to retrieve last modified time
                     cubeStatusMap.put(cubeMetadata.getCubeName(), "Invalid");
                 }
+                else if (!cubeMetadata.getSourcePartitions().isEmpty()) {
+                    // Cube is still usable for the partitions it covers as long as none of them has been modified
+                    Optional<Map<String, Long>> partitions = getSourcePartitions(metadata, session, metadata.getTableHandle(session, qualifiedTableName).get(), TupleDomain.all());
+                    if (!partitions.isPresent()) {
+                        cubeStatusMap.put(cubeMetadata.getCubeName(), "Invalid");
+                    }
+                    else {
+                        cubeStatusMap.put(cubeMetadata.getCubeName(), hasModifiedPartitions(cubeMetadata, partitions.get()) ? "Expired" : "Active");
+                    }
+                }
                 else {
                     cubeStatusMap.put(cubeMetadata.getCubeName(), tableLastModifiedTime > cubeMetadata.getSourceTableLastUpdatedTime() ? "Expired" : "Active");
                 }
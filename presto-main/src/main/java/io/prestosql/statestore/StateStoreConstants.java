@@ -85,6 +85,21 @@ public class StateStoreConstants
      */
     public static final String SPLIT_CACHE_METADATA_NAME = "split-cache-metadata-map";
 
+    /**
+     * CTE materialization cache entries shared between coordinators
+     */
+    public static final String CTE_MATERIALIZATION_CACHE_COLLECTION_NAME = "cte-materialization-cache";
+
+    /**
+     * CTE materialization tables and the coordinators owning them
+     */
+    public static final String CTE_MATERIALIZATION_TABLES_COLLECTION_NAME = "cte-materialization-tables";
+
+    /**
+     * Heartbeats of the coordinators sharing CTE materialization cache entries
+     */
+    public static final String CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME = "cte-materialization-owners";
+
     /**
      * Lock name for submitting new query
      */
@@ -31,8 +31,10 @@ import io.prestosql.spi.statestore.StateStore;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -157,6 +159,9 @@ public class StateUpdater
         StateCollection queries = stateStore.getStateCollection(QUERY_STATE_COLLECTION_NAME);
 
         List<DispatchQuery> queriesToUnregister = new LinkedList<>();
+        // states are written in one batch per collection instead of one remote call per query
+        Map<String, String> finishedQueryStates = new HashMap<>();
+        Map<String, String> queryStates = new HashMap<>();
         synchronized (registeredQueries) {
             for (DispatchQuery query : registeredQueries.get(QUERY_STATE_COLLECTION_NAME)) {
                 SharedQueryState state = SharedQueryState.create(query);
@@ -166,14 +171,21 @@ public class StateUpdater
                     // No need to update states for finished queries
                     // also move finished queries to finished-query state collection
                     queriesToUnregister.add(query);
-                    ((StateMap) finishedQueries).put(state.getBasicQueryInfo().getQueryId().getId(), stateJson);
+                    finishedQueryStates.put(state.getBasicQueryInfo().getQueryId().getId(), stateJson);
                     continue;
                 }
 
-                ((StateMap) queries).put(state.getBasicQueryInfo().getQueryId().getId(), stateJson);
+                queryStates.put(state.getBasicQueryInfo().getQueryId().getId(), stateJson);
             }
         }
 
+        if (!finishedQueryStates.isEmpty()) {
+            ((StateMap<String, String>) finishedQueries).putAll(finishedQueryStates);
+        }
+        if (!queryStates.isEmpty()) {
+            ((StateMap<String, String>) queries).putAll(queryStates);
+        }
+
         for (DispatchQuery query : queriesToUnregister) {
             removeFromStateCollection(stateStore, QUERY_STATE_COLLECTION_NAME, query);
         }
@@ -43,16 +43,22 @@ public class StateStoreListenerManager
         this.stateStoreProvider = requireNonNull(stateStoreProvider, "stateStoreProvider is null");
     }
 
-    public synchronized void addStateStoreListener(MapListener listener, String map)
+    /**
+     * Adds a listener for a state store collection
+     *
+     * @return whether the listener was added, no listener is added without a state store or if the collection already has one
+     */
+    public synchronized boolean addStateStoreListener(MapListener listener, String map)
     {
         if (stateStoreProvider.getStateStore() == null || listeners.containsKey(map)) {
-            return;
+            return false;
         }
 
         StateMap<?, ?> stateMap = (StateMap<?, ?>) stateStoreProvider.getStateStore().getOrCreateStateCollection(map, StateCollection.Type.MAP);
         stateMap.addEntryListener(listener);
         listeners.putIfAbsent(map, listener);
         LOG.info("Added state store listener " + listener + " for map " + map);
+        return true;
     }
 
     @PreDestroy
@@ -41,6 +41,8 @@ public class DynamicFilterUtils
     public static final String PARTIALPREFIX = "partial-";
     public static final String TASKSPREFIX = "tasks-";
     public static final String MERGED_DYNAMIC_FILTERS = "merged-dynamic-filters";
+    public static final String PUBLISHED_PARTIAL_DYNAMIC_FILTERS = "published-partial-dynamic-filters";
+    public static final String TASK_SEPARATOR = "/";
     public static final double BLOOM_FILTER_EXPECTED_FPP = 0.25F;
 
     private DynamicFilterUtils()
@@ -57,6 +59,15 @@ public class DynamicFilterUtils
         return prefix + filterKey + "-" + queryId;
     }
 
+    /**
+     * Key of the event that a task has published its partial result for a dynamic filter,
+     * the part before the last {@link #TASK_SEPARATOR} is the key of the tasks collection of the filter
+     */
+    public static String createPublishedKey(String filterKey, String queryId, String taskId)
+    {
+        return createKey(TASKSPREFIX, filterKey, queryId) + TASK_SEPARATOR + taskId;
+    }
+
     /**
      * Util function to find all FilterNodes in the same stage as the JoinNode
      *
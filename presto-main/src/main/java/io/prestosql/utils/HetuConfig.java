@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 
 /**
@@ -40,6 +41,7 @@ public class HetuConfig
     private Boolean enableFilter = Boolean.FALSE;
     private DataSize indexCacheMaxMemory = new DataSize(10, GIGABYTE);
     private long indexCacheLoadingThreads = 10L;
+    private long splitFilteringThreads = 4L;
     private Duration indexCacheLoadingDelay = new Duration(10, TimeUnit.SECONDS);
     private Duration indexCacheTTL = new Duration(24, TimeUnit.HOURS);
     private Boolean indexCacheSoftReference = Boolean.TRUE;
@@ -68,6 +70,8 @@ public class HetuConfig
     private int noResourceRetryCount = 5;
     private boolean isCteMaterializationEnabled;
     private DataSize cteMaterializationTotalStorage = new DataSize(2, GIGABYTE);
+    private DataSize cteMaterializationWarmStorage = new DataSize(0, BYTE);
+    private boolean isCteMaterializationSharedCacheEnabled;
     private String cachingSchemaName = "cache";
     private String cachingConnectorName = "hive";
     private String cachingUserName = "hive";
@@ -234,6 +238,19 @@ public class HetuConfig
         return this;
     }
 
+    public long getSplitFilteringThreads()
+    {
+        return this.splitFilteringThreads;
+    }
+
+    @Config(HetuConstant.FILTER_SPLIT_FILTERING_THREADS)
+    @ConfigDescription("The number of coordinator threads used to filter splits with heuristic indices")
+    public HetuConfig setSplitFilteringThreads(long splitFilteringThreads)
+    {
+        this.splitFilteringThreads = splitFilteringThreads;
+        return this;
+    }
+
     public DataSize getIndexCacheMaxMemory()
     {
         return this.indexCacheMaxMemory;
@@ -493,6 +510,32 @@ public class HetuConfig
         return this;
     }
 
+    public DataSize getExecutionDataCacheWarmMaxSize()
+    {
+        return cteMaterializationWarmStorage;
+    }
+
+    @Config("hetu.execution.cte-materialization.warm-max-size")
+    @ConfigDescription("Max total size of cached items demoted from the cache instead of being dropped, 0 disables the warm tier")
+    public HetuConfig setExecutionDataCacheWarmMaxSize(DataSize maxSize)
+    {
+        this.cteMaterializationWarmStorage = maxSize;
+        return this;
+    }
+
+    public boolean isCteMaterializationSharedCacheEnabled()
+    {
+        return isCteMaterializationSharedCacheEnabled;
+    }
+
+    @Config("hetu.execution.cte-materialization.shared-cache.enabled")
+    @ConfigDescription("Share cached items with the other coordinators through the state store when multiple coordinators are enabled")
+    public HetuConfig setCteMaterializationSharedCacheEnabled(boolean flag)
+    {
+        this.isCteMaterializationSharedCacheEnabled = flag;
+        return this;
+    }
+
     public String getCachingSchemaName()
     {
         return cachingSchemaName;
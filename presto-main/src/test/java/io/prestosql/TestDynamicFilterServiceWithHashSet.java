@@ -16,6 +16,7 @@ package io.prestosql;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.prestosql.dynamicfilter.DynamicFilterService;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.connector.ColumnHandle;
@@ -27,7 +28,9 @@ import io.prestosql.spi.statestore.StateMap;
 import io.prestosql.spi.statestore.StateSet;
 import io.prestosql.spi.statestore.StateStore;
 import io.prestosql.sql.DynamicFilters;
+import io.prestosql.statestore.MockStateMap;
 import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.statestore.listener.StateStoreListenerManager;
 import io.prestosql.testing.assertions.Assert;
 import io.prestosql.utils.DynamicFilterUtils;
 import org.testng.annotations.BeforeTest;
@@ -37,11 +40,14 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static io.prestosql.SystemSessionProperties.DYNAMIC_FILTERING_DATA_TYPE;
 import static io.prestosql.spi.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.prestosql.spi.statestore.StateCollection.Type.MAP;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static io.prestosql.utils.DynamicFilterUtils.createKey;
 import static io.prestosql.utils.TestDynamicFilterUtil.registerDf;
@@ -130,6 +136,50 @@ public class TestDynamicFilterServiceWithHashSet
         assertEquals(stateStoreProvider.getStateStore().getStateCollection(createKey(DynamicFilterUtils.TASKSPREFIX, filterId, queryId)).size(), 0);
     }
 
+    @Test
+    public void testMergeOnPublishedPartialDynamicFilters()
+            throws InterruptedException
+    {
+        String publishedFilterId = "df3";
+        Session publishedSession = testSessionBuilder()
+                .setQueryId(QueryId.valueOf("qq3"))
+                .setSystemProperty(DYNAMIC_FILTERING_DATA_TYPE, "HASHSET")
+                .build();
+        String queryId = publishedSession.getQueryId().toString();
+        Map mergedFilters = new HashMap<>();
+        StateStore stateStore = setupMockStateStore(mergedFilters, new HashMap<>(), new HashSet<>(), new HashSet<>(), queryId, publishedFilterId);
+        StateMap publishedFilters = new MockStateMap<>(DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS, new HashMap<>());
+        when(stateStore.getOrCreateStateCollection(DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS, MAP)).thenReturn(publishedFilters);
+        when(stateStore.getStateCollection(DynamicFilterUtils.PUBLISHED_PARTIAL_DYNAMIC_FILTERS)).thenReturn(publishedFilters);
+        StateStoreProvider publishedStateStoreProvider = mock(StateStoreProvider.class);
+        when(publishedStateStoreProvider.getStateStore()).thenReturn(stateStore);
+
+        // the service is not started, so the filter can only be merged through the publish events
+        DynamicFilterService service = new DynamicFilterService(publishedStateStoreProvider);
+        try {
+            service.registerPartialDynamicFilterListener(new StateStoreListenerManager(publishedStateStoreProvider));
+            registerDf(publishedFilterId, publishedSession, PARTITIONED, service);
+
+            String partialKey = createKey(DynamicFilterUtils.PARTIALPREFIX, publishedFilterId, queryId);
+            String tasksKey = createKey(DynamicFilterUtils.TASKSPREFIX, publishedFilterId, queryId);
+            String filterKey = createKey(DynamicFilterUtils.FILTERPREFIX, publishedFilterId, queryId);
+            for (String taskId : ImmutableList.of("task1.0", "task1.1")) {
+                ((StateSet) stateStore.getStateCollection(partialKey)).add(new HashSet<>(ImmutableList.of(taskId)));
+                ((StateSet) stateStore.getStateCollection(tasksKey)).add(taskId);
+                publishedFilters.put(DynamicFilterUtils.createPublishedKey(publishedFilterId, queryId, taskId), taskId);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!mergedFilters.containsKey(filterKey) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(mergedFilters.get(filterKey), ImmutableSet.of("task1.0", "task1.1"));
+        }
+        finally {
+            service.stop();
+        }
+    }
+
     private Set fetchDynamicFilterHashSet(String filterId, String queryId)
     {
         Set hashSet = (Set) ((StateMap) stateStoreProvider.getStateStore().getStateCollection(DynamicFilterUtils.MERGED_DYNAMIC_FILTERS))
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.node.NodeConfig;
+import io.airlift.node.NodeInfo;
+import io.prestosql.cache.elements.CachedDataKey;
+import io.prestosql.cache.elements.CachedDataStorage;
+import io.prestosql.execution.QueryIdGenerator;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.SessionPropertyManager;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.CatalogName;
+import io.prestosql.spi.connector.CatalogSchemaTableName;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.statestore.StateCollection;
+import io.prestosql.spi.statestore.StateMap;
+import io.prestosql.spi.statestore.StateStore;
+import io.prestosql.statestore.MockStateMap;
+import io.prestosql.statestore.StateStoreProvider;
+import io.prestosql.testing.TestingMetadata.TestingTableHandle;
+import io.prestosql.testing.TestingTransactionHandle;
+import io.prestosql.utils.HetuConfig;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_CACHE_COLLECTION_NAME;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME;
+import static io.prestosql.statestore.StateStoreConstants.CTE_MATERIALIZATION_TABLES_COLLECTION_NAME;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestCachedDataManager
+{
+    private static final String SOURCE_TABLE = "hive.tpch.orders";
+    private static final CachedDataKey KEY = new CachedDataKey("cte", "select orderkey from orders", ImmutableSet.of(SOURCE_TABLE), ImmutableMap.of(), ImmutableSet.of());
+
+    private final Map<String, StateMap<String, String>> stateMaps = new ConcurrentHashMap<>();
+    private final Set<String> existingTables = ConcurrentHashMap.newKeySet();
+    private final Set<String> droppedTables = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sourceModificationTime = new AtomicLong();
+    private Metadata metadata;
+    private StateStoreProvider stateStoreProvider;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        stateMaps.clear();
+        existingTables.clear();
+        droppedTables.clear();
+        existingTables.add(SOURCE_TABLE);
+        sourceModificationTime.set(1000);
+
+        StateStore stateStore = mock(StateStore.class);
+        when(stateStore.getOrCreateStateCollection(any(), any())).thenAnswer(invocation ->
+                stateMaps.computeIfAbsent((String) invocation.getArguments()[0], name -> new MockStateMap<>(name, new HashMap<>())));
+        stateStoreProvider = mock(StateStoreProvider.class);
+        when(stateStoreProvider.getStateStore()).thenReturn(stateStore);
+
+        metadata = mock(Metadata.class);
+        when(metadata.getTableHandle(any(), any())).thenAnswer(invocation -> {
+            QualifiedObjectName table = (QualifiedObjectName) invocation.getArguments()[1];
+            if (!existingTables.contains(table.toString())) {
+                return Optional.empty();
+            }
+            return Optional.of(new TableHandle(
+                    new CatalogName(table.getCatalogName()),
+                    new TestingTableHandle(new SchemaTableName(table.getSchemaName(), table.getObjectName())),
+                    TestingTransactionHandle.create(),
+                    Optional.empty()));
+        });
+        when(metadata.getTableLastModifiedTimeSupplier(any(), any())).thenAnswer(invocation -> {
+            long modificationTime = sourceModificationTime.get();
+            if (modificationTime == Long.MIN_VALUE) {
+                throw new PrestoException(NOT_SUPPORTED, "The connector does not support getting table modification time");
+            }
+            return (LongSupplier) () -> modificationTime;
+        });
+        doAnswer(invocation -> {
+            TableHandle tableHandle = (TableHandle) invocation.getArguments()[1];
+            SchemaTableName schemaTableName = ((TestingTableHandle) tableHandle.getConnectorHandle()).getTableName();
+            String table = new CatalogSchemaTableName(tableHandle.getCatalogName().getCatalogName(), schemaTableName).toString();
+            existingTables.remove(table);
+            droppedTables.add(table);
+            return null;
+        }).when(metadata).dropTable(any(), any());
+    }
+
+    @Test
+    public void testAdoptSharedEntry()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        CachedDataStorage cds = materialize(owner, "t1");
+        assertNotNull(getSharedEntries().get(SharedCachedDataRegistry.sharedKey(KEY)));
+
+        CachedDataStorage adopted = other.validateAndGet(KEY, TEST_SESSION);
+        assertNotNull(adopted);
+        assertEquals(adopted.getDataTable(), cds.getDataTable());
+        assertEquals(adopted.getDataSize(), cds.getDataSize());
+
+        // the adopting coordinator never drops the table of the owner
+        other.invalidateAll(TEST_SESSION);
+        assertTrue(droppedTables.isEmpty());
+        assertTrue(existingTables.contains(cds.getDataTable().toString()));
+    }
+
+    @Test
+    public void testStaleSharedEntry()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        materialize(owner, "t1");
+        sourceModificationTime.incrementAndGet();
+
+        assertNull(other.validateAndGet(KEY, TEST_SESSION));
+        // the stale entry is retracted so that no other coordinator serves it
+        assertTrue(getSharedEntries().isEmpty());
+    }
+
+    @Test
+    public void testSourceWithoutModificationTime()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        sourceModificationTime.set(Long.MIN_VALUE);
+        materialize(owner, "t1");
+
+        // the other coordinators could not tell whether the entry is stale
+        assertTrue(getSharedEntries().isEmpty());
+        assertNull(other.validateAndGet(KEY, TEST_SESSION));
+    }
+
+    @Test
+    public void testOwnerDroppedTable()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        CachedDataStorage cds = materialize(owner, "t1");
+        assertNotNull(other.validateAndGet(KEY, TEST_SESSION));
+
+        owner.invalidateAll(TEST_SESSION);
+        assertTrue(droppedTables.contains(cds.getDataTable().toString()));
+        assertFalse(getTableOwners().containsKey(cds.getDataTable().toString()));
+
+        // the adopted entry is not served any more once the owner dropped the table
+        assertNull(other.validateAndGet(KEY, TEST_SESSION));
+    }
+
+    @Test
+    public void testDropTablesOfStoppedCoordinator()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        CachedDataStorage cds = materialize(owner, "t1");
+        String dataTable = cds.getDataTable().toString();
+
+        // alive as long as the heartbeat is recent
+        getStateMap(CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME).put("coordinator-1", String.valueOf(System.currentTimeMillis()));
+        other.dropTablesOfStoppedCoordinators(TEST_SESSION);
+        assertTrue(droppedTables.isEmpty());
+
+        getStateMap(CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME).put("coordinator-1", "0");
+        other.dropTablesOfStoppedCoordinators(TEST_SESSION);
+        assertEquals(droppedTables, ImmutableSet.of(dataTable));
+        assertTrue(getTableOwners().isEmpty());
+        assertTrue(getSharedEntries().isEmpty());
+    }
+
+    @Test
+    public void testTakeOverTablesOfStoppedCoordinator()
+    {
+        CachedDataManager owner = createManager("coordinator-1");
+        CachedDataManager other = createManager("coordinator-2");
+
+        CachedDataStorage cds = materialize(owner, "t1");
+        String dataTable = cds.getDataTable().toString();
+        CachedDataStorage adopted = other.validateAndGet(KEY, TEST_SESSION);
+        other.done(KEY, TEST_SESSION, adopted.getCreateTime());
+
+        other.dropTablesOfStoppedCoordinators(TEST_SESSION);
+        // the table is still served by the other coordinator, which becomes its owner
+        assertTrue(droppedTables.isEmpty());
+        assertEquals(getTableOwners().get(dataTable), "coordinator-2");
+
+        other.invalidateAll(TEST_SESSION);
+        assertEquals(droppedTables, ImmutableSet.of(dataTable));
+        assertTrue(getTableOwners().isEmpty());
+    }
+
+    @Test
+    public void testLeftoverSharedTable()
+    {
+        CachedDataManager manager = createManager("coordinator-1");
+        StateMap<String, String> tableOwners = getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME);
+        getStateMap(CTE_MATERIALIZATION_OWNERS_COLLECTION_NAME).put("coordinator-2", String.valueOf(System.currentTimeMillis()));
+        tableOwners.put("hive.cache.shared", "coordinator-2");
+        tableOwners.put("hive.cache.stopped", "coordinator-3");
+        tableOwners.put("hive.cache.restarted", "coordinator-1");
+
+        assertFalse(manager.isLeftoverSharedTable(new CatalogSchemaTableName("hive", "cache", "shared")));
+        assertTrue(manager.isLeftoverSharedTable(new CatalogSchemaTableName("hive", "cache", "stopped")));
+        assertTrue(manager.isLeftoverSharedTable(new CatalogSchemaTableName("hive", "cache", "restarted")));
+        assertTrue(manager.isLeftoverSharedTable(new CatalogSchemaTableName("hive", "cache", "unregistered")));
+        assertEquals(new HashSet<>(tableOwners.keySet()), ImmutableSet.of("hive.cache.shared"));
+    }
+
+    private CachedDataManager createManager(String nodeId)
+    {
+        HetuConfig hetuConfig = new HetuConfig()
+                .setCteMaterializationEnabled(true)
+                .setMultipleCoordinatorEnabled(true)
+                .setCteMaterializationSharedCacheEnabled(true);
+        NodeInfo nodeInfo = new NodeInfo(new NodeConfig().setEnvironment("test").setNodeId(nodeId));
+        return new CachedDataManager(
+                hetuConfig,
+                new CacheStorageMonitor(hetuConfig, metadata),
+                metadata,
+                new QueryIdGenerator(),
+                new SessionPropertyManager(),
+                stateStoreProvider,
+                nodeInfo);
+    }
+
+    private CachedDataStorage materialize(CachedDataManager manager, String table)
+    {
+        CachedDataStorage cds = new CachedDataStorage(KEY, new CatalogSchemaTableName("hive", "cache", table), null, null);
+        manager.put(KEY, cds, TEST_SESSION);
+        existingTables.add(QualifiedObjectName.valueOf(cds.getDataTable()).toString());
+        cds.commit(System.currentTimeMillis(), 100);
+        manager.commit(KEY, TEST_SESSION, cds.getCreateTime());
+        return cds;
+    }
+
+    private Map<String, String> getSharedEntries()
+    {
+        return getStateMap(CTE_MATERIALIZATION_CACHE_COLLECTION_NAME).getAll();
+    }
+
+    private Map<String, String> getTableOwners()
+    {
+        return getStateMap(CTE_MATERIALIZATION_TABLES_COLLECTION_NAME).getAll();
+    }
+
+    private StateMap<String, String> getStateMap(String name)
+    {
+        return (StateMap<String, String>) stateStoreProvider.getStateStore().getOrCreateStateCollection(name, StateCollection.Type.MAP);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.connector.system;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.cube.CubeManager;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metastore.HetuMetaStoreManager;
+import io.prestosql.queryhistory.QueryHistoryConfig;
+import io.prestosql.security.AllowAllAccessControl;
+import io.prestosql.spi.connector.CatalogName;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.connector.RecordCursor;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.metastore.HetuMetastore;
+import io.prestosql.spi.predicate.TupleDomain;
+import io.prestosql.spi.queryhistory.QueryHistoryEntity;
+import io.prestosql.spi.queryhistory.QueryHistoryResult;
+import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.testing.TestingMetadata.TestingTableHandle;
+import io.prestosql.testing.TestingTransactionHandle;
+import io.prestosql.transaction.TransactionId;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCubeRecommendationSystemTable
+{
+    private static final QualifiedObjectName ORDERS = new QualifiedObjectName("tpch", "tiny", "orders");
+
+    @Test
+    public void testTableNamesAreNormalized()
+    {
+        RecordCursor cursor = cursor(ImmutableList.of(
+                query("SELECT orderstatus, sum(totalprice) FROM orders GROUP BY orderstatus", "TPCH", "Tiny"),
+                query("SELECT orderstatus, sum(totalprice) FROM TPCH.TINY.\"ORDERS\" GROUP BY orderstatus", "tpch", "tiny")));
+
+        // both queries read the same table, so they are recommended a single cube
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getSlice(0).toStringUtf8(), ORDERS.toString());
+        assertEquals(cursor.getSlice(1).toStringUtf8(), "orderstatus");
+        assertEquals(cursor.getLong(3), 2);
+        assertEquals(cursor.getLong(4), 3000);
+        assertEquals(cursor.getDouble(5), 1500.0);
+        assertEquals(cursor.getSlice(9).toStringUtf8(), "CREATE CUBE tpch.tiny.orders_cube_1 ON tpch.tiny.orders WITH (AGGREGATIONS = (sum(totalprice)), GROUP = (orderstatus))");
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    @Test
+    public void testDroppedTablesAreSkipped()
+    {
+        RecordCursor cursor = cursor(ImmutableList.of(
+                query("SELECT orderstatus, sum(totalprice) FROM orders GROUP BY orderstatus", "tpch", "tiny"),
+                query("SELECT nationkey, count(*) FROM customer GROUP BY nationkey", "tpch", "tiny")));
+
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getSlice(0).toStringUtf8(), ORDERS.toString());
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    @Test
+    public void testQueryHistoryCount()
+    {
+        HetuMetastore hetuMetastore = queryHistory(ImmutableList.of());
+        RecordCursor cursor = cursor(hetuMetastore, new QueryHistoryConfig().setMaxQueryHistoryCount(10));
+
+        assertFalse(cursor.advanceNextPosition());
+        verify(hetuMetastore).getQueryHistory(eq(0), eq(10), anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyListOf(String.class), anyListOf(String.class), anyString(), anyString());
+    }
+
+    private static RecordCursor cursor(List<QueryHistoryEntity> queries)
+    {
+        return cursor(queryHistory(queries), new QueryHistoryConfig());
+    }
+
+    private static RecordCursor cursor(HetuMetastore hetuMetastore, QueryHistoryConfig queryHistoryConfig)
+    {
+        // only the orders table exists
+        Metadata metadata = mock(Metadata.class);
+        when(metadata.getTableHandle(any(), any())).thenAnswer(invocation -> {
+            QualifiedObjectName table = (QualifiedObjectName) invocation.getArguments()[1];
+            if (!table.equals(ORDERS)) {
+                return Optional.empty();
+            }
+            return Optional.of(new TableHandle(
+                    new CatalogName(table.getCatalogName()),
+                    new TestingTableHandle(new SchemaTableName(table.getSchemaName(), table.getObjectName())),
+                    TestingTransactionHandle.create(),
+                    Optional.empty()));
+        });
+        when(metadata.getTableStatistics(any(), any(), any(), anyBoolean())).thenReturn(TableStatistics.builder().setRowCount(Estimate.of(1500)).build());
+        when(metadata.getColumnHandles(any(), any())).thenReturn(ImmutableMap.of());
+
+        HetuMetaStoreManager metaStoreManager = mock(HetuMetaStoreManager.class);
+        when(metaStoreManager.getHetuMetastore()).thenReturn(hetuMetastore);
+
+        CubeRecommendationSystemTable table = new CubeRecommendationSystemTable(metadata, new AllowAllAccessControl(), new SqlParser(), metaStoreManager, CubeManager.getNoOpCubeManager(),
+                queryHistoryConfig);
+        return table.cursor(new GlobalSystemTransactionHandle(TransactionId.create()), SESSION, TupleDomain.all());
+    }
+
+    private static HetuMetastore queryHistory(List<QueryHistoryEntity> queries)
+    {
+        HetuMetastore hetuMetastore = mock(HetuMetastore.class);
+        when(hetuMetastore.getQueryHistory(anyInt(), anyInt(), anyString(), anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyListOf(String.class), anyListOf(String.class), anyString(), anyString())).thenReturn(new QueryHistoryResult(queries.size(), queries));
+        return hetuMetastore;
+    }
+
+    private static QueryHistoryEntity query(String sql, String catalog, String schema)
+    {
+        return new QueryHistoryEntity.Builder()
+                .setQuery(sql)
+                .setState("FINISHED")
+                .setCatalog(catalog)
+                .setSchemata(schema)
+                .setTotalCpuTime("1.50s")
+                .build();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.cube;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.hetu.core.spi.cube.aggregator.AggregationSignature;
+import io.prestosql.cube.CubeAdvisor.CubeCandidate;
+import io.prestosql.plugin.tpch.TpchColumnHandle;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.queryhistory.QueryHistoryEntity;
+import io.prestosql.spi.statistics.ColumnStatistics;
+import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.TableStatistics;
+import io.prestosql.sql.parser.SqlParser;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.prestosql.cube.CubeAdvisor.estimateCubeRows;
+import static io.prestosql.cube.CubeAdvisor.extractCandidate;
+import static io.prestosql.cube.CubeAdvisor.rank;
+import static io.prestosql.cube.CubeAdvisor.recommend;
+import static io.prestosql.cube.CubeAdvisor.toCreateCubeStatement;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCubeAdvisor
+{
+    private static final SqlParser SQL_PARSER = new SqlParser();
+    private static final QualifiedObjectName ORDERS = new QualifiedObjectName("tpch", "tiny", "orders");
+
+    @Test
+    public void testExtractCandidate()
+    {
+        Optional<CubeCandidate> candidate = extractCandidate(SQL_PARSER, query("SELECT orderstatus, sum(totalprice) FROM orders GROUP BY orderstatus", "2.00s"));
+        assertEquals(candidate, Optional.of(new CubeCandidate(
+                ORDERS,
+                ImmutableSet.of("orderstatus"),
+                ImmutableSet.of(AggregationSignature.sum("totalprice", false)),
+                false,
+                1,
+                2000)));
+
+        // filter columns become dimensions of the cube
+        candidate = extractCandidate(SQL_PARSER, query("SELECT o.orderstatus, o.orderpriority, count(*) FROM tpch.tiny.orders o " +
+                "WHERE o.orderdate > DATE '1995-01-01' GROUP BY 1, 2 HAVING max(totalprice) > 10", "1.00s"));
+        assertEquals(candidate, Optional.of(new CubeCandidate(
+                ORDERS,
+                ImmutableSet.of("orderdate", "orderpriority", "orderstatus"),
+                ImmutableSet.of(AggregationSignature.count(), AggregationSignature.max("totalprice", false)),
+                false,
+                1,
+                1000)));
+    }
+
+    @Test
+    public void testUnsupportedQueries()
+    {
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT * FROM orders", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT orderstatus FROM orders GROUP BY orderstatus", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT orderstatus, approx_distinct(custkey) FROM orders GROUP BY orderstatus", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT orderstatus, sum(totalprice + 1) FROM orders GROUP BY orderstatus", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT o.orderstatus, count(*) FROM orders o JOIN customer c ON o.custkey = c.custkey GROUP BY o.orderstatus", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT count(*) FROM orders WHERE custkey IN (SELECT custkey FROM customer)", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT orderstatus, sum(totalprice) FROM orders GROUP BY ROLLUP (orderstatus)", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SHOW TABLES", "1.00s")).isPresent());
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT count(*) FROM", "1.00s")).isPresent());
+        // count distinct requires a cube group that matches exactly
+        assertFalse(extractCandidate(SQL_PARSER, query("SELECT custkey, count(DISTINCT orderstatus) FROM orders WHERE orderdate > DATE '1995-01-01' GROUP BY custkey", "1.00s")).isPresent());
+        // no default schema to qualify the table with
+        assertFalse(extractCandidate(SQL_PARSER, new QueryHistoryEntity.Builder().setQuery("SELECT count(*) FROM orders").setTotalCpuTime("1.00s").build()).isPresent());
+    }
+
+    @Test
+    public void testRecommend()
+    {
+        List<CubeCandidate> candidates = recommend(SQL_PARSER, ImmutableList.of(
+                query("SELECT orderstatus, sum(totalprice) FROM orders GROUP BY orderstatus", "2.00s"),
+                query("SELECT orderstatus, orderpriority, count(*) FROM orders WHERE orderdate > DATE '1995-01-01' GROUP BY orderstatus, orderpriority", "1.00s"),
+                query("SELECT custkey, count(DISTINCT orderstatus) FROM orders GROUP BY custkey", "500.00ms"),
+                query("SELECT name FROM customer", "10.00s")));
+
+        assertEquals(candidates, ImmutableList.of(
+                // covers both of the first queries
+                new CubeCandidate(
+                        ORDERS,
+                        ImmutableSet.of("orderdate", "orderpriority", "orderstatus"),
+                        ImmutableSet.of(AggregationSignature.count(), AggregationSignature.sum("totalprice", false)),
+                        false,
+                        2,
+                        3000),
+                new CubeCandidate(
+                        ORDERS,
+                        ImmutableSet.of("orderstatus"),
+                        ImmutableSet.of(AggregationSignature.sum("totalprice", false)),
+                        false,
+                        1,
+                        2000),
+                new CubeCandidate(
+                        ORDERS,
+                        ImmutableSet.of("custkey"),
+                        ImmutableSet.of(AggregationSignature.count("orderstatus", true)),
+                        false,
+                        1,
+                        500)));
+
+        assertEquals(toCreateCubeStatement("tpch.tiny.orders_cube_1", candidates.get(0)),
+                "CREATE CUBE tpch.tiny.orders_cube_1 ON tpch.tiny.orders WITH (AGGREGATIONS = (count(*), sum(totalprice)), GROUP = (orderdate, orderpriority, orderstatus))");
+    }
+
+    @Test
+    public void testRank()
+    {
+        // the union of both queries covers more cpu time, but is much larger than the cube of the first query alone
+        CubeCandidate wide = new CubeCandidate(ORDERS, ImmutableSet.of("custkey", "orderstatus"), ImmutableSet.of(AggregationSignature.count()), false, 2, 3000)
+                .withEstimatedRows(1000, 500);
+        CubeCandidate narrow = new CubeCandidate(ORDERS, ImmutableSet.of("orderstatus"), ImmutableSet.of(AggregationSignature.count()), false, 1, 2000)
+                .withEstimatedRows(1000, 3);
+        // barely smaller than the source table
+        CubeCandidate unselective = new CubeCandidate(ORDERS, ImmutableSet.of("clerk"), ImmutableSet.of(AggregationSignature.count()), false, 1, 5000)
+                .withEstimatedRows(1000, 900);
+        CubeCandidate unknown = new CubeCandidate(ORDERS, ImmutableSet.of("orderdate"), ImmutableSet.of(AggregationSignature.count()), false, 1, 10000);
+
+        assertEquals(wide.getReductionFactor(), 2.0);
+        assertEquals(wide.getEstimatedSavedCpuTimeMillis(), 1500.0, 0.001);
+        assertEquals(narrow.getEstimatedSavedCpuTimeMillis(), 1994.0, 0.001);
+        assertTrue(Double.isNaN(unknown.getEstimatedSavedCpuTimeMillis()));
+
+        assertEquals(rank(ImmutableList.of(unknown, unselective, wide, narrow)), ImmutableList.of(narrow, wide, unknown));
+    }
+
+    @Test
+    public void testEstimateCubeRows()
+    {
+        ColumnHandle orderStatus = new TpchColumnHandle("orderstatus", VARCHAR);
+        ColumnHandle orderPriority = new TpchColumnHandle("orderpriority", VARCHAR);
+        ColumnHandle custKey = new TpchColumnHandle("custkey", BIGINT);
+        ColumnHandle clerk = new TpchColumnHandle("clerk", VARCHAR);
+        Map<String, ColumnHandle> columnHandles = ImmutableMap.of("orderstatus", orderStatus, "orderpriority", orderPriority, "custkey", custKey, "clerk", clerk);
+        TableStatistics statistics = TableStatistics.builder()
+                .setRowCount(Estimate.of(1000))
+                .setColumnStatistics(orderStatus, columnStatistics(3, 0))
+                .setColumnStatistics(orderPriority, columnStatistics(5, 0.1))
+                .setColumnStatistics(custKey, columnStatistics(800, 0))
+                .build();
+
+        assertEquals(estimateCubeRows(statistics, columnHandles, ImmutableList.of()), 1.0);
+        assertEquals(estimateCubeRows(statistics, columnHandles, ImmutableList.of("orderstatus")), 3.0);
+        // a null value adds a group
+        assertEquals(estimateCubeRows(statistics, columnHandles, ImmutableList.of("orderstatus", "orderpriority")), 18.0);
+        // the cube is never larger than the source table
+        assertEquals(estimateCubeRows(statistics, columnHandles, ImmutableList.of("orderstatus", "custkey")), 1000.0);
+        assertTrue(Double.isNaN(estimateCubeRows(statistics, columnHandles, ImmutableList.of("orderstatus", "clerk"))));
+        assertTrue(Double.isNaN(estimateCubeRows(TableStatistics.empty(), columnHandles, ImmutableList.of("orderstatus"))));
+    }
+
+    private static QueryHistoryEntity query(String sql, String totalCpuTime)
+    {
+        return new QueryHistoryEntity.Builder()
+                .setQuery(sql)
+                .setState("FINISHED")
+                .setCatalog("tpch")
+                .setSchemata("tiny")
+                .setTotalCpuTime(totalCpuTime)
+                .build();
+    }
+
+    private static ColumnStatistics columnStatistics(double distinctValuesCount, double nullsFraction)
+    {
+        return ColumnStatistics.builder()
+                .setDistinctValuesCount(Estimate.of(distinctValuesCount))
+                .setNullsFraction(Estimate.of(nullsFraction))
+                .build();
+    }
+}
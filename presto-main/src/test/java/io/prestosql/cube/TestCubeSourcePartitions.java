@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.cube;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.hetu.core.spi.cube.CubeMetadata;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTransactionHandle;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spi.connector.CatalogName;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.predicate.TupleDomain;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.prestosql.cube.CubeSourcePartitions.coversPartitions;
+import static io.prestosql.cube.CubeSourcePartitions.hasDroppedPartitions;
+import static io.prestosql.cube.CubeSourcePartitions.hasModifiedPartitions;
+import static io.prestosql.cube.CubeSourcePartitions.isCubeUpToDate;
+import static io.prestosql.cube.CubeSourcePartitions.mergePartitions;
+import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCubeSourcePartitions
+{
+    @Test
+    public void testCoversPartitions()
+    {
+        CubeMetadata cubeMetadata = cubeWithPartitions(ImmutableMap.of("day=1", 100L, "day=2", 200L));
+
+        assertTrue(coversPartitions(cubeMetadata, ImmutableMap.of()));
+        assertTrue(coversPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L)));
+        assertTrue(coversPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L, "day=2", 200L)));
+        // partition modified after insert
+        assertFalse(coversPartitions(cubeMetadata, ImmutableMap.of("day=1", 150L)));
+        // partition added after insert
+        assertFalse(coversPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L, "day=3", 300L)));
+    }
+
+    @Test
+    public void testHasModifiedPartitions()
+    {
+        CubeMetadata cubeMetadata = cubeWithPartitions(ImmutableMap.of("day=1", 100L, "day=2", 200L));
+
+        assertFalse(hasModifiedPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L, "day=2", 200L)));
+        // new partitions can be inserted incrementally
+        assertFalse(hasModifiedPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L, "day=2", 200L, "day=3", 300L)));
+        assertTrue(hasModifiedPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L, "day=2", 250L)));
+        // dropped partition
+        assertTrue(hasModifiedPartitions(cubeMetadata, ImmutableMap.of("day=1", 100L)));
+    }
+
+    @Test
+    public void testMergePartitions()
+    {
+        Map<String, Long> merged = mergePartitions(ImmutableMap.of("day=1", 100L), ImmutableMap.of("day=1", 150L, "day=2", 200L));
+        assertEquals(merged, ImmutableMap.of("day=1", 100L, "day=2", 200L));
+    }
+
+    @Test
+    public void testHasDroppedPartitions()
+    {
+        CubeMetadata cubeMetadata = cubeWithPartitions(ImmutableMap.of("day=1", 100L, "day=2", 200L));
+
+        assertFalse(hasDroppedPartitions(cubeMetadata, ImmutableSet.of("day=1", "day=2", "day=3")));
+        assertFalse(hasDroppedPartitions(cubeMetadata, ImmutableSet.of("day=1", "day=2")));
+        assertTrue(hasDroppedPartitions(cubeMetadata, ImmutableSet.of("day=2")));
+    }
+
+    @Test
+    public void testIsCubeUpToDate()
+    {
+        CubeMetadata withoutPartitions = cubeWithPartitions(ImmutableMap.of());
+        Mockito.when(withoutPartitions.getSourceTableLastUpdatedTime()).thenReturn(1000L);
+        assertTrue(isCubeUpToDate(withoutPartitions, 1000L, Optional.empty(), Optional.empty()));
+        assertFalse(isCubeUpToDate(withoutPartitions, 2000L, Optional.of(ImmutableMap.of()), Optional.of(ImmutableSet.of())));
+
+        CubeMetadata withPartitions = cubeWithPartitions(ImmutableMap.of("day=1", 100L, "day=2", 200L));
+        Mockito.when(withPartitions.getSourceTableLastUpdatedTime()).thenReturn(1000L);
+        Set<String> existingPartitions = ImmutableSet.of("day=1", "day=2");
+        // table modified by adding a partition the query does not read
+        assertTrue(isCubeUpToDate(withPartitions, 2000L, Optional.of(ImmutableMap.of("day=1", 100L)), Optional.of(existingPartitions)));
+        assertFalse(isCubeUpToDate(withPartitions, 2000L, Optional.of(ImmutableMap.of("day=1", 100L, "day=3", 300L)), Optional.of(existingPartitions)));
+        // partition read by the query modified
+        assertFalse(isCubeUpToDate(withPartitions, 2000L, Optional.of(ImmutableMap.of("day=1", 150L)), Optional.of(existingPartitions)));
+        // partition modified outside of the query domain
+        assertTrue(isCubeUpToDate(withPartitions, 2000L, Optional.of(ImmutableMap.of("day=2", 200L)), Optional.of(existingPartitions)));
+        // a dropped partition is not listed for the query, but the cube still holds its data
+        assertFalse(isCubeUpToDate(withPartitions, 2000L, Optional.of(ImmutableMap.of("day=1", 100L)), Optional.of(ImmutableSet.of("day=1"))));
+        // partitions could not be looked up
+        assertFalse(isCubeUpToDate(withPartitions, 1000L, Optional.empty(), Optional.of(existingPartitions)));
+        assertFalse(isCubeUpToDate(withPartitions, 1000L, Optional.of(ImmutableMap.of("day=1", 100L)), Optional.empty()));
+    }
+
+    @Test
+    public void testPartitionsLookedUpOncePerQuery()
+    {
+        Metadata metadata = Mockito.mock(Metadata.class);
+        TableHandle tableHandle = new TableHandle(new CatalogName("local"), new TpchTableHandle("orders", 1.0), TpchTransactionHandle.INSTANCE, Optional.empty());
+        Mockito.when(metadata.getPartitionLastModifiedTimes(any(Session.class), eq(tableHandle)))
+                .thenReturn(Optional.of(ImmutableMap.of("day=1", 100L)));
+        Mockito.when(metadata.getExistingPartitionNames(any(Session.class), eq(tableHandle), anyCollectionOf(String.class)))
+                .thenReturn(Optional.of(ImmutableSet.of("day=1")));
+        CubeSourcePartitionsCache partitionsCache = new CubeSourcePartitionsCache(metadata);
+        Session session = testSessionBuilder().setQueryId(new QueryId("query_1")).build();
+        Set<String> cubePartitions = ImmutableSet.of("day=1", "day=2");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(partitionsCache.getSourcePartitions(session, tableHandle, TupleDomain.all()), Optional.of(ImmutableMap.of("day=1", 100L)));
+            assertEquals(partitionsCache.getExistingPartitions(session, tableHandle, cubePartitions), Optional.of(ImmutableSet.of("day=1")));
+        }
+        Mockito.verify(metadata, Mockito.times(1)).getPartitionLastModifiedTimes(any(Session.class), eq(tableHandle));
+        Mockito.verify(metadata, Mockito.times(1)).getExistingPartitionNames(any(Session.class), eq(tableHandle), anyCollectionOf(String.class));
+        // only the partitions recorded by the cube are looked up, the table partitions are not listed
+        Mockito.verify(metadata, Mockito.times(1)).getExistingPartitionNames(any(Session.class), eq(tableHandle), eq(cubePartitions));
+
+        // a later query sees the current partitions
+        Session nextSession = testSessionBuilder().setQueryId(new QueryId("query_2")).build();
+        partitionsCache.getSourcePartitions(nextSession, tableHandle, TupleDomain.all());
+        partitionsCache.getExistingPartitions(nextSession, tableHandle, cubePartitions);
+        Mockito.verify(metadata, Mockito.times(2)).getPartitionLastModifiedTimes(any(Session.class), eq(tableHandle));
+        Mockito.verify(metadata, Mockito.times(2)).getExistingPartitionNames(any(Session.class), eq(tableHandle), anyCollectionOf(String.class));
+    }
+
+    private static CubeMetadata cubeWithPartitions(Map<String, Long> sourcePartitions)
+    {
+        CubeMetadata cubeMetadata = Mockito.mock(CubeMetadata.class);
+        Mockito.when(cubeMetadata.getSourcePartitions()).thenReturn(sourcePartitions);
+        return cubeMetadata;
+    }
+}
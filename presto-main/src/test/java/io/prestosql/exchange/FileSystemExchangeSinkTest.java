@@ -39,6 +39,7 @@ import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.Properties;
 
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -48,12 +49,13 @@ public class FileSystemExchangeSinkTest
 {
     private ExchangeSink exchangeSink;
     private Slice serializedPageSlice;
+    private Path basePath;
 
     @BeforeMethod
     public void setUp() throws IOException
     {
         String baseDir = "/opt/hetu-server-1.8.0/exchange-base-dir";
-        Path basePath = Paths.get(baseDir);
+        basePath = Paths.get(baseDir);
         File base = new File(baseDir);
         if (!base.exists()) {
             Files.createDirectories(basePath);
@@ -128,6 +130,18 @@ public class FileSystemExchangeSinkTest
         exchangeSink.finish();
     }
 
+    @Test
+    public void testFinishWaitsForBackgroundWrites()
+            throws IOException
+    {
+        requireNonNull(exchangeSink, "exchangeSink is null");
+        for (int i = 0; i < 100; i++) {
+            exchangeSink.add(1, serializedPageSlice);
+        }
+        getFutureValue(exchangeSink.finish());
+        assertEquals(Files.size(basePath.resolve("1_0.data")), 100L * (Integer.BYTES + serializedPageSlice.length()));
+    }
+
     @Test
     public void testAbort()
     {
@@ -33,6 +33,8 @@ public class TestFileSystemExchangeConfig
                 .setExchangeSinkBufferPoolMinSize(10)
                 .setExchangeSinkBuffersPerPartition(2)
                 .setExchangeSinkMaxFileSize(new DataSize(1, DataSize.Unit.GIGABYTE))
+                .setExchangeSinkWriterThreads(8)
+                .setExchangeSinkMaxInFlightSize(new DataSize(64, DataSize.Unit.MEGABYTE))
                 .setExchangeSourceConcurrentReaders(4)
                 .setMaxOutputPartitionCount(50)
                 .setExchangeFileListingParallelism(50)
@@ -52,6 +54,8 @@ public class TestFileSystemExchangeConfig
                 .put("exchange.sink-buffer-pool-min-size", "5")
                 .put("exchange.sink-buffers-per-partition", "4")
                 .put("exchange.sink-max-file-size", "2GB")
+                .put("exchange.sink-writer-threads", "16")
+                .put("exchange.sink-max-in-flight-size", "128MB")
                 .put("exchange.source-concurrent-readers", "5")
                 .put("exchange.max-output-partition-count", "100")
                 .put("exchange.file-listing-parallelism", "60")
@@ -68,6 +72,8 @@ public class TestFileSystemExchangeConfig
                 .setExchangeSinkBufferPoolMinSize(5)
                 .setExchangeSinkBuffersPerPartition(4)
                 .setExchangeSinkMaxFileSize(new DataSize(2, DataSize.Unit.GIGABYTE))
+                .setExchangeSinkWriterThreads(16)
+                .setExchangeSinkMaxInFlightSize(new DataSize(128, DataSize.Unit.MEGABYTE))
                 .setExchangeSourceConcurrentReaders(5)
                 .setMaxOutputPartitionCount(100)
                 .setExchangeFileListingParallelism(60)
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.exchange.storage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.Slices;
+import io.hetu.core.transport.execution.buffer.PagesSerde;
+import io.prestosql.exchange.FileSystemExchangeConfig.DirectSerialisationType;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.filesystem.HetuFileSystemClient;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.prestosql.SequencePageBuilder.createSequencePage;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.testing.TestingPagesSerdeFactory.TESTING_SERDE_FACTORY;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestHetuFileSystemExchangeWriter
+{
+    private static final URI FILE = URI.create("/tmp/exchange/0_0.data");
+
+    @Test
+    public void testFinishClosesStreamAfterFailedWrite()
+            throws Exception
+    {
+        TestingOutputStream outputStream = new TestingOutputStream(true);
+        HetuFileSystemExchangeWriter writer = createWriter(outputStream, directExecutor(), DirectSerialisationType.OFF, new InFlightWriteLimiter(1024));
+
+        Throwable failure = getFailure(writer.write(Slices.wrappedBuffer(new byte[4096])));
+        assertSame(getFailure(writer.finish()), failure);
+        assertTrue(outputStream.closed);
+    }
+
+    @Test
+    public void testAbortClosesStreamAfterFailedWrite()
+            throws Exception
+    {
+        TestingOutputStream outputStream = new TestingOutputStream(true);
+        HetuFileSystemExchangeWriter writer = createWriter(outputStream, directExecutor(), DirectSerialisationType.OFF, new InFlightWriteLimiter(1024));
+
+        Throwable failure = getFailure(writer.write(Slices.wrappedBuffer(new byte[4096])));
+        assertSame(getFailure(writer.abort()), failure);
+        assertTrue(outputStream.closed);
+    }
+
+    @Test
+    public void testAbortClosesStreamWhenRejected()
+            throws Exception
+    {
+        TestingOutputStream outputStream = new TestingOutputStream(false);
+        List<Runnable> tasks = new ArrayList<>();
+        RejectingExecutor executor = new RejectingExecutor(tasks);
+        HetuFileSystemExchangeWriter writer = createWriter(outputStream, executor, DirectSerialisationType.OFF, new InFlightWriteLimiter(1024));
+
+        ListenableFuture<Void> write = writer.write(Slices.wrappedBuffer(new byte[4096]));
+        tasks.remove(0).run();
+        write.get();
+
+        // the writer pool was shut down, the stream opened by the first write is still closed
+        executor.rejecting = true;
+        assertTrue(getFailure(writer.abort()) instanceof RejectedExecutionException);
+        assertTrue(outputStream.closed);
+    }
+
+    @Test
+    public void testSerializedPagesAreRetainedUntilWritten()
+            throws Exception
+    {
+        TestingOutputStream outputStream = new TestingOutputStream(false);
+        List<Runnable> tasks = new ArrayList<>();
+        InFlightWriteLimiter inFlightWriteLimiter = new InFlightWriteLimiter(1024 * 1024);
+        HetuFileSystemExchangeWriter writer = createWriter(outputStream, tasks::add, DirectSerialisationType.JAVA, inFlightWriteLimiter);
+        long emptyRetainedSize = writer.getRetainedSize();
+
+        PagesSerde serde = TESTING_SERDE_FACTORY.createDirectPagesSerde(Optional.empty(), true, false);
+        Page page = createSequencePage(ImmutableList.of(BIGINT, BIGINT), 1000);
+        ListenableFuture<Void> write = writer.write(page, serde);
+        assertTrue(writer.getRetainedSize() - emptyRetainedSize >= inFlightWriteLimiter.getInFlightBytes());
+        assertTrue(inFlightWriteLimiter.getInFlightBytes() > 0);
+
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        write.get();
+        assertEquals(writer.getRetainedSize(), emptyRetainedSize);
+        assertEquals(inFlightWriteLimiter.getInFlightBytes(), 0);
+        assertTrue(outputStream.size() > 0);
+    }
+
+    private static HetuFileSystemExchangeWriter createWriter(OutputStream outputStream, Executor executor, DirectSerialisationType directSerialisationType, InFlightWriteLimiter inFlightWriteLimiter)
+            throws IOException
+    {
+        HetuFileSystemClient fileSystemClient = mock(HetuFileSystemClient.class);
+        when(fileSystemClient.newOutputStream(any(Path.class))).thenReturn(outputStream);
+        return new HetuFileSystemExchangeWriter(FILE, fileSystemClient, Optional.empty(), false, null, directSerialisationType, 1024, executor, inFlightWriteLimiter);
+    }
+
+    private static Throwable getFailure(ListenableFuture<Void> future)
+            throws InterruptedException
+    {
+        try {
+            future.get();
+            fail("expected the future to fail");
+            return null;
+        }
+        catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static class TestingOutputStream
+            extends ByteArrayOutputStream
+    {
+        private final boolean failWrites;
+        private boolean closed;
+
+        TestingOutputStream(boolean failWrites)
+        {
+            this.failWrites = failWrites;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length)
+        {
+            if (failWrites) {
+                throw new IllegalStateException("write failed");
+            }
+            super.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private static class RejectingExecutor
+            implements Executor
+    {
+        private final List<Runnable> tasks;
+        private boolean rejecting;
+
+        RejectingExecutor(List<Runnable> tasks)
+        {
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void execute(Runnable command)
+        {
+            if (rejecting) {
+                throw new RejectedExecutionException();
+            }
+            tasks.add(command);
+        }
+    }
+}
@@ -57,6 +57,7 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static org.mockito.Mockito.atLeast;
@@ -231,7 +232,9 @@ public class TestSplitCacheStateUpdater
         @Override
         public Map<K, V> getAll(Set<K> keys)
         {
-            return null;
+            return map.entrySet().stream()
+                    .filter(entry -> keys.contains(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         }
 
         @Override
@@ -255,7 +258,7 @@ public class TestSplitCacheStateUpdater
         @Override
         public void putAll(Map<K, V> map)
         {
-            map.putAll(map);
+            this.map.putAll(map);
         }
 
         @Override
@@ -16,24 +16,31 @@ package io.prestosql.execution.buffer;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
+import io.hetu.core.transport.execution.buffer.PageCompressionCodec;
 import io.hetu.core.transport.execution.buffer.PagesSerde;
+import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
 import io.prestosql.spi.type.Type;
 import io.prestosql.testing.TestingPagesSerdeFactory;
 import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.readPages;
 import static io.hetu.core.transport.execution.buffer.PagesSerdeUtil.writePages;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.PageAssertions.assertPageEquals;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -61,6 +68,35 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testAdaptiveBlockCompressionRoundTrip()
+    {
+        PagesSerdeFactory factory = new PagesSerdeFactory(createTestMetadataManager().getFunctionAndTypeManager().getBlockEncodingSerde(), true, PageCompressionCodec.ADAPTIVE);
+        PagesSerde serde = factory.createPagesSerde();
+
+        // compressible, incompressible and small blocks
+        BlockBuilder repeated = BIGINT.createBlockBuilder(null, 10_000);
+        BlockBuilder random = BIGINT.createBlockBuilder(null, 10_000);
+        BlockBuilder small = VARCHAR.createBlockBuilder(null, 1);
+        Random generator = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BIGINT.writeLong(repeated, i % 7);
+            BIGINT.writeLong(random, generator.nextLong());
+        }
+        VARCHAR.writeString(small, "alice");
+        Page expectedPage = new Page(10_000, repeated.build(), random.build(), new RunLengthEncodedBlock(small.build(), 10_000));
+        List<Type> types = ImmutableList.of(BIGINT, BIGINT, VARCHAR);
+
+        for (int i = 0; i < 100; i++) {
+            SerializedPage serializedPage = serde.serialize(expectedPage);
+            assertTrue(serializedPage.isBlockCompressed());
+            assertTrue(serializedPage.getSizeInBytes() < serializedPage.getUncompressedSizeInBytes());
+            assertPageEquals(types, serde.deserialize(serializedPage), expectedPage);
+            // block compressed pages are self-describing and can be read by a serde with another codec
+            assertPageEquals(types, new TestingPagesSerdeFactory().createPagesSerde().deserialize(serializedPage), expectedPage);
+        }
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
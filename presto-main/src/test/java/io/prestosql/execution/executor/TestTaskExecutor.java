@@ -14,9 +14,12 @@
 package io.prestosql.execution.executor;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
 import io.prestosql.execution.SplitRunner;
@@ -450,6 +453,68 @@ public class TestTaskExecutor
         }
     }
 
+    @Test(timeOut = 30_000)
+    public void testShardedSplitQueue()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, 4);
+        TestingTicker ticker = new TestingTicker();
+        TaskHandle handle = new TaskHandle(new TaskId("test", 0, 0, 0), splitQueue, () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty(), 1);
+
+        PrioritizedSplitRunner first = newSplitRunner(handle, ticker);
+        PrioritizedSplitRunner second = newSplitRunner(handle, ticker);
+        splitQueue.offer(first, 0);
+        splitQueue.offer(second, 0);
+        assertEquals(splitQueue.size(), 2);
+
+        // the runners of shard 3 have nothing queued, so they steal from shard 0
+        PrioritizedSplitRunner stolen = splitQueue.take(3);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 1);
+        PrioritizedSplitRunner local = splitQueue.take(0);
+        assertEquals(splitQueue.getStolenSplits().getTotalCount(), 1);
+        assertEquals(ImmutableSet.of(stolen, local), ImmutableSet.of(first, second));
+        assertEquals(splitQueue.size(), 0);
+
+        splitQueue.offer(first, 1);
+        splitQueue.remove(first);
+        assertEquals(splitQueue.size(), 0);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testShardedTasksComplete()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        TaskExecutor taskExecutor = new TaskExecutor(4, 8, 3, 4, new MultilevelSplitQueue(2, 3), ticker);
+        taskExecutor.start();
+        try {
+            TaskHandle taskHandle = taskExecutor.addTask(new TaskId("test", 0, 0, 0), () -> 0, 10, new Duration(1, MILLISECONDS), OptionalInt.empty(), 1);
+            ImmutableList.Builder<TestingJob> jobs = ImmutableList.builder();
+            for (int i = 0; i < 20; i++) {
+                jobs.add(new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 10, 0));
+            }
+            List<ListenableFuture<?>> finished = taskExecutor.enqueueSplits(taskHandle, false, jobs.build());
+            Futures.allAsList(finished).get();
+            assertEquals(taskExecutor.getWaitingSplits(), 0);
+            taskExecutor.removeTask(taskHandle);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
+    private static PrioritizedSplitRunner newSplitRunner(TaskHandle handle, TestingTicker ticker)
+    {
+        return new PrioritizedSplitRunner(
+                handle,
+                new TestingJob(ticker, new Phaser(), new Phaser(), new Phaser(), 1, 0),
+                ticker,
+                new CounterStat(),
+                new CounterStat(),
+                new TimeStat(MILLISECONDS),
+                new TimeStat(MILLISECONDS));
+    }
+
     private void assertSplitStates(int endIndex, TestingJob[] splits)
     {
         // assert that splits up to and including endIndex are all started
@@ -15,7 +15,11 @@
 package io.prestosql.heuristicindex;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.Duration;
 import io.prestosql.execution.Lifespan;
 import io.prestosql.execution.SqlStageExecution;
@@ -27,6 +31,11 @@ import io.prestosql.spi.HetuConstant;
 import io.prestosql.spi.connector.CatalogName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.heuristicindex.Index;
+import io.prestosql.spi.heuristicindex.IndexClient;
+import io.prestosql.spi.heuristicindex.IndexFilter;
+import io.prestosql.spi.heuristicindex.IndexMetadata;
+import io.prestosql.spi.heuristicindex.IndexRecord;
 import io.prestosql.spi.heuristicindex.Pair;
 import io.prestosql.spi.plan.Symbol;
 import io.prestosql.spi.relation.ConstantExpression;
@@ -39,6 +48,7 @@ import io.prestosql.split.SplitSource;
 import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
 import io.prestosql.sql.relational.Expressions;
 import io.prestosql.sql.relational.FunctionResolution;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
 import io.prestosql.utils.MockSplit;
 import io.prestosql.utils.TestUtil;
 import org.testng.annotations.Test;
@@ -50,8 +60,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.slice.Slices.utf8Slice;
 import static io.prestosql.heuristicindex.SplitFiltering.getAllColumns;
 import static io.prestosql.heuristicindex.SplitFiltering.rangeSearch;
@@ -59,6 +73,12 @@ import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
@@ -106,6 +126,103 @@ public class TestSplitFiltering
         assertEquals(filteredSplits.size(), 4);
     }
 
+    /**
+     * Filters split batches the way the source partitioned scheduler does: each batch is filtered on a split filter
+     * pool with a single thread, and fans out its forward index lookups to the same pool while the other batches
+     * occupy it.
+     */
+    @Test(timeOut = 60_000)
+    public void testFilterSplitBatchesOnSaturatedPool()
+            throws Exception
+    {
+        PropertyService.setProperty(HetuConstant.FILTER_ENABLED, true);
+        String table = "test_catalog.test_schema.test_table";
+        RowExpression expression = PlanBuilder.comparison(OperatorType.EQUAL, new VariableReferenceExpression("a", VarcharType.VARCHAR), new ConstantExpression(utf8Slice("test_value"), VarcharType.VARCHAR));
+        Map<Symbol, ColumnHandle> assignments = ImmutableMap.of(new Symbol("a"), new TestingColumnHandle("a"));
+
+        IndexClient indexClient = mock(IndexClient.class);
+        when(indexClient.getAllIndexRecords()).thenReturn(ImmutableList.of(
+                new IndexRecord("test_index", "user", table, new String[] {"a"}, "MINMAX", 0, ImmutableList.of(), ImmutableList.of())));
+        Index index = mock(Index.class);
+        when(index.getId()).thenReturn("MINMAX");
+        IndexCache indexCache = mock(IndexCache.class);
+        when(indexCache.getIndices(eq(table), eq("a"), any(Split.class), anyMapOf(String.class, IndexRecord.class))).thenAnswer(invocation -> {
+            Split split = (Split) invocation.getArguments()[2];
+            return ImmutableList.of(new IndexMetadata(index, table, new String[] {"a"}, null, split.getConnectorSplit().getFilePath(), 0, 0));
+        });
+
+        ExecutorService splitFilterExecutor = newFixedThreadPool(1, daemonThreadsNamed("test-split-filter-%s"));
+        SplitFilteringStats stats = new SplitFilteringStats();
+        HeuristicIndexerManager indexerManager = mock(HeuristicIndexerManager.class);
+        when(indexerManager.getIndexClient()).thenReturn(indexClient);
+        when(indexerManager.getSplitFilteringStats()).thenReturn(stats);
+        when(indexerManager.getSplitFilterExecutor()).thenReturn(splitFilterExecutor);
+        // the index of every other split rules out the value
+        when(indexerManager.getIndexFilter(any())).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Map<String, List<IndexMetadata>> indices = (Map<String, List<IndexMetadata>>) invocation.getArguments()[0];
+            boolean pruned = indices.get("a").get(0).getUri().contains("pruned");
+            IndexFilter indexFilter = mock(IndexFilter.class);
+            when(indexFilter.matches(any())).thenReturn(!pruned);
+            return indexFilter;
+        });
+
+        SplitFiltering.setCache(indexCache);
+        try {
+            List<SettableFuture<SplitSource.SplitBatch>> splitBatches = new ArrayList<>();
+            List<ListenableFuture<List<Split>>> filteredBatches = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                SettableFuture<SplitSource.SplitBatch> splitBatch = SettableFuture.create();
+                splitBatches.add(splitBatch);
+                filteredBatches.add(Futures.transform(splitBatch,
+                        batch -> SplitFiltering.getFilteredSplit(Optional.of(expression), Optional.of(table), assignments, batch, indexerManager),
+                        splitFilterExecutor));
+            }
+
+            // queue every batch behind a blocked pool thread, so each one is filtered while the others are waiting
+            CountDownLatch poolBlocked = new CountDownLatch(1);
+            splitFilterExecutor.execute(() -> awaitUninterruptibly(poolBlocked));
+            for (SettableFuture<SplitSource.SplitBatch> splitBatch : splitBatches) {
+                List<Split> splits = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    String path = "hdfs://hacluster/test_table/" + (i % 2 == 0 ? "pruned" : "kept") + "_" + i;
+                    splits.add(new Split(new CatalogName("test_catalog"), new MockSplit(path, 0, 10, 0), Lifespan.taskWide()));
+                }
+                splitBatch.set(new SplitSource.SplitBatch(splits, false));
+            }
+            poolBlocked.countDown();
+
+            for (ListenableFuture<List<Split>> filteredBatch : filteredBatches) {
+                List<Split> splits = filteredBatch.get(30, TimeUnit.SECONDS);
+                assertEquals(splits.size(), 50);
+                assertTrue(splits.stream().noneMatch(split -> split.getConnectorSplit().getFilePath().contains("pruned")));
+            }
+            assertEquals(stats.getForwardIndex().getInputSplits().getTotalCount(), 400);
+            assertEquals(stats.getForwardIndex().getPrunedSplits().getTotalCount(), 200);
+        }
+        finally {
+            SplitFiltering.setCache(null);
+            splitFilterExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSplitFilteringStats()
+    {
+        HeuristicIndexerManager indexerManager = new HeuristicIndexerManager(new FileSystemClientManager(), new HetuMetaStoreManager());
+        SplitFilteringStats stats = indexerManager.getSplitFilteringStats();
+        assertEquals(stats.getTotal().getPruningRatio(), 0.0);
+
+        stats.getForwardIndex().record(TimeUnit.MILLISECONDS.toNanos(5), 100, 25);
+        stats.getForwardIndex().record(TimeUnit.MILLISECONDS.toNanos(5), 100, 75);
+        assertEquals(stats.getForwardIndex().getInputSplits().getTotalCount(), 200);
+        assertEquals(stats.getForwardIndex().getPrunedSplits().getTotalCount(), 100);
+        assertEquals(stats.getForwardIndex().getPruningRatio(), 0.5);
+        assertEquals(stats.getForwardIndex().getFilterTime().getAllTime().getCount(), 2.0);
+        assertEquals(stats.getInvertedIndex().getInputSplits().getTotalCount(), 0);
+        indexerManager.stop();
+    }
+
     /**
      * Test that split filter is applicable for different operators
      */
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.gen.JoinCompiler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkState;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.GroupByHash.createGroupByHash;
+import static io.prestosql.operator.GroupBySort.createGroupBySort;
+import static io.prestosql.operator.UpdateMemory.NOOP;
+import static io.prestosql.spi.block.SortOrder.ASC_NULLS_LAST;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.lang.String.format;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Compares the sort based grouping used by sort_based_aggregation_enabled with hash based grouping.
+ * Sort based grouping only finds the right groups on input that is sorted on the grouping keys,
+ * so for input that is not pre-sorted its benchmark includes sorting the input first.
+ * Pass a file name to {@link #main(String[])} to export the results as JSON.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkGroupBySort
+{
+    private static final int POSITIONS = 1_000_000;
+    private static final int EXPECTED_SIZE = 10_000;
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(createTestMetadataManager());
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public List<Page> groupBy(BenchmarkData data)
+    {
+        GroupBy groupBy = data.createGroupBy();
+        Iterator<Page> input = data.getInput();
+        while (input.hasNext()) {
+            Work<GroupByIdBlock> work = groupBy.getGroupIds(input.next());
+            checkState(work.process(), "work did not finish");
+            work.getResult();
+        }
+        return buildGroups(groupBy);
+    }
+
+    private static List<Page> buildGroups(GroupBy groupBy)
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(groupBy.getTypes());
+        for (int groupId = 0; groupId < groupBy.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupBy.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"SORT", "HASH"})
+        private String groupingType = "SORT";
+
+        @Param({"BIGINT", "VARCHAR", "BIGINT_BIGINT"})
+        private String keyType = "BIGINT";
+
+        @Param({"10", "1000", "100000", "1000000"})
+        private int groupCount = 1000;
+
+        @Param({"true", "false"})
+        private boolean presorted = true;
+
+        @Param({"0", "0.1"})
+        private double nullRatio;
+
+        private List<Type> types;
+        private int[] channels;
+        private List<Page> pages;
+        private int expectedGroupCount;
+
+        @Setup
+        public void setup()
+        {
+            switch (keyType) {
+                case "BIGINT":
+                    types = ImmutableList.of(BIGINT);
+                    break;
+                case "VARCHAR":
+                    types = ImmutableList.of(VARCHAR);
+                    break;
+                case "BIGINT_BIGINT":
+                    types = ImmutableList.of(BIGINT, BIGINT);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported keyType: " + keyType);
+            }
+            channels = new int[types.size()];
+            Arrays.setAll(channels, channel -> channel);
+            pages = createPages();
+        }
+
+        private List<Page> createPages()
+        {
+            Random random = new Random(42);
+            int nullCount = (int) (POSITIONS * nullRatio);
+            int[] keys = new int[POSITIONS - nullCount];
+            BitSet distinctKeys = new BitSet(groupCount);
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextInt(groupCount);
+                distinctKeys.set(keys[i]);
+            }
+            expectedGroupCount = distinctKeys.cardinality() + (nullCount > 0 ? 1 : 0);
+
+            // nulls are sorted last, otherwise spread over the input
+            boolean[] nulls = new boolean[POSITIONS];
+            if (presorted) {
+                Arrays.sort(keys);
+                Arrays.fill(nulls, keys.length, POSITIONS, true);
+            }
+            else {
+                for (int i = 0; i < nullCount; i++) {
+                    nulls[i] = true;
+                }
+                for (int i = POSITIONS - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    boolean tmp = nulls[i];
+                    nulls[i] = nulls[j];
+                    nulls[j] = tmp;
+                }
+            }
+
+            ImmutableList.Builder<Page> builder = ImmutableList.builder();
+            PageBuilder pageBuilder = new PageBuilder(types);
+            int nextKey = 0;
+            for (int position = 0; position < POSITIONS; position++) {
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(channel);
+                    if (nulls[position]) {
+                        blockBuilder.appendNull();
+                    }
+                    else if (types.get(channel) == VARCHAR) {
+                        // zero padded so that the string order matches the numeric order
+                        VARCHAR.writeString(blockBuilder, format("%010d", keys[nextKey]));
+                    }
+                    else {
+                        BIGINT.writeLong(blockBuilder, keys[nextKey]);
+                    }
+                }
+                if (!nulls[position]) {
+                    nextKey++;
+                }
+                if (pageBuilder.isFull()) {
+                    builder.add(pageBuilder.build());
+                    pageBuilder.reset();
+                }
+            }
+            if (!pageBuilder.isEmpty()) {
+                builder.add(pageBuilder.build());
+            }
+            return builder.build();
+        }
+
+        public GroupBy createGroupBy()
+        {
+            if (groupingType.equals("SORT")) {
+                return createGroupBySort(types, channels, Optional.empty(), EXPECTED_SIZE, false, JOIN_COMPILER, NOOP);
+            }
+            return createGroupByHash(types, channels, Optional.empty(), EXPECTED_SIZE, false, JOIN_COMPILER, NOOP);
+        }
+
+        public Iterator<Page> getInput()
+        {
+            if (presorted || !groupingType.equals("SORT")) {
+                return pages.iterator();
+            }
+            PagesIndex pagesIndex = new PagesIndex.TestingFactory(false).newPagesIndex(types, POSITIONS);
+            pages.forEach(pagesIndex::addPage);
+            List<Integer> sortChannels = ImmutableList.copyOf(Arrays.stream(channels).boxed().iterator());
+            List<SortOrder> sortOrders = Collections.nCopies(channels.length, ASC_NULLS_LAST);
+            pagesIndex.sort(sortChannels, sortOrders);
+            return pagesIndex.getSortedPages();
+        }
+
+        public int getExpectedGroupCount()
+        {
+            return expectedGroupCount;
+        }
+    }
+
+    @Test
+    public void verifyGroupBy()
+    {
+        for (String groupingType : ImmutableList.of("SORT", "HASH")) {
+            for (String keyType : ImmutableList.of("BIGINT", "VARCHAR", "BIGINT_BIGINT")) {
+                for (boolean presorted : ImmutableList.of(true, false)) {
+                    verify(groupingType, keyType, presorted, 0.1);
+                }
+            }
+        }
+    }
+
+    private void verify(String groupingType, String keyType, boolean presorted, double nullRatio)
+    {
+        BenchmarkData data = new BenchmarkData();
+        data.groupingType = groupingType;
+        data.keyType = keyType;
+        data.presorted = presorted;
+        data.nullRatio = nullRatio;
+        data.setup();
+
+        List<Page> groups = groupBy(data);
+        assertEquals(groups.stream().mapToInt(Page::getPositionCount).sum(), data.getExpectedGroupCount(),
+                format("groupingType=%s keyType=%s presorted=%s", groupingType, keyType, presorted));
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        // assure the benchmarks are valid before running
+        new BenchmarkGroupBySort().verifyGroupBy();
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkGroupBySort.class.getSimpleName() + ".*");
+        if (args.length > 0) {
+            options.resultFormat(ResultFormatType.JSON).result(args[0]);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -18,6 +18,7 @@ import io.airlift.units.DataSize;
 import io.prestosql.RowPagesBuilder;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.operator.HashAggregationOperator.HashAggregationOperatorFactory;
+import io.prestosql.operator.SortAggregationOperator.SortAggregationOperatorFactory;
 import io.prestosql.operator.StreamingAggregationOperator.StreamingAggregationOperatorFactory;
 import io.prestosql.operator.aggregation.InternalAggregationFunction;
 import io.prestosql.spi.Page;
@@ -26,6 +27,7 @@ import io.prestosql.spi.connector.QualifiedObjectName;
 import io.prestosql.spi.function.Signature;
 import io.prestosql.spi.plan.AggregationNode;
 import io.prestosql.spi.plan.PlanNodeId;
+import io.prestosql.spi.type.Type;
 import io.prestosql.spiller.SpillerFactory;
 import io.prestosql.sql.gen.JoinCompiler;
 import io.prestosql.testing.TestingTaskContext;
@@ -39,9 +41,10 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
-import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.VerboseMode;
 import org.testng.annotations.Test;
@@ -97,13 +100,17 @@ public class BenchmarkHashAndStreamingAggregationOperators
         @Param({"1", "10", "1000"})
         public int rowsPerGroup;
 
-        @Param({"streaming", "hash"})
+        @Param({"streaming", "hash", "sort"})
         public String operatorType;
 
+        @Param({"VARCHAR", "BIGINT"})
+        public String keyType = "VARCHAR";
+
         private ExecutorService executor;
         private ScheduledExecutorService scheduledExecutor;
         private OperatorFactory operatorFactory;
         private List<Page> pages;
+        private Type groupByType;
 
         @Setup
         public void setup()
@@ -114,13 +121,19 @@ public class BenchmarkHashAndStreamingAggregationOperators
             int groupsPerPage = ROWS_PER_PAGE / rowsPerGroup;
 
             boolean hashAggregation = operatorType.equalsIgnoreCase("hash");
+            groupByType = keyType.equalsIgnoreCase("BIGINT") ? BIGINT : VARCHAR;
 
-            RowPagesBuilder pagesBuilder = RowPagesBuilder.rowPagesBuilder(hashAggregation, ImmutableList.of(0), VARCHAR, BIGINT);
+            RowPagesBuilder pagesBuilder = RowPagesBuilder.rowPagesBuilder(hashAggregation, ImmutableList.of(0), groupByType, BIGINT);
             for (int i = 0; i < TOTAL_PAGES; i++) {
-                BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, ROWS_PER_PAGE);
+                BlockBuilder blockBuilder = groupByType.createBlockBuilder(null, ROWS_PER_PAGE);
                 for (int j = 0; j < groupsPerPage; j++) {
-                    String groupKey = format("%s", i * groupsPerPage + j);
-                    repeatToStringBlock(groupKey, rowsPerGroup, blockBuilder);
+                    int groupKey = i * groupsPerPage + j;
+                    if (groupByType == BIGINT) {
+                        repeatToLongBlock(groupKey, rowsPerGroup, blockBuilder);
+                    }
+                    else {
+                        repeatToStringBlock(format("%s", groupKey), rowsPerGroup, blockBuilder);
+                    }
                 }
                 pagesBuilder.addBlocksPage(blockBuilder.build(), createLongSequenceBlock(0, ROWS_PER_PAGE));
             }
@@ -130,6 +143,9 @@ public class BenchmarkHashAndStreamingAggregationOperators
             if (hashAggregation) {
                 operatorFactory = createHashAggregationOperatorFactory(pagesBuilder.getHashChannel());
             }
+            else if (operatorType.equalsIgnoreCase("sort")) {
+                operatorFactory = createSortAggregationOperatorFactory();
+            }
             else {
                 operatorFactory = createStreamingAggregationOperatorFactory();
             }
@@ -147,8 +163,8 @@ public class BenchmarkHashAndStreamingAggregationOperators
             return new StreamingAggregationOperatorFactory(
                     0,
                     new PlanNodeId("test"),
-                    ImmutableList.of(VARCHAR),
-                    ImmutableList.of(VARCHAR),
+                    ImmutableList.of(groupByType),
+                    ImmutableList.of(groupByType),
                     ImmutableList.of(0),
                     AggregationNode.Step.SINGLE,
                     ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty()),
@@ -164,7 +180,7 @@ public class BenchmarkHashAndStreamingAggregationOperators
             return new HashAggregationOperatorFactory(
                     0,
                     new PlanNodeId("test"),
-                    ImmutableList.of(VARCHAR),
+                    ImmutableList.of(groupByType),
                     ImmutableList.of(0),
                     ImmutableList.of(),
                     AggregationNode.Step.SINGLE,
@@ -184,6 +200,41 @@ public class BenchmarkHashAndStreamingAggregationOperators
                     Optional.empty());
         }
 
+        private OperatorFactory createSortAggregationOperatorFactory()
+        {
+            JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager());
+            SpillerFactory spillerFactory = (types, localSpillContext, aggregatedMemoryContext, isSnapshotEnabled, queryId, isSpillToHdfs) -> null;
+
+            return new SortAggregationOperatorFactory(
+                    0,
+                    new PlanNodeId("test"),
+                    ImmutableList.of(groupByType),
+                    ImmutableList.of(0),
+                    ImmutableList.of(),
+                    AggregationNode.Step.SINGLE,
+                    false,
+                    ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty()),
+                            LONG_SUM.bind(ImmutableList.of(1), Optional.empty())),
+                    Optional.empty(),
+                    Optional.empty(),
+                    100_000,
+                    Optional.of(new DataSize(16, MEGABYTE)),
+                    false,
+                    succinctBytes(8),
+                    spillerFactory,
+                    joinCompiler,
+                    false,
+                    false,
+                    Optional.empty());
+        }
+
+        private static void repeatToLongBlock(long value, int count, BlockBuilder blockBuilder)
+        {
+            for (int i = 0; i < count; i++) {
+                BIGINT.writeLong(blockBuilder, value);
+            }
+        }
+
         private static void repeatToStringBlock(String value, int count, BlockBuilder blockBuilder)
         {
             for (int i = 0; i < count; i++) {
@@ -254,11 +305,33 @@ public class BenchmarkHashAndStreamingAggregationOperators
         verify(1000, "hash");
     }
 
+    @Test
+    public void verifySort()
+    {
+        verify(1, "sort");
+        verify(10, "sort");
+        verify(1000, "sort");
+    }
+
+    @Test
+    public void verifyBigintKeys()
+    {
+        verify(10, "streaming", "BIGINT");
+        verify(10, "hash", "BIGINT");
+        verify(10, "sort", "BIGINT");
+    }
+
     private void verify(int rowsPerGroup, String operatorType)
+    {
+        verify(rowsPerGroup, operatorType, "VARCHAR");
+    }
+
+    private void verify(int rowsPerGroup, String operatorType, String keyType)
     {
         Context context = new Context();
         context.operatorType = operatorType;
         context.rowsPerGroup = rowsPerGroup;
+        context.keyType = keyType;
         context.setup();
 
         assertEquals(TOTAL_PAGES, context.getPages().size());
@@ -275,11 +348,14 @@ public class BenchmarkHashAndStreamingAggregationOperators
     public static void main(String[] args)
             throws RunnerException
     {
-        Options options = new OptionsBuilder()
+        ChainedOptionsBuilder options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
-                .include(".*" + BenchmarkHashAndStreamingAggregationOperators.class.getSimpleName() + ".*")
-                .build();
+                .include(".*" + BenchmarkHashAndStreamingAggregationOperators.class.getSimpleName() + ".*");
+        // optionally export the results as JSON, e.g. to compare sort based and hash based aggregation per workload
+        if (args.length > 0) {
+            options.resultFormat(ResultFormatType.JSON).result(args[0]);
+        }
 
-        new Runner(options).run();
+        new Runner(options.build()).run();
     }
 }
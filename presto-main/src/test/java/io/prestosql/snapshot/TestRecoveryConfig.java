@@ -37,7 +37,9 @@ public class TestRecoveryConfig
                 .setRecoveryMaxRetries(10)
                 .setRecoveryRetryTimeout(new Duration(10, TimeUnit.MINUTES))
                 .setSnapshotUseKryoSerialization(false)
-                .setEliminateDuplicateSpillFilesEnabled(false));
+                .setEliminateDuplicateSpillFilesEnabled(false)
+                .setIncrementalSnapshotEnabled(false)
+                .setSnapshotMaxDeltaChainLength(8));
     }
 
     @Test
@@ -54,6 +56,8 @@ public class TestRecoveryConfig
                 .put("hetu.recovery.retryTimeout", "5m")
                 .put("hetu.snapshot.useKryoSerialization", "true")
                 .put("experimental.eliminate-duplicate-spill-files", "true")
+                .put("hetu.snapshot.incremental", "true")
+                .put("hetu.snapshot.maxDeltaChainLength", "4")
                 .build();
 
         RecoveryConfig expected = new RecoveryConfig()
@@ -66,7 +70,9 @@ public class TestRecoveryConfig
                 .setRecoveryMaxRetries(20)
                 .setRecoveryRetryTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setSnapshotUseKryoSerialization(true)
-                .setEliminateDuplicateSpillFilesEnabled(true);
+                .setEliminateDuplicateSpillFilesEnabled(true)
+                .setIncrementalSnapshotEnabled(true)
+                .setSnapshotMaxDeltaChainLength(4);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -22,8 +22,14 @@ import io.prestosql.testing.assertions.Assert;
 import org.testng.annotations.Test;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
 
 public class TestSnapshotFileBasedClient
 {
@@ -101,4 +107,59 @@ public class TestSnapshotFileBasedClient
         client.loadState(snapshotStateId, null);
         Assert.assertEquals(map, client.loadState(snapshotStateId, null).get());
     }
+
+    /**
+     * Test incremental store and load of snapshot states
+     * @throws Exception
+     */
+    @Test
+    public void testIncrementalSnapshotState()
+            throws Exception
+    {
+        SnapshotFileBasedClient client = new SnapshotFileBasedClient(new HetuLocalFileSystemClient(new LocalConfig(new Properties()), Paths.get(ROOT_PATH_STR)), Paths.get(ROOT_PATH_STR), new FileSystemClientManager(), null, false, false, 1);
+        TaskId taskId = new TaskId("query_incremental", 1, 1, 0);
+        Map<Long, Long> captureSizes = new HashMap<>();
+        SnapshotDataCollector collector = new SnapshotDataCollector()
+        {
+            @Override
+            public void updateSnapshotCaptureSize(long snapshotId, long sizeBytes)
+            {
+                captureSizes.put(snapshotId, sizeBytes);
+            }
+
+            @Override
+            public void updateSnapshotCaptureCpuTime(long snapshotId, long time)
+            {
+            }
+        };
+
+        Random random = new Random(1);
+        ArrayList<byte[]> state1 = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            byte[] page = new byte[256 * 1024];
+            random.nextBytes(page);
+            state1.add(page);
+        }
+        ArrayList<byte[]> state2 = new ArrayList<>(state1);
+        byte[] page = new byte[256 * 1024];
+        random.nextBytes(page);
+        state2.add(page);
+
+        SnapshotStateId id1 = new SnapshotStateId(1, taskId, 10);
+        SnapshotStateId id2 = new SnapshotStateId(2, taskId, 10);
+        SnapshotStateId id3 = new SnapshotStateId(3, taskId, 10);
+        client.storeState(id1, state1, collector);
+        client.storeState(id2, state2, collector);
+        // chain length is 1, so the third snapshot is stored in full again
+        client.storeState(id3, state2, collector);
+
+        Assert.assertTrue(captureSizes.get(2L) < captureSizes.get(1L) / 2);
+        Assert.assertTrue(captureSizes.get(3L) > captureSizes.get(1L));
+
+        Assert.assertTrue(Arrays.deepEquals(state1.toArray(), ((List<?>) client.loadState(id1, null).get()).toArray()));
+        Assert.assertTrue(Arrays.deepEquals(state2.toArray(), ((List<?>) client.loadState(id2, null).get()).toArray()));
+        Assert.assertTrue(Arrays.deepEquals(state2.toArray(), ((List<?>) client.loadState(id3, null).get()).toArray()));
+
+        client.deleteAll(taskId.getQueryId().getId());
+    }
 }
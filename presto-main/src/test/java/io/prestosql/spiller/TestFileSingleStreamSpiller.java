@@ -48,6 +48,7 @@ import java.text.StringCharacterIterator;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -225,6 +226,102 @@ public class TestFileSingleStreamSpiller
         assertEquals(memoryContext.getBytes(), 0);
     }
 
+    @Test
+    public void testSpillReadAhead()
+            throws Exception
+    {
+        int ioBufferSize = 16 * FileSingleStreamSpiller.BUFFER_SIZE;
+        ListeningExecutorService readAheadExecutor = listeningDecorator(newFixedThreadPool(1, daemonThreadsNamed("spill-read-ahead-%s")));
+        try {
+            FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                    executor, // executor won't be closed, because we don't call destroy() on the spiller factory
+                    createTestMetadataManager().getFunctionAndTypeManager().getBlockEncodingSerde(),
+                    new SpillerStats(),
+                    ImmutableList.of(spillPath.toPath()),
+                    1.0,
+                    true,
+                    true,
+                    false,
+                    3,
+                    false,
+                    false,
+                    null,
+                    fileSystemClientManager,
+                    ioBufferSize,
+                    Optional.of(readAheadExecutor));
+            LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+            SingleStreamSpiller spiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext, false, false, "queryId", false);
+            assertEquals(memoryContext.getBytes(), ioBufferSize);
+
+            Page page = buildPage();
+            for (int i = 0; i < 10; i++) {
+                spiller.spill(Iterators.forArray(page, page)).get();
+            }
+
+            Iterator<Page> spilledPagesIterator = spiller.getSpilledPages();
+            ImmutableList.Builder<Page> spilledPages = ImmutableList.builder();
+            spilledPages.add(spilledPagesIterator.next());
+            // the pages read ahead and not consumed yet are accounted on top of the io buffer
+            assertTrue(memoryContext.getBytes() > ioBufferSize);
+            spilledPagesIterator.forEachRemaining(spilledPages::add);
+            assertEquals(memoryContext.getBytes(), ioBufferSize);
+
+            List<Page> pages = spilledPages.build();
+            assertEquals(pages.size(), 20);
+            for (Page spilledPage : pages) {
+                PageAssertions.assertPageEquals(TYPES, page, spilledPage);
+            }
+
+            spiller.close();
+            assertEquals(memoryContext.getBytes(), 0);
+        }
+        finally {
+            readAheadExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseWithReadAheadInFlight()
+            throws Exception
+    {
+        ListeningExecutorService readAheadExecutor = listeningDecorator(newFixedThreadPool(1, daemonThreadsNamed("spill-read-ahead-%s")));
+        try {
+            FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                    executor, // executor won't be closed, because we don't call destroy() on the spiller factory
+                    createTestMetadataManager().getFunctionAndTypeManager().getBlockEncodingSerde(),
+                    new SpillerStats(),
+                    ImmutableList.of(spillPath.toPath()),
+                    1.0,
+                    false,
+                    false,
+                    false,
+                    1,
+                    false,
+                    false,
+                    null,
+                    fileSystemClientManager,
+                    FileSingleStreamSpiller.BUFFER_SIZE,
+                    Optional.of(readAheadExecutor));
+            LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+            SingleStreamSpiller spiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext, false, false, "queryId", false);
+
+            Page page = buildPage();
+            for (int i = 0; i < 100; i++) {
+                spiller.spill(page).get();
+            }
+
+            Iterator<Page> spilledPagesIterator = spiller.getSpilledPages();
+            PageAssertions.assertPageEquals(TYPES, page, spilledPagesIterator.next());
+            // the next batch may still be read when the spiller is closed
+            spiller.close();
+            assertEquals(memoryContext.getBytes(), 0);
+            assertEquals(listFiles(spillPath.toPath()).stream().filter(path -> path.toString().endsWith(".bin")).count(), 0);
+        }
+        finally {
+            readAheadExecutor.shutdownNow();
+        }
+    }
+
     private Page buildPage()
     {
         BlockBuilder col1 = BIGINT.createBlockBuilder(null, 1);
@@ -23,6 +23,7 @@ import java.util.Map;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestNodeSpillConfig
@@ -37,7 +38,10 @@ public class TestNodeSpillConfig
                 .setSpillEncryptionEnabled(false)
                 .setSpillDirectSerdeEnabled(false)
                 .setSpillPrefetchReadPages(1)
-                .setSpillUseKryoSerialization(false));
+                .setSpillUseKryoSerialization(false)
+                .setSpillIoBufferSize(new DataSize(4, KILOBYTE))
+                .setSpillReadAheadEnabled(false)
+                .setSpillReadAheadThreads(4));
     }
 
     @Test
@@ -51,6 +55,9 @@ public class TestNodeSpillConfig
                 .put("experimental.spill-direct-serde-enabled", "true")
                 .put("experimental.spill-prefetch-read-pages", "25")
                 .put("experimental.spill-use-kryo-serialization", "true")
+                .put("experimental.spill-io-buffer-size", "1MB")
+                .put("experimental.spill-read-ahead-enabled", "true")
+                .put("experimental.spill-read-ahead-threads", "2")
                 .build();
 
         NodeSpillConfig expected = new NodeSpillConfig()
@@ -60,7 +67,10 @@ public class TestNodeSpillConfig
                 .setSpillEncryptionEnabled(true)
                 .setSpillDirectSerdeEnabled(true)
                 .setSpillPrefetchReadPages(25)
-                .setSpillUseKryoSerialization(true);
+                .setSpillUseKryoSerialization(true)
+                .setSpillIoBufferSize(new DataSize(1, MEGABYTE))
+                .setSpillReadAheadEnabled(true)
+                .setSpillReadAheadThreads(2);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestReadAheadIterator
+{
+    private final ExecutorService executor = newFixedThreadPool(2, daemonThreadsNamed("test-read-ahead-%s"));
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testBufferedBytes()
+    {
+        AtomicLong bufferedBytes = new AtomicLong();
+        Iterator<Long> iterator = new ReadAheadIterator<>(ImmutableList.of(1L, 2L, 3L, 4L, 5L).iterator(), directExecutor(), 2, value -> value, bufferedBytes::set);
+
+        // the first batch is read, and the second one read ahead with the direct executor
+        assertEquals(iterator.next(), Long.valueOf(1));
+        assertEquals(bufferedBytes.get(), 2 + 3 + 4);
+        assertEquals(iterator.next(), Long.valueOf(2));
+        assertEquals(bufferedBytes.get(), 3 + 4);
+        assertEquals(iterator.next(), Long.valueOf(3));
+        assertEquals(bufferedBytes.get(), 4 + 5);
+        assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(4L, 5L));
+        assertEquals(bufferedBytes.get(), 0);
+    }
+
+    @Test
+    public void testRejectedExecution()
+    {
+        Iterator<Long> iterator = new ReadAheadIterator<>(ImmutableList.of(1L, 2L, 3L).iterator(), command -> {
+            throw new RejectedExecutionException();
+        }, 2, value -> value, bytes -> {});
+        assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(1L, 2L, 3L));
+    }
+
+    @Test(timeOut = 30_000)
+    public void testCancelWaitsForReadInFlight()
+            throws Exception
+    {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+        AtomicBoolean reading = new AtomicBoolean();
+        Iterator<Long> source = new AbstractIterator<Long>()
+        {
+            private long next;
+
+            @Override
+            protected Long computeNext()
+            {
+                if (next == 1) {
+                    // block the read ahead of the second element
+                    reading.set(true);
+                    readStarted.countDown();
+                    try {
+                        releaseRead.await();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                    reading.set(false);
+                }
+                return next++;
+            }
+        };
+        ReadAheadIterator<Long> iterator = new ReadAheadIterator<>(source, executor, 1, value -> 1, bytes -> {});
+        assertEquals(iterator.next(), Long.valueOf(0));
+        assertTrue(readStarted.await(10, SECONDS));
+
+        Future<?> cancel = executor.submit(iterator::cancel);
+        try {
+            cancel.get(100, MILLISECONDS);
+            fail("cancel should wait for the read in flight");
+        }
+        catch (TimeoutException expected) {
+        }
+
+        releaseRead.countDown();
+        cancel.get(10, SECONDS);
+        assertFalse(reading.get());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2018-2022. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.operator.project.PageFilter;
+import io.prestosql.operator.project.PageProjection;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.operator.project.VectorizedPageFilter;
+import io.prestosql.operator.project.VectorizedPageProjection;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.relation.RowExpression;
+import io.prestosql.spi.relation.SpecialForm;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.relational.FunctionResolution;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static io.prestosql.block.BlockAssertions.assertBlockEquals;
+import static io.prestosql.block.BlockAssertions.createDoublesBlock;
+import static io.prestosql.block.BlockAssertions.createIntsBlock;
+import static io.prestosql.block.BlockAssertions.createLongsBlock;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.project.SelectedPositions.positionsList;
+import static io.prestosql.operator.project.SelectedPositions.positionsRange;
+import static io.prestosql.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.DIVIDE;
+import static io.prestosql.spi.function.OperatorType.EQUAL;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN_OR_EQUAL;
+import static io.prestosql.spi.function.OperatorType.MODULUS;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.function.OperatorType.NOT_EQUAL;
+import static io.prestosql.spi.function.OperatorType.SUBTRACT;
+import static io.prestosql.spi.relation.SpecialForm.Form.AND;
+import static io.prestosql.spi.relation.SpecialForm.Form.BETWEEN;
+import static io.prestosql.spi.relation.SpecialForm.Form.OR;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.constantNull;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static io.prestosql.testing.assertions.PrestoExceptionAssert.assertPrestoExceptionThrownBy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestVectorizedPageFunctionFactory
+{
+    private static final Metadata METADATA = createTestMetadataManager();
+    private static final FunctionResolution FUNCTION_RESOLUTION = new FunctionResolution(METADATA.getFunctionAndTypeManager());
+
+    private final VectorizedPageFunctionFactory factory = new VectorizedPageFunctionFactory(METADATA.getFunctionAndTypeManager());
+    private final PageFunctionCompiler compiler = new PageFunctionCompiler(METADATA, 0);
+
+    @Test
+    public void testFilters()
+    {
+        Page page = createPage();
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE, INTEGER, BIGINT);
+        List<OperatorType> operators = ImmutableList.of(EQUAL, NOT_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL);
+        List<List<Object>> constants = ImmutableList.of(
+                ImmutableList.of(0L, 3L, -5L, Long.MIN_VALUE, Long.MAX_VALUE),
+                ImmutableList.of(0.0, -0.0, 2.5, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY),
+                ImmutableList.of(0L, 3L, -5L, (long) Integer.MIN_VALUE, (long) Integer.MAX_VALUE),
+                ImmutableList.of(0L, 3L, -5L));
+
+        for (int channel = 0; channel < types.size(); channel++) {
+            Type type = types.get(channel);
+            for (OperatorType operator : operators) {
+                for (Object value : constants.get(channel)) {
+                    assertFilter(comparison(operator, field(channel, type), constant(value, type)), page);
+                    assertFilter(comparison(operator, constant(value, type), field(channel, type)), page);
+                }
+            }
+        }
+
+        assertFilter(new SpecialForm(BETWEEN, BOOLEAN, field(0, BIGINT), constant(-3L, BIGINT), constant(4L, BIGINT)), page);
+        assertFilter(new SpecialForm(BETWEEN, BOOLEAN, field(1, DOUBLE), constant(-1.5, DOUBLE), constant(Double.POSITIVE_INFINITY, DOUBLE)), page);
+        assertFilter(new SpecialForm(
+                AND,
+                BOOLEAN,
+                comparison(GREATER_THAN, field(0, BIGINT), constant(-4L, BIGINT)),
+                new SpecialForm(
+                        AND,
+                        BOOLEAN,
+                        comparison(LESS_THAN_OR_EQUAL, field(1, DOUBLE), constant(3.0, DOUBLE)),
+                        comparison(NOT_EQUAL, field(3, BIGINT), constant(1L, BIGINT)))),
+                page);
+    }
+
+    @Test
+    public void testUnsupportedFilters()
+    {
+        assertFalse(factory.createFilter(comparison(EQUAL, field(0, BIGINT), field(3, BIGINT))).isPresent());
+        assertFalse(factory.createFilter(comparison(EQUAL, field(0, BIGINT), constantNull(BIGINT))).isPresent());
+        assertFalse(factory.createFilter(new SpecialForm(
+                OR,
+                BOOLEAN,
+                comparison(EQUAL, field(0, BIGINT), constant(1L, BIGINT)),
+                comparison(EQUAL, field(0, BIGINT), constant(2L, BIGINT)))).isPresent());
+        // a single unsupported conjunct falls back for the whole filter
+        assertFalse(factory.createFilter(new SpecialForm(
+                AND,
+                BOOLEAN,
+                comparison(EQUAL, field(0, BIGINT), constant(1L, BIGINT)),
+                comparison(EQUAL, field(0, BIGINT), field(3, BIGINT)))).isPresent());
+    }
+
+    @Test
+    public void testProjections()
+    {
+        // no bigint overflow, which is covered by testProjectionOverflow
+        Page page = new Page(
+                createLongsBlock(0L, null, 3L, -5L, 1000L, -1000L, 3L, -4L, 1L, null),
+                createDoublesBlock(0.0, -0.0, 2.5, null, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -1.5, 3.0, 1e300),
+                createIntsBlock(0, 3, null, -5, 1, 2, 3, -4, 2, 1),
+                new DictionaryBlock(createLongsBlock(-5L, 0L, null, 3L, 1L), new int[] {0, 1, 2, 3, 4, 4, 3, 2, 1, 0}));
+        for (OperatorType operator : ImmutableList.of(ADD, SUBTRACT, MULTIPLY)) {
+            assertProjection(arithmetic(operator, BIGINT, field(0, BIGINT), field(3, BIGINT)), page);
+            assertProjection(arithmetic(operator, BIGINT, field(0, BIGINT), constant(7L, BIGINT)), page);
+            assertProjection(arithmetic(operator, BIGINT, constant(-7L, BIGINT), field(3, BIGINT)), page);
+        }
+        for (OperatorType operator : ImmutableList.of(ADD, SUBTRACT, MULTIPLY, DIVIDE)) {
+            assertProjection(arithmetic(operator, DOUBLE, field(1, DOUBLE), field(1, DOUBLE)), page);
+            assertProjection(arithmetic(operator, DOUBLE, field(1, DOUBLE), constant(0.0, DOUBLE)), page);
+            assertProjection(arithmetic(operator, DOUBLE, constant(1.5, DOUBLE), field(1, DOUBLE)), page);
+        }
+    }
+
+    @Test
+    public void testUnsupportedProjections()
+    {
+        assertFalse(factory.createProjection(field(0, BIGINT)).isPresent());
+        assertFalse(factory.createProjection(arithmetic(DIVIDE, BIGINT, field(0, BIGINT), constant(2L, BIGINT))).isPresent());
+        assertFalse(factory.createProjection(arithmetic(MODULUS, DOUBLE, field(1, DOUBLE), constant(2.0, DOUBLE))).isPresent());
+        assertFalse(factory.createProjection(arithmetic(ADD, BIGINT, constant(1L, BIGINT), constant(2L, BIGINT))).isPresent());
+        assertFalse(factory.createProjection(arithmetic(ADD, INTEGER, field(2, INTEGER), constant(2L, INTEGER))).isPresent());
+    }
+
+    @Test
+    public void testProjectionOverflow()
+    {
+        Page page = new Page(createLongsBlock(1L, null, Long.MAX_VALUE));
+        PageProjection projection = factory.createProjection(arithmetic(ADD, BIGINT, field(0, BIGINT), constant(1L, BIGINT))).get().get();
+        assertPrestoExceptionThrownBy(() -> project(projection, page, positionsRange(0, 3)))
+                .hasErrorCode(NUMERIC_VALUE_OUT_OF_RANGE)
+                .hasMessage("bigint addition overflow: 9223372036854775807 + 1");
+
+        // null positions and positions that are not selected do not overflow
+        Block block = project(projection, page, positionsRange(0, 2));
+        assertEquals(BIGINT.getLong(block, 0), 2L);
+        assertTrue(block.isNull(1));
+        PageProjection subtract = factory.createProjection(arithmetic(SUBTRACT, BIGINT, constant(0L, BIGINT), field(0, BIGINT))).get().get();
+        assertTrue(project(subtract, new Page(createLongsBlock(null, Long.MIN_VALUE)), positionsRange(0, 1)).isNull(0));
+    }
+
+    private void assertFilter(RowExpression filter, Page page)
+    {
+        Optional<PageFilter> vectorized = factory.createFilter(filter).map(supplier -> supplier.get());
+        assertTrue(vectorized.isPresent(), "filter is not vectorized: " + filter);
+        assertTrue(vectorized.get() instanceof VectorizedPageFilter);
+        PageFilter expected = compiler.compileFilter(filter, Optional.empty()).get();
+
+        assertEquals(
+                toList(vectorized.get().filter(SESSION, vectorized.get().getInputChannels().getInputChannels(page))),
+                toList(expected.filter(SESSION, expected.getInputChannels().getInputChannels(page))),
+                filter.toString());
+    }
+
+    private void assertProjection(RowExpression projection, Page page)
+    {
+        Optional<PageProjection> vectorized = factory.createProjection(projection).map(supplier -> supplier.get());
+        assertTrue(vectorized.isPresent(), "projection is not vectorized: " + projection);
+        assertTrue(vectorized.get() instanceof VectorizedPageProjection);
+        PageProjection expected = compiler.compileProjection(projection, Optional.empty()).get();
+
+        for (SelectedPositions selectedPositions : ImmutableList.of(positionsRange(0, page.getPositionCount()), positionsRange(2, 5), positionsList(new int[] {0, 1, 4, 7, 9}, 1, 3))) {
+            assertBlockEquals(
+                    projection.getType(),
+                    project(vectorized.get(), page, selectedPositions),
+                    project(expected, page, selectedPositions));
+        }
+    }
+
+    private static Block project(PageProjection projection, Page page, SelectedPositions selectedPositions)
+    {
+        Work<Block> work = projection.project(SESSION, new DriverYieldSignal(), projection.getInputChannels().getInputChannels(page), selectedPositions);
+        assertTrue(work.process());
+        return work.getResult();
+    }
+
+    private static List<Integer> toList(SelectedPositions selectedPositions)
+    {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < selectedPositions.size(); i++) {
+            positions.add(selectedPositions.isList() ? selectedPositions.getPositions()[selectedPositions.getOffset() + i] : selectedPositions.getOffset() + i);
+        }
+        return positions;
+    }
+
+    private static RowExpression comparison(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(operator.name(), FUNCTION_RESOLUTION.comparisonFunction(operator, left.getType(), right.getType()), BOOLEAN, left, right);
+    }
+
+    private static RowExpression arithmetic(OperatorType operator, Type type, RowExpression left, RowExpression right)
+    {
+        return call(operator.name(), FUNCTION_RESOLUTION.arithmeticFunction(operator, left.getType(), right.getType()), type, left, right);
+    }
+
+    /**
+     * Flat blocks with nulls and edge values, and a dictionary block that is evaluated without the array fast path
+     */
+    private static Page createPage()
+    {
+        Block bigints = createLongsBlock(0L, null, 3L, -5L, Long.MIN_VALUE, Long.MAX_VALUE, 3L, -4L, 1L, null);
+        Block doubles = createDoublesBlock(0.0, -0.0, 2.5, null, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -1.5, 3.0, 1e300);
+        Block integers = createIntsBlock(0, 3, null, -5, Integer.MIN_VALUE, Integer.MAX_VALUE, 3, -4, 2, 1);
+        Block dictionary = new DictionaryBlock(createLongsBlock(-5L, 0L, null, 3L, 1L), new int[] {0, 1, 2, 3, 4, 4, 3, 2, 1, 0});
+        return new Page(bigints, doubles, integers, dictionary);
+    }
+}
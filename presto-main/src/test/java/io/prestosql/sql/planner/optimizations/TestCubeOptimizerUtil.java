@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.prestosql.sql.planner.optimizations;
+
+import com.google.common.collect.ImmutableSet;
+import io.hetu.core.spi.cube.CubeMetadata;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTransactionHandle;
+import io.prestosql.spi.connector.CatalogName;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.QualifiedObjectName;
+import io.prestosql.spi.metadata.TableHandle;
+import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.TableStatistics;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.testng.Assert.assertEquals;
+
+public class TestCubeOptimizerUtil
+{
+    private final Session session = testSessionBuilder().build();
+
+    @Test
+    public void testSortBySize()
+    {
+        Metadata metadata = Mockito.mock(Metadata.class);
+        CubeMetadata fineCube = mockCube(metadata, "fine_cube", ImmutableSet.of("orderdate", "custkey"), 100, Estimate.of(50000));
+        CubeMetadata coarseCube = mockCube(metadata, "coarse_cube", ImmutableSet.of("orderdate"), 100, Estimate.of(300));
+        CubeMetadata unknownCube = mockCube(metadata, "unknown_cube", ImmutableSet.of("orderdate"), 200, Estimate.unknown());
+
+        List<CubeMetadata> cubes = new ArrayList<>(Arrays.asList(unknownCube, fineCube, coarseCube));
+        CubeOptimizerUtil.sortBySize(cubes, metadata, session);
+        assertEquals(cubes, Arrays.asList(coarseCube, fineCube, unknownCube));
+    }
+
+    @Test
+    public void testSortBySizeWithoutStatistics()
+    {
+        Metadata metadata = Mockito.mock(Metadata.class);
+        CubeMetadata fineCube = mockCube(metadata, "fine_cube", ImmutableSet.of("orderdate", "custkey"), 300, Estimate.unknown());
+        CubeMetadata olderCube = mockCube(metadata, "older_cube", ImmutableSet.of("orderdate"), 100, Estimate.unknown());
+        CubeMetadata newerCube = mockCube(metadata, "newer_cube", ImmutableSet.of("orderdate"), 200, Estimate.unknown());
+
+        List<CubeMetadata> cubes = new ArrayList<>(Arrays.asList(fineCube, olderCube, newerCube));
+        CubeOptimizerUtil.sortBySize(cubes, metadata, session);
+        assertEquals(cubes, Arrays.asList(newerCube, olderCube, fineCube));
+    }
+
+    private static CubeMetadata mockCube(Metadata metadata, String name, ImmutableSet<String> group, long lastUpdatedTime, Estimate rowCount)
+    {
+        String cubeName = "local.sf1." + name;
+        CubeMetadata cubeMetadata = Mockito.mock(CubeMetadata.class);
+        Mockito.when(cubeMetadata.getCubeName()).thenReturn(cubeName);
+        Mockito.when(cubeMetadata.getGroup()).thenReturn(group);
+        Mockito.when(cubeMetadata.getLastUpdatedTime()).thenReturn(lastUpdatedTime);
+
+        TableHandle cubeTableHandle = new TableHandle(new CatalogName("local"), new TpchTableHandle(name, 1.0), TpchTransactionHandle.INSTANCE, Optional.empty());
+        Mockito.when(metadata.getTableHandle(any(Session.class), eq(QualifiedObjectName.valueOf(cubeName)))).thenReturn(Optional.of(cubeTableHandle));
+        Mockito.when(metadata.getTableStatistics(any(Session.class), eq(cubeTableHandle), any(Constraint.class), anyBoolean()))
+                .thenReturn(TableStatistics.builder().setRowCount(rowCount).build());
+        return cubeMetadata;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class MockStateMap<K, V>
         implements StateMap<K, V>
@@ -48,7 +49,9 @@ public class MockStateMap<K, V>
     @Override
     public Map<K, V> getAll(Set<K> keys)
     {
-        return null;
+        return map.entrySet().stream()
+                .filter(entry -> keys.contains(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
     @Override
@@ -77,7 +80,7 @@ public class MockStateMap<K, V>
     @Override
     public void putAll(Map<K, V> map)
     {
-        map.putAll(map);
+        this.map.putAll(map);
     }
 
     @Override
@@ -89,6 +92,7 @@ public class MockStateMap<K, V>
     @Override
     public void removeAll(Set<K> keys)
     {
+        keys.forEach(map::remove);
     }
 
     @Override
@@ -23,6 +23,7 @@ import org.testng.annotations.Test;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 
 public class TestHetuConfig
@@ -37,6 +38,7 @@ public class TestHetuConfig
                 .setIndexCacheMaxMemory(new DataSize(10, GIGABYTE))
                 .setIndexCacheTTL(new Duration(24, TimeUnit.HOURS))
                 .setIndexCacheLoadingThreads(10L)
+                .setSplitFilteringThreads(4L)
                 .setIndexCacheLoadingDelay(new Duration(10, TimeUnit.SECONDS))
                 .setIndexCacheSoftReferenceEnabled(true)
                 .setIndexAutoload(true)
@@ -61,6 +63,8 @@ public class TestHetuConfig
                 .setNoResourceRetryCount(5)
                 .setCteMaterializationEnabled(false)
                 .setExecutionDataCacheMaxSize(new DataSize(2, GIGABYTE))
+                .setExecutionDataCacheWarmMaxSize(new DataSize(0, BYTE))
+                .setCteMaterializationSharedCacheEnabled(false)
                 .setCachingConnectorName("hive")
                 .setCachingSchemaName("cache")
                 .setCachingUserName("hive"));
@@ -75,6 +79,7 @@ public class TestHetuConfig
                 .put("hetu.heuristicindex.indexstore.filesystem.profile", "index-test")
                 .put("hetu.heuristicindex.filter.cache.max-memory", "2GB")
                 .put("hetu.heuristicindex.filter.cache.loading-threads", "5")
+                .put("hetu.heuristicindex.filter.split-filtering-threads", "8")
                 .put("hetu.heuristicindex.filter.cache.autoload-default", "false")
                 .put("hetu.heuristicindex.filter.cache.loading-delay", "1000ms")
                 .put("hetu.heuristicindex.filter.cache.ttl", "20m")
@@ -100,6 +105,8 @@ public class TestHetuConfig
                 .put("query-no-resource-retry-count", "15")
                 .put("hetu.execution.cte-materialization.enabled", "true")
                 .put("hetu.execution.cte-materialization.max-size", "1GB")
+                .put("hetu.execution.cte-materialization.warm-max-size", "10GB")
+                .put("hetu.execution.cte-materialization.shared-cache.enabled", "true")
                 .put("hetu.execution.cte-materialization.schema-name", "memCache")
                 .put("hetu.execution.cte-materialization.connector-name", "memory")
                 .put("hetu.execution.cte-materialization.user-name", "test")
@@ -112,6 +119,7 @@ public class TestHetuConfig
                 .setIndexCacheMaxMemory(new DataSize(2, GIGABYTE))
                 .setIndexCacheTTL(new Duration(20, TimeUnit.MINUTES))
                 .setIndexCacheLoadingThreads(5L)
+                .setSplitFilteringThreads(8L)
                 .setIndexCacheLoadingDelay(new Duration(1000, TimeUnit.MILLISECONDS))
                 .setIndexCacheSoftReferenceEnabled(false)
                 .setIndexAutoload(false)
@@ -135,6 +143,8 @@ public class TestHetuConfig
                 .setExtensionExecutionPlannerClassPath("")
                 .setNoResourceRetryCount(15)
                 .setExecutionDataCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setExecutionDataCacheWarmMaxSize(new DataSize(10, GIGABYTE))
+                .setCteMaterializationSharedCacheEnabled(true)
                 .setCteMaterializationEnabled(true)
                 .setCachingConnectorName("memory")
                 .setCachingSchemaName("memCache")
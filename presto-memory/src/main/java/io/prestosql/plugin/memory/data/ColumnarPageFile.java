@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.memory.data;
+
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.hetu.core.transport.execution.buffer.PagesSerde;
+import io.hetu.core.transport.execution.buffer.PagesSerdeUtil;
+import io.hetu.core.transport.execution.buffer.SerializedPage;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.LazyBlock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.lang.Math.toIntExact;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Columnar file of the pages of a LogicalPart, which is memory-mapped when read back.
+ * <p>
+ * Every block of every page is serialized as a separate column chunk, followed by a footer
+ * with the position count of each page and the offset and length of each of its column chunks:
+ * <pre>
+ * chunk(page 0, column 0) chunk(page 0, column 1) ... chunk(page n, column m)
+ * footer: pageCount columnCount (positionCount (offset length){columnCount}){pageCount}
+ * trailer: footerOffset MAGIC
+ * </pre>
+ * Pages read from the file are made of lazy blocks, so only the column chunks of the
+ * pages and columns a query touches are faulted in and deserialized. Deserialized blocks
+ * are kept, so that later queries reuse them instead of deserializing the chunks again.
+ */
+class ColumnarPageFile
+{
+    private static final int MAGIC = 0x4d434f4c; // "MCOL"
+    private static final int TRAILER_SIZE = SIZE_OF_LONG + SIZE_OF_INT;
+    // a single mapping can't exceed 2GB, larger files are mapped in several segments
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final PagesSerde pagesSerde;
+    private final int[] positionCounts;
+    private final long[][] chunkOffsets;
+    private final int[][] chunkLengths;
+    private final int[] pageSegments;
+    private final long[] segmentOffsets;
+    private final Slice[] segments;
+    private final int columnCount;
+    // deserialized blocks by page and column, and the pages whose blocks are all deserialized
+    private final AtomicReferenceArray<Block> blocks;
+    private final AtomicReferenceArray<Page> loadedPages;
+
+    private ColumnarPageFile(PagesSerde pagesSerde, int columnCount, int[] positionCounts, long[][] chunkOffsets, int[][] chunkLengths, int[] pageSegments, long[] segmentOffsets, Slice[] segments)
+    {
+        this.pagesSerde = pagesSerde;
+        this.columnCount = columnCount;
+        this.positionCounts = positionCounts;
+        this.chunkOffsets = chunkOffsets;
+        this.chunkLengths = chunkLengths;
+        this.pageSegments = pageSegments;
+        this.segmentOffsets = segmentOffsets;
+        this.segments = segments;
+        this.blocks = new AtomicReferenceArray<>(positionCounts.length * columnCount);
+        this.loadedPages = new AtomicReferenceArray<>(positionCounts.length);
+    }
+
+    static void write(Path file, PagesSerde pagesSerde, List<Page> pages)
+            throws IOException
+    {
+        int columnCount = pages.isEmpty() ? 0 : pages.get(0).getChannelCount();
+        long[][] offsets = new long[pages.size()][columnCount];
+        int[][] lengths = new int[pages.size()][columnCount];
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            OutputStreamSliceOutput sliceOutput = new OutputStreamSliceOutput(outputStream);
+            for (int page = 0; page < pages.size(); page++) {
+                for (int column = 0; column < columnCount; column++) {
+                    Block block = pages.get(page).getBlock(column);
+                    offsets[page][column] = sliceOutput.longSize();
+                    PagesSerdeUtil.writeSerializedPage(sliceOutput, pagesSerde.serialize(new Page(block.getPositionCount(), block)));
+                    lengths[page][column] = toIntExact(sliceOutput.longSize() - offsets[page][column]);
+                }
+            }
+
+            long footerOffset = sliceOutput.longSize();
+            sliceOutput.writeInt(pages.size());
+            sliceOutput.writeInt(columnCount);
+            for (int page = 0; page < pages.size(); page++) {
+                sliceOutput.writeInt(pages.get(page).getPositionCount());
+                for (int column = 0; column < columnCount; column++) {
+                    sliceOutput.writeLong(offsets[page][column]);
+                    sliceOutput.writeInt(lengths[page][column]);
+                }
+            }
+            sliceOutput.writeLong(footerOffset);
+            sliceOutput.writeInt(MAGIC);
+            sliceOutput.flush();
+        }
+    }
+
+    static ColumnarPageFile open(Path file, PagesSerde pagesSerde)
+            throws IOException
+    {
+        requireNonNull(pagesSerde, "pagesSerde is null");
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            long fileSize = channel.size();
+            if (fileSize < TRAILER_SIZE) {
+                throw new IOException("Invalid columnar page file " + file);
+            }
+            Slice trailer = read(channel, fileSize - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong(0);
+            if (trailer.getInt(SIZE_OF_LONG) != MAGIC || footerOffset < 0 || footerOffset > fileSize - TRAILER_SIZE) {
+                throw new IOException("Invalid columnar page file " + file);
+            }
+
+            Slice footer = read(channel, footerOffset, toIntExact(fileSize - TRAILER_SIZE - footerOffset));
+            int position = 0;
+            int pageCount = footer.getInt(position);
+            position += SIZE_OF_INT;
+            int columnCount = footer.getInt(position);
+            position += SIZE_OF_INT;
+            int[] positionCounts = new int[pageCount];
+            long[][] offsets = new long[pageCount][columnCount];
+            int[][] lengths = new int[pageCount][columnCount];
+            for (int page = 0; page < pageCount; page++) {
+                positionCounts[page] = footer.getInt(position);
+                position += SIZE_OF_INT;
+                for (int column = 0; column < columnCount; column++) {
+                    offsets[page][column] = footer.getLong(position);
+                    position += SIZE_OF_LONG;
+                    lengths[page][column] = footer.getInt(position);
+                    position += SIZE_OF_INT;
+                }
+            }
+
+            // the column chunks of a page are contiguous, so segments are split between pages
+            int[] pageSegments = new int[pageCount];
+            List<Long> segmentOffsets = new ArrayList<>();
+            List<Long> segmentEnds = new ArrayList<>();
+            for (int page = 0; page < pageCount; page++) {
+                if (columnCount == 0) {
+                    continue;
+                }
+                long pageStart = offsets[page][0];
+                long pageEnd = offsets[page][columnCount - 1] + lengths[page][columnCount - 1];
+                int last = segmentOffsets.size() - 1;
+                if (last < 0 || pageEnd - segmentOffsets.get(last) > MAX_SEGMENT_SIZE) {
+                    segmentOffsets.add(pageStart);
+                    segmentEnds.add(pageEnd);
+                }
+                else {
+                    segmentEnds.set(last, pageEnd);
+                }
+                pageSegments[page] = segmentOffsets.size() - 1;
+            }
+            Slice[] segments = new Slice[segmentOffsets.size()];
+            long[] segmentOffsetArray = new long[segmentOffsets.size()];
+            for (int segment = 0; segment < segments.length; segment++) {
+                segmentOffsetArray[segment] = segmentOffsets.get(segment);
+                // the mapping stays valid after the channel is closed
+                segments[segment] = Slices.wrappedBuffer(channel.map(READ_ONLY, segmentOffsets.get(segment), segmentEnds.get(segment) - segmentOffsets.get(segment)));
+            }
+            return new ColumnarPageFile(pagesSerde, columnCount, positionCounts, offsets, lengths, pageSegments, segmentOffsetArray, segments);
+        }
+    }
+
+    private static Slice read(FileChannel channel, long offset, int length)
+            throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar page file");
+            }
+        }
+        return Slices.wrappedBuffer(buffer.array());
+    }
+
+    int getPageCount()
+    {
+        return positionCounts.length;
+    }
+
+    /**
+     * Pages of the file. Blocks are deserialized when first loaded and reused by later accesses.
+     */
+    List<Page> getPages()
+    {
+        return new AbstractList<Page>()
+        {
+            @Override
+            public Page get(int index)
+            {
+                return getPage(index);
+            }
+
+            @Override
+            public int size()
+            {
+                return getPageCount();
+            }
+        };
+    }
+
+    Page getPage(int page)
+    {
+        Page loadedPage = loadedPages.get(page);
+        if (loadedPage != null) {
+            return loadedPage;
+        }
+
+        int positionCount = positionCounts[page];
+        Block[] pageBlocks = new Block[columnCount];
+        boolean loaded = true;
+        for (int column = 0; column < columnCount; column++) {
+            pageBlocks[column] = blocks.get(page * columnCount + column);
+            if (pageBlocks[column] == null) {
+                // lazy blocks are not shared between readers, they can't be loaded concurrently
+                int finalColumn = column;
+                pageBlocks[column] = new LazyBlock<>(positionCount, lazyBlock -> lazyBlock.setBlock(getBlock(page, finalColumn)));
+                loaded = false;
+            }
+        }
+        Page result = new Page(positionCount, pageBlocks);
+        if (loaded) {
+            loadedPages.compareAndSet(page, null, result);
+        }
+        return result;
+    }
+
+    /**
+     * Bytes of the blocks deserialized so far, block data read in place from the mapping included
+     */
+    long getLoadedBytes()
+    {
+        long bytes = 0;
+        for (int i = 0; i < blocks.length(); i++) {
+            Block block = blocks.get(i);
+            if (block != null) {
+                bytes += block.getRetainedSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private Block getBlock(int page, int column)
+    {
+        int index = page * columnCount + column;
+        Block block = blocks.get(index);
+        if (block == null) {
+            // readers racing on the same chunk keep the block deserialized first
+            blocks.compareAndSet(index, null, readBlock(page, column));
+            block = blocks.get(index);
+        }
+        return block;
+    }
+
+    private Block readBlock(int page, int column)
+    {
+        int segment = pageSegments[page];
+        Slice chunk = segments[segment].slice(toIntExact(chunkOffsets[page][column] - segmentOffsets[segment]), chunkLengths[page][column]);
+        SerializedPage serializedPage = PagesSerdeUtil.readSerializedPage(chunk);
+        if (serializedPage.isCompressed() || serializedPage.isEncrypted() || serializedPage.isBlockCompressed()) {
+            // decompression and decryption work on byte arrays, only these chunks are copied out of the mapping
+            serializedPage = PagesSerdeUtil.readSerializedPage(Slices.copyOf(chunk));
+        }
+        return pagesSerde.deserialize(serializedPage).getBlock(0);
+    }
+}
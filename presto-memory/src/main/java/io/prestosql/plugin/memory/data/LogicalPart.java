@@ -15,6 +15,7 @@
 package io.prestosql.plugin.memory.data;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.BaseEncoding;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
@@ -64,6 +65,7 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
@@ -83,8 +85,11 @@ public class LogicalPart
     private static final JsonCodec<TypeSignature> TYPE_SIGNATURE_JSON_CODEC = JsonCodec.jsonCodec(TypeSignature.class);
     private static final String TABLE_DATA_FOLDER = "data";
 
-    private long rows;
-    private long byteSize;
+    private static final AtomicLongFieldUpdater<LogicalPart> ROWS_UPDATER = AtomicLongFieldUpdater.newUpdater(LogicalPart.class, "rows");
+    private static final AtomicLongFieldUpdater<LogicalPart> BYTE_SIZE_UPDATER = AtomicLongFieldUpdater.newUpdater(LogicalPart.class, "byteSize");
+
+    private volatile long rows;
+    private volatile long byteSize;
 
     private final AtomicReference<LogicalPartState> processingState = new AtomicReference<>(LogicalPartState.ACCEPTING_PAGES);
     private final List<SortOrder> sortOrders;
@@ -94,6 +99,8 @@ public class LogicalPart
     private final int maxPageSizeBytes;
     private final int logicalPartNum;
     private final boolean compressionEnabled;
+    // pages are spilled in the columnar format of ColumnarPageFile, false for compressed pages and parts spilled by older versions
+    private boolean columnar;
 
     // indexes
     /*
@@ -135,7 +142,9 @@ public class LogicalPart
     private transient List<TypeSignature> typeSignatures;
     private transient List<Type> types;
     // Using majority of memory and disk space. Serialized and deserialized separately. Only loaded when used.
-    private transient List<Page> pages;
+    // While accepting pages, appending and sealing hold pagesLock, and readers get a copy of the pages.
+    private transient volatile List<Page> pages;
+    private transient Object pagesLock;
 
     public LogicalPart(
             List<MemoryColumnHandle> columns,
@@ -153,6 +162,7 @@ public class LogicalPart
         this.tableDataRoot = tableDataRoot;
         this.logicalPartNum = logicalPartNum;
         this.pages = new ArrayList<>();
+        this.pagesLock = new Object();
         this.maxLogicalPartBytes = maxLogicalPartBytes;
         this.maxPageSizeBytes = maxPageSizeBytes;
         this.compressionEnabled = compressionEnabled;
@@ -216,13 +226,27 @@ public class LogicalPart
 
     void add(Page page)
     {
-        if (!canAdd()) {
+        if (!tryAdd(page)) {
             throw new RuntimeException("This LogicalPart can no longer be modified, create a new one.");
         }
+    }
 
-        pages.add(page);
-        rows += page.getPositionCount();
-        byteSize += page.getSizeInBytes();
+    /**
+     * Append the page, several writers can append to the same LogicalPart concurrently.
+     *
+     * @return false if the LogicalPart is full or no longer accepts pages, the page is not added then
+     */
+    boolean tryAdd(Page page)
+    {
+        synchronized (pagesLock) {
+            if (!canAdd()) {
+                return false;
+            }
+            pages.add(page);
+            ROWS_UPDATER.addAndGet(this, page.getPositionCount());
+            BYTE_SIZE_UPDATER.addAndGet(this, page.getSizeInBytes());
+            return true;
+        }
     }
 
     boolean pageInMemory()
@@ -235,13 +259,26 @@ public class LogicalPart
         pages = null;
     }
 
+    /**
+     * Seal the LogicalPart. Sealing waits for the pages being appended, so no page is appended once this returns.
+     */
     void finishAdding()
     {
-        processingState.set(LogicalPartState.FINISHED_ADDING);
+        synchronized (pagesLock) {
+            processingState.compareAndSet(LogicalPartState.ACCEPTING_PAGES, LogicalPartState.FINISHED_ADDING);
+        }
     }
 
     List<Page> getPages()
     {
+        if (processingState.get() == LogicalPartState.ACCEPTING_PAGES) {
+            synchronized (pagesLock) {
+                if (processingState.get() == LogicalPartState.ACCEPTING_PAGES) {
+                    // writers are still appending to the pages
+                    return ImmutableList.copyOf(pages);
+                }
+            }
+        }
         if (!pageInMemory()) {
             try {
                 readPages();
@@ -642,19 +679,16 @@ public class LogicalPart
 
     void process()
     {
-        switch (processingState.get()) {
-            case ACCEPTING_PAGES:
-            case PROCESSING:
-            case COMPLETED:
-                return;
+        // only one of the threads processing sealed LogicalParts gets to process this one
+        if (!processingState.compareAndSet(LogicalPartState.FINISHED_ADDING, LogicalPartState.PROCESSING)) {
+            return;
         }
 
-        processingState.set(LogicalPartState.PROCESSING);
-
         // sort and create sparse index
         if (!sortChannels.isEmpty()) {
+            // concurrent writers can fill the LogicalPart beyond its maximum size by a few pages
             SortBuffer sortBuffer = new SortBuffer(
-                    new DataSize(maxLogicalPartBytes, DataSize.Unit.BYTE),
+                    new DataSize(Math.max(maxLogicalPartBytes, byteSize + 1), DataSize.Unit.BYTE),
                     types,
                     sortChannels,
                     sortOrders,
@@ -700,8 +734,8 @@ public class LogicalPart
                 minMaxIdx.put(sortChannels.get(0), new AbstractMap.SimpleEntry<>((Comparable) minValue, (Comparable) maxValue));
             }
 
+            // readers holding the old pages still see all the rows
             this.byteSize = newByteSize;
-            this.pages.clear(); // help triggering GC of old pages
             this.pages = sortedPages;
         }
 
@@ -768,7 +802,8 @@ public class LogicalPart
     }
 
     /**
-     * Deserialize pages from disk
+     * Deserialize pages from disk. Columnar page files are memory-mapped, and their column chunks are only
+     * deserialized when a query reads them.
      */
     private synchronized void readPages()
             throws IOException
@@ -778,11 +813,18 @@ public class LogicalPart
         }
         long start = System.currentTimeMillis();
         Path pagesFile = tableDataRoot.resolve(TABLE_DATA_FOLDER).resolve(getPageFileName());
+        if (columnar) {
+            pages = ColumnarPageFile.open(pagesFile, pagesSerde).getPages();
+            LOG.debug("[Load] %s mapped. Time elapsed: %dms", pagesFile.toString(), System.currentTimeMillis() - start);
+            return;
+        }
         try (InputStream inputStream = Files.newInputStream(pagesFile)) {
             try (InputStream inputStreamToUse = compressionEnabled ? new GZIPInputStream(inputStream) : inputStream) {
                 SliceInput sliceInput = new InputStreamSliceInput(inputStreamToUse);
-                pages = new ArrayList<>();
-                PagesSerdeUtil.readPages(pagesSerde, sliceInput).forEachRemaining(pages::add);
+                // publish the pages only once all of them are read, readers check pages without locking
+                List<Page> readPages = new ArrayList<>();
+                PagesSerdeUtil.readPages(pagesSerde, sliceInput).forEachRemaining(readPages::add);
+                pages = readPages;
             }
         }
         long dur = System.currentTimeMillis() - start;
@@ -801,8 +843,15 @@ public class LogicalPart
         if (!Files.exists(pagesFile.getParent())) {
             Files.createDirectories(pagesFile.getParent());
         }
+        // compressed streams can't be memory-mapped, keep the row format for them
+        if (!compressionEnabled) {
+            ColumnarPageFile.write(pagesFile, pagesSerde, pages);
+            columnar = true;
+            LOG.debug("[Spill] %s completed. Time elapsed: %dms", pagesFile.toString(), System.currentTimeMillis() - start);
+            return;
+        }
         try (OutputStream outputStream = Files.newOutputStream(pagesFile)) {
-            try (OutputStream outputStreamToUse = compressionEnabled ? new GZIPOutputStream(outputStream) : outputStream) {
+            try (OutputStream outputStreamToUse = new GZIPOutputStream(outputStream)) {
                 SliceOutput sliceOutput = new OutputStreamSliceOutput(outputStreamToUse);
                 PagesSerdeUtil.writePages(pagesSerde, sliceOutput, pages.iterator());
                 sliceOutput.flush();
@@ -1031,6 +1080,7 @@ public class LogicalPart
             throws ClassNotFoundException, IOException
     {
         in.defaultReadObject();
+        this.pagesLock = new Object();
         int typeSize = in.readInt();
         this.typeSignatures = new ArrayList<>(typeSize);
         for (int i = 0; i < typeSize; i++) {
@@ -32,7 +32,6 @@ import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.TypeManager;
 import org.weakref.jmx.Managed;
 
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
@@ -47,8 +46,6 @@ import java.nio.file.Path;
 import java.text.NumberFormat;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -56,6 +53,7 @@ import java.util.OptionalDouble;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
@@ -81,21 +79,26 @@ public class MemoryTableManager
     private final TypeManager typeManager;
     private final PagesSerde pagesSerde;
 
-    @GuardedBy("this")
     private final AtomicLong currentBytes = new AtomicLong(); // Keep track of current byte usage in memory
 
+    // Memory is reserved without locking while it fits, only evicting LRU tables is serialized
+    private final Object evictionLock = new Object();
+    // Restoring a table only blocks the readers of that table
+    private final Map<Long, Object> restoreLocks = new ConcurrentHashMap<>();
+    private final Object refreshLock = new Object();
+
     // The following maps store the usage byte sizes with tableID as key and are used to update currentBytes.
 
-    // in-memory LRU map of tableId -> table
-    private final Map<Long, Table> tables = new LinkedHashMap<>(16, 0.75f, true);
+    // in-memory map of tableId -> table, the LRU order is kept by the tables' last access time
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
 
     // Processed bytes are spilled and updated current table memory usage sizes.
-    private final Map<Long, AtomicLong> tableProcessedBytes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, AtomicLong> tableProcessedBytes = new ConcurrentHashMap<>();
 
     // Non-processed bytes are additional page sizes newly added to the table.
     // The new bytes added are applied for memory and waiting to be spilled, updated and processed.
     // Once processed, the corresponding usage size for the tableID in this map will be cleared to 0 or removed if the table is removed.
-    private final Map<Long, AtomicLong> tableNotProcessedBytes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, AtomicLong> tableNotProcessedBytes = new ConcurrentHashMap<>();
 
     // For example:
     // Table with ID 1 is created, then tableNotProcessedBytes stores [1, 0] and tableProcessedBytes also stores [1, 0] as size is 0.
@@ -159,10 +162,11 @@ public class MemoryTableManager
 
     public void finishUpdatingTable(long id)
     {
-        LOG.info("Finishing updating table. %d logicalParts in the table to be finished up.", tables.get(id).getLogicalPartCount());
-        tables.get(id).finishCreation(() -> {
+        Table table = tables.get(id);
+        LOG.info("Finishing updating table. %d logicalParts in the table to be finished up.", table.getLogicalPartCount());
+        table.finishCreation(() -> {
             // this should only be called once entire table has been processed
-            if (tables.containsKey(id) && tables.get(id).allProcessed() && !tables.get(id).isSpilled()) {
+            if (tables.get(id) == table && table.allProcessed() && !table.isSpilled()) {
                 try {
                     // first spill the table to disk
                     spillTable(id);
@@ -171,7 +175,10 @@ public class MemoryTableManager
                     // For example, 23 bytes are not yet processed, store in tableNotProcessedBytes corresponding to tableID 1.
                     // This means that 23 * CREATION_SCALE_FACTOR = 23 * 4 = 92 bytes was applied earlier.
                     // Then, 23 * (CREATION_SCALE_FACTOR - 1) = 23 * 3 = 69 bytes need to be released for spilling.
-                    releaseMemory(tableNotProcessedBytes.get(id).get() * (CREATION_SCALE_FACTOR - 1), id, "Finish processing table " + id);
+                    AtomicLong notProcessedBytes = tableNotProcessedBytes.get(id);
+                    if (notProcessedBytes != null) {
+                        releaseMemory(notProcessedBytes.get() * (CREATION_SCALE_FACTOR - 1), id, "Finish processing table " + id);
+                    }
                 }
                 catch (Exception e) {
                     LOG.error("Failed to serialize table " + id, e);
@@ -183,10 +190,12 @@ public class MemoryTableManager
     /**
      * Initialize a table and store it in memory
      */
-    public synchronized void initialize(long tableId, boolean compressionEnabled, boolean asyncProcessingEnabled, List<MemoryColumnHandle> columns, List<SortingColumn> sortedBy, List<String> partitionedBy, List<String> indexColumns)
+    public void initialize(long tableId, boolean compressionEnabled, boolean asyncProcessingEnabled, List<MemoryColumnHandle> columns, List<SortingColumn> sortedBy, List<String> partitionedBy, List<String> indexColumns)
     {
-        if (!tables.containsKey(tableId)) {
-            tables.put(tableId, new Table(tableId,
+        tables.computeIfAbsent(tableId, id -> {
+            tableProcessedBytes.put(id, new AtomicLong(0L));
+            tableNotProcessedBytes.put(id, new AtomicLong(0L));
+            return new Table(id,
                     compressionEnabled,
                     asyncProcessingEnabled,
                     spillRoot.resolve(String.valueOf(tableId)),
@@ -197,23 +206,26 @@ public class MemoryTableManager
                     pageSorter,
                     config,
                     typeManager,
-                    pagesSerde));
-            AtomicLong newUsageLong = new AtomicLong(0L);
-            AtomicLong newAddedLong = new AtomicLong(0L);
-            tableProcessedBytes.put(tableId, newUsageLong);
-            tableNotProcessedBytes.put(tableId, newAddedLong);
-        }
+                    pagesSerde);
+        });
     }
 
-    public synchronized void add(Long tableId, Page page)
+    /**
+     * Add a page to the table. Writers of different tables, and of different LogicalParts of a table, don't block each other.
+     */
+    public void add(Long tableId, Page page)
     {
-        if (!contains(tableId)) {
+        Table table = tables.get(tableId);
+        if (table == null) {
             throw new PrestoException(MISSING_DATA, "Failed to find table on a worker.");
         }
+        table.touch(); // make sure it's not LRU
         page.compact();
-        Table table = tables.get(tableId); // get current table to make sure it's not LRU
         applyForMemory(page.getSizeInBytes() * CREATION_SCALE_FACTOR, tableId, () -> {}, () -> releaseMemory(table.rollBackUncommitted() * CREATION_SCALE_FACTOR, tableId, "Rolling back."));
-        tableNotProcessedBytes.get(tableId).set(page.getSizeInBytes()); // Additional byte size is recorded.
+        AtomicLong notProcessedBytes = tableNotProcessedBytes.get(tableId);
+        if (notProcessedBytes != null) {
+            notProcessedBytes.addAndGet(page.getSizeInBytes()); // Additional byte size is recorded.
+        }
         table.add(page);
     }
 
@@ -259,6 +271,10 @@ public class MemoryTableManager
             }
         }
         Table table = tables.get(tableId);
+        if (table == null) {
+            throw new PrestoException(MISSING_DATA, "Failed to find table on a worker.");
+        }
+        table.touch();
         if (table.getRows() < expectedRows) {
             throw new PrestoException(MISSING_DATA,
                     format("Expected to find [%s] rows on a worker, but found [%s].", expectedRows, table.getRows()));
@@ -292,19 +308,13 @@ public class MemoryTableManager
      *
      * @param tableId the id of table to be cleaned
      */
-    public synchronized void cleanTable(Long tableId)
+    public void cleanTable(Long tableId)
     {
-        if (tables.containsKey(tableId)) {
-            try {
-                releaseMemory(tableProcessedBytes.get(tableId).get(), tableId, "Cleaning table");
-                // Remove tableID from corresponding maps
-                tables.remove(tableId);
-                tableProcessedBytes.remove(tableId);
-                tableNotProcessedBytes.remove(tableId);
-            }
-            catch (Exception e) {
-                LOG.error(e, "Unable to clean table " + tableId);
-            }
+        try {
+            dropTable(tableId, "Cleaning table");
+        }
+        catch (Exception e) {
+            LOG.error(e, "Unable to clean table " + tableId);
         }
     }
 
@@ -313,7 +323,14 @@ public class MemoryTableManager
      *
      * @param activeTableIds the ids of active tables. all tables not in this set will be cleaned.
      */
-    public synchronized void refreshTables(Set<Long> activeTableIds)
+    public void refreshTables(Set<Long> activeTableIds)
+    {
+        synchronized (refreshLock) {
+            refreshTablesInternal(activeTableIds);
+        }
+    }
+
+    private void refreshTablesInternal(Set<Long> activeTableIds)
     {
         // We have to remember that there might be some race conditions when there are two tables created at once.
         // That can lead to a situation when MemoryPagesStore already knows about a newer second table on some worker
@@ -329,15 +346,8 @@ public class MemoryTableManager
         }
         long latestTableId = Collections.max(activeTableIds);
 
-        Iterator<Map.Entry<Long, Table>> tableDataIterator = tables.entrySet().iterator();
-        while (tableDataIterator.hasNext()) {
-            Map.Entry<Long, Table> tablePagesEntry = tableDataIterator.next();
-            Long tableId = tablePagesEntry.getKey();
-            if (tableId < latestTableId && !activeTableIds.contains(tableId)) {
-                if (tableProcessedBytes.keySet().contains(tableId)) { // Ensure tableID is valid in map
-                    releaseMemory(tableProcessedBytes.get(tableId).get(), tableId, "Table refresh");
-                }
-                tableDataIterator.remove();
+        for (Long tableId : tables.keySet()) {
+            if (tableId < latestTableId && !activeTableIds.contains(tableId) && dropTable(tableId, "Table refresh") != null) {
                 LOG.info("[TableRefresh] Dropped table %s from memory", tableId);
             }
         }
@@ -375,11 +385,11 @@ public class MemoryTableManager
      *
      * @param id table id to spill
      */
-    private synchronized void spillTable(long id)
+    private void spillTable(long id)
             throws IOException
     {
         Table table = tables.get(id);
-        if (table.isSpilled()) {
+        if (table == null || table.isSpilled()) {
             return;
         }
         LOG.debug("[Spill] serializing metadata of table " + id);
@@ -409,12 +419,22 @@ public class MemoryTableManager
      *
      * @param id table to be restored
      */
-    public synchronized void restoreTable(long id)
+    public void restoreTable(long id)
             throws IOException, ClassNotFoundException
     {
         if (tables.containsKey(id)) {
             return;
         }
+        synchronized (restoreLocks.computeIfAbsent(id, key -> new Object())) {
+            if (!tables.containsKey(id)) {
+                restoreTableInternal(id);
+            }
+        }
+    }
+
+    private void restoreTableInternal(long id)
+            throws IOException, ClassNotFoundException
+    {
         LOG.debug("[Load] Loading metadata of table " + id);
         long start = System.currentTimeMillis();
         Path tablePath = spillRoot.resolve(String.valueOf(id));
@@ -424,7 +444,14 @@ public class MemoryTableManager
         try (SecureObjectInputStream ois = new SecureObjectInputStream(Files.newInputStream(tablePath.resolve(TABLE_METADATA_SUFFIX)), Table.TYPES_WHITELIST)) {
             Table table = (Table) ois.readObject();
             table.restoreTransientObjects(pageSorter, typeManager, pagesSerde, tablePath);
-            applyForMemory(table.getByteSize(), -1, () -> logNumFormat("Loaded table %s with %s bytes.", id, table.getByteSize()), () -> {});
+            // account for the restored table like for inserted pages, so that it can be offloaded again
+            tableProcessedBytes.put(id, new AtomicLong(0L));
+            tableNotProcessedBytes.put(id, new AtomicLong(0L));
+            long restoredBytes = table.getRestoredByteSize();
+            applyForMemory(restoredBytes, id, () -> logNumFormat("Loaded table %s with %s bytes.", id, restoredBytes), () -> {
+                tableProcessedBytes.remove(id);
+                tableNotProcessedBytes.remove(id);
+            });
             tables.put(id, table);
         }
         long dur = System.currentTimeMillis() - start;
@@ -446,6 +473,7 @@ public class MemoryTableManager
 
     /**
      * Apply for given size of memory in memory connector. If it can't be fulfilled the method tries to release tables from memory according to LRU order.
+     * The memory is reserved without locking, only requests that need tables to be released are serialized.
      *
      * @param bytes memory size requested
      * @param reserved reserved tableId so it will not be considered cleanable from LRU
@@ -453,50 +481,99 @@ public class MemoryTableManager
      * @param rollBack operation when memory request cannot be fulfilled
      * @throws PrestoException if the request still can't be fulfilled after dropping all non-reserved tables
      */
-    private synchronized void applyForMemory(long bytes, long reserved, Runnable onSuccess, Runnable rollBack)
+    private void applyForMemory(long bytes, long reserved, Runnable onSuccess, Runnable rollBack)
             throws PrestoException
     {
-        long newSize = bytes + currentBytes.get();
-        while (maxBytes < newSize) {
-            logNumFormat("Not enough memory for the request. Current bytes: %s. Limit: %s. Requested size: %s", currentBytes.get(), maxBytes, bytes);
-            tables.get(reserved); // perform a get and make sure reserved table is not LRU
-            Map.Entry<Long, Table> lru = tables.entrySet().iterator().next();
-            if (lru != null && lru.getKey() != reserved && lru.getValue().isSpilled()) {
-                // if there is any LRU table available to be dropped, evict it to make space for current
-                releaseMemory(tableProcessedBytes.get(lru.getKey()).get(), lru.getKey(), "Offloading LRU");
-                tables.get(lru.getKey()).offLoadPages(); // clean reference and help GC
-                // Remove tableID from corresponding maps
-                tables.remove(lru.getKey());
-                tableProcessedBytes.remove(lru.getKey());
-                tableNotProcessedBytes.remove(lru.getKey());
-                logNumFormat("Released %s bytes by offloading LRU table %s. Current bytes after offloading: %s", lru.getValue().getByteSize(), lru.getKey(), currentBytes.get());
-                newSize = currentBytes.get() + bytes;
-            }
-            else {
-                long current = currentBytes.get();
-                rollBack.run();
-                throw new PrestoException(MEMORY_LIMIT_EXCEEDED, format("Memory limit [%s] for memory connector exceeded. Current: [%s]. Requested: [%s]",
-                        NumberFormat.getIntegerInstance(Locale.US).format(maxBytes),
-                        NumberFormat.getIntegerInstance(Locale.US).format(current),
-                        NumberFormat.getIntegerInstance(Locale.US).format(bytes)));
+        while (!tryReserveMemory(bytes)) {
+            synchronized (evictionLock) {
+                if (tryReserveMemory(bytes)) {
+                    break;
+                }
+                logNumFormat("Not enough memory for the request. Current bytes: %s. Limit: %s. Requested size: %s", currentBytes.get(), maxBytes, bytes);
+                Map.Entry<Long, Table> lru = null;
+                for (Map.Entry<Long, Table> entry : tables.entrySet()) {
+                    if (entry.getKey() != reserved && entry.getValue().isSpilled()
+                            && (lru == null || entry.getValue().getLastAccessNanos() - lru.getValue().getLastAccessNanos() < 0)) {
+                        lru = entry;
+                    }
+                }
+                if (lru != null) {
+                    // if there is any LRU table available to be dropped, evict it to make space for current
+                    dropTable(lru.getKey(), "Offloading LRU");
+                    lru.getValue().offLoadPages(); // clean reference and help GC
+                    logNumFormat("Released %s bytes by offloading LRU table %s. Current bytes after offloading: %s", lru.getValue().getByteSize(), lru.getKey(), currentBytes.get());
+                }
+                else {
+                    long current = currentBytes.get();
+                    rollBack.run();
+                    throw new PrestoException(MEMORY_LIMIT_EXCEEDED, format("Memory limit [%s] for memory connector exceeded. Current: [%s]. Requested: [%s]",
+                            NumberFormat.getIntegerInstance(Locale.US).format(maxBytes),
+                            NumberFormat.getIntegerInstance(Locale.US).format(current),
+                            NumberFormat.getIntegerInstance(Locale.US).format(bytes)));
+                }
             }
         }
-        if (tables.keySet().contains(reserved)) { // Ensure valid tableID
-            currentBytes.set(newSize);
-            tableProcessedBytes.get(reserved).set(newSize); // New table byte size
+        AtomicLong processedBytes = tableProcessedBytes.get(reserved);
+        if (processedBytes != null) { // Ensure valid tableID
+            processedBytes.addAndGet(bytes); // New table byte size
             onSuccess.run();
             logNumFormat("Fulfilled %s bytes for Table %s. Current: %s", bytes, reserved, currentBytes.get());
         }
+        else {
+            // the table was dropped in the meantime
+            currentBytes.addAndGet(-bytes);
+        }
+    }
+
+    private boolean tryReserveMemory(long bytes)
+    {
+        while (true) {
+            long current = currentBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+            if (currentBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
     }
 
-    private synchronized void releaseMemory(long bytes, long tableId, String reason)
+    private void releaseMemory(long bytes, long tableId, String reason)
     {
         currentBytes.addAndGet(-bytes); // CurrentBytes reduce by bytes variable
-        tableProcessedBytes.get(tableId).addAndGet(-bytes); // Reduce bytes usage correspondingly
-        tableNotProcessedBytes.get(tableId).set(0L); // Newly added bytes has been freed
+        AtomicLong processedBytes = tableProcessedBytes.get(tableId);
+        if (processedBytes != null) {
+            processedBytes.addAndGet(-bytes); // Reduce bytes usage correspondingly
+        }
+        AtomicLong notProcessedBytes = tableNotProcessedBytes.get(tableId);
+        if (notProcessedBytes != null) {
+            notProcessedBytes.set(0L); // Newly added bytes has been freed
+        }
         logNumFormat("Released %s bytes. Current: %s. Caused by: " + reason, bytes, currentBytes.get());
     }
 
+    /**
+     * Remove the table from memory and release all the memory used by it. Only the caller that removed the table releases its memory.
+     *
+     * @return the removed table, or null if it was not in memory
+     */
+    private Table dropTable(long tableId, String reason)
+    {
+        Table table = tables.remove(tableId);
+        if (table == null) {
+            return null;
+        }
+        // Remove tableID from corresponding maps
+        AtomicLong processedBytes = tableProcessedBytes.remove(tableId);
+        tableNotProcessedBytes.remove(tableId);
+        restoreLocks.remove(tableId);
+        if (processedBytes != null) {
+            currentBytes.addAndGet(-processedBytes.get());
+            logNumFormat("Released %s bytes. Current: %s. Caused by: " + reason, processedBytes.get(), currentBytes.get());
+        }
+        return table;
+    }
+
     /**
      * Format long numbers by thousands so it's easier to read.
      */
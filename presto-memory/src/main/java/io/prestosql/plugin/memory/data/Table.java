@@ -30,6 +30,8 @@ import io.prestosql.spi.predicate.TupleDomain;
 import io.prestosql.spi.type.TypeManager;
 import io.prestosql.spi.util.BloomFilter;
 
+import javax.annotation.concurrent.GuardedBy;
+
 import java.io.Serializable;
 import java.nio.file.Path;
 import java.util.AbstractMap;
@@ -37,16 +39,23 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static java.util.Objects.requireNonNull;
@@ -68,6 +77,10 @@ public class Table
     private static final Logger LOG = Logger.get(Table.class);
     private static final Long PROCESSING_DELAY = 5000L; // 5s
     private static final ScheduledExecutorService executor = MemoryThreadManager.getSharedThreadPool();
+    private static final AtomicLongFieldUpdater<Table> BYTE_SIZE_UPDATER = AtomicLongFieldUpdater.newUpdater(Table.class, "byteSize");
+    // concurrent writers of a table without partitions append to different LogicalParts
+    private static final int WRITE_STRIPES = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 16));
+    private static final Object NULL_PARTITION_KEY = new Object();
 
     /* NOTE: MemoryTableManager uses Object serialization on this class
     but for security it requires a whitelist of accepted classes during de-serialization.
@@ -87,6 +100,7 @@ public class Table
                     AtomicInteger.class.getName(),
                     List.class.getName(),
                     ArrayList.class.getName(),
+                    CopyOnWriteArrayList.class.getName(),
                     TableState.class.getName(),
                     MemoryColumnHandle.class.getName(),
                     SortingColumn.class.getName(),
@@ -111,11 +125,12 @@ public class Table
     private final List<String> indexColumns;
     private final long maxLogicalPartBytes;
     private final int maxPageSizeBytes;
-    private final List<LogicalPart> logicalParts; // actual data structure that stores the LPs
+    private List<LogicalPart> logicalParts; // actual data structure that stores the LPs, copy-on-write so readers never wait on writers
+    @GuardedBy("this")
     private final Map<String, List<Integer>> logicalPartPartitionedMap;  // data structure to store the mapping between that partition value and LP index
     private final boolean compressionEnabled;
-    private TableState tableState;
-    private long byteSize;
+    private volatile TableState tableState;
+    private volatile long byteSize;
     private final long id;
     private final boolean asyncEnabled;
 
@@ -125,6 +140,17 @@ public class Table
     private transient PageSorter pageSorter;
     private transient TypeManager typeManager;
 
+    // LogicalParts currently accepting pages, per write stripe for tables without partitions, otherwise per partition value
+    private transient AtomicReferenceArray<LogicalPart> activeLogicalParts;
+    private transient Map<Object, LogicalPart> activePartitionLogicalParts;
+    // full LogicalParts sealed and processed while pages are still being added
+    private transient Queue<Future<?>> backgroundProcessing;
+    // LogicalParts created since the last commit, whether still accepting pages or already sealed
+    @GuardedBy("this")
+    private transient Set<LogicalPart> uncommittedLogicalParts;
+    private transient volatile Runnable cleanup;
+    private transient volatile long lastAccessNanos;
+
     public Table(long id, boolean compressionEnabled, boolean asyncEnabled, Path tableDataRoot, List<MemoryColumnHandle> columns, List<SortingColumn> sortedBy,
                  List<String> partitionedBy, List<String> indexColumns, PageSorter pageSorter, MemoryConfig config, TypeManager typeManager, PagesSerde pagesSerde)
     {
@@ -141,8 +167,18 @@ public class Table
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.pagesSerde = requireNonNull(pagesSerde, "pagesSerde is null");
         this.asyncEnabled = asyncEnabled;
-        this.logicalParts = new ArrayList<>();
+        this.logicalParts = new CopyOnWriteArrayList<>();
         this.logicalPartPartitionedMap = new HashMap<>();
+        initializeWriteState();
+    }
+
+    private void initializeWriteState()
+    {
+        this.activeLogicalParts = new AtomicReferenceArray<>(WRITE_STRIPES);
+        this.activePartitionLogicalParts = new ConcurrentHashMap<>();
+        this.backgroundProcessing = new ConcurrentLinkedQueue<>();
+        this.uncommittedLogicalParts = new HashSet<>();
+        this.lastAccessNanos = System.nanoTime();
     }
 
     /**
@@ -154,6 +190,11 @@ public class Table
         this.typeManager = typeManager;
         this.pagesSerde = pagesSerde;
         this.tableDataRoot = tableDataRoot;
+        // tables spilled before the LogicalParts were kept in a copy-on-write list
+        if (!(logicalParts instanceof CopyOnWriteArrayList)) {
+            this.logicalParts = new CopyOnWriteArrayList<>(logicalParts);
+        }
+        initializeWriteState();
 
         for (LogicalPart lp : logicalParts) {
             lp.restoreTransientObjects(pageSorter, typeManager, pagesSerde, tableDataRoot);
@@ -161,18 +202,20 @@ public class Table
     }
 
     /**
-     * Add page to splits in a robin-robin way.
+     * Add page to the LogicalParts accepting pages. Safe to be called by several writers concurrently,
+     * writers only synchronize when a LogicalPart is full and has to be replaced by a new one.
      *
      * @param page page to add
      */
     public void add(Page page)
     {
-        // if there is no partition statement, just create one LP with the empty partition key
+        // if there is no partition statement, each writer stripe fills its own LPs with the empty partition key
         if (partitionedBy.isEmpty()) {
-            if (logicalParts.isEmpty() || !logicalParts.get(logicalParts.size() - 1).canAdd()) {
-                this.logicalParts.add(new LogicalPart(columns, sortedBy, indexColumns, tableDataRoot, pageSorter, maxLogicalPartBytes, maxPageSizeBytes, typeManager, pagesSerde, logicalParts.size() + 1, compressionEnabled));
+            int stripe = (int) (Thread.currentThread().getId() % activeLogicalParts.length());
+            LogicalPart logicalPart = activeLogicalParts.get(stripe);
+            while (logicalPart == null || !logicalPart.tryAdd(page)) {
+                logicalPart = rollStripeLogicalPart(stripe, logicalPart);
             }
-            logicalParts.get(logicalParts.size() - 1).add(page);
         }
 
         // if there is partitioned_by string,
@@ -183,33 +226,110 @@ public class Table
             for (Map.Entry<String, Page> entry : partitions.entrySet()) {
                 String curPartitionKey = entry.getKey();
                 Page curSubPage = entry.getValue();
-                logicalPartPartitionedMap.putIfAbsent(curPartitionKey, new ArrayList<>());
-
-                List<Integer> logicalPartIndices = logicalPartPartitionedMap.get(curPartitionKey);
-                LogicalPart lastLogicalPart = logicalPartIndices.isEmpty() ? null : this.logicalParts.get(logicalPartIndices.get(logicalPartIndices.size() - 1) - 1);
-                if (lastLogicalPart == null || !lastLogicalPart.canAdd()) {
-                    int logicalPartNum = logicalParts.size() + 1;
-                    if (sortedBy.isEmpty()) {
-                        //  1. partitioned only -> force sorting on partition column
-                        //  2. partitioned and sorted_by on different columns -> sort on the specified column.
-                        //  The purpose is to prevent generating many small pages.
-                        List<SortingColumn> convertedSortingCol = Arrays.asList(new SortingColumn(partitionedBy.get(0), SortOrder.ASC_NULLS_LAST));
-                        lastLogicalPart = new LogicalPart(columns, convertedSortingCol, indexColumns, tableDataRoot, pageSorter, maxLogicalPartBytes, maxPageSizeBytes, typeManager, pagesSerde, logicalPartNum, compressionEnabled);
-                    }
-                    else {
-                        lastLogicalPart = new LogicalPart(columns, sortedBy, indexColumns, tableDataRoot, pageSorter, maxLogicalPartBytes, maxPageSizeBytes, typeManager, pagesSerde, logicalPartNum, compressionEnabled);
-                    }
-                    logicalParts.add(lastLogicalPart);
-                    logicalPartIndices.add(logicalPartNum);
+                LogicalPart logicalPart = activePartitionLogicalParts.get(activePartitionKey(curPartitionKey));
+                while (logicalPart == null || !logicalPart.tryAdd(curSubPage)) {
+                    logicalPart = rollPartitionLogicalPart(curPartitionKey, logicalPart);
                 }
-                lastLogicalPart.add(curSubPage);
             }
         }
 
-        byteSize += page.getSizeInBytes();
+        BYTE_SIZE_UPDATER.addAndGet(this, page.getSizeInBytes());
         tableState = TableState.MODIFIED;
     }
 
+    /**
+     * Replace the full LogicalPart of a write stripe, unless another writer already did.
+     */
+    private synchronized LogicalPart rollStripeLogicalPart(int stripe, LogicalPart full)
+    {
+        LogicalPart current = activeLogicalParts.get(stripe);
+        if (current != null && current != full) {
+            return current;
+        }
+        LogicalPart next = createLogicalPart(sortedBy);
+        activeLogicalParts.set(stripe, next);
+        // a part rolled back meanwhile is not processed
+        if (full != null && uncommittedLogicalParts.contains(full)) {
+            processInBackground(full);
+        }
+        return next;
+    }
+
+    /**
+     * Replace the full LogicalPart of a partition value, unless another writer already did.
+     */
+    private synchronized LogicalPart rollPartitionLogicalPart(String partitionKey, LogicalPart full)
+    {
+        LogicalPart current = activePartitionLogicalParts.get(activePartitionKey(partitionKey));
+        if (current != null && current != full) {
+            return current;
+        }
+        LogicalPart next;
+        if (sortedBy.isEmpty()) {
+            //  1. partitioned only -> force sorting on partition column
+            //  2. partitioned and sorted_by on different columns -> sort on the specified column.
+            //  The purpose is to prevent generating many small pages.
+            next = createLogicalPart(Arrays.asList(new SortingColumn(partitionedBy.get(0), SortOrder.ASC_NULLS_LAST)));
+        }
+        else {
+            next = createLogicalPart(sortedBy);
+        }
+        logicalPartPartitionedMap.computeIfAbsent(partitionKey, key -> new ArrayList<>()).add(next.getLogicalPartNum());
+        activePartitionLogicalParts.put(activePartitionKey(partitionKey), next);
+        // a part rolled back meanwhile is not processed
+        if (full != null && uncommittedLogicalParts.contains(full)) {
+            processInBackground(full);
+        }
+        return next;
+    }
+
+    @GuardedBy("this")
+    private LogicalPart createLogicalPart(List<SortingColumn> sortingColumns)
+    {
+        LogicalPart logicalPart = new LogicalPart(columns, sortingColumns, indexColumns, tableDataRoot, pageSorter, maxLogicalPartBytes, maxPageSizeBytes, typeManager, pagesSerde, logicalParts.size() + 1, compressionEnabled);
+        logicalParts.add(logicalPart);
+        uncommittedLogicalParts.add(logicalPart);
+        return logicalPart;
+    }
+
+    private static Object activePartitionKey(String partitionKey)
+    {
+        // partition values can be null but ConcurrentHashMap keys can't
+        return partitionKey == null ? NULL_PARTITION_KEY : partitionKey;
+    }
+
+    /**
+     * Seal and process a full LogicalPart while the writers carry on with the next one.
+     */
+    private void processInBackground(LogicalPart logicalPart)
+    {
+        backgroundProcessing.add(MemoryThreadManager.getSharedThreadPool().submit(() -> {
+            logicalPart.finishAdding();
+            processLogicalPart(logicalPart);
+        }));
+    }
+
+    private void processLogicalPart(LogicalPart logicalPart)
+    {
+        LOG.info("Processing Table %d :: logicalPart %d", id, logicalPart.getLogicalPartNum());
+        try {
+            logicalPart.process();
+
+            // run manager's cleanup, this does two things
+            // 1. spills the table to disk, the manager handles this because the Table itself doesn't know how/where to spill
+            // 2. manager handles memory release
+            // only once all LPs are processed this cleanup will be called by the last LP
+            Runnable tableCleanup = cleanup;
+            if (tableCleanup != null && allProcessed()) {
+                tableCleanup.run();
+            }
+        }
+        catch (Exception e) {
+            LOG.warn("Failed to process Table %d :: logicalPart %d", id, logicalPart.getLogicalPartNum());
+        }
+        LOG.info("Processed Table %d :: logicalPart %d", id, logicalPart.getLogicalPartNum());
+    }
+
     public boolean allProcessed()
     {
         for (LogicalPart lp : logicalParts) {
@@ -221,21 +341,38 @@ public class Table
     }
 
     /**
-     * Removed all uncommitted LogicalParts, and return their total size in bytes.
+     * Removed all uncommitted LogicalParts, including the full ones already sealed and processed in the background,
+     * and return their total size in bytes.
      */
-    public long rollBackUncommitted()
+    public synchronized long rollBackUncommitted()
     {
-        int size = 0;
-
-        Iterator<LogicalPart> iterator = logicalParts.iterator();
-        while (iterator.hasNext()) {
-            LogicalPart lp = iterator.next();
-            if (lp.getProcessingState().get() == LogicalPart.LogicalPartState.ACCEPTING_PAGES) {
-                size += lp.getByteSize();
-                iterator.remove();
-            }
+        for (int i = 0; i < activeLogicalParts.length(); i++) {
+            activeLogicalParts.set(i, null);
+        }
+        activePartitionLogicalParts.clear();
+        // seal the parts first, so that writers still holding one of them can't add pages to it any more
+        for (LogicalPart lp : uncommittedLogicalParts) {
+            lp.finishAdding();
         }
-        byteSize -= size;
+
+        long size = 0;
+        Set<Integer> uncommittedNums = new HashSet<>();
+        for (LogicalPart lp : uncommittedLogicalParts) {
+            size += lp.getByteSize();
+            uncommittedNums.add(lp.getLogicalPartNum());
+        }
+        logicalParts.removeAll(uncommittedLogicalParts);
+        uncommittedLogicalParts.clear();
+        logicalPartPartitionedMap.values().forEach(nums -> nums.removeIf(uncommittedNums::contains));
+        logicalPartPartitionedMap.values().removeIf(List::isEmpty);
+
+        // processing the removed parts is wasted work
+        Future<?> background = backgroundProcessing.poll();
+        while (background != null) {
+            background.cancel(false);
+            background = backgroundProcessing.poll();
+        }
+        BYTE_SIZE_UPDATER.addAndGet(this, -size);
 
         return size;
     }
@@ -250,43 +387,49 @@ public class Table
         tableState = TableState.COMMITTED;
         LOG.info("Finishing table creation. %d logicalParts to be processed", logicalParts.size());
 
+        synchronized (this) {
+            for (int i = 0; i < activeLogicalParts.length(); i++) {
+                activeLogicalParts.set(i, null);
+            }
+            activePartitionLogicalParts.clear();
+            uncommittedLogicalParts.clear();
+        }
+        // LPs processed in the background and by this call may both find all LPs processed, clean up only once
+        AtomicBoolean cleanedUp = new AtomicBoolean();
+        this.cleanup = () -> {
+            if (cleanedUp.compareAndSet(false, true)) {
+                LOG.info("All the LogicalParts are successfully processed.");
+                cleanup.run();
+            }
+        };
+
         List<Future<?>> futuresList = new ArrayList<>(logicalParts.size());
-        for (int i = 0; i < logicalParts.size(); i++) {
+        for (LogicalPart logicalPart : logicalParts) {
             // for all new logical parts, set state to finished adding pages
-            if (logicalParts.get(i).getProcessingState().get() == LogicalPart.LogicalPartState.ACCEPTING_PAGES) {
-                logicalParts.get(i).finishAdding();
+            if (logicalPart.getProcessingState().get() == LogicalPart.LogicalPartState.ACCEPTING_PAGES) {
+                logicalPart.finishAdding();
             }
 
-            int finalI = i;
-            LOG.info("Started to process Table %d :: logicalPart %d", id, finalI + 1);
-            Runnable runnable = () -> {
-                LOG.info("Processing Table %d :: logicalPart %d", id, finalI + 1);
-                try {
-                    logicalParts.get(finalI).process();
-
-                    // run manager's cleanup, this does two things
-                    // 1. spills the table to disk, the manager handles this because the Table itself doesn't know how/where to spill
-                    // 2. manager handles memory release
-                    // only once all LPs are processed this cleanup will be called by the last LP
-                    if (allProcessed()) {
-                        LOG.info("All the LogicalParts are successfully processed.");
-                        cleanup.run();
-                    }
-                }
-                catch (Exception e) {
-                    LOG.warn("Failed to process Table %d :: logicalPart %d", id, finalI + 1);
-                }
-                LOG.info("Processed Table %d :: logicalPart %d", id, finalI + 1);
-            };
+            LOG.info("Started to process Table %d :: logicalPart %d", id, logicalPart.getLogicalPartNum());
+            Runnable runnable = () -> processLogicalPart(logicalPart);
 
             if (asyncEnabled) {
-                MemoryThreadManager.getSharedThreadPool().schedule(runnable, 5, TimeUnit.SECONDS);
+                MemoryThreadManager.getSharedThreadPool().schedule(runnable, PROCESSING_DELAY, TimeUnit.MILLISECONDS);
             }
             else {
                 futuresList.add(MemoryThreadManager.getSharedThreadPool().submit(runnable));
             }
         }
 
+        // LPs already processing in the background are not done before their own tasks are
+        Future<?> background = backgroundProcessing.poll();
+        while (background != null) {
+            if (!asyncEnabled) {
+                futuresList.add(background);
+            }
+            background = backgroundProcessing.poll();
+        }
+
         // Used to synchronize processing, it will only run for sync processing since for async the list is empty
         for (Future<?> future : futuresList) {
             try {
@@ -336,6 +479,19 @@ public class Table
         return list;
     }
 
+    /**
+     * Bytes the table takes once restored from disk. LogicalParts in the columnar format are memory-mapped,
+     * but the blocks deserialized from them are kept, so they are accounted like the other parts.
+     */
+    long getRestoredByteSize()
+    {
+        long total = 0;
+        for (LogicalPart lp : logicalParts) {
+            total += lp.getByteSize();
+        }
+        return total;
+    }
+
     protected long getRows()
     {
         long total = 0;
@@ -345,9 +501,21 @@ public class Table
         return total;
     }
 
-    protected Map<String, List<Integer>> getLogicalPartPartitionMap()
+    protected synchronized Map<String, List<Integer>> getLogicalPartPartitionMap()
+    {
+        Map<String, List<Integer>> snapshot = new HashMap<>();
+        logicalPartPartitionedMap.forEach((key, value) -> snapshot.put(key, new ArrayList<>(value)));
+        return snapshot;
+    }
+
+    void touch()
+    {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    long getLastAccessNanos()
     {
-        return logicalPartPartitionedMap;
+        return lastAccessNanos;
     }
 
     protected int getLogicalPartCount()
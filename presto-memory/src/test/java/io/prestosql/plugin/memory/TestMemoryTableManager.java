@@ -35,13 +35,21 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.OptionalDouble;
 import java.util.OptionalLong;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static io.prestosql.plugin.memory.MemoryErrorCode.MEMORY_LIMIT_EXCEEDED;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 @Test(singleThreaded = true)
 public class TestMemoryTableManager
@@ -138,6 +146,94 @@ public class TestMemoryTableManager
         insertToTable(0L, createOneMegaBytePage(), 0L);
     }
 
+    @Test
+    public void testRollBackAfterLogicalPartsRolled()
+            throws IOException
+    {
+        pagesStore = new MemoryTableManager(
+                new MemoryConfig()
+                        .setMaxDataPerNode(new DataSize(1, DataSize.Unit.MEGABYTE))
+                        .setMaxLogicalPartSize(new DataSize(16, DataSize.Unit.KILOBYTE))
+                        .setSpillRoot(Files.createTempDirectory("test-memory-table").toString()),
+                sorter,
+                new TestingTypeManager(),
+                new TestingPagesSerdeFactory().createPagesSerde());
+        pageSinkProvider = new MemoryPageSinkProvider(pagesStore, HostAddress.fromString("localhost:8080"));
+        createTable(0L, 0L);
+
+        ConnectorPageSink pageSink = pageSinkProvider.createPageSink(MemoryTransactionHandle.INSTANCE, SESSION, createMemoryInsertTableHandle(0L, new Long[] {0L}));
+        for (int i = 0; i < 10; i++) {
+            pageSink.appendPage(createPage(1000));
+        }
+        // the full LogicalParts were sealed and handed to background processing
+        assertTrue(pagesStore.getTableLogicalPartCount(0L) > 1);
+
+        try {
+            pageSink.appendPage(createOneMegaBytePage());
+            fail("expected memory limit to be exceeded");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), MEMORY_LIMIT_EXCEEDED.toErrorCode());
+        }
+        assertEquals(pagesStore.getTableLogicalPartCount(0L), 0);
+        assertEquals(pagesStore.getCurrentBytes(), 0);
+
+        // the table can be written again
+        insertToTable(0L, createPage(10), 0L);
+        assertEquals(pagesStore.getTableLogicalPartCount(0L), 1);
+        assertEquals(pagesStore.getPages(0L, 1, ImmutableList.of(0), 10, OptionalLong.empty(), OptionalDouble.empty()).get(0).getPositionCount(), 10);
+    }
+
+    @Test
+    public void testConcurrentInserts()
+            throws Exception
+    {
+        int writers = 8;
+        int pagesPerWriter = 50;
+        int rowsPerPage = 10;
+        createTable(0L, 0L);
+        createTable(1L, 0L, 1L);
+
+        List<ConnectorPageSink> pageSinks = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            long tableId = i % 2;
+            pageSinks.add(pageSinkProvider.createPageSink(MemoryTransactionHandle.INSTANCE, SESSION, createMemoryInsertTableHandle(tableId, new Long[] {0L, 1L})));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(writers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (ConnectorPageSink pageSink : pageSinks) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int i = 0; i < pagesPerWriter; i++) {
+                        pageSink.appendPage(createPage(rowsPerPage));
+                    }
+                    pageSink.finish();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        long expectedRows = (long) writers / 2 * pagesPerWriter * rowsPerPage;
+        for (long tableId = 0; tableId < 2; tableId++) {
+            long rows = 0;
+            for (int logicalPartNum = 1; logicalPartNum <= pagesStore.getTableLogicalPartCount(tableId); logicalPartNum++) {
+                for (Page page : pagesStore.getPages(tableId, logicalPartNum, ImmutableList.of(0), expectedRows, OptionalLong.empty(), OptionalDouble.empty())) {
+                    rows += page.getPositionCount();
+                }
+            }
+            assertEquals(rows, expectedRows);
+        }
+    }
+
     private void insertToTable(long tableId, Long... activeTableIds)
     {
         insertToTable(tableId, createPage(), activeTableIds);
@@ -179,6 +275,15 @@ public class TestMemoryTableManager
         return new Page(0, blockBuilder.build());
     }
 
+    private static Page createPage(int positions)
+    {
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positions);
+        for (int i = 0; i < positions; i++) {
+            BIGINT.writeLong(blockBuilder, i);
+        }
+        return new Page(positions, blockBuilder.build());
+    }
+
     private static Page createOneMegaBytePage()
     {
         BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(POSITIONS_PER_PAGE);
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.memory.data;
+
+import com.google.common.collect.ImmutableList;
+import io.hetu.core.transport.execution.buffer.PagesSerde;
+import io.hetu.core.transport.execution.buffer.PagesSerdeFactory;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.LazyBlock;
+import io.prestosql.spi.type.Type;
+import io.prestosql.testing.TestingPagesSerdeFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestColumnarPageFile
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, DOUBLE);
+
+    private final PagesSerde pagesSerde = new TestingPagesSerdeFactory().createPagesSerde();
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        directory = Files.createTempDirectory("test-columnar-page-file");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testRoundTrip()
+            throws IOException
+    {
+        List<Page> pages = rowPagesBuilder(TYPES)
+                .row(1L, "a", 1.5)
+                .row(null, "b", null)
+                .pageBreak()
+                .row(3L, null, 3.5)
+                .pageBreak()
+                .addSequencePage(100, 10, 20, 30)
+                .build();
+        Path file = directory.resolve("pages");
+        ColumnarPageFile.write(file, pagesSerde, pages);
+
+        ColumnarPageFile columnarPageFile = ColumnarPageFile.open(file, pagesSerde);
+        List<Page> readPages = columnarPageFile.getPages();
+        assertEquals(readPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertPageEquals(TYPES, readPages.get(i), pages.get(i));
+        }
+    }
+
+    @Test
+    public void testOnlyReadColumnsAreLoaded()
+            throws IOException
+    {
+        List<Page> pages = rowPagesBuilder(TYPES)
+                .addSequencePage(10, 0, 0, 0)
+                .build();
+        Path file = directory.resolve("pages");
+        ColumnarPageFile.write(file, pagesSerde, pages);
+
+        Page page = ColumnarPageFile.open(file, pagesSerde).getPage(0);
+        assertEquals(page.getPositionCount(), 10);
+        assertEquals(BIGINT.getLong(page.getBlock(0), 9), 9L);
+        assertTrue(((LazyBlock<?>) page.getBlock(0)).isLoaded());
+        assertFalse(((LazyBlock<?>) page.getBlock(1)).isLoaded());
+        assertFalse(((LazyBlock<?>) page.getBlock(2)).isLoaded());
+    }
+
+    @Test
+    public void testLoadedBlocksAreReused()
+            throws IOException
+    {
+        List<Page> pages = rowPagesBuilder(TYPES)
+                .addSequencePage(10, 0, 0, 0)
+                .build();
+        Path file = directory.resolve("pages");
+        ColumnarPageFile.write(file, pagesSerde, pages);
+
+        ColumnarPageFile columnarPageFile = ColumnarPageFile.open(file, pagesSerde);
+        assertEquals(columnarPageFile.getLoadedBytes(), 0);
+        Page page = columnarPageFile.getPage(0);
+        page.getBlock(0).getLoadedBlock();
+        assertTrue(columnarPageFile.getLoadedBytes() > 0);
+
+        // the loaded column is not deserialized again, the others are still lazy
+        Page secondPage = columnarPageFile.getPage(0);
+        assertFalse(secondPage.getBlock(0) instanceof LazyBlock);
+        assertTrue(secondPage.getBlock(1) instanceof LazyBlock);
+        assertSame(secondPage.getBlock(0), page.getBlock(0).getLoadedBlock());
+
+        Page loadedPage = secondPage.getLoadedPage();
+        assertPageEquals(TYPES, loadedPage, pages.get(0));
+        assertSame(columnarPageFile.getPage(0), columnarPageFile.getPage(0));
+        assertPageEquals(TYPES, columnarPageFile.getPage(0), pages.get(0));
+    }
+
+    @Test
+    public void testUncompressedRoundTrip()
+            throws IOException
+    {
+        PagesSerde uncompressedSerde = new PagesSerdeFactory(createTestMetadataManager().getFunctionAndTypeManager().getBlockEncodingSerde(), false).createPagesSerde();
+        List<Page> pages = rowPagesBuilder(TYPES)
+                .row(1L, "a", 1.5)
+                .row(null, "b", null)
+                .pageBreak()
+                .addSequencePage(100, 10, 20, 30)
+                .build();
+        Path file = directory.resolve("pages");
+        ColumnarPageFile.write(file, uncompressedSerde, pages);
+
+        // uncompressed chunks are read in place from the mapping
+        List<Page> readPages = ColumnarPageFile.open(file, uncompressedSerde).getPages();
+        assertEquals(readPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertPageEquals(TYPES, readPages.get(i), pages.get(i));
+        }
+    }
+
+    @Test
+    public void testEmpty()
+            throws IOException
+    {
+        Path file = directory.resolve("pages");
+        ColumnarPageFile.write(file, pagesSerde, ImmutableList.of());
+        assertEquals(ColumnarPageFile.open(file, pagesSerde).getPageCount(), 0);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidFile()
+            throws IOException
+    {
+        Path file = directory.resolve("pages");
+        Files.write(file, new byte[] {1, 2, 3});
+        ColumnarPageFile.open(file, pagesSerde);
+    }
+}
@@ -60,6 +60,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -97,6 +98,7 @@ abstract class AbstractOrcRecordReader<T extends AbstractColumnReader>
 
     private final long totalRowCount;
     private final long splitLength;
+    private final int rowsInRowGroup;
     protected final long maxBlockBytes;
     protected long currentPosition;
     protected long currentStripePosition;
@@ -213,6 +215,7 @@ abstract class AbstractOrcRecordReader<T extends AbstractColumnReader>
         // it is possible that old versions of orc use 0 to mean there are no row groups
         checkArgument(rowsInRowGroup > 0, "rowsInRowGroup must be greater than zero");
         checkArgument(orDomains != null, "orDomain map cannot be null");
+        this.rowsInRowGroup = rowsInRowGroup;
 
         // sort stripes by file position
         List<StripeInfo> sortedStripeInfos = new ArrayList<>();
@@ -253,7 +256,8 @@ abstract class AbstractOrcRecordReader<T extends AbstractColumnReader>
          *      as per the predicates; if not then eliminated.
          *
          *  Additionally, if BITMAP Index is present; the rows within a given rowGroup matching the Conjunct domains
-         *  are selected and are guaranteed to match the predicate.
+         *  are selected and are guaranteed to match the predicate. When the stripe is read, row groups without any
+         *  matching row are skipped without being decoded (see getMatchingRowGroups).
          */
         long localTotalRowCount = 0;
         long localFileRowCount = 0;
@@ -669,7 +673,11 @@ abstract class AbstractOrcRecordReader<T extends AbstractColumnReader>
         StripeInformation stripeInformation = stripes.get(currentStripe);
         validateWriteStripe(stripeInformation.getNumberOfRows());
 
-        Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext, stripeInfos.get(currentStripe).getStats());
+        Optional<BitSet> matchingRowGroups = getMatchingRowGroups(stripeInformation);
+        Stripe stripe = null;
+        if (!matchingRowGroups.isPresent() || !matchingRowGroups.get().isEmpty()) {
+            stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext, stripeInfos.get(currentStripe).getStats(), matchingRowGroups);
+        }
         if (stripe != null) {
             // Give readers access to dictionary streams
             InputStreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
@@ -686,6 +694,32 @@ abstract class AbstractOrcRecordReader<T extends AbstractColumnReader>
         }
     }
 
+    /**
+     * Collects the rows of the stripe matched by the bitmap index into a bit set, which replaces the lazy
+     * intersection of the index iterators, and returns the row groups that contain at least one matching row.
+     * Empty if the stripe has no index lookup result.
+     */
+    private Optional<BitSet> getMatchingRowGroups(StripeInformation stripe)
+    {
+        PeekingIterator<Integer> matchingRows = stripeMatchingRows.get(stripe);
+        if (matchingRows == null) {
+            return Optional.empty();
+        }
+
+        long rowsInStripe = stripe.getNumberOfRows();
+        BitSet rows = new BitSet(toIntExact(rowsInStripe));
+        BitSet rowGroups = new BitSet();
+        while (matchingRows.hasNext()) {
+            int row = matchingRows.next();
+            if (row >= 0 && row < rowsInStripe) {
+                rows.set(row);
+                rowGroups.set(row / rowsInRowGroup);
+            }
+        }
+        stripeMatchingRows.put(stripe, Iterators.peekingIterator(rows.stream().iterator()));
+        return Optional.of(rowGroups);
+    }
+
     private void validateWrite(Predicate<OrcWriteValidation> test, String messageFormat, Object... args)
             throws OrcCorruptionException
     {
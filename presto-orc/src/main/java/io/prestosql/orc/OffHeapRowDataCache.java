@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Row data cache which keeps the cached blocks serialized in native (direct) memory instead of the Java heap.
+ * <p>
+ * Entries are managed as a segmented LRU: newly cached blocks enter the probationary segment and are promoted
+ * to the protected segment on their first hit. Eviction always drains the probationary segment first, so a large
+ * one-off scan cannot flush the row groups that are repeatedly read by other queries.
+ * <p>
+ * On a hit the block is deserialized from the native slab: variable width data is wrapped rather than copied,
+ * while the values of fixed width blocks are copied into heap arrays, as the SPI has no block backed by a slice.
+ * The slab is released by the garbage collector once the entry is evicted and no block references it any more.
+ */
+@ThreadSafe
+public class OffHeapRowDataCache
+        extends AbstractCache<OrcRowDataCacheKey, Block>
+{
+    private static final Logger log = Logger.get(OffHeapRowDataCache.class);
+
+    private static final double PROTECTED_SEGMENT_RATIO = 0.8;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final long maximumBytes;
+    private final long maximumProtectedBytes;
+    private final long expireAfterAccessNanos;
+    private final Ticker ticker;
+    private final boolean recordStats;
+    private final StatsCounter statsCounter = new SimpleStatsCounter();
+
+    @GuardedBy("this")
+    private final LinkedHashMap<OrcRowDataCacheKey, Entry> probationSegment = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private final LinkedHashMap<OrcRowDataCacheKey, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long probationBytes;
+    @GuardedBy("this")
+    private long protectedBytes;
+
+    public OffHeapRowDataCache(BlockEncodingSerde blockEncodingSerde, DataSize maximumSize, Duration expireAfterAccess, boolean recordStats)
+    {
+        this(blockEncodingSerde, maximumSize, expireAfterAccess, recordStats, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    OffHeapRowDataCache(BlockEncodingSerde blockEncodingSerde, DataSize maximumSize, Duration expireAfterAccess, boolean recordStats, Ticker ticker)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.maximumBytes = requireNonNull(maximumSize, "maximumSize is null").toBytes();
+        this.maximumProtectedBytes = (long) (maximumBytes * PROTECTED_SEGMENT_RATIO);
+        this.expireAfterAccessNanos = requireNonNull(expireAfterAccess, "expireAfterAccess is null").toNanos();
+        this.recordStats = recordStats;
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        checkArgument(maximumBytes >= 0, "maximumSize is negative");
+    }
+
+    @Override
+    public Block getIfPresent(Object key)
+    {
+        Slice data = lookup(key);
+        if (data == null) {
+            recordMiss();
+            return null;
+        }
+        recordHit();
+        return deserialize(data);
+    }
+
+    @Override
+    public Block get(OrcRowDataCacheKey key, Callable<? extends Block> loader)
+            throws ExecutionException
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(loader, "loader is null");
+        Slice data = lookup(key);
+        if (data != null) {
+            recordHit();
+            return deserialize(data);
+        }
+        recordMiss();
+
+        long start = ticker.read();
+        Block block;
+        try {
+            block = loader.call();
+        }
+        catch (Error e) {
+            recordLoadException(start);
+            throw new ExecutionError(e);
+        }
+        catch (RuntimeException e) {
+            recordLoadException(start);
+            throw new UncheckedExecutionException(e);
+        }
+        catch (Exception e) {
+            recordLoadException(start);
+            throw new ExecutionException(e);
+        }
+        if (block == null) {
+            recordLoadException(start);
+            throw new InvalidCacheLoadException("loader returned null block for key " + key);
+        }
+        if (recordStats) {
+            statsCounter.recordLoadSuccess(ticker.read() - start);
+        }
+        put(key, block);
+        return block;
+    }
+
+    @Override
+    public void put(OrcRowDataCacheKey key, Block block)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(block, "block is null");
+        Slice data = serialize(block);
+        synchronized (this) {
+            removeEntry(key);
+            if (data == null || data.length() > maximumBytes) {
+                return;
+            }
+            probationSegment.put(key, new Entry(data, ticker.read()));
+            probationBytes += data.length();
+            evict();
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(Object key)
+    {
+        removeEntry(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll()
+    {
+        probationSegment.clear();
+        protectedSegment.clear();
+        probationBytes = 0;
+        protectedBytes = 0;
+    }
+
+    @Override
+    public synchronized long size()
+    {
+        return probationSegment.size() + protectedSegment.size();
+    }
+
+    @Override
+    public synchronized void cleanUp()
+    {
+        expire(probationSegment, true);
+        expire(protectedSegment, false);
+    }
+
+    @Override
+    public CacheStats stats()
+    {
+        return statsCounter.snapshot();
+    }
+
+    public synchronized long getSizeInBytes()
+    {
+        return probationBytes + protectedBytes;
+    }
+
+    public synchronized long getProtectedSizeInBytes()
+    {
+        return protectedBytes;
+    }
+
+    public long getMaximumSizeInBytes()
+    {
+        return maximumBytes;
+    }
+
+    private synchronized Slice lookup(Object key)
+    {
+        long now = ticker.read();
+        Entry entry = protectedSegment.get(key);
+        if (entry != null) {
+            if (isExpired(entry, now)) {
+                protectedSegment.remove(key);
+                protectedBytes -= entry.data.length();
+                recordEviction();
+                return null;
+            }
+            entry.lastAccess = now;
+            return entry.data;
+        }
+
+        entry = probationSegment.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        probationBytes -= entry.data.length();
+        if (isExpired(entry, now)) {
+            recordEviction();
+            return null;
+        }
+        // second access, promote the entry so that it survives subsequent scans
+        entry.lastAccess = now;
+        protectedSegment.put((OrcRowDataCacheKey) key, entry);
+        protectedBytes += entry.data.length();
+        demoteProtected();
+        return entry.data;
+    }
+
+    @GuardedBy("this")
+    private void removeEntry(Object key)
+    {
+        Entry entry = probationSegment.remove(key);
+        if (entry != null) {
+            probationBytes -= entry.data.length();
+        }
+        entry = protectedSegment.remove(key);
+        if (entry != null) {
+            protectedBytes -= entry.data.length();
+        }
+    }
+
+    @GuardedBy("this")
+    private void demoteProtected()
+    {
+        Iterator<Map.Entry<OrcRowDataCacheKey, Entry>> iterator = protectedSegment.entrySet().iterator();
+        while (protectedBytes > maximumProtectedBytes && iterator.hasNext()) {
+            Map.Entry<OrcRowDataCacheKey, Entry> eldest = iterator.next();
+            iterator.remove();
+            long length = eldest.getValue().data.length();
+            protectedBytes -= length;
+            probationSegment.put(eldest.getKey(), eldest.getValue());
+            probationBytes += length;
+        }
+        evict();
+    }
+
+    @GuardedBy("this")
+    private void evict()
+    {
+        evict(probationSegment, true);
+        evict(protectedSegment, false);
+    }
+
+    @GuardedBy("this")
+    private void evict(LinkedHashMap<OrcRowDataCacheKey, Entry> segment, boolean probation)
+    {
+        Iterator<Entry> iterator = segment.values().iterator();
+        while (probationBytes + protectedBytes > maximumBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            releaseBytes(entry, probation);
+            recordEviction();
+        }
+    }
+
+    @GuardedBy("this")
+    private void expire(LinkedHashMap<OrcRowDataCacheKey, Entry> segment, boolean probation)
+    {
+        long now = ticker.read();
+        Iterator<Entry> iterator = segment.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (isExpired(entry, now)) {
+                iterator.remove();
+                releaseBytes(entry, probation);
+                recordEviction();
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void releaseBytes(Entry entry, boolean probation)
+    {
+        if (probation) {
+            probationBytes -= entry.data.length();
+        }
+        else {
+            protectedBytes -= entry.data.length();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now)
+    {
+        return now - entry.lastAccess >= expireAfterAccessNanos;
+    }
+
+    private Slice serialize(Block block)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput((int) Math.min(Integer.MAX_VALUE, block.getSizeInBytes() + 64));
+        try {
+            blockEncodingSerde.writeBlock(output, block);
+        }
+        catch (RuntimeException e) {
+            // the serde does not support the encoding of the block (or of one of its children), the block is simply not cached
+            log.debug(e, "Skip caching block with encoding %s", block.getEncodingName());
+            return null;
+        }
+        Slice heapData = output.slice();
+        Slice nativeData = Slices.allocateDirect(heapData.length());
+        nativeData.setBytes(0, heapData);
+        return nativeData;
+    }
+
+    private Block deserialize(Slice data)
+    {
+        return blockEncodingSerde.readBlock(data.getInput());
+    }
+
+    private void recordHit()
+    {
+        if (recordStats) {
+            statsCounter.recordHits(1);
+        }
+    }
+
+    private void recordMiss()
+    {
+        if (recordStats) {
+            statsCounter.recordMisses(1);
+        }
+    }
+
+    private void recordEviction()
+    {
+        if (recordStats) {
+            statsCounter.recordEviction();
+        }
+    }
+
+    private void recordLoadException(long start)
+    {
+        if (recordStats) {
+            statsCounter.recordLoadException(ticker.read() - start);
+        }
+    }
+
+    private static final class Entry
+    {
+        private final Slice data;
+        private long lastAccess;
+
+        private Entry(Slice data, long lastAccess)
+        {
+            this.data = data;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
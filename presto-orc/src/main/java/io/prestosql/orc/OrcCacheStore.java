@@ -22,9 +22,11 @@ import io.prestosql.orc.metadata.RowGroupIndex;
 import io.prestosql.orc.metadata.StripeFooter;
 import io.prestosql.orc.metadata.statistics.HashableBloomFilter;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockEncodingSerde;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 public class OrcCacheStore
 {
@@ -101,13 +103,38 @@ public class OrcCacheStore
                 long bloomFiltersMaximumSize, Duration bloomFiltersTtl,
                 DataSize rowDataMaximumWeight, Duration rowDataTtl,
                 boolean isOrcCacheStatsMetricCollectionEnabled)
+        {
+            return newCacheStore(fileTailMaximumSize, fileTailTtl,
+                    stripeFooterMaximumSize, stripeFooterTtl,
+                    rowIndexMaximumSize, rowIndexTtl,
+                    bloomFiltersMaximumSize, bloomFiltersTtl,
+                    rowDataMaximumWeight, rowDataTtl,
+                    isOrcCacheStatsMetricCollectionEnabled,
+                    Optional.empty());
+        }
+
+        /**
+         * @param offHeapRowDataSerde when present, row data blocks are cached off-heap and (de)serialized with this serde
+         */
+        public OrcCacheStore newCacheStore(long fileTailMaximumSize, Duration fileTailTtl,
+                long stripeFooterMaximumSize, Duration stripeFooterTtl,
+                long rowIndexMaximumSize, Duration rowIndexTtl,
+                long bloomFiltersMaximumSize, Duration bloomFiltersTtl,
+                DataSize rowDataMaximumWeight, Duration rowDataTtl,
+                boolean isOrcCacheStatsMetricCollectionEnabled,
+                Optional<BlockEncodingSerde> offHeapRowDataSerde)
         {
             OrcCacheStore store = new OrcCacheStore();
             store.fileTailCache = buildOrcFileTailCache(fileTailMaximumSize, fileTailTtl, isOrcCacheStatsMetricCollectionEnabled);
             store.stripeFooterCache = buildOrcStripeFooterCache(stripeFooterMaximumSize, stripeFooterTtl, isOrcCacheStatsMetricCollectionEnabled);
             store.rowIndexCache = buildOrcRowGroupIndexCache(rowIndexMaximumSize, rowIndexTtl, isOrcCacheStatsMetricCollectionEnabled);
             store.bloomFiltersCache = buildOrcBloomFilterCache(bloomFiltersMaximumSize, bloomFiltersTtl, isOrcCacheStatsMetricCollectionEnabled);
-            store.rowDataCache = buildOrcRowDataCache(rowDataMaximumWeight, rowDataTtl, isOrcCacheStatsMetricCollectionEnabled);
+            if (offHeapRowDataSerde.isPresent()) {
+                store.rowDataCache = new OffHeapRowDataCache(offHeapRowDataSerde.get(), rowDataMaximumWeight, rowDataTtl, isOrcCacheStatsMetricCollectionEnabled);
+            }
+            else {
+                store.rowDataCache = buildOrcRowDataCache(rowDataMaximumWeight, rowDataTtl, isOrcCacheStatsMetricCollectionEnabled);
+            }
             return store;
         }
 
@@ -105,4 +105,13 @@ public class RowDataCacheStatsLister
     {
         return cache.size();
     }
+
+    @Managed
+    public long getOffHeapSizeInBytes()
+    {
+        if (cache instanceof OffHeapRowDataCache) {
+            return ((OffHeapRowDataCache) cache).getSizeInBytes();
+        }
+        return 0;
+    }
 }
@@ -52,6 +52,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -126,6 +127,16 @@ public class StripeReader
 
     public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage, Optional<StripeStatistics> stats)
             throws IOException
+    {
+        return readStripe(stripe, systemMemoryUsage, stats, Optional.empty());
+    }
+
+    /**
+     * @param matchingRowGroups if present, only these row groups can contain matching rows (e.g. according to a
+     * bitmap index), so the other row groups are skipped like the ones excluded by the row group statistics
+     */
+    public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage, Optional<StripeStatistics> stats, Optional<BitSet> matchingRowGroups)
+            throws IOException
     {
         if (stats.isPresent() && predicate.getDynamicFilterPredicate().isPresent() && !predicate.getDynamicFilterPredicate().get().matches(stripe.getNumberOfRows(), stats.get().getColumnStatistics())) {
             systemMemoryUsage.close();
@@ -184,7 +195,7 @@ public class StripeReader
             }
 
             // select the row groups matching the tuple domain
-            Set<Integer> selectedRowGroups = selectRowGroups(stripe, columnIndexes);
+            Set<Integer> selectedRowGroups = selectRowGroups(stripe, columnIndexes, matchingRowGroups);
 
             // if all row groups are skipped, return null
             if (selectedRowGroups.isEmpty()) {
@@ -536,7 +547,7 @@ public class StripeReader
         return columnIndexes.build();
     }
 
-    private Set<Integer> selectRowGroups(StripeInformation stripe, Map<StreamId, List<RowGroupIndex>> columnIndexes)
+    private Set<Integer> selectRowGroups(StripeInformation stripe, Map<StreamId, List<RowGroupIndex>> columnIndexes, Optional<BitSet> matchingRowGroups)
     {
         int rowsInStripe = toIntExact(stripe.getNumberOfRows());
         int groupsInStripe = ceil(rowsInStripe, rowsInRowGroup);
@@ -545,9 +556,11 @@ public class StripeReader
         int remainingRows = rowsInStripe;
         for (int rowGroup = 0; rowGroup < groupsInStripe; ++rowGroup) {
             int rows = Math.min(remainingRows, rowsInRowGroup);
-            ColumnMetadata<ColumnStatistics> statistics = getRowGroupStatistics(types, columnIndexes, rowGroup);
-            if (predicate.matches(rows, statistics)) {
-                selectedRowGroups.add(rowGroup);
+            if (!matchingRowGroups.isPresent() || matchingRowGroups.get().get(rowGroup)) {
+                ColumnMetadata<ColumnStatistics> statistics = getRowGroupStatistics(types, columnIndexes, rowGroup);
+                if (predicate.matches(rows, statistics)) {
+                    selectedRowGroups.add(rowGroup);
+                }
             }
             remainingRows -= rows;
         }
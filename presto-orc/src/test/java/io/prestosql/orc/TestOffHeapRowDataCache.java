@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2018-2021. Huawei Technologies Co., Ltd. All rights reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.orc;
+
+import com.google.common.base.Ticker;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.DataSize;
+import io.prestosql.orc.metadata.OrcColumnId;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.MapBlockEncoding;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.orc.OrcTester.mapType;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TestOffHeapRowDataCache
+{
+    private static final BlockEncodingSerde BLOCK_ENCODING_SERDE = createTestMetadataManager().getFunctionAndTypeManager().getBlockEncodingSerde();
+    private static final Type MAP_TYPE = mapType(BIGINT, VARCHAR);
+
+    @Test
+    public void testRoundTrip()
+            throws ExecutionException
+    {
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(1, MEGABYTE), Duration.ofMinutes(10), true);
+
+        Block longs = createLongBlock(100);
+        Block strings = createVarcharBlock(100);
+        assertBlockEquals(cache.get(key(1), () -> longs), longs, false);
+        cache.put(key(2), strings);
+
+        assertBlockEquals(cache.getIfPresent(key(1)), longs, false);
+        assertBlockEquals(cache.getIfPresent(key(2)), strings, true);
+        assertNull(cache.getIfPresent(key(3)));
+
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.stats().hitCount(), 2);
+        assertEquals(cache.stats().missCount(), 2);
+        assertEquals(cache.stats().loadSuccessCount(), 1);
+        assertEquals(cache.getProtectedSizeInBytes(), cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testLoaderFailure()
+    {
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(1, MEGABYTE), Duration.ofMinutes(10), true);
+        try {
+            cache.get(key(1), () -> {
+                throw new IllegalStateException("test");
+            });
+            fail("expected exception");
+        }
+        catch (Exception e) {
+            assertEquals(e.getCause().getMessage(), "test");
+        }
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.stats().loadExceptionCount(), 1);
+    }
+
+    @Test
+    public void testEvictionPrefersProbationSegment()
+    {
+        Block block = createLongBlock(100);
+        OffHeapRowDataCache sizing = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(1, MEGABYTE), Duration.ofMinutes(10), false);
+        sizing.put(key(0), block);
+        long entrySize = sizing.getSizeInBytes();
+
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(entrySize * 4, BYTE), Duration.ofMinutes(10), true);
+        cache.put(key(1), block);
+        cache.put(key(2), block);
+        // promote the first two entries
+        assertNotNull(cache.getIfPresent(key(1)));
+        assertNotNull(cache.getIfPresent(key(2)));
+
+        // a scan over many new row groups must not evict the promoted entries
+        for (int i = 10; i < 20; i++) {
+            cache.put(key(i), block);
+        }
+        assertNotNull(cache.getIfPresent(key(1)));
+        assertNotNull(cache.getIfPresent(key(2)));
+        assertNull(cache.getIfPresent(key(10)));
+        assertNotNull(cache.getIfPresent(key(19)));
+        assertEquals(cache.getSizeInBytes(), entrySize * 4);
+        assertEquals(cache.stats().evictionCount(), 8);
+    }
+
+    @Test
+    public void testExpiration()
+    {
+        AtomicLong time = new AtomicLong();
+        Ticker ticker = new Ticker()
+        {
+            @Override
+            public long read()
+            {
+                return time.get();
+            }
+        };
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(1, MEGABYTE), Duration.ofNanos(100), true, ticker);
+        cache.put(key(1), createLongBlock(10));
+        cache.put(key(2), createLongBlock(10));
+        time.set(50);
+        assertNotNull(cache.getIfPresent(key(1)));
+        time.set(120);
+        assertNotNull(cache.getIfPresent(key(1)));
+        cache.cleanUp();
+        assertEquals(cache.size(), 1);
+        assertNull(cache.getIfPresent(key(2)));
+
+        cache.invalidateAll();
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testMapBlock()
+    {
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(BLOCK_ENCODING_SERDE, new DataSize(1, MEGABYTE), Duration.ofMinutes(10), true);
+        Block maps = createMapBlock(10);
+        cache.put(key(1), maps);
+
+        Block cached = cache.getIfPresent(key(1));
+        assertNotNull(cached);
+        assertEquals(cached.getPositionCount(), maps.getPositionCount());
+        for (int i = 0; i < maps.getPositionCount(); i++) {
+            assertEquals(MAP_TYPE.getObjectValue(null, cached, i), MAP_TYPE.getObjectValue(null, maps, i));
+        }
+    }
+
+    @Test
+    public void testUnsupportedEncoding()
+            throws ExecutionException
+    {
+        // a serde without the MAP encoding, which fails inside writeBlock rather than with a clean error
+        BlockEncodingSerde serde = new BlockEncodingSerde()
+        {
+            @Override
+            public Block readBlock(SliceInput input)
+            {
+                return BLOCK_ENCODING_SERDE.readBlock(input);
+            }
+
+            @Override
+            public void writeBlock(SliceOutput output, Block block)
+            {
+                if (block.getEncodingName().equals(MapBlockEncoding.NAME)) {
+                    throw new NullPointerException();
+                }
+                BLOCK_ENCODING_SERDE.writeBlock(output, block);
+            }
+        };
+        OffHeapRowDataCache cache = new OffHeapRowDataCache(serde, new DataSize(1, MEGABYTE), Duration.ofMinutes(10), true);
+
+        Block maps = createMapBlock(10);
+        assertSame(cache.get(key(1), () -> maps), maps);
+        assertNull(cache.getIfPresent(key(1)));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getSizeInBytes(), 0);
+
+        Block longs = createLongBlock(10);
+        cache.put(key(2), longs);
+        assertBlockEquals(cache.getIfPresent(key(2)), longs, false);
+    }
+
+    private static OrcRowDataCacheKey key(int rowGroup)
+    {
+        OrcRowDataCacheKey key = new OrcRowDataCacheKey();
+        key.setOrcDataSourceId(new OrcDataSourceIdWithTimeStamp(new OrcDataSourceId("file"), 0));
+        key.setStripeOffset(3);
+        key.setRowGroupOffset(rowGroup);
+        key.setColumnId(new OrcColumnId(1));
+        return key;
+    }
+
+    private static Block createLongBlock(int positions)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, positions);
+        for (int i = 0; i < positions; i++) {
+            if (i % 7 == 0) {
+                builder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(builder, i);
+            }
+        }
+        return builder.build();
+    }
+
+    private static Block createMapBlock(int positions)
+    {
+        BlockBuilder builder = MAP_TYPE.createBlockBuilder(null, positions);
+        for (int i = 0; i < positions; i++) {
+            BlockBuilder entry = builder.beginBlockEntry();
+            for (int j = 0; j < i % 3; j++) {
+                BIGINT.writeLong(entry, j);
+                VARCHAR.writeSlice(entry, utf8Slice("value" + i));
+            }
+            builder.closeEntry();
+        }
+        return builder.build();
+    }
+
+    private static Block createVarcharBlock(int positions)
+    {
+        BlockBuilder builder = VARCHAR.createBlockBuilder(null, positions);
+        for (int i = 0; i < positions; i++) {
+            VARCHAR.writeSlice(builder, utf8Slice("value" + i));
+        }
+        return builder.build();
+    }
+
+    private static void assertBlockEquals(Block actual, Block expected, boolean varchar)
+    {
+        assertNotNull(actual);
+        assertEquals(actual.getPositionCount(), expected.getPositionCount());
+        for (int i = 0; i < expected.getPositionCount(); i++) {
+            assertEquals(actual.isNull(i), expected.isNull(i));
+            if (expected.isNull(i)) {
+                continue;
+            }
+            if (varchar) {
+                assertEquals(VARCHAR.getSlice(actual, i), VARCHAR.getSlice(expected, i));
+            }
+            else {
+                assertEquals(BIGINT.getLong(actual, i), BIGINT.getLong(expected, i));
+            }
+        }
+    }
+}
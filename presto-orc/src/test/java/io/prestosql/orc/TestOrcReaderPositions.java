@@ -13,16 +13,24 @@
  */
 package io.prestosql.orc;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import io.prestosql.orc.metadata.CompressionKind;
 import io.prestosql.orc.metadata.Footer;
 import io.prestosql.orc.metadata.OrcColumnId;
+import io.prestosql.orc.metadata.StripeInformation;
 import io.prestosql.orc.metadata.statistics.IntegerStatistics;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
+import io.prestosql.spi.connector.CreateIndexMetadata;
+import io.prestosql.spi.heuristicindex.Index;
+import io.prestosql.spi.heuristicindex.IndexMetadata;
+import io.prestosql.spi.heuristicindex.Pair;
+import io.prestosql.spi.predicate.Domain;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
@@ -40,15 +48,24 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static io.prestosql.orc.OrcReader.BATCH_SIZE_GROWTH_FACTOR;
 import static io.prestosql.orc.OrcReader.INITIAL_BATCH_SIZE;
 import static io.prestosql.orc.OrcReader.MAX_BATCH_SIZE;
 import static io.prestosql.orc.OrcTester.Format.ORC_12;
+import static io.prestosql.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
 import static io.prestosql.orc.OrcTester.MAX_BLOCK_SIZE;
 import static io.prestosql.orc.OrcTester.createCustomOrcRecordReader;
 import static io.prestosql.orc.OrcTester.createOrcRecordWriter;
@@ -394,6 +411,77 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testBitmapIndexRowGroupPruning()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            // one stripe with three row groups of 10000 rows
+            createSequentialFile(tempFile.getFile(), 30_000);
+
+            // the second row group has no matching row, so it is skipped without being read
+            try (OrcRecordReader reader = createBitmapIndexedRecordReader(tempFile, ImmutableList.of(5, 20_005, 20_006))) {
+                assertEquals(reader.getReaderRowCount(), 30_000);
+
+                List<Long> values = new ArrayList<>();
+                int readRows = 0;
+                for (Page page = reader.nextPage(); page != null; page = reader.nextPage()) {
+                    readRows += page.getPositionCount();
+                    Block block = page.getBlock(0).getLoadedBlock();
+                    for (int position = 0; position < block.getPositionCount(); position++) {
+                        values.add(BIGINT.getLong(block, position));
+                    }
+                }
+                assertEquals(readRows, 20_000);
+                assertEquals(values, ImmutableList.of(5L, 20_005L, 20_006L));
+            }
+        }
+    }
+
+    @Test
+    public void testBitmapIndexAllRowGroupsPruned()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            createSequentialFile(tempFile.getFile(), 30_000);
+
+            // the index matches no row of the stripe, e.g. only rows past its end, so the stripe is not read at all
+            try (OrcRecordReader reader = createBitmapIndexedRecordReader(tempFile, ImmutableList.of(30_000, 40_000))) {
+                assertEquals(reader.getReaderRowCount(), 30_000);
+                assertNull(reader.nextPage());
+            }
+        }
+    }
+
+    private static OrcRecordReader createBitmapIndexedRecordReader(TempFile tempFile, List<Integer> matchingRows)
+            throws IOException
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true, tempFile.getFile().lastModified());
+        OrcReader orcReader = new OrcReader(orcDataSource, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), MAX_BLOCK_SIZE);
+        assertEquals(orcReader.getFooter().getRowsInRowGroup(), 10_000);
+
+        List<StripeInformation> stripes = orcReader.getFooter().getStripes();
+        assertEquals(stripes.size(), 1);
+        IndexMetadata index = new IndexMetadata(new TestingBitmapIndex(matchingRows), "table", new String[] {"test"}, null, null, stripes.get(0).getOffset(), 0);
+
+        return orcReader.createRecordReader(
+                orcReader.getRootColumn().getNestedColumns(),
+                ImmutableList.of(BIGINT),
+                OrcPredicate.TRUE,
+                0,
+                orcDataSource.getSize(),
+                HIVE_STORAGE_TIME_ZONE,
+                newSimpleAggregatedMemoryContext(),
+                MAX_BATCH_SIZE,
+                RuntimeException::new,
+                Optional.of(ImmutableList.of(index)),
+                null,
+                ImmutableMap.of("test", Domain.singleValue(BIGINT, 5L)),
+                OrcCacheStore.CACHE_NOTHING,
+                new OrcCacheProperties(),
+                false);
+    }
+
     private static void assertCurrentBatch(Page page, int rowIndex, int batchSize)
     {
         Block block = page.getBlock(0);
@@ -508,4 +596,63 @@ public class TestOrcReaderPositions
 
         writer.close(false);
     }
+
+    private static class TestingBitmapIndex
+            implements Index
+    {
+        private final List<Integer> matchingRows;
+
+        TestingBitmapIndex(List<Integer> matchingRows)
+        {
+            this.matchingRows = ImmutableList.copyOf(matchingRows);
+        }
+
+        @Override
+        public Set<CreateIndexMetadata.Level> getSupportedIndexLevels()
+        {
+            return ImmutableSet.of(CreateIndexMetadata.Level.STRIPE);
+        }
+
+        @Override
+        public String getId()
+        {
+            return "BITMAP";
+        }
+
+        @Override
+        public boolean addValues(List<Pair<String, List<Object>>> values)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean matches(Object expression)
+        {
+            return !matchingRows.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends Comparable<T>> Iterator<T> lookUp(Object expression)
+        {
+            return (Iterator<T>) matchingRows.iterator();
+        }
+
+        @Override
+        public void serialize(OutputStream out)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Index deserialize(InputStream in)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import io.airlift.units.DataSize;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Caches the parts of Parquet files that every split of a file reads again: the footer and the
+ * (decompressed) dictionary pages of the column chunks. Both caches are bounded by weight.
+ */
+public class ParquetCacheStore
+{
+    public static final ParquetCacheStore CACHE_NOTHING = new ParquetCacheStore(null, null);
+
+    // ParquetMetadata does not know its size; the column chunk metadata (path, encodings, statistics)
+    // dominates it, so the footers are weighed by their number of column chunks
+    private static final long FOOTER_BASE_WEIGHT = 4096;
+    private static final long COLUMN_CHUNK_METADATA_WEIGHT = 512;
+
+    private Cache<ParquetFileCacheKey, ParquetMetadata> footerCache;
+    private Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> dictionaryCache;
+
+    private ParquetCacheStore()
+    {
+        //do nothing
+    }
+
+    private ParquetCacheStore(Cache<ParquetFileCacheKey, ParquetMetadata> footerCache,
+            Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> dictionaryCache)
+    {
+        this.footerCache = footerCache;
+        this.dictionaryCache = dictionaryCache;
+    }
+
+    public Cache<ParquetFileCacheKey, ParquetMetadata> getFooterCache()
+    {
+        return footerCache;
+    }
+
+    /**
+     * Column chunks without a dictionary page are cached as {@link Optional#empty()}.
+     */
+    public Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> getDictionaryCache()
+    {
+        return dictionaryCache;
+    }
+
+    /**
+     * Returns a store sharing the caches of this store that are enabled, e.g. for a session.
+     */
+    public ParquetCacheStore withEnabledCaches(boolean footerCacheEnabled, boolean dictionaryCacheEnabled)
+    {
+        return new ParquetCacheStore(footerCacheEnabled ? footerCache : null, dictionaryCacheEnabled ? dictionaryCache : null);
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private Builder()
+        {
+            //default constructor
+        }
+
+        public ParquetCacheStore newCacheStore(DataSize footerMaximumWeight, Duration footerTtl,
+                DataSize dictionaryMaximumWeight, Duration dictionaryTtl,
+                boolean isParquetCacheStatsMetricCollectionEnabled)
+        {
+            ParquetCacheStore store = new ParquetCacheStore();
+            store.footerCache = buildFooterCache(footerMaximumWeight, footerTtl, isParquetCacheStatsMetricCollectionEnabled);
+            store.dictionaryCache = buildDictionaryCache(dictionaryMaximumWeight, dictionaryTtl, isParquetCacheStatsMetricCollectionEnabled);
+            return store;
+        }
+
+        private Cache<ParquetFileCacheKey, ParquetMetadata> buildFooterCache(DataSize maximumWeight, Duration ttl, boolean isParquetCacheStatsMetricCollectionEnabled)
+        {
+            CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                    .maximumWeight(maximumWeight.toBytes())
+                    .weigher((Weigher<ParquetFileCacheKey, ParquetMetadata>) (key, metadata) -> getFooterWeight(metadata))
+                    .expireAfterAccess(ttl);
+            if (isParquetCacheStatsMetricCollectionEnabled) {
+                cacheBuilder.recordStats();
+            }
+            return cacheBuilder.build();
+        }
+
+        private Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> buildDictionaryCache(DataSize maximumWeight, Duration ttl, boolean isParquetCacheStatsMetricCollectionEnabled)
+        {
+            CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                    .maximumWeight(maximumWeight.toBytes())
+                    .weigher((Weigher<ParquetDictionaryCacheKey, Optional<DictionaryPage>>) (key, dictionaryPage) ->
+                            dictionaryPage.map(page -> toIntExact(page.getSlice().getRetainedSize())).orElse(0))
+                    .expireAfterAccess(ttl);
+            if (isParquetCacheStatsMetricCollectionEnabled) {
+                cacheBuilder.recordStats();
+            }
+            return cacheBuilder.build();
+        }
+    }
+
+    private static int getFooterWeight(ParquetMetadata metadata)
+    {
+        long columnChunks = 0;
+        for (BlockMetaData block : metadata.getBlocks()) {
+            columnChunks += block.getColumns().size();
+        }
+        return toIntExact(min(Integer.MAX_VALUE, FOOTER_BASE_WEIGHT + columnChunks * COLUMN_CHUNK_METADATA_WEIGHT));
+    }
+}
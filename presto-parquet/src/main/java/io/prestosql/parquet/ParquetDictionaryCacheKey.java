@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the dictionary page of one column chunk by the offset of the chunk within the file.
+ */
+public final class ParquetDictionaryCacheKey
+{
+    private final ParquetFileCacheKey fileKey;
+    private final long columnChunkOffset;
+
+    public ParquetDictionaryCacheKey(ParquetFileCacheKey fileKey, long columnChunkOffset)
+    {
+        this.fileKey = requireNonNull(fileKey, "fileKey is null");
+        this.columnChunkOffset = columnChunkOffset;
+    }
+
+    public ParquetFileCacheKey getFileKey()
+    {
+        return fileKey;
+    }
+
+    public long getColumnChunkOffset()
+    {
+        return columnChunkOffset;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ParquetDictionaryCacheKey that = (ParquetDictionaryCacheKey) o;
+        return columnChunkOffset == that.columnChunkOffset &&
+                fileKey.equals(that.fileKey);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(fileKey, columnChunkOffset);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("fileKey", fileKey)
+                .add("columnChunkOffset", columnChunkOffset)
+                .toString();
+    }
+}
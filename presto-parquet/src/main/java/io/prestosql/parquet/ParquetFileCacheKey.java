@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies one version of a Parquet file: a rewritten file gets a new modification time and so never
+ * hits the entries cached for its previous contents.
+ */
+public final class ParquetFileCacheKey
+{
+    private final ParquetDataSourceId dataSourceId;
+    private final long lastModifiedTime;
+
+    public ParquetFileCacheKey(ParquetDataSourceId dataSourceId, long lastModifiedTime)
+    {
+        this.dataSourceId = requireNonNull(dataSourceId, "dataSourceId is null");
+        this.lastModifiedTime = lastModifiedTime;
+    }
+
+    public ParquetDataSourceId getDataSourceId()
+    {
+        return dataSourceId;
+    }
+
+    public long getLastModifiedTime()
+    {
+        return lastModifiedTime;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ParquetFileCacheKey that = (ParquetFileCacheKey) o;
+        return lastModifiedTime == that.lastModifiedTime &&
+                dataSourceId.equals(that.dataSourceId);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(dataSourceId, lastModifiedTime);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("dataSourceId", dataSourceId)
+                .add("lastModifiedTime", lastModifiedTime)
+                .toString();
+    }
+}
@@ -13,19 +13,25 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.cache.Cache;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.units.DataSize;
 import io.prestosql.memory.context.AggregatedMemoryContext;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.parquet.ChunkKey;
 import io.prestosql.parquet.ChunkReader;
+import io.prestosql.parquet.DictionaryPage;
 import io.prestosql.parquet.DiskRange;
 import io.prestosql.parquet.Field;
 import io.prestosql.parquet.GroupField;
+import io.prestosql.parquet.ParquetCacheStore;
 import io.prestosql.parquet.ParquetCorruptionException;
 import io.prestosql.parquet.ParquetDataSource;
+import io.prestosql.parquet.ParquetDictionaryCacheKey;
+import io.prestosql.parquet.ParquetFileCacheKey;
 import io.prestosql.parquet.ParquetReaderOptions;
 import io.prestosql.parquet.PrimitiveField;
 import io.prestosql.parquet.RichColumnDescriptor;
@@ -64,10 +70,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.propagateIfPossible;
 import static io.prestosql.parquet.ParquetValidationUtils.validateParquet;
 import static io.prestosql.parquet.reader.ListColumnReader.calculateCollectionOffsets;
 import static io.prestosql.spi.type.StandardTypes.ARRAY;
@@ -115,6 +123,8 @@ public class ParquetReader
     private final List<RowRanges> blockRowRanges;
     private final Map<ColumnPath, ColumnDescriptor> paths = new HashMap<>();
     private final Optional<FilterPredicate> filter;
+    private final ParquetCacheStore cacheStore;
+    private final Optional<ParquetFileCacheKey> fileCacheKey;
 
     public ParquetReader(Optional<String> fileCreatedBy,
                          MessageColumnIO messageColumnIO,
@@ -124,6 +134,25 @@ public class ParquetReader
                          AggregatedMemoryContext systemMemoryContext,
                          DataSize maxReadBlockSize)
     {
+        this(fileCreatedBy, messageColumnIO, blocks, dataSource, timeZone, systemMemoryContext, maxReadBlockSize, ParquetCacheStore.CACHE_NOTHING, Optional.empty());
+    }
+
+    /**
+     * @param fileCacheKey when present, the dictionary pages of the column chunks are taken from and added to
+     * the dictionary cache of the cacheStore
+     */
+    public ParquetReader(Optional<String> fileCreatedBy,
+                         MessageColumnIO messageColumnIO,
+                         List<BlockMetaData> blocks,
+                         ParquetDataSource dataSource,
+                         DateTimeZone timeZone,
+                         AggregatedMemoryContext systemMemoryContext,
+                         DataSize maxReadBlockSize,
+                         ParquetCacheStore cacheStore,
+                         Optional<ParquetFileCacheKey> fileCacheKey)
+    {
+        this.cacheStore = requireNonNull(cacheStore, "cacheStore is null");
+        this.fileCacheKey = requireNonNull(fileCacheKey, "fileCacheKey is null");
         this.blockRowRanges = null;
         this.columnIndexStore = null;
         this.chunkReaders = null;
@@ -171,6 +200,8 @@ public class ParquetReader
             throws IOException
     {
         this.maxReadBlockBytes = 0L;
+        this.cacheStore = ParquetCacheStore.CACHE_NOTHING;
+        this.fileCacheKey = Optional.empty();
         this.fileCreatedBy = requireNonNull(fileCreatedBy, "fileCreatedBy is null");
         this.columns = requireNonNull(messageColumnIO, "messageColumnIO is null").getLeaves();
         this.blocks = requireNonNull(blocks, "blocks is null");
@@ -386,10 +417,18 @@ public class ParquetReader
 
     private ColumnChunk readPrimitive(PrimitiveField field)
             throws IOException
+    {
+        PrimitiveColumnReader columnReader = getColumnReader(field);
+        ColumnChunk columnChunk = columnReader.readPrimitive(field);
+        updateMaxBytesPerCell(field.getId(), columnChunk.getBlock().getSizeInBytes() / batchSize);
+        return columnChunk;
+    }
+
+    private PrimitiveColumnReader getColumnReader(PrimitiveField field)
+            throws IOException
     {
         ColumnDescriptor columnDescriptor = field.getDescriptor();
-        int fieldId = field.getId();
-        PrimitiveColumnReader columnReader = columnReaders[fieldId];
+        PrimitiveColumnReader columnReader = columnReaders[field.getId()];
         if (columnReader.getPageReader() == null) {
             validateParquet(currentBlockMetadata.getRowCount() > 0, "Row group has 0 rows");
             ColumnChunkMetaData metadata = getColumnChunkMetaData(columnDescriptor);
@@ -399,19 +438,40 @@ public class ParquetReader
             dataSource.readFully(startingPosition, buffer);
             ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, metadata, totalSize);
             ParquetColumnChunk columnChunk = new ParquetColumnChunk(fileCreatedBy, descriptor, buffer, 0);
-            columnReader.setPageReader(columnChunk.readAllPages());
+            PageReader pageReader = columnChunk.readAllPages();
+            Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> dictionaryCache = cacheStore.getDictionaryCache();
+            if (fileCacheKey.isPresent() && dictionaryCache != null) {
+                columnReader.setPageReader(pageReader, getCachedDictionaryPage(dictionaryCache, new ParquetDictionaryCacheKey(fileCacheKey.get(), startingPosition), pageReader));
+            }
+            else {
+                columnReader.setPageReader(pageReader);
+            }
         }
-        ColumnChunk columnChunk = columnReader.readPrimitive(field);
+        return columnReader;
+    }
+
+    private static Optional<DictionaryPage> getCachedDictionaryPage(Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> dictionaryCache, ParquetDictionaryCacheKey key, PageReader pageReader)
+            throws IOException
+    {
+        try {
+            // the decompressed page may share the buffer of the whole column chunk, which must not be retained
+            return dictionaryCache.get(key, () -> Optional.ofNullable(pageReader.readDictionaryPage()).map(DictionaryPage::copy));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            propagateIfPossible(e.getCause(), IOException.class);
+            throw new RuntimeException(e.getCause());
+        }
+    }
 
+    private void updateMaxBytesPerCell(int fieldId, long bytesPerCell)
+    {
         // update max size per primitive column chunk
-        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / batchSize;
         if (maxBytesPerCell[fieldId] < bytesPerCell) {
             // update batch size
             maxCombinedBytesPerRow = maxCombinedBytesPerRow - maxBytesPerCell[fieldId] + bytesPerCell;
             maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxReadBlockBytes / maxCombinedBytesPerRow)));
             maxBytesPerCell[fieldId] = bytesPerCell;
         }
-        return columnChunk;
     }
 
     private byte[] allocateBlock(int length)
@@ -447,6 +507,25 @@ public class ParquetReader
         return readColumnChunk(field).getBlock();
     }
 
+    /**
+     * Reads only the given positions of the current batch of a primitive column. Values at the other
+     * positions are skipped while decoding, so that columns read after a filter only decode surviving rows.
+     *
+     * @param positions sorted positions within the current batch
+     * @param positionCount number of valid entries in positions
+     */
+    public Block readBlock(Field field, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(field instanceof PrimitiveField, "positions can only be read from a primitive field");
+        PrimitiveField primitiveField = (PrimitiveField) field;
+        Block block = getColumnReader(primitiveField).readPrimitive(field, positions, positionCount).getBlock();
+        if (positionCount > 0) {
+            updateMaxBytesPerCell(primitiveField.getId(), block.getSizeInBytes() / positionCount);
+        }
+        return block;
+    }
+
     private ColumnChunk readColumnChunk(Field field)
             throws IOException
     {
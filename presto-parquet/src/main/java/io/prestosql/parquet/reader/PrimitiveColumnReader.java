@@ -148,13 +148,22 @@ public abstract class PrimitiveColumnReader
     }
 
     public void setPageReader(PageReader pageReader)
+    {
+        requireNonNull(pageReader, "pageReader");
+        setPageReader(pageReader, Optional.ofNullable(pageReader.readDictionaryPage()));
+    }
+
+    /**
+     * @param dictionaryPage the decompressed dictionary page of the column chunk, e.g. taken from a cache
+     */
+    public void setPageReader(PageReader pageReader, Optional<DictionaryPage> dictionaryPage)
     {
         this.pageReader = requireNonNull(pageReader, "pageReader");
-        DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+        requireNonNull(dictionaryPage, "dictionaryPage is null");
 
-        if (dictionaryPage != null) {
+        if (dictionaryPage.isPresent()) {
             try {
-                dictionary = dictionaryPage.getEncoding().initDictionary(columnDescriptor, dictionaryPage);
+                dictionary = dictionaryPage.get().getEncoding().initDictionary(columnDescriptor, dictionaryPage.get());
             }
             catch (IOException e) {
                 throw new ParquetDecodingException("could not decode the dictionary for " + columnDescriptor, e);
@@ -200,6 +209,47 @@ public abstract class PrimitiveColumnReader
         return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
     }
 
+    /**
+     * Reads the next batch of a flat (non-repeated) column, but only materializes the values at the given
+     * positions of the batch; the other values are skipped without being decoded into the block.
+     *
+     * @param positions sorted positions within the batch to read
+     * @param positionCount number of valid entries in positions
+     */
+    public ColumnChunk readPrimitive(Field field, int[] positions, int positionCount)
+    {
+        checkArgument(columnDescriptor.getMaxRepetitionLevel() == 0, "positions can only be read from a flat column");
+        IntList definitionLevels = new IntArrayList(positionCount);
+        IntList repetitionLevels = new IntArrayList(positionCount);
+        seek();
+        BlockBuilder blockBuilder = field.getType().createBlockBuilder(null, positionCount);
+        int valueCount = 0;
+        int index = 0;
+        while (index < positionCount) {
+            int runStart = positions[index];
+            int runEnd = runStart + 1;
+            index++;
+            while (index < positionCount && positions[index] == runEnd) {
+                runEnd++;
+                index++;
+            }
+            skipRows(runStart - valueCount);
+            valueCount = runStart;
+            while (valueCount < runEnd) {
+                if (page == null) {
+                    readNextPage();
+                }
+                int valuesToRead = Math.min(remainingValueCountInPage, runEnd - valueCount);
+                readValues(blockBuilder, valuesToRead, field.getType(), definitionLevels, repetitionLevels);
+                valueCount += valuesToRead;
+            }
+        }
+        // the tail of the batch is skipped lazily together with the next read
+        readOffset = nextBatchSize - valueCount;
+        nextBatchSize = 0;
+        return new ColumnChunk(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+    }
+
     private void readValues(BlockBuilder blockBuilder, int valuesToRead, Type type, IntList definitionLevels, IntList repetitionLevels)
     {
         processValues(valuesToRead, ignored -> {
@@ -246,16 +296,21 @@ public abstract class PrimitiveColumnReader
         if (readOffset == 0) {
             return;
         }
+        skipRows(readOffset);
+    }
+
+    private void skipRows(int rowCount)
+    {
         int valuePosition = 0;
-        while (valuePosition < readOffset) {
+        while (valuePosition < rowCount) {
             if (page == null) {
                 readNextPage();
             }
-            int offset = Math.min(remainingValueCountInPage, readOffset - valuePosition);
+            int offset = Math.min(remainingValueCountInPage, rowCount - valuePosition);
             skipValues(offset);
             valuePosition = valuePosition + offset;
         }
-        checkArgument(valuePosition == readOffset, "valuePosition %s must be equal to readOffset %s", valuePosition, readOffset);
+        checkArgument(valuePosition == rowCount, "valuePosition %s must be equal to rowCount %s", valuePosition, rowCount);
     }
 
     private boolean readNextPage()
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.parquet;
+
+import com.google.common.cache.Cache;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.parquet.ParquetEncoding.PLAIN_DICTIONARY;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetCacheStore
+{
+    private static final ParquetDataSourceId DATA_SOURCE_ID = new ParquetDataSourceId("file:///tmp/test.parquet");
+
+    @Test
+    public void testCacheNothing()
+    {
+        assertNull(ParquetCacheStore.CACHE_NOTHING.getFooterCache());
+        assertNull(ParquetCacheStore.CACHE_NOTHING.getDictionaryCache());
+    }
+
+    @Test
+    public void testWithEnabledCaches()
+    {
+        ParquetCacheStore store = newCacheStore(new DataSize(1, MEGABYTE));
+
+        ParquetCacheStore footerOnly = store.withEnabledCaches(true, false);
+        assertSame(footerOnly.getFooterCache(), store.getFooterCache());
+        assertNull(footerOnly.getDictionaryCache());
+
+        ParquetCacheStore dictionaryOnly = store.withEnabledCaches(false, true);
+        assertNull(dictionaryOnly.getFooterCache());
+        assertSame(dictionaryOnly.getDictionaryCache(), store.getDictionaryCache());
+    }
+
+    @Test
+    public void testKeysIncludeModificationTime()
+    {
+        Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> cache = newCacheStore(new DataSize(1, MEGABYTE)).getDictionaryCache();
+        ParquetFileCacheKey fileKey = new ParquetFileCacheKey(DATA_SOURCE_ID, 1);
+        cache.put(new ParquetDictionaryCacheKey(fileKey, 4), Optional.of(dictionaryPage(16)));
+
+        assertNotNull(cache.getIfPresent(new ParquetDictionaryCacheKey(new ParquetFileCacheKey(DATA_SOURCE_ID, 1), 4)));
+        assertNull(cache.getIfPresent(new ParquetDictionaryCacheKey(new ParquetFileCacheKey(DATA_SOURCE_ID, 2), 4)));
+        assertNull(cache.getIfPresent(new ParquetDictionaryCacheKey(fileKey, 8)));
+    }
+
+    @Test
+    public void testDictionaryCacheIsBoundedByWeight()
+    {
+        Cache<ParquetDictionaryCacheKey, Optional<DictionaryPage>> cache = newCacheStore(new DataSize(4, KILOBYTE)).getDictionaryCache();
+        ParquetFileCacheKey fileKey = new ParquetFileCacheKey(DATA_SOURCE_ID, 1);
+        for (int i = 0; i < 16; i++) {
+            cache.put(new ParquetDictionaryCacheKey(fileKey, i), Optional.of(dictionaryPage(1024)));
+        }
+        cache.cleanUp();
+
+        long retainedBytes = cache.asMap().values().stream()
+                .mapToLong(page -> page.get().getSlice().getRetainedSize())
+                .sum();
+        assertTrue(retainedBytes <= new DataSize(4, KILOBYTE).toBytes());
+    }
+
+    private static ParquetCacheStore newCacheStore(DataSize maximumWeight)
+    {
+        return ParquetCacheStore.builder().newCacheStore(
+                maximumWeight, Duration.ofHours(1),
+                maximumWeight, Duration.ofHours(1),
+                true);
+    }
+
+    private static DictionaryPage dictionaryPage(int size)
+    {
+        return new DictionaryPage(wrappedBuffer(new byte[size]), 1, PLAIN_DICTIONARY);
+    }
+}
@@ -13,19 +13,34 @@
  */
 package io.prestosql.parquet.reader;
 
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.parquet.DataPage;
+import io.prestosql.parquet.DataPageV2;
 import io.prestosql.parquet.DictionaryPage;
 import io.prestosql.parquet.Field;
 import io.prestosql.parquet.ParquetEncoding;
+import io.prestosql.parquet.PrimitiveField;
 import io.prestosql.parquet.RichColumnDescriptor;
+import io.prestosql.spi.block.Block;
+import org.apache.parquet.bytes.HeapByteBufferAllocator;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.rle.RunLengthBitPackingHybridEncoder;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.Type;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
 import static org.testng.Assert.assertEquals;
 
 public class PrimitiveColumnReaderTest
@@ -52,4 +67,102 @@ public class PrimitiveColumnReaderTest
         final Field field = null;
         assertEquals(new ColumnChunk(null, new int[]{0}, new int[]{0}), result.readPrimitive(field));
     }
+
+    private static final PrimitiveType INT32_TYPE = new PrimitiveType(Type.Repetition.REQUIRED, PrimitiveType.PrimitiveTypeName.INT32, "value");
+    private static final RichColumnDescriptor INT32_DESCRIPTOR = new RichColumnDescriptor(new ColumnDescriptor(new String[] {"value"}, INT32_TYPE, 0, 0), INT32_TYPE);
+    private static final Field INT32_FIELD = new PrimitiveField(INTEGER, 0, 0, true, INT32_DESCRIPTOR, 0);
+
+    @Test
+    public void testReadPositionsAcrossPages()
+    {
+        // three pages of 10 values each, with the values 0 to 29
+        PrimitiveColumnReader reader = new IntColumnReader(INT32_DESCRIPTOR);
+        reader.setPageReader(new PageReader(CompressionCodecName.UNCOMPRESSED, ImmutableList.of(plainPage(0, 10), plainPage(10, 10), plainPage(20, 10)), null));
+
+        reader.prepareNextRead(20);
+        assertValues(reader.readPrimitive(INT32_FIELD, new int[] {1, 8, 9, 10, 11, 19}, 6), 1, 8, 9, 10, 11, 19);
+
+        // the next batch starts right after the end of the previous one, whatever positions were read
+        reader.prepareNextRead(10);
+        assertValues(reader.readPrimitive(INT32_FIELD), 20, 21, 22, 23, 24, 25, 26, 27, 28, 29);
+    }
+
+    @Test
+    public void testSkipRows()
+    {
+        PrimitiveColumnReader reader = new IntColumnReader(INT32_DESCRIPTOR);
+        reader.setPageReader(new PageReader(CompressionCodecName.UNCOMPRESSED, ImmutableList.of(plainPage(0, 10), plainPage(10, 10), plainPage(20, 10)), null));
+
+        // no position selected, the whole batch is skipped
+        reader.prepareNextRead(7);
+        assertValues(reader.readPrimitive(INT32_FIELD, new int[0], 0));
+
+        // only the positions before positionCount are read, the tail of the batch is skipped
+        reader.prepareNextRead(10);
+        assertValues(reader.readPrimitive(INT32_FIELD, new int[] {0, 5, 9}, 2), 7, 12);
+
+        // the skipped batches span entire pages
+        reader.prepareNextRead(5);
+        reader.prepareNextRead(8);
+        assertValues(reader.readPrimitive(INT32_FIELD, new int[] {7}, 1), 29);
+    }
+
+    @Test
+    public void testReadPositionsFromDictionaryPages()
+            throws IOException
+    {
+        int[] dictionary = {100, 200, 300, 400};
+        DynamicSliceOutput dictionaryOutput = new DynamicSliceOutput(dictionary.length * Integer.BYTES);
+        for (int value : dictionary) {
+            dictionaryOutput.writeInt(value);
+        }
+        DictionaryPage dictionaryPage = new DictionaryPage(dictionaryOutput.slice(), dictionary.length, ParquetEncoding.PLAIN);
+
+        // two pages of 8 values each, the value at row i is dictionary[i % 4]
+        PrimitiveColumnReader reader = new IntColumnReader(INT32_DESCRIPTOR);
+        reader.setPageReader(new PageReader(CompressionCodecName.UNCOMPRESSED, ImmutableList.of(dictionaryPage(8), dictionaryPage(8)), dictionaryPage));
+
+        reader.prepareNextRead(16);
+        assertValues(reader.readPrimitive(INT32_FIELD, new int[] {3, 6, 7, 8, 15}, 5), 400, 300, 400, 100, 400);
+    }
+
+    private static DataPage plainPage(int start, int count)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(count * Integer.BYTES);
+        for (int i = start; i < start + count; i++) {
+            output.writeInt(i);
+        }
+        return dataPage(count, ParquetEncoding.PLAIN, output.slice());
+    }
+
+    private static DataPage dictionaryPage(int count)
+            throws IOException
+    {
+        int bitWidth = 2;
+        RunLengthBitPackingHybridEncoder encoder = new RunLengthBitPackingHybridEncoder(bitWidth, 64, 1024, HeapByteBufferAllocator.getInstance());
+        for (int i = 0; i < count; i++) {
+            encoder.writeInt(i % 4);
+        }
+        byte[] ids = encoder.toBytes().toByteArray();
+        DynamicSliceOutput output = new DynamicSliceOutput(ids.length + 1);
+        output.writeByte(bitWidth);
+        output.writeBytes(ids);
+        return dataPage(count, ParquetEncoding.RLE_DICTIONARY, output.slice());
+    }
+
+    private static DataPage dataPage(int count, ParquetEncoding encoding, Slice data)
+    {
+        return new DataPageV2(count, 0, count, Slices.EMPTY_SLICE, Slices.EMPTY_SLICE, encoding, data, data.length(), null, false);
+    }
+
+    private static void assertValues(ColumnChunk columnChunk, long... expected)
+    {
+        Block block = columnChunk.getBlock();
+        assertEquals(block.getPositionCount(), expected.length);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < block.getPositionCount(); i++) {
+            values.add(INTEGER.getLong(block, i));
+        }
+        assertEquals(values, Arrays.stream(expected).boxed().collect(toImmutableList()));
+    }
 }
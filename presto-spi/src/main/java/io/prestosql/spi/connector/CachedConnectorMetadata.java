@@ -843,6 +843,18 @@ public class CachedConnectorMetadata
         return this.delegate.getTableModificationTime(session, tableHandle);
     }
 
+    @Override
+    public Optional<Map<String, Long>> getPartitionModificationTimes(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return this.delegate.getPartitionModificationTimes(session, tableHandle);
+    }
+
+    @Override
+    public Optional<Set<String>> getExistingPartitionNames(ConnectorSession session, ConnectorTableHandle tableHandle, Collection<String> partitionNames)
+    {
+        return this.delegate.getExistingPartitionNames(session, tableHandle, partitionNames);
+    }
+
     @Override
     public boolean isPreAggregationSupported(ConnectorSession session)
     {
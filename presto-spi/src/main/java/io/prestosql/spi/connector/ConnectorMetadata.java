@@ -363,6 +363,26 @@ public interface ConnectorMetadata
         throw new PrestoException(NOT_SUPPORTED, "The connector does not support getting table modification time");
     }
 
+    /**
+     * Returns the modification time of each partition of the table, keyed by partition name, if possible.
+     * Only the partitions matching the constraint already applied to the table handle are returned.
+     * Returns empty if the table is not partitioned or the times could not be determined.
+     */
+    default Optional<Map<String, Long>> getPartitionModificationTimes(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns which of the given partitions of the table still exist, if possible.
+     * Unlike {@link #getPartitionModificationTimes}, the partitions are only looked up in the catalog and not in the storage.
+     * Returns empty if the table is not partitioned or the partitions could not be looked up.
+     */
+    default Optional<Set<String>> getExistingPartitionNames(ConnectorSession session, ConnectorTableHandle tableHandle, Collection<String> partitionNames)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Get the physical layout for a new table.
      */
@@ -844,6 +844,22 @@ public class ClassLoaderSafeConnectorMetadata
         }
     }
 
+    @Override
+    public Optional<Map<String, Long>> getPartitionModificationTimes(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getPartitionModificationTimes(session, tableHandle);
+        }
+    }
+
+    @Override
+    public Optional<Set<String>> getExistingPartitionNames(ConnectorSession session, ConnectorTableHandle tableHandle, Collection<String> partitionNames)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getExistingPartitionNames(session, tableHandle, partitionNames);
+        }
+    }
+
     /**
      * Hetu can only cache execution plans for supported connectors.
      * This method checks if the property for supporting execution plan caching is enabled for a given connector.
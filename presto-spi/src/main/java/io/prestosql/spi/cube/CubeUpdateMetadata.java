@@ -18,6 +18,10 @@ package io.prestosql.spi.cube;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import static java.util.Objects.requireNonNull;
 
 public class CubeUpdateMetadata
@@ -26,18 +30,26 @@ public class CubeUpdateMetadata
     private final long tableLastUpdatedTime;
     private final String dataPredicateString;
     private final boolean overwrite;
+    private final Map<String, Long> sourcePartitions;
+
+    public CubeUpdateMetadata(String cubeName, long tableLastUpdatedTime, String dataPredicateString, boolean overwrite)
+    {
+        this(cubeName, tableLastUpdatedTime, dataPredicateString, overwrite, Collections.emptyMap());
+    }
 
     @JsonCreator
     public CubeUpdateMetadata(
             @JsonProperty("cubeName") String cubeName,
             @JsonProperty("tableLastUpdatedTime") long tableLastUpdatedTime,
             @JsonProperty("dataPredicate") String dataPredicateString,
-            @JsonProperty("overwrite") boolean overwrite)
+            @JsonProperty("overwrite") boolean overwrite,
+            @JsonProperty("sourcePartitions") Map<String, Long> sourcePartitions)
     {
         this.cubeName = requireNonNull(cubeName, "cubeName is null");
         this.tableLastUpdatedTime = tableLastUpdatedTime;
         this.dataPredicateString = dataPredicateString;
         this.overwrite = overwrite;
+        this.sourcePartitions = Collections.unmodifiableMap(new HashMap<>(requireNonNull(sourcePartitions, "sourcePartitions is null")));
     }
 
     @JsonProperty
@@ -64,6 +76,12 @@ public class CubeUpdateMetadata
         return overwrite;
     }
 
+    @JsonProperty
+    public Map<String, Long> getSourcePartitions()
+    {
+        return sourcePartitions;
+    }
+
     @Override
     public String toString()
     {
@@ -72,6 +90,7 @@ public class CubeUpdateMetadata
                 ", tableLastUpdatedTime=" + tableLastUpdatedTime +
                 ", dataPredicateString='" + dataPredicateString + '\'' +
                 ", overwrite=" + overwrite +
+                ", sourcePartitions=" + sourcePartitions +
                 '}';
     }
 }